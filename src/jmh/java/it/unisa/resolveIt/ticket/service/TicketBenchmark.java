@@ -0,0 +1,169 @@
+package it.unisa.resolveIt.ticket.service;
+
+import it.unisa.resolveIt.common.validation.Formato;
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.ticket.dto.CursoreTicket;
+import it.unisa.resolveIt.ticket.dto.PaginaTicketDTO;
+import it.unisa.resolveIt.ticket.dto.TicketDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Constructor;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmark dei percorsi di {@link TicketImpl} eseguiti a ogni richiesta delle pagine dei ticket.
+ * <ul>
+ *     <li>costruzione dei {@link TicketDTO} dalla proiezione delle query, su liste di dimensione crescente;</li>
+ *     <li>taglio della pagina e calcolo del cursore della pagina successiva;</li>
+ *     <li>lettura del cursore ricevuto come parametro della richiesta;</li>
+ *     <li>validazione del titolo in {@link TicketImpl#addTicket};</li>
+ *     <li>lista di lavoro della homepage dell'operatore: il comparatore in memoria usato in origine
+ *     e il lavoro che resta in Java con l'ordinamento fatto dal database.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketBenchmark {
+
+    /**
+     * Righe restituite da una query sui ticket, nell'ordine delle colonne della proiezione.
+     */
+    @State(Scope.Benchmark)
+    public static class RisultatoQuery {
+
+        @Param({"21", "1000", "10000"})
+        int righe;
+
+        Object[][] colonne;
+        Constructor<TicketDTO> costruttore;
+        List<TicketDTO> letti;
+
+        @Setup
+        public void setup() throws ReflectiveOperationException {
+            // Lo stesso costruttore che Hibernate risolve per SELECT_DTO e per cb.construct(TicketDTO.class, ...)
+            costruttore = TicketDTO.class.getConstructor(Long.class, String.class, String.class, Stato.class,
+                    LocalDateTime.class, LocalDateTime.class, LocalDateTime.class, String.class, String.class);
+            LocalDateTime data = LocalDateTime.of(2025, 1, 1, 9, 0);
+            Stato[] stati = Stato.values();
+            colonne = new Object[righe][];
+            for (int i = 0; i < righe; i++) {
+                colonne[i] = new Object[]{(long) i, "Ticket numero " + i, "Descrizione del ticket " + i,
+                        stati[i % stati.length], data.minusMinutes(i), null, null, "allegato" + i + ".txt", "Hardware"};
+            }
+            letti = proiezione(costruttore, colonne);
+        }
+    }
+
+    /**
+     * Ticket assegnati a un operatore con una carriera di lunghezza crescente: pochi in lavorazione, il resto risolti.
+     */
+    @State(Scope.Benchmark)
+    public static class CaricoOperatore {
+
+        private static final int IN_CORSO = 5;
+
+        @Param({"21", "1000", "10000"})
+        int carriera;
+
+        // Tutti i ticket dell'operatore, nell'ordine in cui li restituisce una query senza ORDER BY
+        List<TicketDTO> assegnati;
+
+        // Le due letture ordinate dall'indice: i ticket in lavorazione e una pagina di storico
+        List<TicketDTO> inCorso;
+        PaginaTicketDTO risolti;
+
+        @Setup
+        public void setup() {
+            LocalDateTime data = LocalDateTime.of(2025, 1, 1, 9, 0);
+            assegnati = new ArrayList<>(carriera);
+            for (int i = 0; i < carriera; i++) {
+                Stato stato = i < IN_CORSO ? Stato.IN_CORSO : Stato.RISOLTO;
+                assegnati.add(new TicketDTO((long) i, "Ticket numero " + i, "Descrizione del ticket " + i, stato,
+                        data.minusMinutes(i), null, null, null, "Hardware"));
+            }
+            Collections.shuffle(assegnati, new Random(42));
+
+            Comparator<TicketDTO> recenti = Comparator.comparing(TicketDTO::getDataCreazione).reversed();
+            inCorso = assegnati.stream().filter(t -> t.getStato() == Stato.IN_CORSO).sorted(recenti).toList();
+            risolti = TicketImpl.pagina(assegnati.stream().filter(t -> t.getStato() == Stato.RISOLTO).sorted(recenti)
+                    .limit(TicketImpl.DIMENSIONE_PAGINA + 1).toList());
+        }
+    }
+
+    /**
+     * Parametri di una singola richiesta: il cursore della pagina e i titoli da validare.
+     */
+    @State(Scope.Benchmark)
+    public static class Richiesta {
+
+        String cursore = new CursoreTicket(LocalDateTime.of(2025, 1, 1, 9, 0), 4242L).encode();
+        String titoloValido = "Stampante dell'ufficio non risponde";
+        String titoloNonValido = "Titolo con caratteri non ammessi <script>";
+    }
+
+    @Benchmark
+    public List<TicketDTO> proiezioneDto(RisultatoQuery query) throws ReflectiveOperationException {
+        return proiezione(query.costruttore, query.colonne);
+    }
+
+    @Benchmark
+    public PaginaTicketDTO paginaECursore(RisultatoQuery query) {
+        return TicketImpl.pagina(query.letti);
+    }
+
+    @Benchmark
+    public CursoreTicket parseCursore(Richiesta richiesta) {
+        return CursoreTicket.parse(richiesta.cursore);
+    }
+
+    @Benchmark
+    public void validazioneTitolo(Richiesta richiesta, Blackhole bh) {
+        // Stessa verifica di addTicket, su un titolo accettato e su uno rifiutato
+        bh.consume(Formato.TITOLO_TICKET.verifica(richiesta.titoloValido));
+        bh.consume(Formato.TITOLO_TICKET.verifica(richiesta.titoloNonValido));
+    }
+
+    /**
+     * Riferimento: l'ordinamento in memoria che {@code TicketController.operatoreHome} applicava a tutti i ticket
+     * dell'operatore prima che l'ordine fosse delegato al database. Il comparatore è riportato invariato.
+     */
+    @Benchmark
+    public List<TicketDTO> listaLavoroComparatore(CaricoOperatore carico) {
+        return carico.assegnati.stream()
+                .sorted((t1, t2) -> {
+                    if (t1.getStato().name().equals("IN_CORSO") && !t2.getStato().name().equals("IN_CORSO")) return -1;
+                    if (!t1.getStato().name().equals("IN_CORSO") && t2.getStato().name().equals("IN_CORSO")) return 1;
+                    return t2.getDataCreazione().compareTo(t1.getDataCreazione());
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Il lavoro che resta in Java con l'ordinamento fatto dal database: indipendente dalla lunghezza della carriera.
+     */
+    @Benchmark
+    public PaginaTicketDTO listaLavoroOrdineSql(CaricoOperatore carico) {
+        return TicketImpl.primaPaginaInCarico(carico.inCorso, carico.risolti);
+    }
+
+    // Ciò che Hibernate esegue per ogni riga della proiezione: il costruttore, risolto una volta, invocato via reflection
+    private static List<TicketDTO> proiezione(Constructor<TicketDTO> costruttore, Object[][] colonne)
+            throws ReflectiveOperationException {
+        List<TicketDTO> dto = new ArrayList<>(colonne.length);
+        for (Object[] r : colonne) {
+            dto.add(costruttore.newInstance(r));
+        }
+        return dto;
+    }
+}
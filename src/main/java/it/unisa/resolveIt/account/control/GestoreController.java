@@ -1,11 +1,19 @@
 package it.unisa.resolveIt.account.control;
 
-import it.unisa.resolveIt.model.repository.CategoriaRepository;
-import it.unisa.resolveIt.model.repository.ClienteRepository;
-import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.account.dto.AccountDTO;
+import it.unisa.resolveIt.account.service.AccountService;
+import it.unisa.resolveIt.categoria.dto.CategoriaDTO;
+import it.unisa.resolveIt.categoria.service.CategoriaService;
+import it.unisa.resolveIt.common.dto.CursoreElenco;
+import it.unisa.resolveIt.common.dto.PaginaElencoDTO;
+import it.unisa.resolveIt.common.security.HashingSaturoException;
+import it.unisa.resolveIt.model.entity.Categoria;
 import it.unisa.resolveIt.registrazione.dto.RegistraUtenteDTO;
 import it.unisa.resolveIt.registrazione.service.RegistrazioneService;
+import it.unisa.resolveIt.statistica.dto.StatisticheTicketDTO;
+import it.unisa.resolveIt.statistica.service.StatisticaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,22 +23,27 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Controller
 public class GestoreController {
 
     @Autowired
-    private OperatoreRepository operatoreRepository;
+    private AccountService accountService;
 
     @Autowired
-    private ClienteRepository clienteRepository;
+    private CategoriaService categoriaService;
 
     @Autowired
-    private CategoriaRepository categoriaRepository;
+    private RegistrazioneService registrazioneService;
 
     @Autowired
-    private RegistrazioneService registrazioneService;
+    private StatisticaService statisticaService;
 
     @PreAuthorize("hasAuthority('GESTORE')")
     @GetMapping("/gestore")
@@ -42,13 +55,53 @@ public class GestoreController {
 
         model.addAttribute("utenteDTO", new RegistraUtenteDTO());
 
-        model.addAttribute("operatori", operatoreRepository.findAll());
-        model.addAttribute("clienti", clienteRepository.findAll());
-        model.addAttribute("categorie", categoriaRepository.findAll());
+        // Gli elenchi di account e categorie non vengono caricati qui: ogni scheda li chiede una pagina alla volta
+        // Riepilogo già calcolato in memoria: la dashboard non esegue query sui ticket
+        StatisticheTicketDTO statistiche = statisticaService.getStatistiche();
+        model.addAttribute("statistiche", statistiche);
+
+        // Nomi delle sole categorie presenti nelle statistiche; quelli degli operatori sono già nel riepilogo
+        Map<Long, String> nomiCategorie = new HashMap<>();
+        for (Long id : statistiche.getPerCategoria().keySet()) {
+            categoriaService.getCategoria(id).map(Categoria::getNome).ifPresent(nome -> nomiCategorie.put(id, nome));
+        }
+        model.addAttribute("nomiCategorie", nomiCategorie);
 
         return "gestore";
     }
 
+    @PreAuthorize("hasAuthority('GESTORE')")
+    @GetMapping(value = "/gestore/operatori", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public PaginaElencoDTO<AccountDTO> elencoOperatori(@RequestParam(required = false) String campo,
+                                                       @RequestParam(required = false) String testo,
+                                                       @RequestParam(required = false) Boolean attivo,
+                                                       @RequestParam(required = false, defaultValue = "asc") String ordine,
+                                                       @RequestParam(required = false) String cursore) {
+        return accountService.getPaginaOperatori(campo, testo, attivo, ordine, CursoreElenco.parse(cursore));
+    }
+
+    @PreAuthorize("hasAuthority('GESTORE')")
+    @GetMapping(value = "/gestore/clienti", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public PaginaElencoDTO<AccountDTO> elencoClienti(@RequestParam(required = false) String campo,
+                                                     @RequestParam(required = false) String testo,
+                                                     @RequestParam(required = false) Boolean attivo,
+                                                     @RequestParam(required = false, defaultValue = "asc") String ordine,
+                                                     @RequestParam(required = false) String cursore) {
+        return accountService.getPaginaClienti(campo, testo, attivo, ordine, CursoreElenco.parse(cursore));
+    }
+
+    @PreAuthorize("hasAuthority('GESTORE')")
+    @GetMapping(value = "/gestore/categorie", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public PaginaElencoDTO<CategoriaDTO> elencoCategorie(@RequestParam(required = false) String testo,
+                                                         @RequestParam(required = false) Boolean stato,
+                                                         @RequestParam(required = false, defaultValue = "asc") String ordine,
+                                                         @RequestParam(required = false) String cursore) {
+        return categoriaService.getPaginaCategorie(testo, stato, ordine, CursoreElenco.parse(cursore));
+    }
+
     @PreAuthorize("hasAuthority('GESTORE')")
     @PostMapping("/registerOperator")
     public String registerOperatorController(@ModelAttribute("utenteDTO") RegistraUtenteDTO dto, BindingResult result, RedirectAttributes redirectAttributes) {
@@ -59,6 +112,9 @@ public class GestoreController {
             redirectAttributes.addFlashAttribute("successMessage", "Operatore creato con successo!");
             return "redirect:/gestore?section=accounts&success=operatorCreated";
 
+        } catch (HashingSaturoException e) {
+            // Sovraccarico temporaneo: viene restituito 503, non un errore di validazione
+            throw e;
         } catch (Exception e) {
             //Errore logico (errore del service)
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
@@ -2,6 +2,7 @@ package it.unisa.resolveIt.account.control;
 
 import it.unisa.resolveIt.account.dto.MyProfileDTO;
 import it.unisa.resolveIt.account.service.AccountImpl;
+import it.unisa.resolveIt.common.security.HashingSaturoException;
 import it.unisa.resolveIt.model.entity.Cliente;
 import it.unisa.resolveIt.model.entity.Operatore;
 import jakarta.servlet.http.HttpServletRequest;
@@ -75,6 +76,9 @@ public class MyProfileController {
             redirectAttributes.addFlashAttribute("successMessage", "Profilo aggiornato con successo!");
             return "redirect:/my-profile";
 
+        } catch (HashingSaturoException e) {
+            // Sovraccarico temporaneo: viene restituito 503, non un errore di validazione
+            throw e;
         } catch (Exception e) {
             // Gestione errori logici (Errori del Service)
             model.addAttribute("errorMessage", e.getMessage());
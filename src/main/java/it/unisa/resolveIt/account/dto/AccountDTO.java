@@ -0,0 +1,42 @@
+package it.unisa.resolveIt.account.dto;
+
+/**
+ * Proiezione di un cliente o di un operatore per gli elenchi della dashboard del gestore:
+ * contiene solo le colonne mostrate, senza password né entità gestite dal contesto di persistenza.
+ */
+public class AccountDTO {
+
+    private final Long id;
+    private final String nome;
+    private final String cognome;
+    private final String email;
+    private final boolean attivo;
+
+    public AccountDTO(Long id, String nome, String cognome, String email, boolean attivo) {
+        this.id = id;
+        this.nome = nome;
+        this.cognome = cognome;
+        this.email = email;
+        this.attivo = attivo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public String getCognome() {
+        return cognome;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public boolean isAttivo() {
+        return attivo;
+    }
+}
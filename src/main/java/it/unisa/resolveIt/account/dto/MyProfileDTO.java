@@ -1,22 +1,23 @@
 package it.unisa.resolveIt.account.dto;
 
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
+import it.unisa.resolveIt.common.validation.Formato;
+import it.unisa.resolveIt.common.validation.FormatoValido;
 
 public class MyProfileDTO {
 
     @NotBlank(message = "Il nome è obbligatorio")
-    @Pattern(regexp = "^[a-zA-Z\\sàèìòùÀÈÌÒ’]{2,30}$", message = "Il nome non è valido")
+    @FormatoValido(value = Formato.NOME_PERSONA, message = "Il nome non è valido")
     private String nome;
 
     @NotBlank(message = "Il cognome è obbligatorio")
-    @Pattern(regexp = "^[a-zA-Z\\sàèìòùÀÈÌÒ’]{2,30}$", message = "Il cognome non è valido")
+    @FormatoValido(value = Formato.NOME_PERSONA, message = "Il cognome non è valido")
     private String cognome;
 
     private String email;
 
-    @Pattern(regexp = "^$|^.{8,64}$", message = "La password deve essere tra 8 e 64 caratteri")
+    @FormatoValido(value = Formato.PASSWORD_OPZIONALE, message = "La password deve essere tra 8 e 64 caratteri")
     private String password;
 
     private String confermaPassword;
@@ -1,29 +1,62 @@
 package it.unisa.resolveIt.account.service;
 
+import it.unisa.resolveIt.account.dto.AccountDTO;
 import it.unisa.resolveIt.account.dto.MyProfileDTO;
+import it.unisa.resolveIt.autenticazione.service.AutenticazioneService;
+import it.unisa.resolveIt.common.dto.CursoreElenco;
+import it.unisa.resolveIt.common.dto.PaginaElencoDTO;
+import it.unisa.resolveIt.common.persistence.Blocchi;
+import it.unisa.resolveIt.model.entity.Account;
 import it.unisa.resolveIt.model.entity.Cliente;
 import it.unisa.resolveIt.model.entity.Operatore;
+import it.unisa.resolveIt.model.enums.Ruolo;
+import it.unisa.resolveIt.model.repository.AccountElencoRepository;
+import it.unisa.resolveIt.model.repository.AccountRepository;
 import it.unisa.resolveIt.model.repository.ClienteRepository;
 import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.statistica.service.StatisticaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class AccountImpl implements AccountService {
 
+    static final int DIMENSIONE_PAGINA = 20;
+
+    // Campi ammessi per ordinamento e ricerca negli elenchi del gestore: ciascuno ha il proprio indice
+    private static final Set<String> CAMPI_ELENCO = Set.of("nome", "cognome", "email");
+    static final String CAMPO_PREDEFINITO = "cognome";
+
     @Autowired
     private ClienteRepository clienteRepository;
 
     @Autowired
     private OperatoreRepository operatoreRepository;
 
+    @Autowired
+    private AccountRepository accountRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private AutenticazioneService autenticazioneService;
+
+    @Autowired
+    private StatisticaService statisticaService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
 
     @Transactional
     public void removeAccountCliente(long id) {
@@ -33,6 +66,7 @@ public class AccountImpl implements AccountService {
             if (cliente.get().isEnabled()) {
                 cliente.get().disable();
                 clienteRepository.save(cliente.get());
+                autenticazioneService.invalidaUtente(cliente.get().getEmail());
             } else {
                 throw new RuntimeException("Account cliente già disabilitato");
             }
@@ -50,6 +84,7 @@ public class AccountImpl implements AccountService {
             if (operatore.get().isEnabled()) {
                 operatore.get().disable();
                 operatoreRepository.save(operatore.get());
+                autenticazioneService.invalidaUtente(operatore.get().getEmail());
             } else {
                 throw new RuntimeException("Account operatore già disabilitato");
             }
@@ -59,39 +94,71 @@ public class AccountImpl implements AccountService {
     }
 
 
-    public MyProfileDTO getUserByEmail(String email) {
-        Operatore operatore = operatoreRepository.findByEmail(email);
+    @Transactional
+    public int disabilitaClienti(Collection<Long> ids) {
+        int disabilitati = 0;
+        for (List<Long> blocco : Blocchi.dividi(ids)) {
+            disabilitati += clienteRepository.disabilita(blocco);
+            clienteRepository.findEmailByIdIn(blocco).forEach(autenticazioneService::invalidaUtente);
+        }
+        return disabilitati;
+    }
 
-        if (operatore == null) {
-            Cliente cliente = clienteRepository.findByEmail(email);
-            if (cliente == null) {
-                throw new RuntimeException("Email non registrata!");
-            }
 
-            MyProfileDTO dto = new MyProfileDTO();
-            dto.setNome(cliente.getNome());
-            dto.setCognome(cliente.getCognome());
-            dto.setClient(true);
+    @Transactional
+    public int disabilitaOperatori(Collection<Long> ids) {
+        int disabilitati = 0;
+        for (List<Long> blocco : Blocchi.dividi(ids)) {
+            disabilitati += operatoreRepository.disabilita(blocco);
+            operatoreRepository.findEmailByIdIn(blocco).forEach(autenticazioneService::invalidaUtente);
+        }
+        return disabilitati;
+    }
+
+
+    public MyProfileDTO getUserByEmail(String email) {
+        Account account = accountRepository.findByEmail(email);
 
-            return dto;
+        // Solo clienti e operatori hanno un profilo modificabile
+        if (account == null || account.getRuolo() == Ruolo.GESTORE) {
+            throw new RuntimeException("Email non registrata!");
         }
 
         MyProfileDTO dto = new MyProfileDTO();
-        dto.setNome(operatore.getNome());
-        dto.setCognome(operatore.getCognome());
-        dto.setClient(false);
+        if (account.getRuolo() == Ruolo.OPERATORE) {
+            dto.setNome(account.getOperatore().getNome());
+            dto.setCognome(account.getOperatore().getCognome());
+            dto.setClient(false);
+        } else {
+            dto.setNome(account.getCliente().getNome());
+            dto.setCognome(account.getCliente().getCognome());
+            dto.setClient(true);
+        }
 
         return dto;
     }
 
-    @Transactional
+    // La nuova password viene hashata prima di aprire la transazione: l'attesa sul pool BCrypt
+    // non tiene occupata una connessione del database
     public boolean modifyUser(MyProfileDTO userDto) {
+        String nuovaPassword = userDto.getPassword();
+        String passwordHash = null;
+
+        if (nuovaPassword != null && !nuovaPassword.isEmpty()) {
+            if (!nuovaPassword.equals(userDto.getConfermaPassword())) {
+                throw new RuntimeException("Le password non coincidono!");
+            }
+            passwordHash = passwordEncoder.encode(nuovaPassword);
+        }
+
+        String hash = passwordHash;
+        return transactionTemplate.execute(status -> aggiornaProfilo(userDto, hash));
+    }
+
+    private boolean aggiornaProfilo(MyProfileDTO userDto, String passwordHash) {
         String email = userDto.getEmail();
         String nome = userDto.getNome();
         String cognome = userDto.getCognome();
-        String nuovaPassword = userDto.getPassword();
-        String confermaNuovaPassword = userDto.getConfermaPassword();
-        boolean passwordChanged = false;
 
         Operatore operatore = operatoreRepository.findByEmail(email);
 
@@ -99,14 +166,13 @@ public class AccountImpl implements AccountService {
             operatore.setNome(nome);
             operatore.setCognome(cognome);
 
-            if (nuovaPassword != null && !nuovaPassword.isEmpty()) {
-                if (!nuovaPassword.equals(confermaNuovaPassword)) {
-                    throw new RuntimeException("Le password non coincidono!");
-                }
-                operatore.setPassword(passwordEncoder.encode(nuovaPassword));
-                passwordChanged = true;
+            if (passwordHash != null) {
+                operatore.setPassword(passwordHash);
             }
-            return passwordChanged;
+            autenticazioneService.invalidaUtente(email);
+            // Il riepilogo delle statistiche mostra nome e cognome degli operatori
+            statisticaService.aggiornaOperatore(new AccountDTO(operatore.getId(), nome, cognome, email, operatore.isEnabled()));
+            return passwordHash != null;
         }
 
         Cliente cliente = clienteRepository.findByEmail(email);
@@ -115,16 +181,41 @@ public class AccountImpl implements AccountService {
             cliente.setNome(nome);
             cliente.setCognome(cognome);
 
-            if (nuovaPassword != null && !nuovaPassword.isEmpty()) {
-                if (!nuovaPassword.equals(confermaNuovaPassword)) {
-                    throw new RuntimeException("Le password non coincidono!");
-                }
-                cliente.setPassword(passwordEncoder.encode(nuovaPassword));
-                passwordChanged = true;
+            if (passwordHash != null) {
+                cliente.setPassword(passwordHash);
             }
-            return passwordChanged;
+            autenticazioneService.invalidaUtente(email);
+            return passwordHash != null;
         }
 
         throw new RuntimeException("L'utente non è autorizzato alla modifica o non esiste.");
     }
-}
\ No newline at end of file
+
+
+    public PaginaElencoDTO<AccountDTO> getPaginaClienti(String campo, String testo, Boolean attivo, String ordine, CursoreElenco cursore) {
+        return pagina(clienteRepository, campo, testo, attivo, ordine, cursore);
+    }
+
+
+    public PaginaElencoDTO<AccountDTO> getPaginaOperatori(String campo, String testo, Boolean attivo, String ordine, CursoreElenco cursore) {
+        return pagina(operatoreRepository, campo, testo, attivo, ordine, cursore);
+    }
+
+
+    private static PaginaElencoDTO<AccountDTO> pagina(AccountElencoRepository repository, String campo, String testo,
+                                                      Boolean attivo, String ordine, CursoreElenco cursore) {
+        String chiave = campo != null && CAMPI_ELENCO.contains(campo) ? campo : CAMPO_PREDEFINITO;
+        List<AccountDTO> risultato = repository.findPagina(chiave, testo, attivo, "desc".equals(ordine),
+                cursore != null ? cursore.getValore() : null, cursore != null ? cursore.getId() : null,
+                Limit.of(DIMENSIONE_PAGINA + 1));
+        return PaginaElencoDTO.di(risultato, DIMENSIONE_PAGINA, a -> new CursoreElenco(valore(a, chiave), a.getId()));
+    }
+
+    private static String valore(AccountDTO account, String campo) {
+        return switch (campo) {
+            case "nome" -> account.getNome();
+            case "email" -> account.getEmail();
+            default -> account.getCognome();
+        };
+    }
+}
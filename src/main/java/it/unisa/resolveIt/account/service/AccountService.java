@@ -1,6 +1,11 @@
 package it.unisa.resolveIt.account.service;
 
+import it.unisa.resolveIt.account.dto.AccountDTO;
 import it.unisa.resolveIt.account.dto.MyProfileDTO;
+import it.unisa.resolveIt.common.dto.CursoreElenco;
+import it.unisa.resolveIt.common.dto.PaginaElencoDTO;
+
+import java.util.Collection;
 
 public interface AccountService {
      /**
@@ -42,4 +47,38 @@ public interface AccountService {
      */
     public boolean modifyUser(MyProfileDTO userDto) ;
 
+    /**
+     * Disabilita più account cliente con aggiornamenti a blocchi, senza caricare i singoli utenti.
+     * Gli ID inesistenti o già disabilitati vengono ignorati.
+     * @param ids gli identificativi dei clienti da disabilitare
+     * @return il numero di account effettivamente disabilitati
+     */
+    public int disabilitaClienti(Collection<Long> ids) ;
+
+    /**
+     * Disabilita più account operatore con aggiornamenti a blocchi, senza caricare i singoli utenti.
+     * Gli ID inesistenti o già disabilitati vengono ignorati.
+     * @param ids gli identificativi degli operatori da disabilitare
+     * @return il numero di account effettivamente disabilitati
+     */
+    public int disabilitaOperatori(Collection<Long> ids) ;
+
+    /**
+     * Restituisce una pagina dell'elenco dei clienti per la dashboard del gestore, filtrata e ordinata dal database.
+     * @param campo campo di ordinamento e di ricerca ({@code nome}, {@code cognome} o {@code email}); se non valido si ordina per cognome
+     * @param testo prefisso da cercare nel campo di ordinamento; può essere null
+     * @param attivo true per i soli account attivi, false per i soli disattivati, null per tutti
+     * @param ordine {@code desc} per l'ordine alfabetico inverso, altrimenti crescente
+     * @param cursore la posizione restituita con la pagina precedente; null per la prima pagina
+     * @return la pagina di clienti e il cursore della pagina successiva
+     */
+    public PaginaElencoDTO<AccountDTO> getPaginaClienti(String campo, String testo, Boolean attivo, String ordine, CursoreElenco cursore) ;
+
+    /**
+     * Restituisce una pagina dell'elenco degli operatori per la dashboard del gestore, filtrata e ordinata dal database.
+     * I parametri hanno lo stesso significato di {@link #getPaginaClienti}.
+     * @return la pagina di operatori e il cursore della pagina successiva
+     */
+    public PaginaElencoDTO<AccountDTO> getPaginaOperatori(String campo, String testo, Boolean attivo, String ordine, CursoreElenco cursore) ;
+
     }
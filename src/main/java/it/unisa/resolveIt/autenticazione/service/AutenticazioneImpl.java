@@ -1,41 +1,41 @@
 package it.unisa.resolveIt.autenticazione.service;
 
+import it.unisa.resolveIt.common.config.CacheConfig;
+import it.unisa.resolveIt.model.entity.Account;
 import it.unisa.resolveIt.model.entity.Cliente;
-import it.unisa.resolveIt.model.entity.Gestore;
 import it.unisa.resolveIt.model.entity.Operatore;
-import it.unisa.resolveIt.model.repository.ClienteRepository;
-import it.unisa.resolveIt.model.repository.GestoreRepository;
-import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.model.repository.AccountRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Locale;
+
 @Service
 public class AutenticazioneImpl implements AutenticazioneService {
 
     @Autowired
-    private ClienteRepository clienteRepository;
-
-    @Autowired
-    private OperatoreRepository operatoreRepository;
+    private AccountRepository accountRepository;
 
     @Autowired
-    private GestoreRepository gestoreRepository;
+    private CacheManager cacheManager;
 
     /**
      * Carica un utente dal sistema dato il suo indirizzo email.
      *
-     * <p>Il metodo cerca l'utente in questo ordine:
-     * <ol>
-     *     <li>Gestore</li>
-     *     <li>Operatore</li>
-     *     <li>Cliente</li>
-     * </ol>
-     * Se l'utente viene trovato in uno di questi repository, viene restituito
-     * come {@link UserDetails} per l'autenticazione tramite Spring Security.
+     * <p>Il metodo cerca l'email nell'indice degli {@link Account}, che la associa al suo ruolo,
+     * e carica con la stessa query il Gestore, l'Operatore o il Cliente corrispondente.
+     * L'utente trovato viene restituito come {@link UserDetails} per l'autenticazione tramite Spring Security.
+     *
+     * <p>Gli utenti trovati restano nella cache {@value CacheConfig#CACHE_UTENTI}, così le autenticazioni
+     * e le richieste successive non interrogano il database. Le email non trovate non vengono memorizzate.
+     * La chiave è l'email normalizzata, perché il database la confronta senza distinguere le maiuscole:
+     * ogni grafia della stessa email corrisponde a un'unica voce, rimossa da {@link #invalidaUtente}.
      *
      * <p>Se nessun utente corrisponde all'email fornita, viene lanciata un'eccezione
      * {@link UsernameNotFoundException}.
@@ -48,26 +48,50 @@ public class AutenticazioneImpl implements AutenticazioneService {
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-
-        // Cerca gestore
-        Gestore gestore = gestoreRepository.findByEmail(email);
-        if (gestore != null) {
-            return gestore;
+        Cache utenti = cacheManager.getCache(CacheConfig.CACHE_UTENTI);
+        String chiave = chiave(email);
+        UserDetails utente = utenti.get(chiave, UserDetails.class);
+        if (utente == null) {
+            utente = cercaUtente(email);
+            utenti.put(chiave, utente);
         }
+        return utente;
+    }
 
-        // Cerca operatore
-        Operatore operatore = operatoreRepository.findByEmail(email);
-        if (operatore != null) {
-            return operatore;
+    @Override
+    public Cliente getCliente(String email) {
+        try {
+            return loadUserByUsername(email) instanceof Cliente cliente ? cliente : null;
+        } catch (UsernameNotFoundException e) {
+            return null;
         }
+    }
 
-        // Cerca cliente
-        Cliente cliente = clienteRepository.findByEmail(email);
-        if (cliente != null) {
-            return cliente;
+    @Override
+    public Operatore getOperatore(String email) {
+        try {
+            return loadUserByUsername(email) instanceof Operatore operatore ? operatore : null;
+        } catch (UsernameNotFoundException e) {
+            return null;
         }
+    }
+
+    @Override
+    public void invalidaUtente(String email) {
+        cacheManager.getCache(CacheConfig.CACHE_UTENTI).evict(chiave(email));
+    }
+
+    // Stesso confronto della collation del database, che non distingue maiuscole e minuscole
+    private static String chiave(String email) {
+        return email.strip().toLowerCase(Locale.ROOT);
+    }
 
-        throw new UsernameNotFoundException("Utente non trovato con email: " + email);
+    private UserDetails cercaUtente(String email) {
+        Account account = accountRepository.findByEmail(email);
+        if (account == null) {
+            throw new UsernameNotFoundException("Utente non trovato con email: " + email);
+        }
+        return account.getUtente();
     }
 
 }
@@ -1,8 +1,33 @@
 package it.unisa.resolveIt.autenticazione.service;
 
+import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.Operatore;
 import org.springframework.security.core.userdetails.UserDetailsService;
 /**
  * Servizio per il caricamento degli utenti ai fini dell'autenticazione.
  */
 public interface AutenticazioneService extends UserDetailsService {
+
+    /**
+     * Restituisce il cliente autenticato con l'email indicata, letto dalla cache degli utenti.
+     *
+     * @param email l'email dell'utente autenticato.
+     * @return il {@link Cliente}, oppure {@code null} se l'email non appartiene a un cliente.
+     */
+    Cliente getCliente(String email);
+
+    /**
+     * Restituisce l'operatore autenticato con l'email indicata, letto dalla cache degli utenti.
+     *
+     * @param email l'email dell'utente autenticato.
+     * @return l'{@link Operatore}, oppure {@code null} se l'email non appartiene a un operatore.
+     */
+    Operatore getOperatore(String email);
+
+    /**
+     * Rimuove un utente dalla cache, da chiamare dopo ogni modifica dei suoi dati o della sua abilitazione.
+     *
+     * @param email l'email dell'utente modificato.
+     */
+    void invalidaUtente(String email);
 }
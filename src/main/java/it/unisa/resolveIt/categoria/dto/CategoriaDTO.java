@@ -0,0 +1,29 @@
+package it.unisa.resolveIt.categoria.dto;
+
+/**
+ * Proiezione di una categoria per l'elenco paginato della dashboard del gestore.
+ */
+public class CategoriaDTO {
+
+    private final Long id;
+    private final String nome;
+    private final boolean stato;
+
+    public CategoriaDTO(long id, String nome, boolean stato) {
+        this.id = id;
+        this.nome = nome;
+        this.stato = stato;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public boolean isStato() {
+        return stato;
+    }
+}
@@ -1,19 +1,42 @@
 package it.unisa.resolveIt.categoria.service;
 
+import it.unisa.resolveIt.categoria.dto.CategoriaDTO;
+import it.unisa.resolveIt.common.config.CacheConfig;
+import it.unisa.resolveIt.common.dto.CursoreElenco;
+import it.unisa.resolveIt.common.dto.PaginaElencoDTO;
+import it.unisa.resolveIt.common.validation.Formato;
 import it.unisa.resolveIt.model.repository.CategoriaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import it.unisa.resolveIt.model.entity.Categoria;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CategoriaImpl implements  CategoriaService{
 
+    // Unica voce della cache delle categorie: l'elenco completo, con le viste già pronte per le letture frequenti
+    private static final String CATALOGO = "catalogo";
+
+    static final int DIMENSIONE_PAGINA = 20;
+
     @Autowired
     //Categoria repository
     private CategoriaRepository categoriaRepository ;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Transactional
     public void disableCategoria(long id) {
         Optional<Categoria> esistente = categoriaRepository.findById(id);
@@ -21,6 +44,7 @@ public class CategoriaImpl implements  CategoriaService{
             // CORREZIONE: Se la disabilitazione ha successo, salvo.
             if (esistente.get().disable()) {
                 categoriaRepository.save(esistente.get());
+                invalidaCatalogo();
             } else {
                 // ALTRIMENTI (else), se era già disabilitata, lancio l'errore.
                 // Senza questo 'else', l'errore veniva lanciato sempre, annullando il salvataggio!
@@ -39,6 +63,7 @@ public class CategoriaImpl implements  CategoriaService{
             // CORREZIONE: Aggiunto else anche qui
             if (esistente.get().enable()) {
                 categoriaRepository.save(esistente.get());
+                invalidaCatalogo();
             } else {
                 throw new RuntimeException("Categoria già abilitata");
             }
@@ -55,8 +80,10 @@ public class CategoriaImpl implements  CategoriaService{
         }
         if (categoriaRepository.existsById(categoria.getID_C()) || (categoriaRepository.findByNome(categoria.getNome()) != null))
             throw new RuntimeException("Categoria già presente nel database");
-        else
+        else {
             categoriaRepository.save(categoria);
+            invalidaCatalogo();
+        }
     }
 
     @Transactional
@@ -73,9 +100,89 @@ public class CategoriaImpl implements  CategoriaService{
         if (esistente.isPresent()) {
             esistente.get().setNome(categoria.getNome());
             categoriaRepository.save(esistente.get());
+            invalidaCatalogo();
 
         } else
             throw new RuntimeException("Categoria non trovata per l'aggiornamento");
 
     }
-}
\ No newline at end of file
+
+    @Transactional
+    public int addCategorie(List<String> nomi) {
+        if (nomi == null) {
+            throw new IllegalArgumentException("Dati categoria non validi");
+        }
+        for (String nome : nomi) {
+            if (!Formato.NOME_CATEGORIA.verifica(nome)) {
+                throw new RuntimeException("Formato nome categoria non valido: " + nome);
+            }
+        }
+        // Un'unica lettura dei nomi esistenti al posto di una findByNome per ogni categoria
+        Set<String> presenti = new HashSet<>(categoriaRepository.findAllNomi());
+        List<Categoria> nuove = new ArrayList<>();
+        for (String nome : nomi) {
+            if (presenti.add(nome)) {
+                nuove.add(new Categoria(nome, true));
+            }
+        }
+        if (!nuove.isEmpty()) {
+            // Gli ID vengono presi dalla sequenza a blocchi e gli INSERT inviati in batch (vedi application.properties)
+            categoriaRepository.saveAll(nuove);
+            invalidaCatalogo();
+        }
+        return nuove.size();
+    }
+
+    @Override
+    public List<Categoria> getCategorie() {
+        return catalogo().tutte();
+    }
+
+    @Override
+    public List<Categoria> getCategorieAttive() {
+        return catalogo().attive();
+    }
+
+    @Override
+    public Optional<Categoria> getCategoria(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Categoria categoria = catalogo().perId().get(id);
+        if (categoria != null) {
+            return Optional.of(categoria);
+        }
+        Optional<Categoria> letta = categoriaRepository.findById(id);
+        if (letta.isPresent()) {
+            // La categoria esiste ma il catalogo in cache non la contiene: viene ricaricato alla prossima lettura
+            invalidaCatalogo();
+        }
+        return letta;
+    }
+
+    @Override
+    public PaginaElencoDTO<CategoriaDTO> getPaginaCategorie(String testo, Boolean stato, String ordine, CursoreElenco cursore) {
+        List<CategoriaDTO> risultato = categoriaRepository.findPagina(testo, stato, "desc".equals(ordine),
+                cursore != null ? cursore.getValore() : null, cursore != null ? cursore.getId() : null,
+                Limit.of(DIMENSIONE_PAGINA + 1));
+        return PaginaElencoDTO.di(risultato, DIMENSIONE_PAGINA, c -> new CursoreElenco(c.getNome(), c.getId()));
+    }
+
+    // Caricato con una sola query al primo accesso e riusato finché una modifica non lo invalida
+    private Catalogo catalogo() {
+        return cacheManager.getCache(CacheConfig.CACHE_CATEGORIE).get(CATALOGO, () -> {
+            List<Categoria> tutte = List.copyOf(categoriaRepository.findAll());
+            return new Catalogo(tutte,
+                    tutte.stream().filter(Categoria::getStato).toList(),
+                    tutte.stream().collect(Collectors.toUnmodifiableMap(Categoria::getID_C, Function.identity())));
+        });
+    }
+
+    // Dentro una transazione l'invalidazione viene applicata solo dopo il commit (vedi CacheConfig)
+    private void invalidaCatalogo() {
+        cacheManager.getCache(CacheConfig.CACHE_CATEGORIE).evict(CATALOGO);
+    }
+
+    private record Catalogo(List<Categoria> tutte, List<Categoria> attive, Map<Long, Categoria> perId) {
+    }
+}
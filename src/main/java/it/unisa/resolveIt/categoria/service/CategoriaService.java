@@ -1,7 +1,12 @@
 package it.unisa.resolveIt.categoria.service;
 
+import it.unisa.resolveIt.categoria.dto.CategoriaDTO;
+import it.unisa.resolveIt.common.dto.CursoreElenco;
+import it.unisa.resolveIt.common.dto.PaginaElencoDTO;
 import it.unisa.resolveIt.model.entity.Categoria;
 
+import java.util.List;
+import java.util.Optional;
 
 public interface CategoriaService {
     /**
@@ -28,5 +33,46 @@ public interface CategoriaService {
      */
     public void updateCategoria(Categoria categoria);
 
+    /**
+     * Restituisce tutte le categorie, abilitate e disabilitate, lette dalla cache delle categorie.
+     * Le categorie restituite sono condivise tra le richieste e non vanno modificate.
+     * @return l'elenco non modificabile delle categorie
+     */
+    public List<Categoria> getCategorie();
+
+    /**
+     * Restituisce le categorie abilitate, a cui possono fare riferimento i nuovi ticket, lette dalla cache delle categorie.
+     * @return l'elenco non modificabile delle categorie abilitate
+     */
+    public List<Categoria> getCategorieAttive();
+
+    /**
+     * Cerca una categoria nella cache delle categorie; se non è presente (ad esempio perché creata senza passare
+     * da questo servizio) la legge dal database.
+     * @param id la chiave primaria della categoria; può essere null
+     * @return la categoria, oppure {@link Optional#empty()} se non esiste
+     */
+    public Optional<Categoria> getCategoria(Long id);
+
+    /**
+     * Crea più categorie abilitate con un unico inserimento a lotti, ad esempio per importare un catalogo esistente.
+     * I nomi già presenti nel database o ripetuti nell'elenco vengono ignorati.
+     * @param nomi i nomi delle categorie da creare
+     * @return il numero di categorie effettivamente create
+     * @throws RuntimeException se un nome non rispetta il formato delle categorie; in tal caso nessuna categoria viene creata
+     */
+    public int addCategorie(List<String> nomi);
+
+    /**
+     * Restituisce una pagina dell'elenco delle categorie per la dashboard del gestore, ordinata per nome e
+     * filtrata dal database invece che dalla cache, che resta riservata alle letture frequenti dei ticket.
+     * @param testo prefisso del nome da cercare; può essere null
+     * @param stato true per le sole categorie abilitate, false per le sole disabilitate, null per tutte
+     * @param ordine {@code desc} per l'ordine alfabetico inverso, altrimenti crescente
+     * @param cursore la posizione restituita con la pagina precedente; null per la prima pagina
+     * @return la pagina di categorie e il cursore della pagina successiva
+     */
+    public PaginaElencoDTO<CategoriaDTO> getPaginaCategorie(String testo, Boolean stato, String ordine, CursoreElenco cursore);
+
 
     }
@@ -0,0 +1,37 @@
+package it.unisa.resolveIt.common.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Utenti autenticati indicizzati per email (Gestore, Operatore o Cliente)
+    public static final String CACHE_UTENTI = "utenti";
+
+    // Elenco delle categorie, letto a ogni apertura della home del cliente e a ogni nuovo ticket
+    public static final String CACHE_CATEGORIE = "categorie";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${resolveit.cache.utenti.spec}") String specUtenti,
+                                     @Value("${resolveit.cache.categorie.spec}") String specCategorie) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(CACHE_UTENTI, Caffeine.from(specUtenti).recordStats().build());
+        cacheManager.registerCustomCache(CACHE_CATEGORIE, Caffeine.from(specCategorie).recordStats().build());
+        // Solo le cache registrate: un nome sbagliato è un errore, non una nuova cache illimitata
+        cacheManager.setCacheNames(List.of());
+
+        // Le invalidazioni eseguite dentro una transazione vengono applicate solo dopo il commit
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
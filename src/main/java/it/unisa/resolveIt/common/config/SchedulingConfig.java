@@ -0,0 +1,10 @@
+package it.unisa.resolveIt.common.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Attività periodiche, come la consegna degli eventi della outbox (DispatcherEventiTicket)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
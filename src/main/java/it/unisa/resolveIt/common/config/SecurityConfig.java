@@ -1,5 +1,10 @@
 package it.unisa.resolveIt.common.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import it.unisa.resolveIt.common.security.HashingSaturoException;
+import it.unisa.resolveIt.common.security.HashingSaturoFilter;
+import it.unisa.resolveIt.common.security.PasswordEncoderLimitato;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -13,6 +18,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import java.util.Set;
 
@@ -21,21 +28,26 @@ import java.util.Set;
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
 
+    // BCrypt gira su un pool dedicato e limitato, fuori dai thread delle richieste (vedi PasswordEncoderLimitato)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${resolveit.password.bcrypt-strength}") int strength,
+                                           @Value("${resolveit.password.thread}") int thread,
+                                           @Value("${resolveit.password.coda}") int coda,
+                                           MeterRegistry registry) {
+        return new PasswordEncoderLimitato(new BCryptPasswordEncoder(strength), thread, coda, registry);
     }
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        SimpleUrlAuthenticationFailureHandler loginFallito = new SimpleUrlAuthenticationFailureHandler("/login-form?error=true");
         http
                 .authorizeHttpRequests(auth -> auth
                         // pagine pubbliche
                         .requestMatchers("/error").permitAll()
                         .requestMatchers("/login-form", "/register").anonymous()
 
-                        // GET /gestore e POST di gestione account/categorie: solo GESTORE
-                        .requestMatchers(HttpMethod.GET, "/gestore").hasAuthority("GESTORE")
+                        // GET /gestore, elenchi della dashboard e POST di gestione account/categorie: solo GESTORE
+                        .requestMatchers(HttpMethod.GET, "/gestore", "/gestore/**").hasAuthority("GESTORE")
                         .requestMatchers(HttpMethod.POST,
                                 "/registerOperator",
                                 "/account/removeCliente",
@@ -46,7 +58,8 @@ public class SecurityConfig {
                                 "/categoria/updateCategoria"
                         ).hasAuthority("GESTORE")
                         .requestMatchers("/ticket/home", "/ticket/salva/**", "/ticket/elimina/**").hasAuthority("CLIENTE")
-                        .requestMatchers("/ticket/operatore-home", "/ticket/prendi/**", "/ticket/risolvi/**", "/ticket/rilascia/**").hasAuthority("OPERATORE")
+                        .requestMatchers("/ticket/operatore-home", "/ticket/prendi/**", "/ticket/prendi-prossimo", "/ticket/risolvi/**", "/ticket/rilascia/**",
+                                "/ticket/transizioni", "/ticket/eventi").hasAuthority("OPERATORE")
                         .requestMatchers("/my-profile", "/ticket/download/**").hasAnyAuthority("CLIENTE", "OPERATORE")
                 )
                 .formLogin(form -> form
@@ -66,7 +79,13 @@ public class SecurityConfig {
                                 response.sendRedirect(request.getContextPath() + "/");
                             }
                         })
-                        .failureUrl("/login-form?error=true")
+                        .failureHandler((request, response, exception) -> {
+                            // Pool di hashing saturo: non sono le credenziali a essere sbagliate, se ne occupa HashingSaturoFilter
+                            if (exception.getCause() instanceof HashingSaturoException saturo) {
+                                throw saturo;
+                            }
+                            loginFallito.onAuthenticationFailure(request, response, exception);
+                        })
                 )
                 .logout(logout -> logout
                         .logoutUrl("/logout")
@@ -75,6 +94,8 @@ public class SecurityConfig {
                         .deleteCookies("JSESSIONID")
                         .permitAll()
                 )
+                // Risponde 503 se il pool di hashing delle password è saturo durante il login
+                .addFilterBefore(new HashingSaturoFilter(), UsernamePasswordAuthenticationFilter.class)
                 .exceptionHandling(exception -> exception
                         .accessDeniedHandler((request, response, accessDeniedException) -> {
                             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -0,0 +1,53 @@
+package it.unisa.resolveIt.common.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posizione di un elenco paginato per chiave (keyset) su {@code (campo di ordinamento, id)},
+ * usato per gli elenchi di account e categorie della dashboard del gestore.
+ * Come per {@link it.unisa.resolveIt.ticket.dto.CursoreTicket}, la pagina successiva parte dall'ultimo
+ * elemento mostrato invece che da un offset.
+ */
+public class CursoreElenco {
+
+    private final String valore;
+    private final Long id;
+
+    public CursoreElenco(String valore, Long id) {
+        this.valore = valore;
+        this.id = id;
+    }
+
+    /**
+     * @param valore il cursore ricevuto come parametro della richiesta.
+     * @return il cursore decodificato, oppure {@code null} se assente o non valido (si riparte dalla prima pagina).
+     */
+    public static CursoreElenco parse(String valore) {
+        if (valore == null || valore.isBlank()) {
+            return null;
+        }
+        try {
+            String decodificato = new String(Base64.getUrlDecoder().decode(valore), StandardCharsets.UTF_8);
+            // L'ID è scritto per primo: il valore del campo può contenere il separatore
+            int separatore = decodificato.indexOf('|');
+            return new CursoreElenco(decodificato.substring(separatore + 1),
+                    Long.parseLong(decodificato.substring(0, separatore)));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public String encode() {
+        String valore = id + "|" + this.valore;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valore.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getValore() {
+        return valore;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
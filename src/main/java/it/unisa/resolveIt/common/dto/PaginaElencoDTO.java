@@ -0,0 +1,44 @@
+package it.unisa.resolveIt.common.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Pagina di un elenco della dashboard del gestore, restituita in JSON.
+ * Non contiene il numero totale di elementi: contarli richiederebbe di scorrere tutta la tabella a ogni pagina.
+ */
+public class PaginaElencoDTO<T> {
+
+    private final List<T> elementi;
+    private final String cursoreSuccessivo;
+
+    public PaginaElencoDTO(List<T> elementi, String cursoreSuccessivo) {
+        this.elementi = elementi;
+        this.cursoreSuccessivo = cursoreSuccessivo;
+    }
+
+    /**
+     * Costruisce la pagina dal risultato di una query con limite {@code dimensione + 1}:
+     * l'elemento in più indica solo che esiste una pagina successiva e non viene restituito.
+     *
+     * @param cursore la posizione da cui ripartire dopo l'elemento indicato.
+     */
+    public static <T> PaginaElencoDTO<T> di(List<T> risultato, int dimensione, Function<T, CursoreElenco> cursore) {
+        if (risultato.size() <= dimensione) {
+            return new PaginaElencoDTO<>(risultato, null);
+        }
+        List<T> elementi = risultato.subList(0, dimensione);
+        return new PaginaElencoDTO<>(elementi, cursore.apply(elementi.get(dimensione - 1)).encode());
+    }
+
+    public List<T> getElementi() {
+        return elementi;
+    }
+
+    /**
+     * @return il cursore da passare per ottenere la pagina successiva, {@code null} se questa è l'ultima.
+     */
+    public String getCursoreSuccessivo() {
+        return cursoreSuccessivo;
+    }
+}
@@ -1,9 +1,11 @@
 package it.unisa.resolveIt.common.loader;
 
+import it.unisa.resolveIt.model.entity.Account;
 import it.unisa.resolveIt.model.entity.Categoria;
 import it.unisa.resolveIt.model.entity.Cliente;
 import it.unisa.resolveIt.model.entity.Gestore;
 import it.unisa.resolveIt.model.entity.Operatore;
+import it.unisa.resolveIt.model.repository.AccountRepository;
 import it.unisa.resolveIt.model.repository.CategoriaRepository;
 import it.unisa.resolveIt.model.repository.ClienteRepository;
 import it.unisa.resolveIt.model.repository.GestoreRepository;
@@ -12,6 +14,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
 
 @Component //dice a Spring di caricare questa classe
 public class DatabasePopulator implements CommandLineRunner {
@@ -25,6 +28,9 @@ public class DatabasePopulator implements CommandLineRunner {
     @Autowired
     private GestoreRepository gestoreRepository;
 
+    @Autowired
+    private AccountRepository accountRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -32,6 +38,7 @@ public class DatabasePopulator implements CommandLineRunner {
     private CategoriaRepository categoriaRepository;
 
     @Override
+    @Transactional // ogni utente viene salvato insieme alla sua riga nell'indice degli account
     public void run(String... args) throws Exception {
 
         if(!isRegistered("cliente@test.com")){
@@ -41,6 +48,7 @@ public class DatabasePopulator implements CommandLineRunner {
             cliente.setEmail("cliente@test.com");
             cliente.setPassword(passwordEncoder.encode("cliente123"));
             clienteRepository.save(cliente);
+            accountRepository.save(new Account(cliente));
             System.out.println("Cliente registrato!");
         } else {
             System.out.println("Cliente già registrato. Salto il caricamento.");
@@ -54,6 +62,7 @@ public class DatabasePopulator implements CommandLineRunner {
             cliente.setPassword(passwordEncoder.encode("cliente123"));
             cliente.disable();
             clienteRepository.save(cliente);
+            accountRepository.save(new Account(cliente));
             System.out.println("Cliente disabilitato registrato!");
         } else {
             System.out.println("Cliente disabilitato già registrato. Salto il caricamento.");
@@ -66,6 +75,7 @@ public class DatabasePopulator implements CommandLineRunner {
             operatore.setEmail("operatore@test.com");
             operatore.setPassword(passwordEncoder.encode("operatore123"));
             operatoreRepository.save(operatore);
+            accountRepository.save(new Account(operatore));
             System.out.println("Operatore registrato!");
         } else {
             System.out.println("Operatore già registrato. Salto il caricamento.");
@@ -76,6 +86,7 @@ public class DatabasePopulator implements CommandLineRunner {
             gestore.setEmail("gestore@test.com");
             gestore.setPassword(passwordEncoder.encode("gestore123"));
             gestoreRepository.save(gestore);
+            accountRepository.save(new Account(gestore));
             System.out.println("Gestore registrato!");
         } else {
             System.out.println("Gestore già registrato. Salto il caricamento.");
@@ -98,7 +109,7 @@ public class DatabasePopulator implements CommandLineRunner {
     }
 
     private boolean isRegistered(String email){
-        return (clienteRepository.existsByEmail(email) || operatoreRepository.existsByEmail(email) || gestoreRepository.existsByEmail(email));
+        return accountRepository.existsByEmail(email);
     }
 
 }
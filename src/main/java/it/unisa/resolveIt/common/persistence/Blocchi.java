@@ -0,0 +1,26 @@
+package it.unisa.resolveIt.common.persistence;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Suddivide gli identificativi delle operazioni massive in blocchi di dimensione limitata, così che ogni
+ * {@code UPDATE ... WHERE id IN (...)} resti entro una lunghezza ragionevole anche con decine di migliaia di righe.
+ */
+public final class Blocchi {
+
+    public static final int DIMENSIONE = 1000;
+
+    private Blocchi() {
+    }
+
+    public static <T> List<List<T>> dividi(Collection<T> valori) {
+        List<T> distinti = valori.stream().distinct().toList();
+        List<List<T>> blocchi = new ArrayList<>();
+        for (int i = 0; i < distinti.size(); i += DIMENSIONE) {
+            blocchi.add(distinti.subList(i, Math.min(i + DIMENSIONE, distinti.size())));
+        }
+        return blocchi;
+    }
+}
@@ -0,0 +1,26 @@
+package it.unisa.resolveIt.common.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Lanciata quando il pool dedicato all'hashing delle password è saturo.
+ * La richiesta viene chiusa con HTTP 503 e l'header {@code Retry-After}, così il client può riprovare.
+ */
+public class HashingSaturoException extends ResponseStatusException {
+
+    // Secondi suggeriti al client prima di riprovare
+    private static final String RIPROVA_DOPO = "1";
+
+    public HashingSaturoException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Servizio momentaneamente sovraccarico, riprovare tra poco");
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, RIPROVA_DOPO);
+        return headers;
+    }
+}
@@ -0,0 +1,30 @@
+package it.unisa.resolveIt.common.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Trasforma una {@link HashingSaturoException} lanciata nella catena dei filtri di sicurezza (ad esempio
+ * durante il login, che non passa dai controller) in una risposta HTTP 503 con l'header {@code Retry-After}.
+ */
+public class HashingSaturoFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } catch (HashingSaturoException saturo) {
+            if (response.isCommitted()) {
+                throw saturo;
+            }
+            saturo.getHeaders().forEach((nome, valori) -> valori.forEach(v -> response.addHeader(nome, v)));
+            response.sendError(saturo.getStatusCode().value(), saturo.getReason());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package it.unisa.resolveIt.common.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link PasswordEncoder} che esegue {@code encode} e {@code matches} su un pool di thread dedicato e limitato.
+ * <p>
+ * Il calcolo di un hash BCrypt è volutamente costoso: eseguito sui thread delle richieste, un picco di
+ * login o registrazioni occuperebbe tutto il pool di Tomcat e bloccherebbe il resto dell'applicazione.
+ * Con questo encoder al più {@code thread} hash sono calcolati contemporaneamente e al più {@code coda}
+ * richieste restano in attesa; oltre questo limite la richiesta viene rifiutata subito con
+ * {@link HashingSaturoException} (HTTP 503), invece di accodarsi senza limite.
+ * </p>
+ * Lo stato del pool è esposto con le metriche {@code resolveit.password.coda}, {@code resolveit.password.attivi}
+ * e {@code resolveit.password.rifiutati}.
+ */
+public class PasswordEncoderLimitato implements PasswordEncoder {
+
+    private final PasswordEncoder delegato;
+    private final ThreadPoolExecutor executor;
+    private final Counter rifiutati;
+
+    /**
+     * @param delegato l'encoder che calcola effettivamente gli hash.
+     * @param thread   il numero massimo di hash calcolati contemporaneamente.
+     * @param coda     il numero massimo di richieste in attesa di un thread libero.
+     * @param registry il registro in cui pubblicare le metriche del pool.
+     */
+    public PasswordEncoderLimitato(PasswordEncoder delegato, int thread, int coda, MeterRegistry registry) {
+        this.delegato = delegato;
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(thread, thread, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(coda),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + numero.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("resolveit.password.coda", executor, e -> e.getQueue().size())
+                .description("Richieste di hashing in attesa di un thread")
+                .register(registry);
+        Gauge.builder("resolveit.password.attivi", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hash in corso di calcolo")
+                .register(registry);
+        this.rifiutati = Counter.builder("resolveit.password.rifiutati")
+                .description("Richieste di hashing rifiutate perché il pool era saturo")
+                .register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return esegui(() -> delegato.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return esegui(() -> delegato.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Legge solo il prefisso dell'hash, non serve il pool
+        return delegato.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Arresta il pool alla chiusura del contesto dell'applicazione.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T esegui(Callable<T> operazione) {
+        Future<T> risultato;
+        try {
+            risultato = executor.submit(operazione);
+        } catch (RejectedExecutionException e) {
+            rifiutati.increment();
+            throw new HashingSaturoException();
+        }
+
+        try {
+            return risultato.get();
+        } catch (InterruptedException e) {
+            risultato.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hashing della password interrotto", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package it.unisa.resolveIt.common.validation;
+
+import java.util.Arrays;
+
+/**
+ * Estensioni ammesse per gli allegati dei ticket, con le firme (magic bytes) che il contenuto deve avere.
+ * Un file di testo non ha una firma: il suo contenuto viene invece controllato byte per byte.
+ */
+public enum EstensioneAllegato {
+
+    TXT(".txt", true),
+    JPG(".jpg", false, new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}),
+    JPEG(".jpeg", false, new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}),
+    // Archivio normale, archivio vuoto e archivio suddiviso in più parti
+    ZIP(".zip", false, new byte[]{'P', 'K', 3, 4}, new byte[]{'P', 'K', 5, 6}, new byte[]{'P', 'K', 7, 8});
+
+    private static final EstensioneAllegato[] TUTTE = values();
+
+    private final String suffisso;
+    private final boolean testo;
+    private final byte[][] firme;
+
+    EstensioneAllegato(String suffisso, boolean testo, byte[]... firme) {
+        this.suffisso = suffisso;
+        this.testo = testo;
+        this.firme = firme;
+    }
+
+    /**
+     * Riconosce l'estensione dal nome del file, ignorando maiuscole e minuscole.
+     * Il confronto avviene direttamente sul nome, senza creare stringhe intermedie né usare regex.
+     *
+     * @param nomeFile il nome originale del file caricato.
+     * @return l'estensione del file, oppure {@code null} se il nome è null o l'estensione non è ammessa.
+     */
+    public static EstensioneAllegato riconosci(String nomeFile) {
+        if (nomeFile == null) {
+            return null;
+        }
+        for (EstensioneAllegato estensione : TUTTE) {
+            String suffisso = estensione.suffisso;
+            if (nomeFile.regionMatches(true, nomeFile.length() - suffisso.length(), suffisso, 0, suffisso.length())) {
+                return estensione;
+            }
+        }
+        return null;
+    }
+
+    public static boolean ammessa(String nomeFile) {
+        return riconosci(nomeFile) != null;
+    }
+
+    /**
+     * @return il numero di byte iniziali necessari per verificare la firma (0 per i file di testo).
+     */
+    public int lunghezzaIntestazione() {
+        int massima = 0;
+        for (byte[] firma : firme) {
+            massima = Math.max(massima, firma.length);
+        }
+        return massima;
+    }
+
+    /**
+     * @param intestazione i primi byte del contenuto.
+     * @param lunghezza quanti byte di {@code intestazione} sono validi (meno della lunghezza richiesta se il file è più corto).
+     * @return {@code true} se il contenuto inizia con una delle firme dell'estensione.
+     */
+    public boolean firmaValida(byte[] intestazione, int lunghezza) {
+        if (firme.length == 0) {
+            return true;
+        }
+        for (byte[] firma : firme) {
+            if (lunghezza >= firma.length && Arrays.equals(intestazione, 0, firma.length, firma, 0, firma.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} se il contenuto deve essere testo, senza caratteri di controllo binari.
+     */
+    public boolean isTesto() {
+        return testo;
+    }
+
+    /**
+     * @param b un byte del contenuto.
+     * @return {@code true} se il byte non può comparire in un file di testo (NUL e caratteri di controllo
+     * diversi da tabulazione, a capo, form feed ed escape).
+     */
+    public static boolean binario(byte b) {
+        return (b >= 0 && b < 0x09) || (b > 0x0D && b < 0x20 && b != 0x1B);
+    }
+}
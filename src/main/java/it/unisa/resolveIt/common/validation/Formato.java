@@ -0,0 +1,39 @@
+package it.unisa.resolveIt.common.validation;
+
+import java.util.regex.Pattern;
+
+/**
+ * Registro dei formati validi per i campi testuali dell'applicazione.
+ * <p>
+ * Ogni espressione regolare viene compilata una sola volta, al caricamento della classe, ed è condivisa
+ * da entità, DTO (tramite {@link FormatoValido}), servizi e controller. In questo modo un formato è
+ * definito in un solo punto e nessun controllo ricompila la regex a ogni chiamata, come fa {@link String#matches}.
+ * </p>
+ */
+public enum Formato {
+
+    NOME_PERSONA("^[a-zA-Z\\sàèìòùÀÈÌÒ’]{2,30}$"),
+    EMAIL("^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,10}$"),
+    // Vuota se l'utente non vuole cambiarla
+    PASSWORD_OPZIONALE("^$|^.{8,64}$"),
+    TITOLO_TICKET("^[a-zA-Z0-9À-ÿ '‘\".,!?-]{5,100}$"),
+    NOME_CATEGORIA("^[A-ZÀ-ÿa-z\\s]{3,50}$");
+
+    private final Pattern pattern;
+
+    Formato(String regex) {
+        this.pattern = Pattern.compile(regex);
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @param valore il testo da controllare.
+     * @return {@code true} se il testo non è null e rispetta interamente il formato.
+     */
+    public boolean verifica(CharSequence valore) {
+        return valore != null && pattern.matcher(valore).matches();
+    }
+}
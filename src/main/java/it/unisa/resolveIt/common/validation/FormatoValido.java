@@ -0,0 +1,29 @@
+package it.unisa.resolveIt.common.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Vincolo di Bean Validation che verifica un campo con uno dei {@link Formato} del registro,
+ * riusando il pattern già compilato. Come {@code @Pattern}, un valore null è considerato valido.
+ */
+@Documented
+@Constraint(validatedBy = FormatoValidoValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FormatoValido {
+
+    Formato value();
+
+    String message() default "Formato non valido";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,19 @@
+package it.unisa.resolveIt.common.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class FormatoValidoValidator implements ConstraintValidator<FormatoValido, CharSequence> {
+
+    private Formato formato;
+
+    @Override
+    public void initialize(FormatoValido annotazione) {
+        this.formato = annotazione.value();
+    }
+
+    @Override
+    public boolean isValid(CharSequence valore, ConstraintValidatorContext context) {
+        return valore == null || formato.verifica(valore);
+    }
+}
@@ -0,0 +1,105 @@
+package it.unisa.resolveIt.model.entity;
+
+import it.unisa.resolveIt.model.enums.Ruolo;
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Indice di tutti gli utenti registrati, qualunque sia il loro ruolo.
+ * <p>
+ * Ogni {@link Cliente}, {@link Operatore} e {@link Gestore} ha una riga in questa tabella con la propria email.
+ * Il vincolo di unicità sull'email garantisce a livello di database che la stessa email non sia usata
+ * da due utenti, anche con ruoli diversi, e permette di risolvere un'email con una sola query indicizzata.
+ * </p>
+ * La riga viene eliminata dal database insieme all'utente a cui si riferisce.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_account_email", columnNames = "email"))
+public class Account {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Ruolo ruolo;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cliente_id", unique = true)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Cliente cliente;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "operatore_id", unique = true)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Operatore operatore;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "gestore_id", unique = true)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Gestore gestore;
+
+    public Account() {}
+
+    public Account(Cliente cliente) {
+        this.email = cliente.getEmail();
+        this.ruolo = Ruolo.CLIENTE;
+        this.cliente = cliente;
+    }
+
+    public Account(Operatore operatore) {
+        this.email = operatore.getEmail();
+        this.ruolo = Ruolo.OPERATORE;
+        this.operatore = operatore;
+    }
+
+    public Account(Gestore gestore) {
+        this.email = gestore.getEmail();
+        this.ruolo = Ruolo.GESTORE;
+        this.gestore = gestore;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Ruolo getRuolo() {
+        return ruolo;
+    }
+
+    public Cliente getCliente() {
+        return cliente;
+    }
+
+    public Operatore getOperatore() {
+        return operatore;
+    }
+
+    public Gestore getGestore() {
+        return gestore;
+    }
+
+    /**
+     * Restituisce l'utente a cui si riferisce la riga, in base al suo ruolo.
+     *
+     * @return il {@link Cliente}, l'{@link Operatore} o il {@link Gestore} associato all'email.
+     */
+    public UserDetails getUtente() {
+        return switch (ruolo) {
+            case CLIENTE -> cliente;
+            case OPERATORE -> operatore;
+            case GESTORE -> gestore;
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package it.unisa.resolveIt.model.entity;
+
+import it.unisa.resolveIt.model.enums.Codifica;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+
+/**
+ * Riferimento al contenuto di un allegato salvato nell'archivio su disco.
+ * La chiave primaria è l'hash SHA-256 del contenuto, quindi più ticket
+ * con lo stesso file puntano alla stessa riga.
+ * Il contatore dei riferimenti indica quanti ticket sono stati creati con il contenuto e cresce soltanto:
+ * i ticket non vengono mai eliminati (al più annullati), quindi nessun allegato viene rimosso dall'archivio.
+ * La dimensione è sempre quella del contenuto originale, anche se l'archivio lo salva compresso.
+ */
+@Entity
+public class Allegato {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private long dimensione;
+
+    @Column(nullable = false)
+    private int riferimenti;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Codifica codifica = Codifica.NESSUNA;
+
+    public Allegato() {
+    }
+
+    public Allegato(String hash, long dimensione) {
+        this.hash = hash;
+        this.dimensione = dimensione;
+    }
+
+    public Allegato(String hash, long dimensione, Codifica codifica) {
+        this.hash = hash;
+        this.dimensione = dimensione;
+        this.codifica = codifica;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public long getDimensione() {
+        return dimensione;
+    }
+
+    public void setDimensione(long dimensione) {
+        this.dimensione = dimensione;
+    }
+
+    public int getRiferimenti() {
+        return riferimenti;
+    }
+
+    public Codifica getCodifica() {
+        return codifica;
+    }
+
+    public void setCodifica(Codifica codifica) {
+        this.codifica = codifica;
+    }
+}
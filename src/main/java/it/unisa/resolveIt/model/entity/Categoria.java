@@ -4,15 +4,22 @@ package it.unisa.resolveIt.model.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Pattern;
 
 import java.util.Objects;
+import it.unisa.resolveIt.common.validation.Formato;
+import it.unisa.resolveIt.common.validation.FormatoValido;
 
 @Entity
+// Chiavi di paginazione dell'elenco del gestore: tutte le categorie, oppure solo abilitate o disabilitate
+@Table(indexes = {
+        @Index(name = "idx_categoria_nome", columnList = "nome, ID_C"),
+        @Index(name = "idx_categoria_stato_nome", columnList = "stato, nome, ID_C")
+})
 public class Categoria {
-    @Id @GeneratedValue (strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "categoria_seq")
+    @SequenceGenerator(name = "categoria_seq", allocationSize = 50)
     private long ID_C;
-    @NotBlank @Pattern(regexp = "^[A-ZÀ-ÿa-z\\s]{3,50}$")
+    @NotBlank @FormatoValido(Formato.NOME_CATEGORIA)
     private String nome;
     @Column(nullable= false)
     private boolean stato;
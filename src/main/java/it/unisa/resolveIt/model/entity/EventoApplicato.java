@@ -0,0 +1,25 @@
+package it.unisa.resolveIt.model.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * ID di un evento della outbox già applicato alle statistiche dei ticket.
+ * La outbox consegna gli eventi almeno una volta: un lotto riproposto dopo un errore non deve essere
+ * contato due volte. Le righe servono solo finché l'evento è ancora nella outbox e vengono poi eliminate.
+ */
+@Entity
+@Table(name = "evento_applicato")
+public class EventoApplicato {
+
+    @Id
+    private Long id;
+
+    public EventoApplicato() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
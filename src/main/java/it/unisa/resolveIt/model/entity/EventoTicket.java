@@ -0,0 +1,109 @@
+package it.unisa.resolveIt.model.entity;
+
+import it.unisa.resolveIt.model.enums.TipoEvento;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Riga della outbox degli eventi sui ticket.
+ * Viene scritta nella stessa transazione che modifica il ticket, quindi esiste se e solo se la modifica
+ * è stata confermata; il {@code DispatcherEventiTicket} la consegna ai consumatori e poi la elimina.
+ * Contiene una copia dei dati del ticket al momento dell'evento, così i consumatori non devono rileggerlo.
+ * I riferimenti sono semplici ID e non chiavi esterne: l'evento deve poter essere consegnato anche se
+ * il ticket, la categoria o l'operatore sono stati eliminati nel frattempo.
+ */
+@Entity
+@Table(name = "evento_ticket")
+public class EventoTicket {
+
+    // IDENTITY: le righe vengono inserite anche con INSERT ... SELECT, che non passa dal generatore di Hibernate
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoEvento tipo;
+
+    @Column(name = "id_ticket", nullable = false)
+    private Long idTicket;
+
+    @Column(name = "id_categoria")
+    private Long idCategoria;
+
+    @Column(name = "id_operatore")
+    private Long idOperatore;
+
+    @Column(name = "data_creazione")
+    private LocalDateTime dataCreazione;
+
+    @Column(name = "data_in_carico")
+    private LocalDateTime dataInCarico;
+
+    @Column(name = "data_evento", nullable = false)
+    private LocalDateTime dataEvento;
+
+    public EventoTicket() {
+    }
+
+    public EventoTicket(TipoEvento tipo, Ticket ticket, LocalDateTime dataEvento) {
+        this.tipo = tipo;
+        this.idTicket = ticket.getID_T();
+        this.idCategoria = ticket.getCategoria() != null ? ticket.getCategoria().getID_C() : null;
+        this.idOperatore = ticket.getOperatore() != null ? ticket.getOperatore().getId() : null;
+        this.dataCreazione = ticket.getDataCreazione();
+        this.dataInCarico = ticket.getDataInCarico();
+        this.dataEvento = dataEvento;
+    }
+
+    // Evento ricostruito dallo stato di un ticket, senza riga nella outbox (vedi StoriaTicketDTO)
+    public EventoTicket(TipoEvento tipo, Long idTicket, Long idCategoria, Long idOperatore, LocalDateTime dataCreazione,
+                        LocalDateTime dataInCarico, LocalDateTime dataEvento) {
+        this.tipo = tipo;
+        this.idTicket = idTicket;
+        this.idCategoria = idCategoria;
+        this.idOperatore = idOperatore;
+        this.dataCreazione = dataCreazione;
+        this.dataInCarico = dataInCarico;
+        this.dataEvento = dataEvento;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public TipoEvento getTipo() {
+        return tipo;
+    }
+
+    public Long getIdTicket() {
+        return idTicket;
+    }
+
+    public Long getIdCategoria() {
+        return idCategoria;
+    }
+
+    public Long getIdOperatore() {
+        return idOperatore;
+    }
+
+    public LocalDateTime getDataCreazione() {
+        return dataCreazione;
+    }
+
+    public LocalDateTime getDataInCarico() {
+        return dataInCarico;
+    }
+
+    public LocalDateTime getDataEvento() {
+        return dataEvento;
+    }
+}
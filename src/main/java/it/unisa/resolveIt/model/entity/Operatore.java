@@ -5,32 +5,45 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.List;
+import it.unisa.resolveIt.common.validation.Formato;
+import it.unisa.resolveIt.common.validation.FormatoValido;
 
 @Entity
+// Un indice per ogni ordinamento dell'elenco del gestore, con l'id come chiave di paginazione;
+// l'indice su attivo serve l'elenco degli account disattivati, ordinato per cognome come quello predefinito
+@Table(indexes = {
+        @Index(name = "idx_operatore_nome", columnList = "nome, id"),
+        @Index(name = "idx_operatore_cognome", columnList = "cognome, id"),
+        @Index(name = "idx_operatore_email", columnList = "email, id"),
+        @Index(name = "idx_operatore_attivo", columnList = "attivo, cognome, id")
+})
 public class Operatore implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "operatore_seq")
+    @SequenceGenerator(name = "operatore_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
-    @Pattern(regexp = "^[a-zA-Z\\sàèìòùÀÈÌÒ’]{2,30}$")
+    @FormatoValido(Formato.NOME_PERSONA)
     private String nome;
 
     @NotBlank
-    @Pattern(regexp = "^[a-zA-Z\\sàèìòùÀÈÌÒ’]{2,30}$")
+    @FormatoValido(Formato.NOME_PERSONA)
     private String cognome;
 
     @NotBlank
-    @Pattern(regexp = "^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,10}$", message = "Email non valida")
+    @FormatoValido(value = Formato.EMAIL, message = "Email non valida")
     private String email;
 
     @NotBlank
@@ -0,0 +1,48 @@
+package it.unisa.resolveIt.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Contatore del riepilogo statistico dei ticket mostrato nella dashboard del gestore.
+ * Ogni riga è un contatore identificato da una chiave (ad esempio "stato:APERTO" o "categoria:3");
+ * per i tempi medi la riga conta le transizioni e ne somma le durate in secondi.
+ * Le righe vengono aggiornate in modo incrementale dagli eventi della outbox, mai ricalcolate sui ticket.
+ */
+@Entity
+@Table(name = "statistica_ticket")
+public class StatisticaTicket {
+
+    @Id
+    @Column(length = 64)
+    private String chiave;
+
+    @Column(nullable = false)
+    private long conteggio;
+
+    @Column(name = "somma_secondi", nullable = false)
+    private long sommaSecondi;
+
+    public StatisticaTicket() {
+    }
+
+    public StatisticaTicket(String chiave, long conteggio, long sommaSecondi) {
+        this.chiave = chiave;
+        this.conteggio = conteggio;
+        this.sommaSecondi = sommaSecondi;
+    }
+
+    public String getChiave() {
+        return chiave;
+    }
+
+    public long getConteggio() {
+        return conteggio;
+    }
+
+    public long getSommaSecondi() {
+        return sommaSecondi;
+    }
+}
@@ -4,18 +4,28 @@ import it.unisa.resolveIt.model.enums.Stato;
 import jakarta.persistence.*;
 import it.unisa.resolveIt.model.entity.Categoria;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 import java.time.LocalDateTime;
+import it.unisa.resolveIt.common.validation.Formato;
+import it.unisa.resolveIt.common.validation.FormatoValido;
 
 @Entity
+// Un indice per ogni forma di query di TicketRepository: prima le colonne in uguaglianza,
+// poi la chiave di paginazione (dataCreazione, ID_T), così l'ordinamento non richiede un filesort
+@Table(indexes = {
+        @Index(name = "idx_ticket_cliente_data", columnList = "cliente_id, dataCreazione, ID_T"),
+        @Index(name = "idx_ticket_cliente_stato_data", columnList = "cliente_id, stato, dataCreazione, ID_T"),
+        @Index(name = "idx_ticket_stato_data", columnList = "stato, dataCreazione, ID_T"),
+        @Index(name = "idx_ticket_operatore_stato_data", columnList = "operatore_id, stato, dataCreazione, ID_T")
+})
 public class Ticket {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_seq")
+    @SequenceGenerator(name = "ticket_seq", allocationSize = 50)
     private Long ID_T;
 
     @NotBlank(message = "Il titolo è obbligatorio e non può essere vuoto")
     @Column(nullable = false)
-    @Pattern(regexp = "^[a-zA-Z0-9À-ÿ '‘\".,!?-]{5,100}$", message = "Titolo non valido")
+    @FormatoValido(value = Formato.TITOLO_TICKET, message = "Titolo non valido")
     private String titolo;
 
     @NotBlank
@@ -41,9 +51,9 @@ public class Ticket {
     private LocalDateTime dataInCarico;
     private LocalDateTime dataResolved;
 
-    @Lob
-    @Column(columnDefinition = "MEDIUMBLOB")
-    private byte[] allegato;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "allegato_hash")
+    private Allegato allegato;
 
     @Column(name = "nome_file")
     private String nomeFile;
@@ -52,9 +62,12 @@ public class Ticket {
     @Enumerated(EnumType.STRING)
     private Stato stato;
 
+    @Version
+    private Long versione;
+
     public Ticket() {}
 
-    public Ticket(String titolo, Cliente cliente, LocalDateTime dataCreazione, LocalDateTime dataAnnullamento, LocalDateTime dataInCarico, LocalDateTime dataResolved, byte[] allegato, String descrizione) {
+    public Ticket(String titolo, Cliente cliente, LocalDateTime dataCreazione, LocalDateTime dataAnnullamento, LocalDateTime dataInCarico, LocalDateTime dataResolved, Allegato allegato, String descrizione) {
         this.titolo = titolo;
         this.cliente = cliente;
         this.dataCreazione = dataCreazione;
@@ -121,11 +134,11 @@ public class Ticket {
         this.dataResolved = dataResolved;
     }
 
-    public byte[] getAllegato() {
+    public Allegato getAllegato() {
         return allegato;
     }
 
-    public void setAllegato(byte[] allegato) {
+    public void setAllegato(Allegato allegato) {
         this.allegato = allegato;
     }
 
@@ -161,6 +174,10 @@ public class Ticket {
         this.descrizione = descrizione;
     }
 
+    public Long getVersione() {
+        return versione;
+    }
+
     public String getNomeFile() {
         return nomeFile;
     }
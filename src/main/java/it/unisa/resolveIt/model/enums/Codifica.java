@@ -0,0 +1,9 @@
+package it.unisa.resolveIt.model.enums;
+
+/**
+ * Formato con cui il contenuto di un allegato è salvato nell'archivio.
+ */
+public enum Codifica {
+    NESSUNA,
+    GZIP
+}
@@ -0,0 +1,12 @@
+package it.unisa.resolveIt.model.enums;
+
+/**
+ * Transizioni del ciclo di vita di un ticket, registrate nella outbox degli eventi e inviate agli operatori.
+ */
+public enum TipoEvento {
+    CREATO,
+    ASSEGNATO,
+    RISOLTO,
+    RILASCIATO,
+    ANNULLATO
+}
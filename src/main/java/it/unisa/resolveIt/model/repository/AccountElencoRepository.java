@@ -0,0 +1,28 @@
+package it.unisa.resolveIt.model.repository;
+
+import it.unisa.resolveIt.account.dto.AccountDTO;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+/**
+ * Elenco paginato di {@link ClienteRepository} e {@link OperatoreRepository}, con filtri opzionali.
+ */
+public interface AccountElencoRepository {
+
+    /**
+     * Restituisce una pagina di account, paginata per chiave su {@code (campo, id)} e risolta tramite
+     * l'indice sul campo di ordinamento.
+     *
+     * @param campo       il campo di ordinamento e di ricerca: {@code nome}, {@code cognome} o {@code email}.
+     * @param testo       il prefisso da cercare nel campo, oppure {@code null} per tutti gli account.
+     * @param attivo      lo stato da filtrare, oppure {@code null} per attivi e disattivati.
+     * @param decrescente {@code true} per l'ordine alfabetico inverso.
+     * @param valore      il campo dell'ultimo account della pagina precedente, {@code null} per la prima pagina.
+     * @param id          l'ID dell'ultimo account della pagina precedente.
+     * @param limit       il numero massimo di account restituiti.
+     * @return la lista degli account della pagina.
+     */
+    List<AccountDTO> findPagina(String campo, String testo, Boolean attivo, boolean decrescente,
+                                String valore, Long id, Limit limit);
+}
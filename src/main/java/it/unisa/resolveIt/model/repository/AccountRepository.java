@@ -0,0 +1,22 @@
+package it.unisa.resolveIt.model.repository;
+
+import it.unisa.resolveIt.model.entity.Account;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface AccountRepository extends JpaRepository<Account, Long> {
+    //save(), findAll(), findById(), delete(), count(), ect.. già implementati
+    boolean existsByEmail(String email);
+
+    boolean existsByEmailIn(Collection<String> email);
+
+    // Carica anche l'utente associato, così l'email viene risolta con una sola query sull'indice univoco
+    @Query("SELECT a FROM Account a LEFT JOIN FETCH a.cliente LEFT JOIN FETCH a.operatore LEFT JOIN FETCH a.gestore " +
+            "WHERE a.email = :email")
+    Account findByEmail(@Param("email") String email);
+}
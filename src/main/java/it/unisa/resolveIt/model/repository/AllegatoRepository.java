@@ -0,0 +1,26 @@
+package it.unisa.resolveIt.model.repository;
+
+import it.unisa.resolveIt.model.entity.Allegato;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AllegatoRepository extends JpaRepository<Allegato, String> {
+
+    /**
+     * Registra un nuovo ticket che usa il contenuto con l'hash indicato: crea la riga con un riferimento
+     * oppure, se il contenuto è già presente, ne incrementa il contatore.
+     * L'operazione è un'unica istruzione atomica, quindi due upload concorrenti dello stesso file
+     * non possono violare la chiave primaria né perdere un incremento.
+     * Se il contenuto è già presente la sua codifica non cambia, perché è quella del file già salvato.
+     *
+     * @return il numero di righe toccate dal database (1 per un inserimento, 2 per un aggiornamento).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO allegato (hash, dimensione, riferimenti, codifica) VALUES (:hash, :dimensione, 1, :codifica) " +
+            "ON DUPLICATE KEY UPDATE riferimenti = riferimenti + 1", nativeQuery = true)
+    int registraRiferimento(@Param("hash") String hash, @Param("dimensione") long dimensione, @Param("codifica") String codifica);
+}
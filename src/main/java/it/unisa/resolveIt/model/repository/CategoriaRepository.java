@@ -1,17 +1,20 @@
 package it.unisa.resolveIt.model.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import it.unisa.resolveIt.model.entity.Categoria;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
+public interface CategoriaRepository extends JpaRepository<Categoria, Long>, CategoriaRepositoryCustom {
     @Override
     List<Categoria> findAll();
     Categoria findByNome(String nome);
     List<Categoria> findAllByStato(boolean stato);
+    @Query("SELECT c.nome FROM Categoria c")
+    List<String> findAllNomi();
     @Override
     Optional<Categoria> findById(Long id);
 }
@@ -0,0 +1,25 @@
+package it.unisa.resolveIt.model.repository;
+
+import it.unisa.resolveIt.categoria.dto.CategoriaDTO;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+/**
+ * Query di {@link CategoriaRepository} costruite a runtime, per l'elenco con filtri opzionali.
+ */
+public interface CategoriaRepositoryCustom {
+
+    /**
+     * Restituisce una pagina di categorie, paginata per chiave su {@code (nome, ID_C)}.
+     *
+     * @param testo       il prefisso del nome da cercare, oppure {@code null} per tutte le categorie.
+     * @param stato       lo stato da filtrare, oppure {@code null} per abilitate e disabilitate.
+     * @param decrescente {@code true} per l'ordine alfabetico inverso.
+     * @param nome        il nome dell'ultima categoria della pagina precedente, {@code null} per la prima pagina.
+     * @param id          l'ID dell'ultima categoria della pagina precedente.
+     * @param limit       il numero massimo di categorie restituite.
+     * @return la lista delle categorie della pagina.
+     */
+    List<CategoriaDTO> findPagina(String testo, Boolean stato, boolean decrescente, String nome, Long id, Limit limit);
+}
@@ -0,0 +1,26 @@
+package it.unisa.resolveIt.model.repository;
+
+import it.unisa.resolveIt.categoria.dto.CategoriaDTO;
+import it.unisa.resolveIt.model.entity.Categoria;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+/**
+ * Implementazione delle query dinamiche di {@link CategoriaRepositoryCustom} con la Criteria API.
+ */
+public class CategoriaRepositoryImpl implements CategoriaRepositoryCustom {
+
+    private static final List<String> SELEZIONE = List.of("ID_C", "nome", "stato");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CategoriaDTO> findPagina(String testo, Boolean stato, boolean decrescente, String nome, Long id, Limit limit) {
+        return ElencoPerChiave.pagina(entityManager, Categoria.class, CategoriaDTO.class, SELEZIONE,
+                "nome", testo, "stato", stato, decrescente, nome, id, limit);
+    }
+}
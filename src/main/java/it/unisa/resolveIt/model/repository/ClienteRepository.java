@@ -2,11 +2,25 @@ package it.unisa.resolveIt.model.repository;
 
 import it.unisa.resolveIt.model.entity.Cliente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface ClienteRepository extends JpaRepository<Cliente, Long> {
+public interface ClienteRepository extends JpaRepository<Cliente, Long>, AccountElencoRepository {
     //save(), findAll(), findById(), delete(), count(), ect.. già implementati
     boolean existsByEmail(String email);
     Cliente findByEmail(String email);
+
+    // Disabilitazione massiva con un'unica UPDATE; restituisce il numero di account effettivamente disabilitati
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Cliente u SET u.attivo = false WHERE u.id IN :ids AND u.attivo = true")
+    int disabilita(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.email FROM Cliente u WHERE u.id IN :ids")
+    List<String> findEmailByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,27 @@
+package it.unisa.resolveIt.model.repository;
+
+import it.unisa.resolveIt.account.dto.AccountDTO;
+import it.unisa.resolveIt.model.entity.Cliente;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+/**
+ * Implementazione di {@link AccountElencoRepository} per {@link ClienteRepository}.
+ */
+public class ClienteRepositoryImpl implements AccountElencoRepository {
+
+    private static final List<String> SELEZIONE = List.of("id", "nome", "cognome", "email", "attivo");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AccountDTO> findPagina(String campo, String testo, Boolean attivo, boolean decrescente,
+                                       String valore, Long id, Limit limit) {
+        return ElencoPerChiave.pagina(entityManager, Cliente.class, AccountDTO.class, SELEZIONE,
+                campo, testo, "attivo", attivo, decrescente, valore, id, limit);
+    }
+}
@@ -0,0 +1,81 @@
+package it.unisa.resolveIt.model.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query Criteria comune agli elenchi paginati per chiave su {@code (campo, id)} della dashboard del gestore.
+ * <p>
+ * La ricerca è un prefisso sullo stesso campo usato per l'ordinamento, quindi filtro, ordinamento e ripartenza
+ * dal cursore sono risolti con un'unica scansione di intervallo sull'indice {@code (campo, id)}.
+ * Il confronto non usa {@code LOWER()}, che impedirebbe l'uso dell'indice: la collation predefinita
+ * di MySQL/MariaDB è già insensibile alle maiuscole.
+ * </p>
+ */
+final class ElencoPerChiave {
+
+    private ElencoPerChiave() {
+    }
+
+    /**
+     * @param selezione      gli attributi passati al costruttore della proiezione; il primo è l'identificativo.
+     * @param campo          l'attributo di ordinamento e di ricerca.
+     * @param testo          il prefisso da cercare nel campo, oppure {@code null} per non filtrare.
+     * @param attributoFlag  l'attributo booleano filtrabile (es. {@code attivo}).
+     * @param flag           il valore richiesto per {@code attributoFlag}, oppure {@code null} per non filtrare.
+     * @param valore         il campo dell'ultimo elemento della pagina precedente, {@code null} per la prima pagina.
+     * @param id             l'identificativo dell'ultimo elemento della pagina precedente.
+     */
+    static <E, R> List<R> pagina(EntityManager entityManager, Class<E> entita, Class<R> proiezione, List<String> selezione,
+                                 String campo, String testo, String attributoFlag, Boolean flag,
+                                 boolean decrescente, String valore, Long id, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = cb.createQuery(proiezione);
+        Root<E> r = query.from(entita);
+
+        query.select(cb.construct(proiezione, selezione.stream().map(r::get).toArray(Path[]::new)));
+
+        Path<String> chiave = r.get(campo);
+        Path<Long> idElemento = r.get(selezione.get(0));
+
+        List<Predicate> filtri = new ArrayList<>();
+        if (testo != null && !testo.isBlank()) {
+            filtri.add(cb.like(chiave, prefisso(testo.strip()), '\\'));
+        }
+        if (flag != null) {
+            filtri.add(cb.equal(r.get(attributoFlag), flag));
+        }
+        // Paginazione per chiave: si riparte dall'ultimo elemento della pagina precedente
+        if (decrescente) {
+            if (valore != null) {
+                filtri.add(cb.or(cb.lessThan(chiave, valore),
+                        cb.and(cb.equal(chiave, valore), cb.lessThan(idElemento, id))));
+            }
+            query.orderBy(cb.desc(chiave), cb.desc(idElemento));
+        } else {
+            if (valore != null) {
+                filtri.add(cb.or(cb.greaterThan(chiave, valore),
+                        cb.and(cb.equal(chiave, valore), cb.greaterThan(idElemento, id))));
+            }
+            query.orderBy(cb.asc(chiave), cb.asc(idElemento));
+        }
+        query.where(filtri.toArray(new Predicate[0]));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit.max())
+                .getResultList();
+    }
+
+    // I caratteri jolly scritti dall'utente vengono cercati letteralmente
+    private static String prefisso(String testo) {
+        return testo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
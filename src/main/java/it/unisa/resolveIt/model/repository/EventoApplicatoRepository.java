@@ -0,0 +1,37 @@
+package it.unisa.resolveIt.model.repository;
+
+import it.unisa.resolveIt.model.entity.EventoApplicato;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventoApplicatoRepository extends JpaRepository<EventoApplicato, Long> {
+
+    @Query("SELECT e.id FROM EventoApplicato e WHERE e.id IN :ids")
+    List<Long> findIdByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Gli eventi vengono applicati mentre sono ancora nella outbox: gli ID si copiano da lì con un'unica istruzione
+    @Modifying
+    @Query(value = "INSERT INTO evento_applicato (id) SELECT id FROM evento_ticket WHERE id IN (:ids)", nativeQuery = true)
+    int registra(@Param("ids") Collection<Long> ids);
+
+    // Quando il riepilogo viene ricostruito dai ticket, gli eventi in attesa sono già compresi nel conteggio
+    @Modifying
+    @Query(value = "INSERT INTO evento_applicato (id) SELECT id FROM evento_ticket", nativeQuery = true)
+    int registraTutti();
+
+    /**
+     * Elimina gli ID degli eventi che non sono più nella outbox: il dispatcher li ha già eliminati
+     * e non li consegnerà di nuovo. Gli ID della outbox crescono, quindi basta confrontarli con il minimo.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM evento_applicato WHERE id < (SELECT COALESCE(MIN(id), " + Long.MAX_VALUE + ") FROM evento_ticket)",
+            nativeQuery = true)
+    int eliminaConsegnati();
+}
@@ -0,0 +1,45 @@
+package it.unisa.resolveIt.model.repository;
+
+import it.unisa.resolveIt.model.entity.EventoTicket;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventoTicketRepository extends JpaRepository<EventoTicket, Long> {
+
+    String INSERT = "INSERT INTO evento_ticket (tipo, id_ticket, id_categoria, id_operatore, data_creazione, data_in_carico, data_evento) ";
+
+    String COPIA_TICKET = "ID_T, categoria_id, operatore_id, data_creazione, data_in_carico, :data FROM ticket ";
+
+    /**
+     * Registra nella outbox un evento per ciascuno dei ticket indicati, copiandone lo stato attuale
+     * con un'unica istruzione invece di leggere le entità.
+     * Va eseguita nella transazione che ha modificato i ticket, dopo la modifica: le righe sono già bloccate
+     * in scrittura, quindi la lettura non attende altre transazioni.
+     *
+     * @return il numero di eventi registrati.
+     */
+    @Modifying
+    @Query(value = INSERT + "SELECT :tipo, " + COPIA_TICKET + "WHERE ID_T IN (:ids)", nativeQuery = true)
+    int registra(@Param("tipo") String tipo, @Param("ids") Collection<Long> ids, @Param("data") LocalDateTime data);
+
+    /**
+     * Come {@link #registra}, per i ticket rilasciati: l'operatore viene indicato dal chiamante,
+     * perché dopo il rilascio non è più scritto sul ticket.
+     */
+    @Modifying
+    @Query(value = INSERT + "SELECT 'RILASCIATO', ID_T, categoria_id, :operatore, data_creazione, data_in_carico, :data FROM ticket " +
+            "WHERE ID_T IN (:ids)", nativeQuery = true)
+    int registraRilasciati(@Param("ids") Collection<Long> ids, @Param("operatore") Long idOperatore, @Param("data") LocalDateTime data);
+
+    // Eventi da consegnare, nell'ordine in cui sono stati registrati
+    List<EventoTicket> findAllByOrderByIdAsc(Limit limit);
+}
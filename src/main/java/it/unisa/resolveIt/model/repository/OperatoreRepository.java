@@ -1,12 +1,31 @@
 package it.unisa.resolveIt.model.repository;
 
+import it.unisa.resolveIt.account.dto.AccountDTO;
 import it.unisa.resolveIt.model.entity.Operatore;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface OperatoreRepository extends JpaRepository<Operatore, Long> {
+public interface OperatoreRepository extends JpaRepository<Operatore, Long>, AccountElencoRepository {
     //save(), findAll(), findById(), delete(), count(), ect.. già implementati
     boolean existsByEmail(String email);
     Operatore findByEmail(String email);
+
+    // Disabilitazione massiva con un'unica UPDATE; restituisce il numero di account effettivamente disabilitati
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Operatore u SET u.attivo = false WHERE u.id IN :ids AND u.attivo = true")
+    int disabilita(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.email FROM Operatore u WHERE u.id IN :ids")
+    List<String> findEmailByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Proiezione degli operatori indicati, ad esempio quelli presenti nelle statistiche dei ticket
+    @Query("SELECT new it.unisa.resolveIt.account.dto.AccountDTO(u.id, u.nome, u.cognome, u.email, u.attivo) FROM Operatore u WHERE u.id IN :ids")
+    List<AccountDTO> findAccountByIdIn(@Param("ids") Collection<Long> ids);
 }
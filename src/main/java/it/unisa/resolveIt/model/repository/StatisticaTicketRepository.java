@@ -0,0 +1,20 @@
+package it.unisa.resolveIt.model.repository;
+
+import it.unisa.resolveIt.model.entity.StatisticaTicket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StatisticaTicketRepository extends JpaRepository<StatisticaTicket, String> {
+
+    /**
+     * Somma le variazioni indicate al contatore, creandolo se non esiste, con un'unica istruzione atomica.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO statistica_ticket (chiave, conteggio, somma_secondi) VALUES (:chiave, :conteggio, :secondi) " +
+            "ON DUPLICATE KEY UPDATE conteggio = conteggio + :conteggio, somma_secondi = somma_secondi + :secondi", nativeQuery = true)
+    void aggiungi(@Param("chiave") String chiave, @Param("conteggio") long conteggio, @Param("secondi") long sommaSecondi);
+}
@@ -4,26 +4,123 @@ import it.unisa.resolveIt.model.entity.Cliente;
 import it.unisa.resolveIt.model.entity.Operatore;
 import it.unisa.resolveIt.model.entity.Ticket;
 import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.statistica.dto.StoriaTicketDTO;
+import it.unisa.resolveIt.ticket.dto.StatoTicketDTO;
+import it.unisa.resolveIt.ticket.dto.TicketCodaDTO;
+import it.unisa.resolveIt.ticket.dto.TicketDTO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 
 
 @Repository
-public interface TicketRepository extends JpaRepository<Ticket, Long> {
-    List<Ticket> findByClienteOrderByDataCreazioneDesc(Cliente cliente);
-    List<Ticket> findByOperatore(Operatore operatore);
-    List<Ticket> findByStato(Stato stato);
-
-    @Query("SELECT t FROM Ticket t WHERE t.cliente = :cliente " +
-            "AND (:stato IS NULL OR t.stato = :stato) " +
-            "ORDER BY " +
-            "CASE WHEN :ordine = 'asc' THEN t.dataCreazione END ASC, " +
-            "CASE WHEN :ordine = 'desc' THEN t.dataCreazione END DESC")
-    List<Ticket> findByClienteAndOptionalStato(@Param("cliente") Cliente cliente,
-                                               @Param("stato") Stato stato,
-                                               @Param("ordine") String ordine);
+public interface TicketRepository extends JpaRepository<Ticket, Long>, TicketRepositoryCustom {
+
+    // Le liste leggono solo le colonne mostrate nelle pagine, senza caricare le entità Ticket
+    String SELECT_DTO = "SELECT new it.unisa.resolveIt.ticket.dto.TicketDTO(" +
+            "t.ID_T, t.titolo, t.descrizione, t.stato, t.dataCreazione, t.dataAnnullamento, t.dataResolved, t.nomeFile, c.nome) " +
+            "FROM Ticket t LEFT JOIN t.categoria c ";
+
+    // Paginazione per chiave su (dataCreazione, ID_T): ogni pagina riparte dall'ultimo ticket della precedente
+    String DOPO_DESC = "AND (t.dataCreazione < :data OR (t.dataCreazione = :data AND t.ID_T < :id)) " +
+            "ORDER BY t.dataCreazione DESC, t.ID_T DESC";
+    String DOPO_ASC = "AND (t.dataCreazione > :data OR (t.dataCreazione = :data AND t.ID_T > :id)) " +
+            "ORDER BY t.dataCreazione ASC, t.ID_T ASC";
+
+    String STATO = "it.unisa.resolveIt.model.enums.Stato.";
+
+    // Transizioni di stato atomiche: lo stato di partenza è verificato nella stessa UPDATE,
+    // quindi tra richieste concorrenti sullo stesso ticket una sola modifica la riga
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.stato = " + STATO + "IN_CORSO, t.operatore = :operatore, t.dataInCarico = :data, " +
+            "t.versione = t.versione + 1 WHERE t.ID_T = :id AND t.stato = " + STATO + "APERTO")
+    int assegna(@Param("id") Long id, @Param("operatore") Operatore operatore, @Param("data") LocalDateTime data);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.stato = " + STATO + "RISOLTO, t.dataResolved = :data, " +
+            "t.versione = t.versione + 1 WHERE t.ID_T = :id AND t.stato = " + STATO + "IN_CORSO")
+    int risolvi(@Param("id") Long id, @Param("data") LocalDateTime data);
+
+    // La condizione sull'operatore garantisce che quello letto prima con findIdOperatoreById sia ancora assegnato
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.stato = " + STATO + "APERTO, t.operatore = null, " +
+            "t.versione = t.versione + 1 WHERE t.ID_T = :id AND t.stato = " + STATO + "IN_CORSO AND t.operatore.id = :operatore")
+    int rilascia(@Param("id") Long id, @Param("operatore") Long idOperatore);
+
+    @Query("SELECT t.operatore.id FROM Ticket t WHERE t.ID_T = :id")
+    Long findIdOperatoreById(@Param("id") Long id);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.stato = " + STATO + "ANNULLATO, t.dataAnnullamento = :data, " +
+            "t.versione = t.versione + 1 WHERE t.ID_T = :id AND t.stato = " + STATO + "APERTO")
+    int annulla(@Param("id") Long id, @Param("data") LocalDateTime data);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.stato = " + STATO + "ANNULLATO, t.dataAnnullamento = :data, " +
+            "t.versione = t.versione + 1 WHERE t.ID_T IN :ids AND t.stato = " + STATO + "APERTO")
+    int annullaTutti(@Param("ids") Collection<Long> ids, @Param("data") LocalDateTime data);
+
+    // Transizioni massive: le righe vengono bloccate prima delle UPDATE, così l'esito letto per ogni ticket
+    // resta valido fino al commit anche con operatori concorrenti
+    // Query nativa: il lock generato da Hibernate ("FOR UPDATE OF") non è accettato da MariaDB
+    @Query(value = "SELECT ID_T AS id, stato, operatore_id AS idOperatore FROM ticket WHERE ID_T IN (:ids) FOR UPDATE",
+            nativeQuery = true)
+    List<StatoTicketDTO> findStatoByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.stato = " + STATO + "IN_CORSO, t.operatore = :operatore, t.dataInCarico = :data, " +
+            "t.versione = t.versione + 1 WHERE t.ID_T IN :ids AND t.stato = " + STATO + "APERTO")
+    int assegnaTutti(@Param("ids") Collection<Long> ids, @Param("operatore") Operatore operatore, @Param("data") LocalDateTime data);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.stato = " + STATO + "RISOLTO, t.dataResolved = :data, t.versione = t.versione + 1 " +
+            "WHERE t.ID_T IN :ids AND t.stato = " + STATO + "IN_CORSO AND t.operatore = :operatore")
+    int risolviTutti(@Param("ids") Collection<Long> ids, @Param("operatore") Operatore operatore, @Param("data") LocalDateTime data);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.stato = " + STATO + "APERTO, t.operatore = null, t.versione = t.versione + 1 " +
+            "WHERE t.ID_T IN :ids AND t.stato = " + STATO + "IN_CORSO AND t.operatore = :operatore")
+    int rilasciaTutti(@Param("ids") Collection<Long> ids, @Param("operatore") Operatore operatore);
+
+    // Alimentano la coda in memoria dei ticket aperti (CodaTicketAperti)
+    @Query("SELECT new it.unisa.resolveIt.ticket.dto.TicketCodaDTO(t.ID_T, t.dataCreazione, t.categoria.ID_C) " +
+            "FROM Ticket t WHERE t.stato = :stato")
+    List<TicketCodaDTO> findCodaByStato(@Param("stato") Stato stato);
+
+    @Query("SELECT new it.unisa.resolveIt.ticket.dto.TicketCodaDTO(t.ID_T, t.dataCreazione, t.categoria.ID_C) " +
+            "FROM Ticket t WHERE t.ID_T = :id")
+    TicketCodaDTO findCodaById(@Param("id") Long id);
+
+    @Query("SELECT new it.unisa.resolveIt.ticket.dto.TicketCodaDTO(t.ID_T, t.dataCreazione, t.categoria.ID_C) " +
+            "FROM Ticket t WHERE t.ID_T IN :ids")
+    List<TicketCodaDTO> findCodaByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_DTO + "WHERE t.ID_T IN :ids")
+    List<TicketDTO> findDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_DTO + "WHERE t.cliente = :cliente ORDER BY t.dataCreazione DESC")
+    List<TicketDTO> findDtoByCliente(@Param("cliente") Cliente cliente);
+
+    // Servita da idx_ticket_operatore_stato_data: la lettura non dipende dal numero totale di ticket dell'operatore
+    @Query(SELECT_DTO + "WHERE t.operatore = :operatore AND t.stato = :stato " + DOPO_DESC)
+    List<TicketDTO> findPaginaByOperatore(@Param("operatore") Operatore operatore, @Param("stato") Stato stato,
+                                          @Param("data") LocalDateTime data, @Param("id") Long id, Limit limit);
+
+    @Query(SELECT_DTO + "WHERE t.stato = :stato " + DOPO_ASC)
+    List<TicketDTO> findPaginaByStato(@Param("stato") Stato stato,
+                                      @Param("data") LocalDateTime data, @Param("id") Long id, Limit limit);
+
+    // Ricostruzione delle statistiche (StatisticaImpl): tutti i ticket, a pagine per chiave primaria
+    @Query("SELECT new it.unisa.resolveIt.statistica.dto.StoriaTicketDTO(t.ID_T, t.stato, c.ID_C, o.id, t.dataCreazione, " +
+            "t.dataInCarico, t.dataResolved) FROM Ticket t LEFT JOIN t.categoria c LEFT JOIN t.operatore o " +
+            "WHERE t.ID_T > :id ORDER BY t.ID_T")
+    List<StoriaTicketDTO> findStoriaDopo(@Param("id") Long id, Limit limit);
 }
@@ -0,0 +1,31 @@
+package it.unisa.resolveIt.model.repository;
+
+import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.ticket.dto.TicketDTO;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Query di {@link TicketRepository} costruite a runtime, per le liste con filtri opzionali.
+ */
+public interface TicketRepositoryCustom {
+
+    /**
+     * Restituisce una pagina dei ticket di un cliente, paginata per chiave su {@code (dataCreazione, ID_T)}.
+     * Per ogni combinazione di filtro e ordinamento viene generata una query con un {@code WHERE} e un
+     * {@code ORDER BY} semplici, che MySQL può risolvere interamente tramite indice.
+     *
+     * @param cliente     il cliente proprietario dei ticket.
+     * @param stato       lo stato da filtrare, oppure {@code null} per tutti gli stati.
+     * @param decrescente {@code true} per i ticket più recenti prima.
+     * @param data        la data di creazione dell'ultimo ticket della pagina precedente.
+     * @param id          l'ID dell'ultimo ticket della pagina precedente.
+     * @param limit       il numero massimo di ticket restituiti.
+     * @return la lista dei ticket della pagina.
+     */
+    List<TicketDTO> findPaginaByCliente(Cliente cliente, Stato stato, boolean decrescente,
+                                        LocalDateTime data, Long id, Limit limit);
+}
@@ -0,0 +1,69 @@
+package it.unisa.resolveIt.model.repository;
+
+import it.unisa.resolveIt.model.entity.Categoria;
+import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.Ticket;
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.ticket.dto.TicketDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementazione delle query dinamiche di {@link TicketRepositoryCustom} con la Criteria API.
+ * I filtri assenti vengono omessi dalla query invece di essere neutralizzati con {@code :param IS NULL},
+ * così l'ottimizzatore vede sempre predicati semplici sulle colonne indicizzate.
+ */
+public class TicketRepositoryImpl implements TicketRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TicketDTO> findPaginaByCliente(Cliente cliente, Stato stato, boolean decrescente,
+                                               LocalDateTime data, Long id, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TicketDTO> query = cb.createQuery(TicketDTO.class);
+        Root<Ticket> t = query.from(Ticket.class);
+        Join<Ticket, Categoria> c = t.join("categoria", JoinType.LEFT);
+
+        query.select(cb.construct(TicketDTO.class,
+                t.get("ID_T"), t.get("titolo"), t.get("descrizione"), t.get("stato"), t.get("dataCreazione"),
+                t.get("dataAnnullamento"), t.get("dataResolved"), t.get("nomeFile"), c.get("nome")));
+
+        Path<LocalDateTime> dataCreazione = t.get("dataCreazione");
+        Path<Long> idTicket = t.get("ID_T");
+
+        List<Predicate> filtri = new ArrayList<>();
+        filtri.add(cb.equal(t.get("cliente"), cliente));
+        if (stato != null) {
+            filtri.add(cb.equal(t.get("stato"), stato));
+        }
+        // Paginazione per chiave: si riparte dall'ultimo ticket della pagina precedente
+        if (decrescente) {
+            filtri.add(cb.or(cb.lessThan(dataCreazione, data),
+                    cb.and(cb.equal(dataCreazione, data), cb.lessThan(idTicket, id))));
+            query.orderBy(cb.desc(dataCreazione), cb.desc(idTicket));
+        } else {
+            filtri.add(cb.or(cb.greaterThan(dataCreazione, data),
+                    cb.and(cb.equal(dataCreazione, data), cb.greaterThan(idTicket, id))));
+            query.orderBy(cb.asc(dataCreazione), cb.asc(idTicket));
+        }
+        query.where(filtri.toArray(new Predicate[0]));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit.max())
+                .getResultList();
+    }
+}
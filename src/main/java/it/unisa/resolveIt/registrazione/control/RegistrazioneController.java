@@ -1,5 +1,6 @@
 package it.unisa.resolveIt.registrazione.control;
 
+import it.unisa.resolveIt.common.security.HashingSaturoException;
 import it.unisa.resolveIt.registrazione.dto.RegistraUtenteDTO;
 import it.unisa.resolveIt.registrazione.service.RegistrazioneService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -58,6 +59,9 @@ public class RegistrazioneController {
 
             return "redirect:/ticket/home";
 
+        } catch (HashingSaturoException e) {
+            // Sovraccarico temporaneo: viene restituito 503, non un errore di validazione
+            throw e;
         } catch (Exception e) {
             //Errore logico (errore del service)
             model.addAttribute("errorMessage", e.getMessage());
@@ -2,21 +2,22 @@ package it.unisa.resolveIt.registrazione.dto;
 
 
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
+import it.unisa.resolveIt.common.validation.Formato;
+import it.unisa.resolveIt.common.validation.FormatoValido;
 
 public class RegistraUtenteDTO {
 
     @NotBlank(message = "Il nome è obbligatorio")
-    @Pattern(regexp = "^[a-zA-Z\\sàèìòùÀÈÌÒ’]{2,30}$", message = "Il nome non è valido")
+    @FormatoValido(value = Formato.NOME_PERSONA, message = "Il nome non è valido")
     private String nome;
 
     @NotBlank(message = "Il cognome è obbligatorio")
-    @Pattern(regexp = "^[a-zA-Z\\sàèìòùÀÈÌÒ’]{2,30}$", message = "Il cognome non è valido")
+    @FormatoValido(value = Formato.NOME_PERSONA, message = "Il cognome non è valido")
     private String cognome;
 
     @NotBlank(message = "L''email è obbligatoria")
-    @Pattern(regexp = "^[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,10}$", message = "Email non valida")
+    @FormatoValido(value = Formato.EMAIL, message = "Email non valida")
     @Size(max = 100,message = "Email è troppo lunga")
     private String email;
 
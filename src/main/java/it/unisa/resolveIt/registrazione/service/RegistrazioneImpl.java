@@ -1,16 +1,24 @@
 package it.unisa.resolveIt.registrazione.service;
 
+import it.unisa.resolveIt.model.entity.Account;
 import it.unisa.resolveIt.model.entity.Cliente;
 import it.unisa.resolveIt.model.entity.Operatore;
+import it.unisa.resolveIt.model.repository.AccountRepository;
 import it.unisa.resolveIt.model.repository.ClienteRepository;
-import it.unisa.resolveIt.model.repository.GestoreRepository;
 import it.unisa.resolveIt.model.repository.OperatoreRepository;
 import it.unisa.resolveIt.registrazione.dto.RegistraUtenteDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 @Service
 public class RegistrazioneImpl implements RegistrazioneService{
@@ -22,19 +30,27 @@ public class RegistrazioneImpl implements RegistrazioneService{
     private OperatoreRepository operatoreRepository;
 
     @Autowired
-    private GestoreRepository gestoreRepository;
+    private AccountRepository accountRepository;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // L'hashing avviene prima di aprire la transazione: l'attesa sul pool BCrypt non tiene occupata
+    // una connessione del database
     @Override
     @PreAuthorize("isAnonymous()")
     public UserDetails registerClient(RegistraUtenteDTO dto) {
         validateRegistration(dto);
         String passwordHash = passwordEncoder.encode(dto.getPassword());
 
-        Cliente nuovoCliente = new Cliente(dto.getNome(), dto.getCognome(), dto.getEmail(), passwordHash);
-        return clienteRepository.save(nuovoCliente);
+        return transactionTemplate.execute(status -> {
+            Cliente salvato = clienteRepository.save(new Cliente(dto.getNome(), dto.getCognome(), dto.getEmail(), passwordHash));
+            registraAccount(new Account(salvato));
+            return salvato;
+        });
     }
 
 
@@ -44,20 +60,71 @@ public class RegistrazioneImpl implements RegistrazioneService{
         validateRegistration(dto);
         String passwordHash = passwordEncoder.encode(dto.getPassword());
 
-        Operatore nuovoOperatore = new Operatore(dto.getNome(), dto.getCognome(), dto.getEmail(), passwordHash);
-        operatoreRepository.save(nuovoOperatore);
+        transactionTemplate.executeWithoutResult(status -> {
+            Operatore nuovoOperatore = new Operatore(dto.getNome(), dto.getCognome(), dto.getEmail(), passwordHash);
+            registraAccount(new Account(operatoreRepository.save(nuovoOperatore)));
+        });
+    }
+
+
+    @Override
+    @PreAuthorize("hasAuthority('GESTORE')")
+    public int registerOperators(List<RegistraUtenteDTO> dtos) {
+        Set<String> email = new HashSet<>();
+        for (RegistraUtenteDTO dto : dtos) {
+            if (!email.add(dto.getEmail())) {
+                throw new RuntimeException("Email ripetuta: " + dto.getEmail());
+            }
+            if (!dto.getPassword().equals(dto.getConfermaPassword())) {
+                throw new RuntimeException("Le password non coincidono!");
+            }
+        }
+        // Un'unica query per tutte le email, invece di una existsByEmail per operatore
+        if (accountRepository.existsByEmailIn(email)) {
+            throw new RuntimeException("Email già in uso!");
+        }
+
+        // Tutti gli hash vengono calcolati prima della transazione, che si limita agli INSERT a lotti
+        List<Operatore> operatori = new ArrayList<>(dtos.size());
+        for (RegistraUtenteDTO dto : dtos) {
+            operatori.add(new Operatore(dto.getNome(), dto.getCognome(), dto.getEmail(), passwordEncoder.encode(dto.getPassword())));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Account> account = new ArrayList<>(operatori.size());
+            for (Operatore operatore : operatoreRepository.saveAll(operatori)) {
+                account.add(new Account(operatore));
+            }
+            try {
+                accountRepository.saveAll(account);
+                // Gli INSERT a lotti vengono inviati qui, così una violazione di unicità emerge prima del commit
+                accountRepository.flush();
+            } catch (DataIntegrityViolationException e) {
+                throw new RuntimeException("Email già in uso!");
+            }
+        });
+        return operatori.size();
     }
 
 
     private void validateRegistration(RegistraUtenteDTO dto) {
-        if (clienteRepository.existsByEmail(dto.getEmail()) ||
-                operatoreRepository.existsByEmail(dto.getEmail()) ||
-                gestoreRepository.existsByEmail(dto.getEmail())) {
+        if (accountRepository.existsByEmail(dto.getEmail())) {
             throw new RuntimeException("Email già in uso!");
         }
         if (!dto.getPassword().equals(dto.getConfermaPassword())) {
             throw new RuntimeException("Le password non coincidono!");
         }
     }
-    
+
+    // Inserisce l'email nell'indice degli account nella stessa transazione dell'utente.
+    // Se una registrazione concorrente ha appena usato la stessa email, il vincolo di unicità
+    // fa fallire l'inserimento e l'intera registrazione viene annullata.
+    // Con gli id da sequenza l'INSERT verrebbe rinviato al commit: il flush lo invia subito
+    private void registraAccount(Account account) {
+        try {
+            accountRepository.saveAndFlush(account);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Email già in uso!");
+        }
+    }
+
 }
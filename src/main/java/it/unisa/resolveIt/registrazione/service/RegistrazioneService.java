@@ -3,6 +3,8 @@ package it.unisa.resolveIt.registrazione.service;
 import it.unisa.resolveIt.registrazione.dto.RegistraUtenteDTO;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.List;
+
 public interface RegistrazioneService {
     /**
      * Registra un nuovo cliente nel sistema.
@@ -21,4 +23,14 @@ public interface RegistrazioneService {
      * @param userDto oggetto che contiene i dati dell'operatore da registrare
      */
     public void registerOperator(RegistraUtenteDTO userDto);
+
+    /**
+     * Registra più operatori in un'unica transazione, inserendo utenti e account a lotti.
+     * L'importazione è atomica: se un'email è già in uso o ripetuta, o se le password di un operatore
+     * non coincidono, nessun operatore viene registrato.
+     *
+     * @param userDtos elenco dei dati degli operatori da registrare
+     * @return il numero di operatori registrati
+     */
+    public int registerOperators(List<RegistraUtenteDTO> userDtos);
 }
@@ -0,0 +1,129 @@
+package it.unisa.resolveIt.statistica.dto;
+
+import it.unisa.resolveIt.account.dto.AccountDTO;
+import it.unisa.resolveIt.model.enums.Stato;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Riepilogo statistico dei ticket mostrato nella dashboard del gestore.
+ * È immutabile: viene ricostruito dopo ogni aggiornamento e letto dalle richieste senza sincronizzazione.
+ * Contiene anche nome e cognome degli operatori presenti, così la dashboard non deve cercarli a ogni richiesta.
+ */
+public class StatisticheTicketDTO {
+
+    private static final Comparator<AccountDTO> ORDINE_OPERATORI = Comparator
+            .comparing(AccountDTO::getCognome, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(AccountDTO::getNome, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(AccountDTO::getId);
+
+    private final Map<Stato, Long> perStato;
+    private final Map<Long, Long> perCategoria;
+    private final Map<Long, Long> inCaricoPerOperatore;
+    private final Map<Long, Long> risoltiPerOperatore;
+    private final List<AccountDTO> operatori;
+    private final Duration tempoMedioAssegnazione;
+    private final Duration tempoMedioRisoluzione;
+
+    public StatisticheTicketDTO(Map<Stato, Long> perStato, Map<Long, Long> perCategoria,
+                                Map<Long, Long> inCaricoPerOperatore, Map<Long, Long> risoltiPerOperatore,
+                                List<AccountDTO> operatori,
+                                Duration tempoMedioAssegnazione, Duration tempoMedioRisoluzione) {
+        // Tutti gli stati sono presenti, anche quelli senza ticket
+        EnumMap<Stato, Long> stati = new EnumMap<>(Stato.class);
+        for (Stato stato : Stato.values()) {
+            stati.put(stato, perStato.getOrDefault(stato, 0L));
+        }
+        this.perStato = Collections.unmodifiableMap(stati);
+        this.perCategoria = Map.copyOf(perCategoria);
+        this.inCaricoPerOperatore = Map.copyOf(inCaricoPerOperatore);
+        this.risoltiPerOperatore = Map.copyOf(risoltiPerOperatore);
+        this.operatori = operatori.stream().sorted(ORDINE_OPERATORI).toList();
+        this.tempoMedioAssegnazione = tempoMedioAssegnazione;
+        this.tempoMedioRisoluzione = tempoMedioRisoluzione;
+    }
+
+    // Copia del riepilogo con i dati aggiornati di un operatore già presente
+    public StatisticheTicketDTO conOperatore(AccountDTO operatore) {
+        List<AccountDTO> aggiornati = operatori.stream()
+                .map(o -> o.getId().equals(operatore.getId()) ? operatore : o)
+                .toList();
+        return new StatisticheTicketDTO(perStato, perCategoria, inCaricoPerOperatore, risoltiPerOperatore, aggiornati,
+                tempoMedioAssegnazione, tempoMedioRisoluzione);
+    }
+
+    public static StatisticheTicketDTO vuote() {
+        return new StatisticheTicketDTO(Map.of(), Map.of(), Map.of(), Map.of(), List.of(), null, null);
+    }
+
+    public Map<Stato, Long> getPerStato() {
+        return perStato;
+    }
+
+    public long getTotale() {
+        return perStato.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Ticket creati per ogni categoria (ID della categoria), in qualsiasi stato
+    public Map<Long, Long> getPerCategoria() {
+        return perCategoria;
+    }
+
+    // Ticket IN_CORSO assegnati a ogni operatore (ID dell'operatore)
+    public Map<Long, Long> getInCaricoPerOperatore() {
+        return inCaricoPerOperatore;
+    }
+
+    // Ticket RISOLTO da ogni operatore (ID dell'operatore)
+    public Map<Long, Long> getRisoltiPerOperatore() {
+        return risoltiPerOperatore;
+    }
+
+    // Operatori presenti nei conteggi, ordinati per cognome e nome
+    public List<AccountDTO> getOperatori() {
+        return operatori;
+    }
+
+    /**
+     * @return il tempo medio tra la creazione di un ticket e la sua presa in carico, calcolato sui ticket
+     * in carico o risolti; un ticket rilasciato non conta finché non viene preso in carico di nuovo.
+     * {@code null} se nessun ticket è in carico o risolto.
+     */
+    public Duration getTempoMedioAssegnazione() {
+        return tempoMedioAssegnazione;
+    }
+
+    /**
+     * @return il tempo medio tra la creazione di un ticket e la sua risoluzione,
+     * {@code null} se nessun ticket è ancora stato risolto.
+     */
+    public Duration getTempoMedioRisoluzione() {
+        return tempoMedioRisoluzione;
+    }
+
+    public String getTempoMedioAssegnazioneTesto() {
+        return testo(tempoMedioAssegnazione);
+    }
+
+    public String getTempoMedioRisoluzioneTesto() {
+        return testo(tempoMedioRisoluzione);
+    }
+
+    static String testo(Duration durata) {
+        if (durata == null) {
+            return "-";
+        }
+        if (durata.toDays() > 0) {
+            return durata.toDays() + " g " + durata.toHoursPart() + " h";
+        }
+        if (durata.toHours() > 0) {
+            return durata.toHours() + " h " + durata.toMinutesPart() + " min";
+        }
+        return durata.toMinutes() + " min " + durata.toSecondsPart() + " s";
+    }
+}
@@ -0,0 +1,66 @@
+package it.unisa.resolveIt.statistica.dto;
+
+import it.unisa.resolveIt.model.entity.EventoTicket;
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.model.enums.TipoEvento;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stato attuale di un ticket, letto una sola volta per ricostruire le statistiche alla prima attivazione.
+ * Viene tradotto nella sequenza di eventi che porta il ticket in quello stato, così la ricostruzione
+ * e gli aggiornamenti incrementali calcolano i contatori con le stesse regole.
+ */
+public class StoriaTicketDTO {
+
+    private final Long id;
+    private final Stato stato;
+    private final Long idCategoria;
+    private final Long idOperatore;
+    private final LocalDateTime dataCreazione;
+    private final LocalDateTime dataInCarico;
+    private final LocalDateTime dataResolved;
+
+    // Usato dalla query di proiezione in TicketRepository
+    public StoriaTicketDTO(Long id, Stato stato, Long idCategoria, Long idOperatore, LocalDateTime dataCreazione,
+                           LocalDateTime dataInCarico, LocalDateTime dataResolved) {
+        this.id = id;
+        this.stato = stato;
+        this.idCategoria = idCategoria;
+        this.idOperatore = idOperatore;
+        this.dataCreazione = dataCreazione;
+        this.dataInCarico = dataInCarico;
+        this.dataResolved = dataResolved;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return gli eventi che hanno portato il ticket nel suo stato attuale. Un ticket APERTO produce solo la
+     * creazione, anche se era stato preso in carico e poi rilasciato: il rilascio annulla la presa in carico.
+     */
+    public List<EventoTicket> eventi() {
+        List<EventoTicket> eventi = new ArrayList<>(3);
+        eventi.add(evento(TipoEvento.CREATO, dataCreazione));
+        switch (stato) {
+            case IN_CORSO -> eventi.add(evento(TipoEvento.ASSEGNATO, dataInCarico));
+            case RISOLTO -> {
+                eventi.add(evento(TipoEvento.ASSEGNATO, dataInCarico));
+                eventi.add(evento(TipoEvento.RISOLTO, dataResolved));
+            }
+            case ANNULLATO -> eventi.add(evento(TipoEvento.ANNULLATO, null));
+            default -> {
+                // APERTO: solo la creazione
+            }
+        }
+        return eventi;
+    }
+
+    private EventoTicket evento(TipoEvento tipo, LocalDateTime dataEvento) {
+        return new EventoTicket(tipo, id, idCategoria, idOperatore, dataCreazione, dataInCarico, dataEvento);
+    }
+}
@@ -0,0 +1,311 @@
+package it.unisa.resolveIt.statistica.service;
+
+import it.unisa.resolveIt.account.dto.AccountDTO;
+import it.unisa.resolveIt.common.persistence.Blocchi;
+import it.unisa.resolveIt.model.entity.EventoTicket;
+import it.unisa.resolveIt.model.entity.StatisticaTicket;
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.model.repository.EventoApplicatoRepository;
+import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.model.repository.StatisticaTicketRepository;
+import it.unisa.resolveIt.model.repository.TicketRepository;
+import it.unisa.resolveIt.statistica.dto.StatisticheTicketDTO;
+import it.unisa.resolveIt.statistica.dto.StoriaTicketDTO;
+import it.unisa.resolveIt.ticket.eventi.LottoEventiTicket;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Statistiche dei ticket aggiornate in modo incrementale dagli eventi della outbox.
+ * <p>
+ * I contatori sono tenuti in memoria e nella tabella di riepilogo {@code statistica_ticket}: ogni lotto di eventi
+ * viene tradotto in variazioni dei contatori, salvate su database nella stessa transazione che registra gli ID
+ * degli eventi applicati, e solo dopo il commit sommate a quelli in memoria. La dashboard legge un riepilogo
+ * già pronto, senza interrogare il database.
+ * </p>
+ * <p>
+ * Alla prima attivazione il riepilogo viene ricostruito traducendo lo stato di ogni ticket negli eventi che
+ * lo hanno prodotto ({@link StoriaTicketDTO}), con le stesse regole usate per gli eventi della outbox:
+ * ricostruzione e aggiornamenti incrementali danno quindi gli stessi valori.
+ * </p>
+ * Gli aggiornamenti arrivano dal solo thread del dispatcher; il lock serve per la ricarica all'avvio e per
+ * i nomi degli operatori. Non è un blocco {@code synchronized} perché viene tenuto durante le query.
+ */
+@Service
+public class StatisticaImpl implements StatisticaService {
+
+    static final String ASSEGNAZIONE = "assegnazione";
+    static final String RISOLUZIONE = "risoluzione";
+
+    private static final String STATO = "stato:";
+    private static final String CATEGORIA = "categoria:";
+    private static final String OPERATORE = "operatore:";
+
+    @Autowired
+    private StatisticaTicketRepository statisticaRepository;
+
+    @Autowired
+    private EventoApplicatoRepository eventoApplicatoRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private OperatoreRepository operatoreRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ReentrantLock aggiornamento = new ReentrantLock();
+
+    // Contatori per chiave: {conteggio, somma dei secondi}
+    private final Map<String, long[]> contatori = new HashMap<>();
+
+    // Operatori presenti nei contatori, letti una sola volta e riportati nel riepilogo
+    private final Map<Long, AccountDTO> operatori = new HashMap<>();
+
+    private boolean caricate;
+
+    private volatile StatisticheTicketDTO statistiche = StatisticheTicketDTO.vuote();
+
+    @Override
+    public StatisticheTicketDTO getStatistiche() {
+        return statistiche;
+    }
+
+    @EventListener
+    public void aggiorna(LottoEventiTicket lotto) {
+        applica(lotto.getEventi());
+    }
+
+    @Override
+    public void applica(List<EventoTicket> eventi) {
+        aggiornamento.lock();
+        try {
+            if (!caricate) {
+                ricarica();
+            }
+            Map<String, long[]> variazioni = transactionTemplate.execute(status -> {
+                Set<Long> applicati = new HashSet<>(eventoApplicatoRepository.findIdByIdIn(
+                        eventi.stream().map(EventoTicket::getId).toList()));
+                List<EventoTicket> nuovi = eventi.stream().filter(e -> !applicati.contains(e.getId())).toList();
+                if (nuovi.isEmpty()) {
+                    return Map.of();
+                }
+                Map<String, long[]> calcolate = variazioni(nuovi);
+                calcolate.forEach((chiave, v) -> statisticaRepository.aggiungi(chiave, v[0], v[1]));
+                eventoApplicatoRepository.registra(nuovi.stream().map(EventoTicket::getId).toList());
+                eventoApplicatoRepository.eliminaConsegnati();
+                return calcolate;
+            });
+            if (!variazioni.isEmpty()) {
+                variazioni.forEach(this::somma);
+                statistiche = riepilogo();
+            }
+        } finally {
+            aggiornamento.unlock();
+        }
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void ricarica() {
+        aggiornamento.lock();
+        try {
+            List<StatisticaTicket> salvate = transactionTemplate.execute(status -> {
+                // Prima attivazione su un database con ticket già presenti: l'unica scansione completa dei ticket
+                if (statisticaRepository.count() == 0) {
+                    ricostruisci();
+                    eventoApplicatoRepository.registraTutti();
+                }
+                return statisticaRepository.findAll();
+            });
+            contatori.clear();
+            for (StatisticaTicket s : salvate) {
+                contatori.put(s.getChiave(), new long[]{s.getConteggio(), s.getSommaSecondi()});
+            }
+            // Anche i nomi degli operatori vengono riletti
+            operatori.clear();
+            caricate = true;
+            statistiche = riepilogo();
+        } finally {
+            aggiornamento.unlock();
+        }
+    }
+
+    // Dentro una transazione il riepilogo cambia solo dopo il commit, come i contatori
+    @Override
+    public void aggiornaOperatore(AccountDTO operatore) {
+        dopoCommit(() -> {
+            aggiornamento.lock();
+            try {
+                // Nessuna query: dopo il commit la transazione non è più utilizzabile
+                if (operatori.containsKey(operatore.getId())) {
+                    operatori.put(operatore.getId(), operatore);
+                    statistiche = statistiche.conOperatore(operatore);
+                }
+            } finally {
+                aggiornamento.unlock();
+            }
+        });
+    }
+
+    private static void dopoCommit(Runnable azione) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    azione.run();
+                }
+            });
+        } else {
+            azione.run();
+        }
+    }
+
+    // Somma le variazioni prodotte dalla storia di ogni ticket, leggendo i ticket a pagine
+    private void ricostruisci() {
+        Map<String, long[]> totali = new HashMap<>();
+        Long ultimo = 0L;
+        List<StoriaTicketDTO> pagina;
+        do {
+            pagina = ticketRepository.findStoriaDopo(ultimo, Limit.of(Blocchi.DIMENSIONE));
+            if (!pagina.isEmpty()) {
+                ultimo = pagina.getLast().getId();
+            }
+            variazioni(pagina.stream().flatMap(t -> t.eventi().stream()).toList())
+                    .forEach((chiave, v) -> aggiungi(totali, chiave, v[0], v[1]));
+        } while (pagina.size() == Blocchi.DIMENSIONE);
+        totali.forEach((chiave, v) -> statisticaRepository.aggiungi(chiave, v[0], v[1]));
+    }
+
+    /**
+     * Traduce gli eventi nelle variazioni dei contatori, raggruppate per chiave:
+     * ogni contatore toccato dal lotto viene aggiornato con una sola istruzione.
+     */
+    static Map<String, long[]> variazioni(List<EventoTicket> eventi) {
+        Map<String, long[]> variazioni = new LinkedHashMap<>();
+        for (EventoTicket e : eventi) {
+            switch (e.getTipo()) {
+                case CREATO -> {
+                    aggiungi(variazioni, STATO + Stato.APERTO, 1, 0);
+                    aggiungi(variazioni, CATEGORIA + e.getIdCategoria(), 1, 0);
+                }
+                case ASSEGNATO -> {
+                    sposta(variazioni, Stato.APERTO, Stato.IN_CORSO);
+                    operatore(variazioni, e, Stato.IN_CORSO, 1);
+                    durata(variazioni, ASSEGNAZIONE, e.getDataCreazione(), e.getDataEvento(), 1);
+                }
+                case RISOLTO -> {
+                    sposta(variazioni, Stato.IN_CORSO, Stato.RISOLTO);
+                    operatore(variazioni, e, Stato.IN_CORSO, -1);
+                    operatore(variazioni, e, Stato.RISOLTO, 1);
+                    durata(variazioni, RISOLUZIONE, e.getDataCreazione(), e.getDataEvento(), 1);
+                }
+                case RILASCIATO -> {
+                    sposta(variazioni, Stato.IN_CORSO, Stato.APERTO);
+                    operatore(variazioni, e, Stato.IN_CORSO, -1);
+                    // La presa in carico annullata esce dal tempo medio: il ticket conta di nuovo quando viene
+                    // ripreso, come nella ricostruzione, dove un ticket APERTO non ha presa in carico
+                    durata(variazioni, ASSEGNAZIONE, e.getDataCreazione(), e.getDataInCarico(), -1);
+                }
+                case ANNULLATO -> sposta(variazioni, Stato.APERTO, Stato.ANNULLATO);
+            }
+        }
+        // Le variazioni che si compensano nel lotto (es. un ticket creato e subito assegnato) non vanno scritte
+        variazioni.values().removeIf(v -> v[0] == 0 && v[1] == 0);
+        return variazioni;
+    }
+
+    private static void sposta(Map<String, long[]> variazioni, Stato da, Stato a) {
+        aggiungi(variazioni, STATO + da, -1, 0);
+        aggiungi(variazioni, STATO + a, 1, 0);
+    }
+
+    private static void operatore(Map<String, long[]> variazioni, EventoTicket e, Stato stato, long delta) {
+        if (e.getIdOperatore() != null) {
+            aggiungi(variazioni, OPERATORE + e.getIdOperatore() + ":" + stato, delta, 0);
+        }
+    }
+
+    private static void durata(Map<String, long[]> variazioni, String chiave, LocalDateTime inizio, LocalDateTime fine,
+                               long segno) {
+        if (inizio != null && fine != null) {
+            aggiungi(variazioni, chiave, segno, segno * Duration.between(inizio, fine).getSeconds());
+        }
+    }
+
+    private static void aggiungi(Map<String, long[]> variazioni, String chiave, long conteggio, long secondi) {
+        long[] v = variazioni.computeIfAbsent(chiave, k -> new long[2]);
+        v[0] += conteggio;
+        v[1] += secondi;
+    }
+
+    private void somma(String chiave, long[] variazione) {
+        long[] v = contatori.computeIfAbsent(chiave, k -> new long[2]);
+        v[0] += variazione[0];
+        v[1] += variazione[1];
+    }
+
+    // Costruisce il riepilogo letto dalla dashboard: il costo dipende dal numero di contatori, non dai ticket.
+    // Vengono letti solo i nomi degli operatori non ancora presenti, fuori dalle richieste della dashboard
+    private StatisticheTicketDTO riepilogo() {
+        Map<Stato, Long> perStato = new EnumMap<>(Stato.class);
+        Map<Long, Long> perCategoria = new HashMap<>();
+        Map<Long, Long> inCarico = new HashMap<>();
+        Map<Long, Long> risolti = new HashMap<>();
+        contatori.forEach((chiave, v) -> {
+            if (chiave.startsWith(STATO)) {
+                perStato.put(Stato.valueOf(chiave.substring(STATO.length())), v[0]);
+            } else if (chiave.startsWith(CATEGORIA)) {
+                perCategoria.put(Long.valueOf(chiave.substring(CATEGORIA.length())), v[0]);
+            } else if (chiave.startsWith(OPERATORE)) {
+                String[] parti = chiave.substring(OPERATORE.length()).split(":");
+                Stato stato = Stato.valueOf(parti[1]);
+                if (stato == Stato.IN_CORSO) {
+                    inCarico.put(Long.valueOf(parti[0]), v[0]);
+                } else if (stato == Stato.RISOLTO) {
+                    risolti.put(Long.valueOf(parti[0]), v[0]);
+                }
+            }
+        });
+        Set<Long> idOperatori = new HashSet<>(inCarico.keySet());
+        idOperatori.addAll(risolti.keySet());
+        carica(idOperatori);
+        List<AccountDTO> presenti = idOperatori.stream().map(operatori::get).filter(Objects::nonNull).toList();
+        return new StatisticheTicketDTO(perStato, perCategoria, inCarico, risolti, presenti,
+                media(contatori.get(ASSEGNAZIONE)), media(contatori.get(RISOLUZIONE)));
+    }
+
+    private void carica(Set<Long> idOperatori) {
+        List<Long> mancanti = idOperatori.stream().filter(id -> !operatori.containsKey(id)).toList();
+        for (List<Long> blocco : Blocchi.dividi(mancanti)) {
+            operatoreRepository.findAccountByIdIn(blocco).forEach(o -> operatori.put(o.getId(), o));
+        }
+    }
+
+    private static Duration media(long[] contatore) {
+        if (contatore == null || contatore[0] <= 0) {
+            return null;
+        }
+        return Duration.ofSeconds(contatore[1] / contatore[0]);
+    }
+}
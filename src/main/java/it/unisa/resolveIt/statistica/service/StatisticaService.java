@@ -0,0 +1,34 @@
+package it.unisa.resolveIt.statistica.service;
+
+import it.unisa.resolveIt.account.dto.AccountDTO;
+import it.unisa.resolveIt.model.entity.EventoTicket;
+import it.unisa.resolveIt.statistica.dto.StatisticheTicketDTO;
+
+import java.util.List;
+
+public interface StatisticaService {
+
+    /**
+     * Restituisce il riepilogo statistico dei ticket tenuto in memoria, senza interrogare il database.
+     * @return l'ultimo riepilogo aggiornato
+     */
+    public StatisticheTicketDTO getStatistiche();
+
+    /**
+     * Applica ai contatori gli eventi consegnati dalla outbox, salvando le variazioni nel riepilogo su database.
+     * Gli eventi già applicati vengono ignorati, quindi un lotto consegnato due volte viene contato una sola volta.
+     * @param eventi gli eventi in ordine di registrazione
+     */
+    public void applica(List<EventoTicket> eventi);
+
+    /**
+     * Ricarica in memoria il riepilogo salvato su database; se il riepilogo è vuoto lo calcola prima dai ticket.
+     */
+    public void ricarica();
+
+    /**
+     * Aggiorna nome e cognome di un operatore già presente nel riepilogo, dopo una modifica del profilo.
+     * @param operatore i dati aggiornati dell'operatore
+     */
+    public void aggiornaOperatore(AccountDTO operatore);
+}
@@ -1,31 +1,50 @@
 package it.unisa.resolveIt.ticket.control;
 
+import it.unisa.resolveIt.autenticazione.service.AutenticazioneService;
+import it.unisa.resolveIt.categoria.service.CategoriaService;
+import it.unisa.resolveIt.common.validation.EstensioneAllegato;
+import it.unisa.resolveIt.model.entity.Allegato;
 import it.unisa.resolveIt.model.entity.Cliente;
 import it.unisa.resolveIt.model.entity.Operatore;
 import it.unisa.resolveIt.model.entity.Ticket;
+import it.unisa.resolveIt.model.enums.Codifica;
 import it.unisa.resolveIt.model.enums.Stato;
-import it.unisa.resolveIt.model.repository.CategoriaRepository;
-import it.unisa.resolveIt.model.repository.ClienteRepository;
-import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.ticket.dto.CursoreTicket;
+import it.unisa.resolveIt.ticket.dto.EsitoTransizione;
+import it.unisa.resolveIt.ticket.dto.PaginaTicketDTO;
 import it.unisa.resolveIt.ticket.dto.TicketDTO;
+import it.unisa.resolveIt.ticket.dto.TransizioneMassivaDTO;
+import it.unisa.resolveIt.ticket.eventi.CanaleEventiTicket;
 import it.unisa.resolveIt.ticket.service.TicketService;
+import it.unisa.resolveIt.ticket.storage.AllegatoStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
 import java.security.Principal;
+import java.time.ZoneId;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 @Controller
 @RequestMapping("/ticket")
@@ -35,26 +54,39 @@ public class TicketController {
     private TicketService ticketService;
 
     @Autowired
-    private ClienteRepository clienteRepository;
+    private AutenticazioneService autenticazioneService;
 
     @Autowired
-    private OperatoreRepository operatoreRepository;
+    private CategoriaService categoriaService;
 
     @Autowired
-    private CategoriaRepository categoriaRepository;
+    private AllegatoStorage allegatoStorage;
+
+    @Autowired
+    private CanaleEventiTicket canaleEventiTicket;
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Sotto questa soglia (la stessa del DefaultServlet di Tomcat) la copia bufferizzata è più conveniente
+    private static final long SENDFILE_SOGLIA = 48 * 1024;
 
     @PreAuthorize("hasAuthority('CLIENTE')")
     @GetMapping("/home")
     public String userHome(@RequestParam(required = false) Stato stato,
                            @RequestParam(required = false, defaultValue = "desc") String ordine,
+                           @RequestParam(required = false) String cursore,
                            Model model, Principal principal) {
-        Cliente cliente = clienteRepository.findByEmail(principal.getName());
+        Cliente cliente = autenticazioneService.getCliente(principal.getName());
 
-        List<TicketDTO> tickets = ticketService.getTicketUtenteFiltrati(cliente, stato, ordine);
+        PaginaTicketDTO pagina = ticketService.getTicketUtenteFiltrati(cliente, stato, ordine, CursoreTicket.parse(cursore));
 
-        model.addAttribute("lista", tickets);
+        model.addAttribute("lista", pagina.getTicket());
+        model.addAttribute("cursoreSuccessivo", pagina.getCursoreSuccessivo());
+        model.addAttribute("paginaIniziale", cursore == null);
         model.addAttribute("ticketDTO", new TicketDTO());
-        model.addAttribute("categorie", categoriaRepository.findAllByStato(true));
+        model.addAttribute("categorie", categoriaService.getCategorieAttive());
 
 
         model.addAttribute("statoSelezionato", stato);
@@ -73,7 +105,7 @@ public class TicketController {
         MultipartFile file = ticketDTO.getFileAllegato();
         if (file != null && !file.isEmpty()) {
             String fileName = file.getOriginalFilename();
-            if (fileName != null && !fileName.toLowerCase().matches(".*\\.(txt|jpg|jpeg|zip)$")) {
+            if (fileName != null && !EstensioneAllegato.ammessa(fileName)) {
                 result.rejectValue("fileAllegato", "error.file", "Formato non consentito (solo .txt, .jpg, .jpeg, .zip)");
             }
             if (file.getSize() > 16777216) {
@@ -82,16 +114,16 @@ public class TicketController {
         }
 
         if (result.hasErrors()) {
-            Cliente cliente = clienteRepository.findByEmail(principal.getName());
-            model.addAttribute("lista", ticketService.getTicketUtente(cliente));
-            model.addAttribute("categorie", categoriaRepository.findAll());
+            Cliente cliente = autenticazioneService.getCliente(principal.getName());
+            model.addAttribute("lista", ticketService.getTicketUtenteFiltrati(cliente, null, "desc", null).getTicket());
+            model.addAttribute("categorie", categoriaService.getCategorie());
             model.addAttribute("ordineSelezionato", "desc");
 
             model.addAttribute("openTab", "new-ticket");
             return "user-homepage";
         }
 
-        Cliente cliente = clienteRepository.findByEmail(principal.getName());
+        Cliente cliente = autenticazioneService.getCliente(principal.getName());
 
         try{
             ticketService.addTicket(ticketDTO, cliente);
@@ -106,21 +138,22 @@ public class TicketController {
 
     @PreAuthorize("hasAuthority('OPERATORE')")
     @GetMapping("/operatore-home")
-    public String operatoreHome(Model model, Principal principal) {
-        Operatore operatore = operatoreRepository.findByEmail(principal.getName());
-
-        List<TicketDTO> ticketsInCarico = ticketService.getTicketInCarico(operatore);
-
-        List<TicketDTO> listaOrdinata = ticketsInCarico.stream()
-                .sorted((t1, t2) -> {
-                    if (t1.getStato().name().equals("IN_CORSO") && !t2.getStato().name().equals("IN_CORSO")) return -1;
-                    if (!t1.getStato().name().equals("IN_CORSO") && t2.getStato().name().equals("IN_CORSO")) return 1;
-                    return t2.getDataCreazione().compareTo(t1.getDataCreazione());
-                })
-                .collect(Collectors.toList());
-
-        model.addAttribute("listaLavoro", listaOrdinata);
-        model.addAttribute("listaAttesa", ticketService.getTicketDisponibili());
+    public String operatoreHome(@RequestParam(required = false) String cursoreLavoro,
+                                @RequestParam(required = false) String cursoreAttesa,
+                                Model model, Principal principal) {
+        Operatore operatore = autenticazioneService.getOperatore(principal.getName());
+
+        PaginaTicketDTO inCarico = ticketService.getTicketInCarico(operatore, CursoreTicket.parse(cursoreLavoro));
+        PaginaTicketDTO inAttesa = ticketService.getTicketDisponibili(CursoreTicket.parse(cursoreAttesa));
+
+        model.addAttribute("listaLavoro", inCarico.getTicket());
+        model.addAttribute("listaAttesa", inAttesa.getTicket());
+        model.addAttribute("cursoreLavoro", inCarico.getCursoreSuccessivo());
+        model.addAttribute("cursoreAttesa", inAttesa.getCursoreSuccessivo());
+        model.addAttribute("paginaInizialeAttesa", cursoreAttesa == null);
+        if (cursoreAttesa != null) {
+            model.addAttribute("openTab", "assign");
+        }
 
         return "operatore-homepage";
     }
@@ -147,7 +180,7 @@ public class TicketController {
             return "redirect:/login";
         }
 
-        Operatore operatore = operatoreRepository.findByEmail(principal.getName());
+        Operatore operatore = autenticazioneService.getOperatore(principal.getName());
 
         try{
             ticketService.assignTicket(id, operatore);
@@ -159,6 +192,20 @@ public class TicketController {
         }
     }
 
+    @PreAuthorize("hasAuthority('OPERATORE')")
+    @PostMapping("/prendi-prossimo")
+    public String assignNext(Principal principal, RedirectAttributes redirectAttributes) {
+        Operatore operatore = autenticazioneService.getOperatore(principal.getName());
+
+        try{
+            ticketService.prendiProssimoTicket(operatore);
+            redirectAttributes.addFlashAttribute("successMessage", "Ticket assegnato con successo!");
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Errore: " + e.getMessage());
+        }
+        return "redirect:/ticket/operatore-home";
+    }
+
     @PreAuthorize("hasAuthority('OPERATORE')")
     @PostMapping("/risolvi/{id}")
     public String resolve(@PathVariable Long id, RedirectAttributes redirectAttributes) {
@@ -185,21 +232,162 @@ public class TicketController {
         }
     }
 
+    // Flusso server-sent events con i cambi di stato dei ticket, letto dalla pagina degli operatori
+    @PreAuthorize("hasAuthority('OPERATORE')")
+    @GetMapping(value = "/eventi", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter eventi() {
+        return canaleEventiTicket.iscrivi();
+    }
+
+    // Transizione di più ticket in una sola richiesta: risponde in JSON con l'esito di ciascun ticket
+    @PreAuthorize("hasAuthority('OPERATORE')")
+    @PostMapping(value = "/transizioni", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<Long, EsitoTransizione> transizioneMassiva(@Valid @RequestBody TransizioneMassivaDTO richiesta, Principal principal) {
+        Operatore operatore = autenticazioneService.getOperatore(principal.getName());
+        return ticketService.transizioneMassiva(richiesta.getAzione(), richiesta.getIds(), operatore);
+    }
+
     @GetMapping("/download/{id}")
-    public ResponseEntity<byte[]> downloadFile(@PathVariable Long id) {
+    public void downloadFile(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response,
+                             WebRequest webRequest) throws IOException {
 
         Ticket t = ticketService.getTicketById(id);
 
-        if (t.getAllegato() == null) {
-            return ResponseEntity.notFound().build();
+        Allegato allegato = t.getAllegato();
+        if (allegato == null || !allegatoStorage.exists(allegato.getHash())) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
 
+        String hash = allegato.getHash();
         String nome = (t.getNomeFile() != null) ? t.getNomeFile() : "allegato.dat";
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + nome + "\"")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(t.getAllegato());
+        // Un allegato salvato compresso viene inviato così com'è ai client che accettano gzip,
+        // agli altri viene decompresso in streaming durante l'invio
+        boolean salvatoCompresso = allegato.getCodifica() == Codifica.GZIP;
+        boolean inviaCompresso = salvatoCompresso && accettaGzip(request);
+        if (salvatoCompresso) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        long dimensione = inviaCompresso ? allegatoStorage.size(hash) : allegato.getDimensione();
+
+        // L'allegato non cambia mai: l'hash del contenuto è un ETag forte e la data del ticket è la sua ultima modifica.
+        // Se il client ha già questa versione (If-None-Match / If-Modified-Since) risponde 304 senza corpo.
+        // La versione compressa è una rappresentazione diversa e ha quindi un ETag diverso.
+        String etag = inviaCompresso ? "\"" + hash + "-gzip\"" : "\"" + hash + "\"";
+        long ultimaModifica = (t.getDataCreazione() != null)
+                ? t.getDataCreazione().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+        if (webRequest.checkNotModified(etag, ultimaModifica)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + nome + "\"");
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        if (inviaCompresso) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        // Con un header Range valido viene inviata solo la porzione richiesta (206), ad esempio per riprendere un download interrotto
+        long inizio = 0;
+        long fine = dimensione - 1;
+        HttpRange intervallo = intervalloRichiesto(request, etag);
+        if (intervallo != null) {
+            inizio = intervallo.getRangeStart(dimensione);
+            fine = intervallo.getRangeEnd(dimensione);
+            if (inizio > fine) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + dimensione);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inizio + "-" + fine + "/" + dimensione);
+        }
+        long lunghezza = fine - inizio + 1;
+        response.setContentLengthLong(lunghezza);
+
+        if (salvatoCompresso && !inviaCompresso) {
+            try (InputStream contenuto = new GZIPInputStream(allegatoStorage.open(hash), 64 * 1024)) {
+                contenuto.skipNBytes(inizio);
+                copia(contenuto, response.getOutputStream(), lunghezza);
+            }
+            return;
+        }
+
+        // Se Tomcat supporta sendfile il file viene inviato dal connettore senza passare dalla JVM
+        Optional<Path> file = allegatoStorage.file(hash);
+        if (file.isPresent() && lunghezza >= SENDFILE_SOGLIA
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.get().toString());
+            request.setAttribute(SENDFILE_START, inizio);
+            request.setAttribute(SENDFILE_END, fine + 1);
+            return;
+        }
+
+        allegatoStorage.transferTo(hash, inizio, lunghezza, Channels.newChannel(response.getOutputStream()));
+    }
+
+    // Il client accetta gzip se lo elenca in Accept-Encoding senza escluderlo con q=0
+    private static boolean accettaGzip(HttpServletRequest request) {
+        String accettate = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (accettate == null) {
+            return false;
+        }
+        for (String voce : accettate.split(",")) {
+            String[] parti = voce.split(";");
+            if (!parti[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parti.length; i++) {
+                String parametro = parti[i].trim();
+                if (parametro.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(parametro.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static void copia(InputStream sorgente, OutputStream destinazione, long lunghezza) throws IOException {
+        byte[] buffer = new byte[8192];
+        long rimanenti = lunghezza;
+        while (rimanenti > 0) {
+            int letti = sorgente.read(buffer, 0, (int) Math.min(buffer.length, rimanenti));
+            if (letti == -1) {
+                break;
+            }
+            destinazione.write(buffer, 0, letti);
+            rimanenti -= letti;
+        }
+    }
+
+    /**
+     * Restituisce l'intervallo di byte richiesto dal client, oppure {@code null} se va inviato il file intero:
+     * header Range assente o malformato, più intervalli nella stessa richiesta, oppure If-Range che non
+     * corrisponde all'ETag attuale (il client ha una versione diversa e deve riscaricarla tutta).
+     */
+    private static HttpRange intervalloRichiesto(HttpServletRequest request, String etag) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> intervalli = HttpRange.parseRanges(range);
+            return (intervalli.size() == 1) ? intervalli.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
 
@@ -0,0 +1,64 @@
+package it.unisa.resolveIt.ticket.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posizione di una lista di ticket paginata per chiave (keyset) su {@code (dataCreazione, ID_T)}.
+ * La pagina successiva parte dall'ultimo ticket mostrato invece che da un offset,
+ * quindi il costo della query non cresce con il numero di pagine già sfogliate.
+ */
+public class CursoreTicket {
+
+    // Estremi dell'intervallo DATETIME di MySQL, usati come cursore della prima pagina
+    private static final CursoreTicket INIZIO_DESC = new CursoreTicket(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+    private static final CursoreTicket INIZIO_ASC = new CursoreTicket(LocalDateTime.of(1000, 1, 1, 0, 0), 0L);
+
+    private final LocalDateTime dataCreazione;
+    private final Long id;
+
+    public CursoreTicket(LocalDateTime dataCreazione, Long id) {
+        this.dataCreazione = dataCreazione;
+        this.id = id;
+    }
+
+    public static CursoreTicket primaPagina(boolean decrescente) {
+        return decrescente ? INIZIO_DESC : INIZIO_ASC;
+    }
+
+    public static CursoreTicket dopo(TicketDTO ultimo) {
+        return new CursoreTicket(ultimo.getDataCreazione(), ultimo.getId());
+    }
+
+    /**
+     * @param valore il cursore ricevuto come parametro della richiesta.
+     * @return il cursore decodificato, oppure {@code null} se assente o non valido (si riparte dalla prima pagina).
+     */
+    public static CursoreTicket parse(String valore) {
+        if (valore == null || valore.isBlank()) {
+            return null;
+        }
+        try {
+            String decodificato = new String(Base64.getUrlDecoder().decode(valore), StandardCharsets.UTF_8);
+            int separatore = decodificato.lastIndexOf('|');
+            return new CursoreTicket(LocalDateTime.parse(decodificato.substring(0, separatore)),
+                    Long.parseLong(decodificato.substring(separatore + 1)));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public String encode() {
+        String valore = dataCreazione + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valore.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getDataCreazione() {
+        return dataCreazione;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,12 @@
+package it.unisa.resolveIt.ticket.dto;
+
+/**
+ * Esito di una transizione di stato per un singolo ticket di un'operazione massiva.
+ */
+public enum EsitoTransizione {
+    ESEGUITA,
+    NON_TROVATO,
+    STATO_NON_VALIDO,
+    /** Il ticket è in lavorazione ma è assegnato a un altro operatore. */
+    NON_ASSEGNATO
+}
@@ -0,0 +1,29 @@
+package it.unisa.resolveIt.ticket.dto;
+
+import java.util.List;
+
+public class PaginaTicketDTO {
+
+    private final List<TicketDTO> ticket;
+    private final String cursoreSuccessivo;
+
+    public PaginaTicketDTO(List<TicketDTO> ticket, String cursoreSuccessivo) {
+        this.ticket = ticket;
+        this.cursoreSuccessivo = cursoreSuccessivo;
+    }
+
+    public List<TicketDTO> getTicket() {
+        return ticket;
+    }
+
+    /**
+     * @return il cursore da passare per ottenere la pagina successiva, {@code null} se questa è l'ultima.
+     */
+    public String getCursoreSuccessivo() {
+        return cursoreSuccessivo;
+    }
+
+    public boolean hasSuccessiva() {
+        return cursoreSuccessivo != null;
+    }
+}
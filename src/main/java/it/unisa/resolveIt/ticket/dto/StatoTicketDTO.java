@@ -0,0 +1,32 @@
+package it.unisa.resolveIt.ticket.dto;
+
+import it.unisa.resolveIt.model.enums.Stato;
+
+/**
+ * Stato corrente di un ticket, letto con lock durante le transizioni massive per stabilire l'esito di ciascun ticket.
+ */
+public class StatoTicketDTO {
+
+    private final Long id;
+    private final Stato stato;
+    private final Long idOperatore;
+
+    // Usato dalla query nativa in TicketRepository, che legge lo stato come testo
+    public StatoTicketDTO(Long id, String stato, Long idOperatore) {
+        this.id = id;
+        this.stato = Stato.valueOf(stato);
+        this.idOperatore = idOperatore;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Stato getStato() {
+        return stato;
+    }
+
+    public Long getIdOperatore() {
+        return idOperatore;
+    }
+}
@@ -0,0 +1,57 @@
+package it.unisa.resolveIt.ticket.dto;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Voce della coda in memoria dei ticket aperti: contiene solo i campi usati per l'ordinamento.
+ * Le voci sono ordinate per data di creazione, poi per categoria e infine per ID, così l'ordine è totale.
+ */
+public class TicketCodaDTO implements Comparable<TicketCodaDTO> {
+
+    private static final Comparator<TicketCodaDTO> ORDINE = Comparator
+            .comparing(TicketCodaDTO::getDataCreazione)
+            .thenComparing(TicketCodaDTO::getIdCategoria, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(TicketCodaDTO::getId);
+
+    private final Long id;
+    private final LocalDateTime dataCreazione;
+    private final Long idCategoria;
+
+    // Usato anche dalle query di proiezione in TicketRepository
+    public TicketCodaDTO(Long id, LocalDateTime dataCreazione, Long idCategoria) {
+        this.id = id;
+        this.dataCreazione = dataCreazione;
+        this.idCategoria = idCategoria;
+    }
+
+    @Override
+    public int compareTo(TicketCodaDTO altro) {
+        return ORDINE.compare(this, altro);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TicketCodaDTO altro)) return false;
+        return id.equals(altro.id) && dataCreazione.equals(altro.dataCreazione) && Objects.equals(idCategoria, altro.idCategoria);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getDataCreazione() {
+        return dataCreazione;
+    }
+
+    public Long getIdCategoria() {
+        return idCategoria;
+    }
+}
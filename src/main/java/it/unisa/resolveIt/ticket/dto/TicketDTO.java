@@ -2,10 +2,11 @@ package it.unisa.resolveIt.ticket.dto;
 
 import it.unisa.resolveIt.model.enums.Stato;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import org.springframework.web.multipart.MultipartFile;
 import java.time.LocalDateTime;
+import it.unisa.resolveIt.common.validation.Formato;
+import it.unisa.resolveIt.common.validation.FormatoValido;
 
 
 public class TicketDTO {
@@ -13,7 +14,7 @@ public class TicketDTO {
     private Long id;
 
     @NotBlank(message = "Il titolo è obbligatorio")
-    @Pattern(regexp = "^[a-zA-Z0-9À-ÿ '‘\".,!?-]{5,100}$", message = "Il titolo deve essere tra 5 e 100 caratteri validi")
+    @FormatoValido(value = Formato.TITOLO_TICKET, message = "Il titolo deve essere tra 5 e 100 caratteri validi")
     private String titolo;
 
     @NotBlank(message = "La descrizione è obbligatoria")
@@ -50,6 +51,19 @@ public class TicketDTO {
         this.nomeCategoria = nomeCategoria;
     }
 
+    // Usato dalle query di proiezione in TicketRepository
+    public TicketDTO(Long id, String titolo, String descrizione, Stato stato, LocalDateTime dataCreazione, LocalDateTime dataAnnullamento, LocalDateTime dataRisoluzione, String nomeFile, String nomeCategoria) {
+        this.id = id;
+        this.titolo = titolo;
+        this.descrizione = descrizione;
+        this.stato = stato;
+        this.dataCreazione = dataCreazione;
+        this.dataAnnullamento = dataAnnullamento;
+        this.dataRisoluzione = dataRisoluzione;
+        this.nomeFile = nomeFile;
+        this.nomeCategoria = nomeCategoria;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,13 @@
+package it.unisa.resolveIt.ticket.dto;
+
+/**
+ * Transizioni di stato che un operatore può applicare in blocco ai ticket.
+ */
+public enum Transizione {
+    /** Da "APERTO" a "IN_CORSO", assegnando il ticket all'operatore. */
+    PRENDI,
+    /** Da "IN_CORSO" a "RISOLTO", solo per i ticket assegnati all'operatore. */
+    RISOLVI,
+    /** Da "IN_CORSO" ad "APERTO", solo per i ticket assegnati all'operatore. */
+    RILASCIA
+}
@@ -0,0 +1,45 @@
+package it.unisa.resolveIt.ticket.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Richiesta di una transizione di stato da applicare a più ticket con una sola chiamata.
+ */
+public class TransizioneMassivaDTO {
+
+    public static final int MASSIMO_TICKET = 1000;
+
+    @NotNull
+    private Transizione azione;
+
+    @NotEmpty @Size(max = MASSIMO_TICKET)
+    private List<@NotNull Long> ids;
+
+    public TransizioneMassivaDTO() {
+    }
+
+    public TransizioneMassivaDTO(Transizione azione, List<Long> ids) {
+        this.azione = azione;
+        this.ids = ids;
+    }
+
+    public Transizione getAzione() {
+        return azione;
+    }
+
+    public void setAzione(Transizione azione) {
+        this.azione = azione;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
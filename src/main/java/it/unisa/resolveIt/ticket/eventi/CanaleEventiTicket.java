@@ -0,0 +1,160 @@
+package it.unisa.resolveIt.ticket.eventi;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Canale server-sent events verso le pagine degli operatori.
+ * <p>
+ * Riceve i {@link TicketEvento} dopo il commit della transazione che li ha generati e li inoltra a tutti i
+ * browser collegati, così la lista dei ticket in attesa si aggiorna senza ricaricare la pagina.
+ * Ogni browser ha una propria coda limitata, svuotata da un thread virtuale dedicato: la richiesta che ha
+ * modificato il ticket non attende nessun invio, e un client lento o non più raggiungibile rallenta solo sé stesso.
+ * Un client la cui coda si riempie, o il cui invio resta bloccato oltre {@link #TEMPO_MASSIMO_INVIO},
+ * viene disconnesso; il browser si ricollegherà e ripartirà dallo stato attuale.
+ * </p>
+ * Ogni browser riceve gli eventi nello stesso ordine dei commit.
+ */
+@Component
+public class CanaleEventiTicket {
+
+    static final String NOME_EVENTO = "ticket";
+
+    // Allo scadere il browser si ricollega da solo (EventSource), liberando le connessioni abbandonate
+    private static final long TIMEOUT = Duration.ofMinutes(30).toMillis();
+    private static final long RICONNESSIONE = Duration.ofSeconds(3).toMillis();
+
+    static final int EVENTI_IN_CODA = 256;
+    static final Duration TEMPO_MASSIMO_INVIO = Duration.ofSeconds(5);
+
+    private final Map<SseEmitter, Iscritto> iscritti = new ConcurrentHashMap<>();
+
+    // Gli eventi vengono accodati a tutti i browser in un solo passo, così nessuno li riceve in ordine diverso
+    private final ReentrantLock accodamento = new ReentrantLock();
+
+    long tempoMassimoInvio = TEMPO_MASSIMO_INVIO.toNanos();
+
+    /**
+     * Registra un nuovo browser in ascolto.
+     *
+     * @return l'emitter da restituire come risposta della richiesta.
+     */
+    public SseEmitter iscrivi() {
+        SseEmitter emitter = new SseEmitter(TIMEOUT);
+        iscrivi(emitter);
+        return emitter;
+    }
+
+    void iscrivi(SseEmitter emitter) {
+        emitter.onCompletion(() -> rimuovi(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> rimuovi(emitter));
+        try {
+            emitter.send(SseEmitter.event().comment("connesso").reconnectTime(RICONNESSIONE));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return;
+        }
+        Iscritto iscritto = new Iscritto(emitter);
+        iscritti.put(emitter, iscritto);
+        iscritto.thread.start();
+    }
+
+    @TransactionalEventListener
+    public void pubblica(TicketEvento evento) {
+        long ora = System.nanoTime();
+        accodamento.lock();
+        try {
+            for (Iscritto iscritto : iscritti.values()) {
+                if (iscritto.bloccato(ora, tempoMassimoInvio) || !iscritto.daInviare.offer(evento)) {
+                    disconnetti(iscritto, new IOException("Client troppo lento"));
+                }
+            }
+        } finally {
+            accodamento.unlock();
+        }
+    }
+
+    int numeroIscritti() {
+        return iscritti.size();
+    }
+
+    @PreDestroy
+    void chiudi() {
+        iscritti.values().forEach(iscritto -> {
+            if (rimuovi(iscritto.emitter)) {
+                iscritto.emitter.complete();
+            }
+        });
+    }
+
+    private boolean rimuovi(SseEmitter emitter) {
+        Iscritto iscritto = iscritti.remove(emitter);
+        if (iscritto == null) {
+            return false;
+        }
+        iscritto.thread.interrupt();
+        return true;
+    }
+
+    // La chiusura avviene su un thread a parte: l'emitter resta bloccato finché l'invio in corso non termina
+    private void disconnetti(Iscritto iscritto, Exception causa) {
+        if (rimuovi(iscritto.emitter)) {
+            Thread.startVirtualThread(() -> iscritto.emitter.completeWithError(causa));
+        }
+    }
+
+    /**
+     * Un browser collegato, con la coda degli eventi ancora da inviargli e il thread che li invia.
+     */
+    private final class Iscritto {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<TicketEvento> daInviare = new ArrayBlockingQueue<>(EVENTI_IN_CODA);
+
+        // System.nanoTime() all'inizio dell'invio in corso, 0 se il thread è in attesa di eventi
+        private volatile long invioIniziato;
+
+        private final Thread thread;
+
+        private Iscritto(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.thread = Thread.ofVirtual().name("eventi-ticket").unstarted(this::invia);
+        }
+
+        private boolean bloccato(long ora, long tempoMassimo) {
+            long inizio = invioIniziato;
+            return inizio != 0 && ora - inizio > tempoMassimo;
+        }
+
+        private void invia() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    TicketEvento evento = daInviare.take();
+                    invioIniziato = System.nanoTime();
+                    try {
+                        emitter.send(SseEmitter.event().name(NOME_EVENTO).data(evento, MediaType.APPLICATION_JSON));
+                    } finally {
+                        invioIniziato = 0;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Browser rimosso: il thread termina
+            } catch (IOException | IllegalStateException e) {
+                // Browser disconnesso: la pagina si ricollegherà e ripartirà dallo stato attuale
+                disconnetti(this, e);
+            }
+        }
+    }
+}
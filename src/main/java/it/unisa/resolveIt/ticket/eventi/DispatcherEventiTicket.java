@@ -0,0 +1,59 @@
+package it.unisa.resolveIt.ticket.eventi;
+
+import it.unisa.resolveIt.model.entity.EventoTicket;
+import it.unisa.resolveIt.model.repository.EventoTicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Consegna gli eventi registrati nella outbox ({@link EventoTicket}) ai consumatori dell'applicazione.
+ * <p>
+ * A intervalli regolari legge gli eventi confermati a lotti di {@code resolveit.outbox.lotto}, li pubblica come
+ * {@link LottoEventiTicket} e li elimina solo dopo che tutti i consumatori li hanno elaborati senza errori.
+ * Se un consumatore fallisce il lotto resta nella outbox e viene riproposto al giro successivo: la consegna è
+ * "almeno una volta", mai "al più una". Gli eventi di uno stesso ticket arrivano in ordine, perché le sue
+ * transizioni si serializzano sul lock della riga prima di scrivere nella outbox.
+ * </p>
+ * Il dispatcher presuppone una sola istanza dell'applicazione per database.
+ */
+@Component
+public class DispatcherEventiTicket {
+
+    private static final Logger log = LoggerFactory.getLogger(DispatcherEventiTicket.class);
+
+    @Autowired
+    private EventoTicketRepository eventoTicketRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${resolveit.outbox.lotto:500}")
+    private int dimensioneLotto;
+
+    // fixedDelay: un giro parte solo dopo la fine del precedente, quindi i lotti non si sovrappongono
+    @Scheduled(fixedDelayString = "${resolveit.outbox.intervallo:500}")
+    public void consegna() {
+        List<EventoTicket> lotto;
+        do {
+            lotto = eventoTicketRepository.findAllByOrderByIdAsc(Limit.of(dimensioneLotto));
+            if (lotto.isEmpty()) {
+                return;
+            }
+            try {
+                eventPublisher.publishEvent(new LottoEventiTicket(lotto));
+            } catch (RuntimeException e) {
+                log.warn("Consegna di {} eventi sui ticket non riuscita, verrà ritentata", lotto.size(), e);
+                return;
+            }
+            eventoTicketRepository.deleteAllByIdInBatch(lotto.stream().map(EventoTicket::getId).toList());
+        } while (lotto.size() == dimensioneLotto);
+    }
+}
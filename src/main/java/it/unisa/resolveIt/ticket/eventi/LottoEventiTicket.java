@@ -0,0 +1,26 @@
+package it.unisa.resolveIt.ticket.eventi;
+
+import it.unisa.resolveIt.model.entity.EventoTicket;
+
+import java.util.List;
+
+/**
+ * Lotto di eventi letti dalla outbox e consegnati dal {@link DispatcherEventiTicket}.
+ * <p>
+ * I consumatori lo ricevono con {@code @EventListener}, fuori da qualsiasi transazione e nell'ordine
+ * di registrazione degli eventi. La consegna è "almeno una volta": se un consumatore fallisce, l'intero lotto
+ * viene riproposto, quindi chi tiene uno stato deve ignorare gli eventi con un ID già applicato.
+ * </p>
+ */
+public class LottoEventiTicket {
+
+    private final List<EventoTicket> eventi;
+
+    public LottoEventiTicket(List<EventoTicket> eventi) {
+        this.eventi = List.copyOf(eventi);
+    }
+
+    public List<EventoTicket> getEventi() {
+        return eventi;
+    }
+}
@@ -0,0 +1,97 @@
+package it.unisa.resolveIt.ticket.eventi;
+
+import it.unisa.resolveIt.model.enums.TipoEvento;
+import it.unisa.resolveIt.ticket.dto.TicketDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cambio di stato di uno o più ticket, pubblicato da {@link it.unisa.resolveIt.ticket.service.TicketImpl}
+ * e inoltrato agli operatori collegati solo dopo il commit della transazione.
+ * <p>
+ * Un'operazione massiva produce un solo evento con tutti gli ID coinvolti. Per i ticket che tornano
+ * (o arrivano per la prima volta) tra quelli in attesa, l'evento contiene anche i dati per mostrarli.
+ * </p>
+ */
+public class TicketEvento {
+
+    private final TipoEvento tipo;
+    private final List<Long> ids;
+    private final List<Riga> ticket;
+
+    private TicketEvento(TipoEvento tipo, List<Long> ids, List<Riga> ticket) {
+        this.tipo = tipo;
+        this.ids = List.copyOf(ids);
+        this.ticket = List.copyOf(ticket);
+    }
+
+    public static TicketEvento creato(Riga ticket) {
+        return new TicketEvento(TipoEvento.CREATO, List.of(ticket.getId()), List.of(ticket));
+    }
+
+    public static TicketEvento rilasciati(List<TicketDTO> ticket) {
+        List<Riga> righe = ticket.stream().map(Riga::new).toList();
+        return new TicketEvento(TipoEvento.RILASCIATO, righe.stream().map(Riga::getId).toList(), righe);
+    }
+
+    public static TicketEvento di(TipoEvento tipo, List<Long> ids) {
+        return new TicketEvento(tipo, ids, List.of());
+    }
+
+    public TipoEvento getTipo() {
+        return tipo;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public List<Riga> getTicket() {
+        return ticket;
+    }
+
+    /**
+     * I dati di un ticket mostrati nella lista dei ticket in attesa.
+     */
+    public static class Riga {
+
+        private final Long id;
+        private final String titolo;
+        private final String descrizione;
+        private final String nomeCategoria;
+        private final LocalDateTime dataCreazione;
+
+        public Riga(Long id, String titolo, String descrizione, String nomeCategoria, LocalDateTime dataCreazione) {
+            this.id = id;
+            this.titolo = titolo;
+            this.descrizione = descrizione;
+            this.nomeCategoria = nomeCategoria;
+            this.dataCreazione = dataCreazione;
+        }
+
+        Riga(TicketDTO dto) {
+            this(dto.getId(), dto.getTitolo(), dto.getDescrizione(), dto.getNomeCategoria(), dto.getDataCreazione());
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getTitolo() {
+            return titolo;
+        }
+
+        public String getDescrizione() {
+            return descrizione;
+        }
+
+        public String getNomeCategoria() {
+            return nomeCategoria;
+        }
+
+        public LocalDateTime getDataCreazione() {
+            return dataCreazione;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package it.unisa.resolveIt.ticket.service;
+
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.model.repository.TicketRepository;
+import it.unisa.resolveIt.ticket.dto.TicketCodaDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Coda in memoria dei ticket in stato APERTO, ordinata per data di creazione e categoria.
+ * <p>
+ * Permette agli operatori di prelevare il prossimo ticket senza interrogare la tabella dei ticket.
+ * La coda è un indice di supporto e non la fonte di verità: l'assegnazione vera resta la UPDATE
+ * condizionale sul database, quindi una voce non più valida (ad esempio un ticket preso
+ * direttamente dalla lista o da un'altra istanza dell'applicazione) viene semplicemente scartata al prelievo.
+ * </p>
+ * La coda viene ricostruita dal database all'avvio dell'applicazione. Le strutture vengono modificate sotto
+ * un {@link ReentrantLock} tenuto solo per operazioni in memoria, mai durante le query.
+ */
+@Component
+public class CodaTicketAperti {
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Una ricarica alla volta: il lock è tenuto anche durante la query, ma non blocca inserimenti e prelievi
+    private final ReentrantLock lockRicarica = new ReentrantLock();
+
+    private TreeSet<TicketCodaDTO> coda = new TreeSet<>();
+
+    // Permette di rimuovere una voce conoscendo solo l'ID del ticket
+    private Map<Long, TicketCodaDTO> voci = new HashMap<>();
+
+    // Modifiche arrivate mentre una ricarica legge il database, da riapplicare alla coda ricostruita
+    private List<Consumer<CodaTicketAperti>> modificheInRicarica;
+
+    /**
+     * Ricarica la coda con tutti i ticket aperti presenti nel database.
+     * <p>
+     * Può essere eseguita mentre l'applicazione serve richieste: la nuova coda viene costruita a parte e sostituita
+     * a quella in uso in un solo passo, dopo avervi riapplicato gli inserimenti e i prelievi avvenuti durante la
+     * lettura. Una voce già prelevata che la lettura vede ancora aperta viene scartata al prelievo successivo.
+     * </p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ricarica() {
+        lockRicarica.lock();
+        try {
+            lock.lock();
+            try {
+                modificheInRicarica = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+
+            List<TicketCodaDTO> aperti;
+            try {
+                aperti = ticketRepository.findCodaByStato(Stato.APERTO);
+            } catch (RuntimeException e) {
+                lock.lock();
+                try {
+                    modificheInRicarica = null;
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            }
+
+            TreeSet<TicketCodaDTO> nuovaCoda = new TreeSet<>();
+            Map<Long, TicketCodaDTO> nuoveVoci = new HashMap<>();
+            for (TicketCodaDTO voce : aperti) {
+                if (nuoveVoci.putIfAbsent(voce.getId(), voce) == null) {
+                    nuovaCoda.add(voce);
+                }
+            }
+
+            lock.lock();
+            try {
+                coda = nuovaCoda;
+                voci = nuoveVoci;
+                modificheInRicarica.forEach(modifica -> modifica.accept(this));
+                modificheInRicarica = null;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            lockRicarica.unlock();
+        }
+    }
+
+    /**
+     * Aggiunge un ticket alla coda. Se è attiva una transazione, l'inserimento avviene solo dopo il commit.
+     *
+     * @param voce il ticket da accodare.
+     */
+    public void aggiungi(TicketCodaDTO voce) {
+        dopoCommit(() -> inserisci(voce));
+    }
+
+    /**
+     * Aggiunge più ticket alla coda con un'unica azione registrata sulla transazione.
+     *
+     * @param voci le voci da aggiungere.
+     */
+    public void aggiungiTutti(Collection<TicketCodaDTO> voci) {
+        dopoCommit(() -> voci.forEach(this::inserisci));
+    }
+
+    /**
+     * Rimuove un ticket dalla coda. Se è attiva una transazione, la rimozione avviene solo dopo il commit.
+     *
+     * @param ticketId l'ID del ticket da rimuovere.
+     */
+    public void rimuovi(Long ticketId) {
+        dopoCommit(() -> elimina(ticketId));
+    }
+
+    /**
+     * Rimuove più ticket dalla coda con un'unica azione registrata sulla transazione.
+     *
+     * @param ticketIds gli ID dei ticket da rimuovere; quelli non presenti in coda vengono ignorati.
+     */
+    public void rimuoviTutti(Collection<Long> ticketIds) {
+        dopoCommit(() -> ticketIds.forEach(this::elimina));
+    }
+
+    private void elimina(Long ticketId) {
+        modifica(c -> c.togli(ticketId));
+    }
+
+    /**
+     * Estrae il ticket aperto più vecchio. L'estrazione è atomica: due chiamate concorrenti
+     * non restituiscono mai la stessa voce.
+     *
+     * @return il prossimo ticket in coda, oppure {@code null} se la coda è vuota.
+     */
+    public TicketCodaDTO preleva() {
+        lock.lock();
+        try {
+            TicketCodaDTO voce = coda.pollFirst();
+            if (voce != null) {
+                voci.remove(voce.getId(), voce);
+                if (modificheInRicarica != null) {
+                    modificheInRicarica.add(c -> c.togli(voce.getId()));
+                }
+            }
+            return voce;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rimette subito in coda una voce già prelevata, ad esempio quando l'assegnazione fallisce con un errore.
+     *
+     * @param voce la voce prelevata con {@link #preleva()}.
+     */
+    public void ripristina(TicketCodaDTO voce) {
+        inserisci(voce);
+    }
+
+    /**
+     * Rimette in coda una voce già prelevata se la transazione corrente non va a buon fine,
+     * così un'assegnazione annullata non fa perdere il ticket.
+     *
+     * @param voce la voce prelevata con {@link #preleva()}.
+     */
+    public void ripristinaSeAnnullata(TicketCodaDTO voce) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        inserisci(voce);
+                    }
+                }
+            });
+        }
+    }
+
+    public int dimensione() {
+        lock.lock();
+        try {
+            return coda.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void inserisci(TicketCodaDTO voce) {
+        modifica(c -> {
+            if (c.voci.putIfAbsent(voce.getId(), voce) == null) {
+                c.coda.add(voce);
+            }
+        });
+    }
+
+    private void togli(Long ticketId) {
+        TicketCodaDTO voce = voci.remove(ticketId);
+        if (voce != null) {
+            coda.remove(voce);
+        }
+    }
+
+    // Applica la modifica alla coda in uso e, se è in corso una ricarica, la annota per la coda ricostruita
+    private void modifica(Consumer<CodaTicketAperti> modifica) {
+        lock.lock();
+        try {
+            modifica.accept(this);
+            if (modificheInRicarica != null) {
+                modificheInRicarica.add(modifica);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dopoCommit(Runnable azione) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    azione.run();
+                }
+            });
+        } else {
+            azione.run();
+        }
+    }
+}
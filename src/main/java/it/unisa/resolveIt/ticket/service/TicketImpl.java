@@ -1,21 +1,46 @@
 package it.unisa.resolveIt.ticket.service;
 
+import it.unisa.resolveIt.categoria.service.CategoriaService;
+import it.unisa.resolveIt.common.persistence.Blocchi;
+import it.unisa.resolveIt.common.validation.EstensioneAllegato;
+import it.unisa.resolveIt.common.validation.Formato;
 import it.unisa.resolveIt.model.entity.Categoria;
 import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.EventoTicket;
 import it.unisa.resolveIt.model.entity.Operatore;
 import it.unisa.resolveIt.model.entity.Ticket;
+import it.unisa.resolveIt.model.enums.Codifica;
 import it.unisa.resolveIt.model.enums.Stato;
-import it.unisa.resolveIt.model.repository.CategoriaRepository;
+import it.unisa.resolveIt.model.enums.TipoEvento;
+import it.unisa.resolveIt.model.repository.AllegatoRepository;
+import it.unisa.resolveIt.model.repository.EventoTicketRepository;
 import it.unisa.resolveIt.model.repository.TicketRepository;
+import it.unisa.resolveIt.ticket.dto.CursoreTicket;
+import it.unisa.resolveIt.ticket.dto.EsitoTransizione;
+import it.unisa.resolveIt.ticket.dto.PaginaTicketDTO;
+import it.unisa.resolveIt.ticket.dto.StatoTicketDTO;
+import it.unisa.resolveIt.ticket.dto.TicketCodaDTO;
 import it.unisa.resolveIt.ticket.dto.TicketDTO;
+import it.unisa.resolveIt.ticket.dto.Transizione;
+import it.unisa.resolveIt.ticket.dto.TransizioneMassivaDTO;
+import it.unisa.resolveIt.ticket.eventi.TicketEvento;
+import it.unisa.resolveIt.ticket.storage.AllegatoNonValidoException;
+import it.unisa.resolveIt.ticket.storage.AllegatoStorage;
+import it.unisa.resolveIt.ticket.storage.AllegatoValidatoInputStream;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 public class TicketImpl implements TicketService{
@@ -24,27 +49,27 @@ public class TicketImpl implements TicketService{
     private TicketRepository ticketRepository;
 
     @Autowired
-    private CategoriaRepository categoriaRepository;
+    private CategoriaService categoriaService;
 
-    private final String titolo_regex = "^[a-zA-Z0-9À-ÿ '‘\".,!?-]{5,100}$";
+    @Autowired
+    private AllegatoRepository allegatoRepository;
 
+    @Autowired
+    private AllegatoStorage allegatoStorage;
 
-    private TicketDTO convertToDTO(Ticket t) {
-        TicketDTO dto = new TicketDTO();
-        dto.setId(t.getID_T());
-        dto.setTitolo(t.getTitolo());
-        dto.setDescrizione(t.getDescrizione());
-        dto.setStato(t.getStato());
-        dto.setDataCreazione(t.getDataCreazione());
-        dto.setDataRisoluzione(t.getDataResolved());
-        dto.setDataAnnullamento(t.getDataAnnullamento());
-        dto.setNomeFile(t.getNomeFile());
+    @Autowired
+    private CodaTicketAperti codaTicketAperti;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EventoTicketRepository eventoTicketRepository;
+
+    static final int DIMENSIONE_PAGINA = 20;
+
+    static final long DIMENSIONE_MASSIMA_ALLEGATO = 16 * 1024 * 1024;
 
-        if (t.getCategoria() != null) {
-            dto.setNomeCategoria(t.getCategoria().getNome());
-        }
-        return dto;
-    }
 
     @Transactional
     public void addTicket(TicketDTO dto, Cliente autore) throws IOException {
@@ -52,34 +77,31 @@ public class TicketImpl implements TicketService{
         ticket.setTitolo(dto.getTitolo());
         ticket.setDescrizione(dto.getDescrizione());
 
-        Categoria cat = categoriaRepository.findById(dto.getIdCategoria()).orElse(null);
+        Categoria cat = categoriaService.getCategoria(dto.getIdCategoria()).orElse(null);
         if (cat == null || cat.getStato() == false) {
             throw new RuntimeException("Categoria non valida");
         }
         ticket.setCategoria(cat);
 
+        EstensioneAllegato estensione = null;
         if (dto.getFileAllegato() != null && !dto.getFileAllegato().isEmpty()) {
 
-            if (dto.getFileAllegato().getSize() > 16 * 1024 * 1024) {
+            if (dto.getFileAllegato().getSize() > DIMENSIONE_MASSIMA_ALLEGATO) {
                 throw new RuntimeException("Allegato troppo grande");
             }
 
             String originalName = dto.getFileAllegato().getOriginalFilename();
 
             if (originalName != null) {
-                String lowerName = originalName.toLowerCase();
-                if (lowerName.endsWith(".txt") || lowerName.endsWith(".jpg") ||
-                        lowerName.endsWith(".jpeg") || lowerName.endsWith(".zip")) {
-
-                    ticket.setAllegato(dto.getFileAllegato().getBytes());
-                    ticket.setNomeFile(originalName);
-                } else {
+                estensione = EstensioneAllegato.riconosci(originalName);
+                if (estensione == null) {
                     throw new RuntimeException("Formato allegato non valido");
                 }
+                ticket.setNomeFile(originalName);
             }
         }
 
-        if (dto.getTitolo() == null || !dto.getTitolo().matches(titolo_regex)) {
+        if (!Formato.TITOLO_TICKET.verifica(dto.getTitolo())) {
             throw new RuntimeException("Formato titolo non valido");
         }
 
@@ -87,6 +109,24 @@ public class TicketImpl implements TicketService{
             throw new RuntimeException("Lunghezza descrizione non valida");
         }
 
+        // L'allegato viene salvato su disco in streaming solo dopo che tutti i controlli sono passati.
+        // Il contenuto è verificato mentre viene copiato: un file con firma errata o troppo grande
+        // interrompe la copia ai primi byte non validi.
+        if (estensione != null) {
+            // I file di testo si comprimono molto bene; jpg e zip sono già compressi e restano come sono
+            Codifica codifica = estensione.isTesto() ? Codifica.GZIP : Codifica.NESSUNA;
+            String hash;
+            try (InputStream contenuto = new AllegatoValidatoInputStream(
+                    dto.getFileAllegato().getInputStream(), estensione, DIMENSIONE_MASSIMA_ALLEGATO)) {
+                hash = allegatoStorage.store(contenuto, codifica);
+            } catch (AllegatoNonValidoException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+            // Contenuti identici condividono la stessa riga: viene solo incrementato il contatore dei riferimenti
+            allegatoRepository.registraRiferimento(hash, dto.getFileAllegato().getSize(), codifica.name());
+            ticket.setAllegato(allegatoRepository.getReferenceById(hash));
+        }
+
         ticket.setCliente(autore);
         ticket.setStato(Stato.APERTO);
         ticket.setDataCreazione(LocalDateTime.now());
@@ -96,76 +136,194 @@ public class TicketImpl implements TicketService{
         ticket.setDataAnnullamento(null);
         ticket.setDataResolved(null);
 
-        try {
-            ticketRepository.save(ticket);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        // Un errore in uno qualsiasi di questi passi annulla l'intera transazione: il ticket non esiste mai senza il suo evento
+        ticketRepository.save(ticket);
+        eventoTicketRepository.save(new EventoTicket(TipoEvento.CREATO, ticket, ticket.getDataCreazione()));
+        codaTicketAperti.aggiungi(new TicketCodaDTO(ticket.getID_T(), ticket.getDataCreazione(), cat.getID_C()));
+        eventPublisher.publishEvent(TicketEvento.creato(new TicketEvento.Riga(ticket.getID_T(), ticket.getTitolo(),
+                ticket.getDescrizione(), cat.getNome(), ticket.getDataCreazione())));
     }
 
 
 
+    @Transactional
     public void deleteTicket(Long ticketId) {
-        Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
-        if(ticket == null) throw new RuntimeException("Ticket non trovato");
+        LocalDateTime ora = LocalDateTime.now();
+        if (ticketRepository.annulla(ticketId, ora) == 0) {
+            throw transizioneFallita(ticketId);
+        }
+        codaTicketAperti.rimuovi(ticketId);
+        pubblica(TipoEvento.ANNULLATO, ticketId, ora);
+    }
+
+
 
-        if (!ticket.getStato().equals(Stato.APERTO)) {
-            throw new RuntimeException("Ticket in stato non valido");
+    @Transactional
+    public int annullaTicket(Collection<Long> ticketIds) {
+        LocalDateTime ora = LocalDateTime.now();
+        int annullati = 0;
+        for (List<Long> blocco : Blocchi.dividi(ticketIds)) {
+            // Le righe lette restano bloccate fino al commit: i ticket aperti sono esattamente quelli che la UPDATE
+            // annulla, quindi gli eventi si registrano per ID senza confrontare la data di annullamento
+            List<Long> aperti = ticketRepository.findStatoByIdIn(blocco).stream()
+                    .filter(t -> t.getStato() == Stato.APERTO)
+                    .map(StatoTicketDTO::getId)
+                    .toList();
+            if (aperti.isEmpty()) {
+                continue;
+            }
+            annullati += ticketRepository.annullaTutti(aperti, ora);
+            eventoTicketRepository.registra(TipoEvento.ANNULLATO.name(), aperti, ora);
+            codaTicketAperti.rimuoviTutti(aperti);
+            eventPublisher.publishEvent(TicketEvento.di(TipoEvento.ANNULLATO, aperti));
         }
+        return annullati;
+    }
 
-        ticket.setDataAnnullamento(LocalDateTime.now());
-        ticket.setStato(Stato.ANNULLATO);
-        ticketRepository.save(ticket);
+
+
+    @Transactional
+    public Map<Long, EsitoTransizione> transizioneMassiva(Transizione transizione, Collection<Long> ticketIds, Operatore operatore) {
+        if (operatore == null) {
+            throw new RuntimeException("Operatore non valido");
+        }
+        List<Long> ids = ticketIds.stream().distinct().toList();
+        if (ids.size() > TransizioneMassivaDTO.MASSIMO_TICKET) {
+            throw new RuntimeException("Troppi ticket in una sola richiesta");
+        }
+
+        // Gli ID che la query non restituisce non esistono
+        Map<Long, EsitoTransizione> esiti = new LinkedHashMap<>();
+        ids.forEach(id -> esiti.put(id, EsitoTransizione.NON_TROVATO));
+        List<Long> idonei = new ArrayList<>();
+        for (StatoTicketDTO ticket : ticketRepository.findStatoByIdIn(ids)) {
+            EsitoTransizione esito = esito(transizione, ticket, operatore);
+            esiti.put(ticket.getId(), esito);
+            if (esito == EsitoTransizione.ESEGUITA) {
+                idonei.add(ticket.getId());
+            }
+        }
+        if (idonei.isEmpty()) {
+            return esiti;
+        }
+
+        LocalDateTime ora = LocalDateTime.now();
+        switch (transizione) {
+            case PRENDI -> {
+                ticketRepository.assegnaTutti(idonei, operatore, ora);
+                eventoTicketRepository.registra(TipoEvento.ASSEGNATO.name(), idonei, ora);
+                codaTicketAperti.rimuoviTutti(idonei);
+                eventPublisher.publishEvent(TicketEvento.di(TipoEvento.ASSEGNATO, idonei));
+            }
+            case RISOLVI -> {
+                ticketRepository.risolviTutti(idonei, operatore, ora);
+                eventoTicketRepository.registra(TipoEvento.RISOLTO.name(), idonei, ora);
+                eventPublisher.publishEvent(TicketEvento.di(TipoEvento.RISOLTO, idonei));
+            }
+            case RILASCIA -> {
+                ticketRepository.rilasciaTutti(idonei, operatore);
+                eventoTicketRepository.registraRilasciati(idonei, operatore.getId(), ora);
+                codaTicketAperti.aggiungiTutti(ticketRepository.findCodaByIdIn(idonei));
+                eventPublisher.publishEvent(TicketEvento.rilasciati(ticketRepository.findDtoByIdIn(idonei)));
+            }
+        }
+        return esiti;
+    }
+
+    // Stesse condizioni delle UPDATE: le righe sono bloccate, quindi l'esito calcolato qui è quello che verrà salvato
+    private static EsitoTransizione esito(Transizione transizione, StatoTicketDTO ticket, Operatore operatore) {
+        Stato richiesto = transizione == Transizione.PRENDI ? Stato.APERTO : Stato.IN_CORSO;
+        if (ticket.getStato() != richiesto) {
+            return EsitoTransizione.STATO_NON_VALIDO;
+        }
+        if (transizione != Transizione.PRENDI && !operatore.getId().equals(ticket.getIdOperatore())) {
+            return EsitoTransizione.NON_ASSEGNATO;
+        }
+        return EsitoTransizione.ESEGUITA;
     }
 
 
 
+    @Transactional
     public void assignTicket(Long ticketId, Operatore operatore) {
-        Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
-        if(ticket == null) throw new RuntimeException("Ticket non trovato");
+        if (operatore == null) {
+            throw new RuntimeException("Operatore non valido");
+        }
 
-        if (!ticket.getStato().equals(Stato.APERTO)) {
-            throw new RuntimeException("Ticket in stato non valido");
+        LocalDateTime ora = LocalDateTime.now();
+        if (ticketRepository.assegna(ticketId, operatore, ora) == 0) {
+            throw transizioneFallita(ticketId);
         }
+        codaTicketAperti.rimuovi(ticketId);
+        pubblica(TipoEvento.ASSEGNATO, ticketId, ora);
+    }
 
+
+    @Transactional
+    public Long prendiProssimoTicket(Operatore operatore) {
         if (operatore == null) {
             throw new RuntimeException("Operatore non valido");
         }
 
-        ticket.setOperatore(operatore);
-        ticket.setDataInCarico(LocalDateTime.now());
-        ticket.setStato(Stato.IN_CORSO);
-        ticketRepository.save(ticket);
+        TicketCodaDTO voce;
+        while ((voce = codaTicketAperti.preleva()) != null) {
+            // Le voci non più aperte vengono scartate: a decidere è la UPDATE condizionale
+            LocalDateTime ora = LocalDateTime.now();
+            int assegnati;
+            try {
+                assegnati = ticketRepository.assegna(voce.getId(), operatore, ora);
+            } catch (RuntimeException e) {
+                // Un errore non dice nulla sullo stato del ticket: la voce torna in coda invece di andare persa
+                codaTicketAperti.ripristina(voce);
+                throw e;
+            }
+            if (assegnati == 1) {
+                codaTicketAperti.ripristinaSeAnnullata(voce);
+                pubblica(TipoEvento.ASSEGNATO, voce.getId(), ora);
+                return voce.getId();
+            }
+        }
+        throw new RuntimeException("Nessun ticket disponibile");
     }
 
 
 
+    @Transactional
     public void resolveTicket(Long ticketId) {
-        Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
-        if(ticket == null) throw new RuntimeException("Ticket non trovato");
-
-        if (!ticket.getStato().equals(Stato.IN_CORSO)) {
-            throw new RuntimeException("Ticket in stato non valido");
+        LocalDateTime ora = LocalDateTime.now();
+        if (ticketRepository.risolvi(ticketId, ora) == 0) {
+            throw transizioneFallita(ticketId);
         }
-
-        ticket.setDataResolved(LocalDateTime.now());
-        ticket.setStato(Stato.RISOLTO);
-        ticketRepository.save(ticket);
+        pubblica(TipoEvento.RISOLTO, ticketId, ora);
     }
 
 
+    @Transactional
     public void releaseTicket(Long ticketId) {
-        Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
-        if(ticket == null) throw new RuntimeException("Ticket non trovato");
-
-        if (!ticket.getStato().equals(Stato.IN_CORSO)) {
-            throw new RuntimeException("Ticket in stato non valido");
+        // La UPDATE toglie l'operatore dal ticket: viene letto prima per riportarlo nell'evento.
+        // Una lettura senza lock: se nel frattempo il ticket cambia operatore la UPDATE non trova la riga
+        Long idOperatore = ticketRepository.findIdOperatoreById(ticketId);
+        if (idOperatore == null || ticketRepository.rilascia(ticketId, idOperatore) == 0) {
+            throw transizioneFallita(ticketId);
         }
+        eventoTicketRepository.registraRilasciati(List.of(ticketId), idOperatore, LocalDateTime.now());
+        codaTicketAperti.aggiungi(ticketRepository.findCodaById(ticketId));
+        eventPublisher.publishEvent(TicketEvento.rilasciati(ticketRepository.findDtoByIdIn(List.of(ticketId))));
+    }
 
-        ticket.setOperatore(null);
-        ticket.setStato(Stato.APERTO);
+    // L'evento viene scritto nella outbox, consegnata dal DispatcherEventiTicket, e inoltrato subito
+    // agli operatori collegati dopo il commit (vedi CanaleEventiTicket)
+    private void pubblica(TipoEvento tipo, Long ticketId, LocalDateTime ora) {
+        eventoTicketRepository.registra(tipo.name(), List.of(ticketId), ora);
+        eventPublisher.publishEvent(TicketEvento.di(tipo, List.of(ticketId)));
+    }
 
-        ticketRepository.save(ticket);
+    // Letta solo quando la UPDATE condizionale non ha modificato righe, per distinguere il motivo
+    private RuntimeException transizioneFallita(Long ticketId) {
+        if (!ticketRepository.existsById(ticketId)) {
+            return new RuntimeException("Ticket non trovato");
+        }
+        return new RuntimeException("Ticket in stato non valido");
     }
 
     public Ticket getTicketById(Long id) {
@@ -174,27 +332,49 @@ public class TicketImpl implements TicketService{
     }
 
     public List<TicketDTO> getTicketUtente(Cliente cliente) {
-        return ticketRepository.findByClienteOrderByDataCreazioneDesc(cliente).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return ticketRepository.findDtoByCliente(cliente);
     }
 
 
-    public List<TicketDTO> getTicketDisponibili() {
-        return ticketRepository.findByStato(Stato.APERTO).stream().map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public PaginaTicketDTO getTicketDisponibili(CursoreTicket cursore) {
+        CursoreTicket da = cursore != null ? cursore : CursoreTicket.primaPagina(false);
+        return pagina(ticketRepository.findPaginaByStato(Stato.APERTO, da.getDataCreazione(), da.getId(), Limit.of(DIMENSIONE_PAGINA + 1)));
     }
 
 
-    public List<TicketDTO> getTicketInCarico(Operatore operatore) {
-        return ticketRepository.findByOperatore(operatore).stream().map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public PaginaTicketDTO getTicketInCarico(Operatore operatore, CursoreTicket cursore) {
+        CursoreTicket da = cursore != null ? cursore : CursoreTicket.primaPagina(true);
+        PaginaTicketDTO risolti = pagina(ticketRepository.findPaginaByOperatore(operatore, Stato.RISOLTO,
+                da.getDataCreazione(), da.getId(), Limit.of(DIMENSIONE_PAGINA + 1)));
+        if (cursore != null) {
+            return risolti;
+        }
+        return primaPaginaInCarico(ticketRepository.findPaginaByOperatore(operatore, Stato.IN_CORSO,
+                da.getDataCreazione(), da.getId(), Limit.unlimited()), risolti);
+    }
+
+    // Prima pagina: i ticket ancora in lavorazione precedono lo storico, ordinati già dal database
+    static PaginaTicketDTO primaPaginaInCarico(List<TicketDTO> inCorso, PaginaTicketDTO risolti) {
+        List<TicketDTO> lista = new ArrayList<>(inCorso.size() + risolti.getTicket().size());
+        lista.addAll(inCorso);
+        lista.addAll(risolti.getTicket());
+        return new PaginaTicketDTO(lista, risolti.getCursoreSuccessivo());
     }
 
     @Override
-    public List<TicketDTO> getTicketUtenteFiltrati(Cliente cliente, Stato stato, String ordine) {
-        return ticketRepository.findByClienteAndOptionalStato(cliente, stato, ordine).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public PaginaTicketDTO getTicketUtenteFiltrati(Cliente cliente, Stato stato, String ordine, CursoreTicket cursore) {
+        boolean decrescente = !"asc".equals(ordine);
+        CursoreTicket da = cursore != null ? cursore : CursoreTicket.primaPagina(decrescente);
+        return pagina(ticketRepository.findPaginaByCliente(cliente, stato, decrescente,
+                da.getDataCreazione(), da.getId(), Limit.of(DIMENSIONE_PAGINA + 1)));
+    }
+
+    // Le query leggono un ticket in più del necessario: se c'è, esiste una pagina successiva
+    static PaginaTicketDTO pagina(List<TicketDTO> risultato) {
+        if (risultato.size() <= DIMENSIONE_PAGINA) {
+            return new PaginaTicketDTO(risultato, null);
+        }
+        List<TicketDTO> ticket = risultato.subList(0, DIMENSIONE_PAGINA);
+        return new PaginaTicketDTO(ticket, CursoreTicket.dopo(ticket.get(DIMENSIONE_PAGINA - 1)).encode());
     }
-}
\ No newline at end of file
+}
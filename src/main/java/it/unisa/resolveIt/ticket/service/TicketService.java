@@ -4,10 +4,16 @@ import it.unisa.resolveIt.model.entity.Cliente;
 import it.unisa.resolveIt.model.entity.Operatore;
 import it.unisa.resolveIt.model.entity.Ticket;
 import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.ticket.dto.CursoreTicket;
+import it.unisa.resolveIt.ticket.dto.EsitoTransizione;
+import it.unisa.resolveIt.ticket.dto.PaginaTicketDTO;
 import it.unisa.resolveIt.ticket.dto.TicketDTO;
+import it.unisa.resolveIt.ticket.dto.Transizione;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface TicketService {
 
@@ -49,6 +55,7 @@ public interface TicketService {
      * Permette ad un Operatore di prendere in carico un ticket di supporto per risolverlo.
      * Il metodo associa l'operatore al ticket, aggiorna lo stato e registra
      * il timestamp della presa in carico.
+     * La transizione è atomica: se più operatori tentano l'assegnazione insieme, uno solo la ottiene.
      *
      * @param ticketId l'identificativo del ticket da assegnare.
      * Pre-condizione: il ticket deve esistere e deve essere in stato "APERTO".
@@ -96,6 +103,43 @@ public interface TicketService {
      */
     void releaseTicket(Long ticketId);
 
+    /**
+     * Assegna all'operatore il ticket aperto più vecchio, prelevandolo dalla coda in memoria
+     * invece di interrogare la tabella dei ticket.
+     *
+     * @param operatore l'oggetto {@link Operatore} che prende in carico il ticket.
+     * @return l'ID del ticket assegnato.
+     * @throws RuntimeException se l'operatore è nullo o se non ci sono ticket aperti.
+     * Post-condizione: il ticket restituito è in stato "IN_CORSO" e associato all'operatore.
+     */
+    Long prendiProssimoTicket(Operatore operatore);
+
+    /**
+     * Annulla in blocco i ticket indicati, ad esempio per chiudere i ticket di una categoria dismessa.
+     * Per ogni blocco di ID vengono bloccati e letti gli stati, poi i soli ticket aperti sono annullati con
+     * una sola UPDATE: i ticket inesistenti o non più in stato "APERTO" vengono ignorati e non generano eventi.
+     *
+     * @param ticketIds gli identificativi dei ticket da annullare.
+     * @return il numero di ticket effettivamente annullati.
+     * Post-condizione: i ticket annullati non sono più nella coda dei ticket aperti.
+     */
+    int annullaTicket(Collection<Long> ticketIds);
+
+    /**
+     * Applica la stessa transizione di stato a più ticket in un'unica transazione, con una UPDATE
+     * condizionale per l'intero elenco invece di una chiamata per ticket.
+     * Le righe vengono bloccate prima dell'aggiornamento, quindi l'esito riportato per ogni ticket
+     * corrisponde a quanto effettivamente salvato anche con operatori concorrenti.
+     * Risoluzione e rilascio sono consentiti solo sui ticket assegnati all'operatore.
+     *
+     * @param transizione la transizione da applicare.
+     * @param ticketIds gli identificativi dei ticket; al più {@link it.unisa.resolveIt.ticket.dto.TransizioneMassivaDTO#MASSIMO_TICKET}.
+     * @param operatore l'operatore che esegue l'operazione.
+     * @return l'esito per ogni ticket richiesto, nell'ordine della richiesta.
+     * @throws RuntimeException se l'operatore è nullo o i ticket richiesti sono troppi.
+     */
+    Map<Long, EsitoTransizione> transizioneMassiva(Transizione transizione, Collection<Long> ticketIds, Operatore operatore);
+
 
     Ticket getTicketById(Long id);
 
@@ -112,24 +156,37 @@ public interface TicketService {
 
 
     /**
-     * Recupera tutti i ticket attualmente presenti nel sistema con stato "APERTO".
+     * Recupera una pagina dei ticket attualmente presenti nel sistema con stato "APERTO",
+     * dal meno recente al più recente.
      * Questi sono i ticket che non sono ancora stati presi in carico da alcun operatore.
-     * * @return una {@link List} di {@link Ticket} il cui stato è {@code Stato.APERTO}.
+     * @param cursore la posizione da cui proseguire; {@code null} per la prima pagina.
+     * @return una {@link PaginaTicketDTO} di ticket il cui stato è {@code Stato.APERTO}.
      * Post-condizione: tutti i ticket restituiti devono avere {@code stato = "aperto"}.
      */
-    List<TicketDTO> getTicketDisponibili();
+    PaginaTicketDTO getTicketDisponibili(CursoreTicket cursore);
 
 
 
     /**
-     * Recupera la lista dei ticket attualmente in fase di lavorazione da un operatore specifico.
-     * * @param operatore l'oggetto {@link Operatore} di cui si vogliono visualizzare i ticket in carico.
+     * Recupera la lista di lavoro di un operatore: nella prima pagina tutti i ticket "IN_CORSO", seguiti dalla prima
+     * pagina dei ticket risolti; le pagine successive proseguono solo lo storico dei risolti.
+     * In entrambi i gruppi l'ordine è dal più recente al meno recente.
+     * @param operatore l'oggetto {@link Operatore} di cui si vogliono visualizzare i ticket in carico.
      * Pre-condizione: l'operatore non deve essere nullo e deve esistere nel sistema.
-     * @return una {@link List} di {@link Ticket} assegnati all'operatore.
-     * Post-condizione: ogni ticket nella lista deve avere l'operatore assegnato uguale al parametro e stato "IN_CORSO".
+     * @param cursore la posizione da cui proseguire; {@code null} per la prima pagina.
+     * @return una {@link PaginaTicketDTO} di ticket assegnati all'operatore.
+     * Post-condizione: ogni ticket nella pagina deve avere l'operatore assegnato uguale al parametro.
      */
-    List<TicketDTO> getTicketInCarico(Operatore operatore);
+    PaginaTicketDTO getTicketInCarico(Operatore operatore, CursoreTicket cursore);
 
 
-    List<TicketDTO> getTicketUtenteFiltrati(Cliente cliente, Stato stato, String ordine);
+    /**
+     * Recupera una pagina dei ticket di un cliente, eventualmente filtrati per stato.
+     * @param cliente il {@link Cliente} proprietario dei ticket.
+     * @param stato lo stato dei ticket da mostrare; {@code null} per tutti gli stati.
+     * @param ordine "asc" per ordinare dal meno recente, qualsiasi altro valore per il più recente.
+     * @param cursore la posizione da cui proseguire; {@code null} per la prima pagina.
+     * @return una {@link PaginaTicketDTO} con al più una pagina di ticket e il cursore della successiva.
+     */
+    PaginaTicketDTO getTicketUtenteFiltrati(Cliente cliente, Stato stato, String ordine, CursoreTicket cursore);
 }
@@ -0,0 +1,14 @@
+package it.unisa.resolveIt.ticket.storage;
+
+import java.io.IOException;
+
+/**
+ * Lanciata durante la lettura di un allegato quando il contenuto non rispetta il formato dichiarato
+ * o supera la dimensione massima. Estende {@link IOException} perché interrompe lo stream a metà copia.
+ */
+public class AllegatoNonValidoException extends IOException {
+
+    public AllegatoNonValidoException(String message) {
+        super(message);
+    }
+}
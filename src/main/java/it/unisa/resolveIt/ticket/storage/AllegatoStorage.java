@@ -0,0 +1,68 @@
+package it.unisa.resolveIt.ticket.storage;
+
+import it.unisa.resolveIt.model.enums.Codifica;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Archivio degli allegati dei ticket.
+ * Il contenuto viene salvato fuori dal database e indirizzato tramite il proprio hash:
+ * il ticket conserva soltanto la chiave restituita da {@link #store(InputStream, Codifica)}.
+ * Tutti i metodi di lettura lavorano sui byte salvati, cioè compressi se l'allegato è stato salvato con
+ * {@link Codifica#GZIP}: la decompressione è compito di chi legge.
+ */
+public interface AllegatoStorage {
+
+    /**
+     * Salva il contenuto letto in streaming, senza mai caricarlo interamente in memoria.
+     *
+     * @param contenuto lo stream da cui leggere l'allegato; non viene chiuso dal metodo.
+     * @param codifica il formato con cui salvare il contenuto (es. compresso con gzip).
+     * @return la chiave dell'allegato (hash SHA-256 esadecimale del contenuto originale, non compresso).
+     * Post-condizione: contenuti identici producono la stessa chiave e vengono salvati una sola volta.
+     */
+    String store(InputStream contenuto, Codifica codifica) throws IOException;
+
+    /**
+     * @param chiave la chiave restituita da {@link #store(InputStream, Codifica)}.
+     * @return {@code true} se il contenuto associato alla chiave è presente nell'archivio.
+     */
+    boolean exists(String chiave);
+
+    /**
+     * @param chiave la chiave di un allegato esistente.
+     * @return la dimensione in byte del contenuto salvato (compresso, se salvato con gzip).
+     */
+    long size(String chiave) throws IOException;
+
+    /**
+     * @param chiave la chiave di un allegato esistente.
+     * @return uno stream sui byte salvati, da chiudere a cura del chiamante.
+     */
+    InputStream open(String chiave) throws IOException;
+
+    /**
+     * Trasferisce una porzione dell'allegato sul canale di destinazione usando
+     * {@link java.nio.channels.FileChannel#transferTo}, zero-copy quando il canale lo consente.
+     *
+     * @param chiave la chiave di un allegato esistente.
+     * @param posizione offset del primo byte da trasferire.
+     * @param lunghezza numero di byte da trasferire.
+     * @param destinazione il canale su cui scrivere; non viene chiuso dal metodo.
+     * @return il numero di byte effettivamente trasferiti.
+     */
+    long transferTo(String chiave, long posizione, long lunghezza, WritableByteChannel destinazione) throws IOException;
+
+    /**
+     * Restituisce il file locale dell'allegato, se l'implementazione salva su file system.
+     * Permette al container di inviarlo direttamente (es. sendfile di Tomcat).
+     *
+     * @param chiave la chiave di un allegato esistente.
+     * @return il percorso del file, oppure {@link Optional#empty()} se non disponibile.
+     */
+    Optional<Path> file(String chiave);
+}
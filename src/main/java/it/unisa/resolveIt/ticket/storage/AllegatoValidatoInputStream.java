@@ -0,0 +1,113 @@
+package it.unisa.resolveIt.ticket.storage;
+
+import it.unisa.resolveIt.common.validation.EstensioneAllegato;
+import it.unisa.resolveIt.model.enums.Codifica;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stadio di validazione da interporre tra l'upload e {@link AllegatoStorage#store(InputStream, Codifica)}.
+ * <p>
+ * Il contenuto viene controllato mentre scorre: la firma (magic bytes) è verificata non appena arrivano
+ * i primi byte, i file di testo vengono scansionati blocco per blocco e la dimensione è contata a ogni lettura.
+ * Alla prima violazione viene lanciata una {@link AllegatoNonValidoException}, così la copia (e il calcolo
+ * dell'hash) si interrompe dopo pochi kilobyte invece di arrivare alla fine del file.
+ * </p>
+ */
+public class AllegatoValidatoInputStream extends FilterInputStream {
+
+    private final EstensioneAllegato estensione;
+    private final long dimensioneMassima;
+    private final byte[] intestazione;
+    private int lunghezzaIntestazione;
+    private boolean firmaVerificata;
+    private long letti;
+
+    public AllegatoValidatoInputStream(InputStream in, EstensioneAllegato estensione, long dimensioneMassima) {
+        super(in);
+        this.estensione = estensione;
+        this.dimensioneMassima = dimensioneMassima;
+        this.intestazione = new byte[estensione.lunghezzaIntestazione()];
+        this.firmaVerificata = intestazione.length == 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] singolo = new byte[1];
+        int n = read(singolo, 0, 1);
+        return n == -1 ? -1 : singolo[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n == -1) {
+            if (!firmaVerificata) {
+                verificaFirma();
+            }
+            return -1;
+        }
+        controlla(b, off, n);
+        return n;
+    }
+
+    // Anche i byte saltati devono passare dai controlli
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] scarto = new byte[(int) Math.min(n, 8192)];
+        long saltati = 0;
+        while (saltati < n) {
+            int letto = read(scarto, 0, (int) Math.min(scarto.length, n - saltati));
+            if (letto == -1) {
+                break;
+            }
+            saltati += letto;
+        }
+        return saltati;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * @return il numero di byte letti finora.
+     */
+    public long getLetti() {
+        return letti;
+    }
+
+    private void controlla(byte[] b, int off, int n) throws IOException {
+        letti += n;
+        if (letti > dimensioneMassima) {
+            throw new AllegatoNonValidoException("Allegato troppo grande");
+        }
+
+        if (!firmaVerificata) {
+            int copia = Math.min(n, intestazione.length - lunghezzaIntestazione);
+            System.arraycopy(b, off, intestazione, lunghezzaIntestazione, copia);
+            lunghezzaIntestazione += copia;
+            if (lunghezzaIntestazione == intestazione.length) {
+                verificaFirma();
+            }
+        }
+
+        if (estensione.isTesto()) {
+            for (int i = off; i < off + n; i++) {
+                if (EstensioneAllegato.binario(b[i])) {
+                    throw new AllegatoNonValidoException("Formato allegato non valido");
+                }
+            }
+        }
+    }
+
+    private void verificaFirma() throws IOException {
+        if (!estensione.firmaValida(intestazione, lunghezzaIntestazione)) {
+            throw new AllegatoNonValidoException("Formato allegato non valido");
+        }
+        firmaVerificata = true;
+    }
+}
@@ -0,0 +1,127 @@
+package it.unisa.resolveIt.ticket.storage;
+
+import it.unisa.resolveIt.model.enums.Codifica;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+public class FileSystemAllegatoStorage implements AllegatoStorage {
+
+    private static final Pattern CHIAVE = Pattern.compile("^[0-9a-f]{64}$");
+
+    @Value("${resolveit.allegati.directory:allegati}")
+    private String directory;
+
+    private Path radice;
+
+    public FileSystemAllegatoStorage() {
+    }
+
+    public FileSystemAllegatoStorage(Path radice) {
+        this.radice = radice;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        if (radice == null) {
+            radice = Paths.get(directory).toAbsolutePath().normalize();
+        }
+        Files.createDirectories(radice);
+    }
+
+    @Override
+    public String store(InputStream contenuto, Codifica codifica) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        // Il contenuto viene scritto su un file temporaneo mentre se ne calcola l'hash (sui byte originali,
+        // prima dell'eventuale compressione), poi spostato atomicamente nella sua posizione definitiva.
+        Path temporaneo = Files.createTempFile(radice, "upload-", ".tmp");
+        try {
+            try (OutputStream out = scrittura(temporaneo, codifica)) {
+                new DigestInputStream(contenuto, digest).transferTo(out);
+            }
+
+            String chiave = HexFormat.of().formatHex(digest.digest());
+            Path destinazione = percorso(chiave);
+            if (!Files.exists(destinazione)) {
+                Files.createDirectories(destinazione.getParent());
+                Files.move(temporaneo, destinazione, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return chiave;
+        } finally {
+            Files.deleteIfExists(temporaneo);
+        }
+    }
+
+    @Override
+    public boolean exists(String chiave) {
+        return Files.isRegularFile(percorso(chiave));
+    }
+
+    @Override
+    public long size(String chiave) throws IOException {
+        return Files.size(percorso(chiave));
+    }
+
+    @Override
+    public InputStream open(String chiave) throws IOException {
+        return Files.newInputStream(percorso(chiave));
+    }
+
+    @Override
+    public long transferTo(String chiave, long posizione, long lunghezza, WritableByteChannel destinazione) throws IOException {
+        try (FileChannel canale = FileChannel.open(percorso(chiave), StandardOpenOption.READ)) {
+            long trasferiti = 0;
+            while (trasferiti < lunghezza) {
+                long n = canale.transferTo(posizione + trasferiti, lunghezza - trasferiti, destinazione);
+                if (n <= 0) {
+                    break;
+                }
+                trasferiti += n;
+            }
+            return trasferiti;
+        }
+    }
+
+    @Override
+    public Optional<Path> file(String chiave) {
+        return Optional.of(percorso(chiave));
+    }
+
+    private static OutputStream scrittura(Path file, Codifica codifica) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        return (codifica == Codifica.GZIP) ? new GZIPOutputStream(out, 64 * 1024) : out;
+    }
+
+    private Path percorso(String chiave) {
+        // La chiave è sempre un hash: qualsiasi altro valore (es. "../") viene rifiutato
+        if (chiave == null || !CHIAVE.matcher(chiave).matches()) {
+            throw new IllegalArgumentException("Chiave allegato non valida");
+        }
+        return radice.resolve(chiave.substring(0, 2)).resolve(chiave);
+    }
+}
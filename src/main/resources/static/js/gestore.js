@@ -7,17 +7,23 @@
     const homeView = document.getElementById('home-view');
     const accountsView = document.getElementById('accounts-view');
     const categoriesView = document.getElementById('categories-view');
+    const statisticsView = document.getElementById('statistics-view');
 
     homeView.style.display = 'none';
     accountsView.style.display = 'none';
     categoriesView.style.display = 'none';
+    statisticsView.style.display = 'none';
 
     if (sectionId === 'accounts') {
     accountsView.style.display = 'block';
     document.getElementById('accounts-list').style.display = 'block';
     document.getElementById('add-operator-form').style.display = 'none';
+    apriElenchi(['operatori', 'clienti']);
 } else if (sectionId === 'categories') {
     categoriesView.style.display = 'block';
+    apriElenchi(['categorie']);
+} else if (sectionId === 'statistics') {
+    statisticsView.style.display = 'block';
 } else {
     homeView.style.display = 'flex';
 }
@@ -191,28 +197,178 @@
     cancelButtonText: 'Annulla'
 }).then((result) => {
     if (result.isConfirmed) {
-    const form = document.createElement('form');
-    form.method = 'POST';
-    form.action = c.url;
-
-    const csrfToken = document.querySelector('meta[name="_csrf"]')?.content;
-    if (csrfToken) {
-    const csrfInput = document.createElement('input');
-    csrfInput.type = 'hidden';
-    csrfInput.name = '_csrf';
-    csrfInput.value = csrfToken;
-    form.appendChild(csrfInput);
-}
-
-    const idInput = document.createElement('input');
-    idInput.type = 'hidden';
-    idInput.name = 'id';
-    idInput.value = id;
-    form.appendChild(idInput);
-
+    const form = formConId(c.url, id);
     document.body.appendChild(form);
     form.submit();
 }
 });
 }
 
+    /* --- FORM POST CON TOKEN CSRF --- */
+    function formConId(url, id) {
+        const form = document.createElement('form');
+        form.method = 'POST';
+        form.action = url;
+
+        const csrfToken = document.querySelector('meta[name="_csrf"]')?.content;
+        if (csrfToken) {
+            const csrfInput = document.createElement('input');
+            csrfInput.type = 'hidden';
+            csrfInput.name = '_csrf';
+            csrfInput.value = csrfToken;
+            form.appendChild(csrfInput);
+        }
+
+        const idInput = document.createElement('input');
+        idInput.type = 'hidden';
+        idInput.name = 'id';
+        idInput.value = id;
+        form.appendChild(idInput);
+        return form;
+    }
+
+    /* --- ELENCHI PAGINATI, CARICATI ALL'APERTURA DELLA SCHEDA --- */
+    const elenchi = {
+        operatori: { url: '/gestore/operatori', filtro: 'attivo', campo: 'cognome', ordine: 'asc' },
+        clienti: { url: '/gestore/clienti', filtro: 'attivo', campo: 'cognome', ordine: 'asc' },
+        categorie: { url: '/gestore/categorie', filtro: 'stato' }
+    };
+
+    function apriElenchi(nomi) {
+        nomi.forEach(nome => {
+            if (!elenchi[nome].caricato) {
+                caricaElenco(nome, true);
+            }
+        });
+    }
+
+    // daCapo = true riparte dalla prima pagina (nuovo filtro o ordinamento), altrimenti accoda la pagina successiva
+    function caricaElenco(nome, daCapo) {
+        const elenco = elenchi[nome];
+        const toolbar = document.getElementById(nome + '-toolbar');
+        const params = new URLSearchParams();
+
+        const testo = toolbar.querySelector('.list-search').value.trim();
+        if (testo) params.set('testo', testo);
+        const filtro = toolbar.querySelector('.list-filter').value;
+        if (filtro) params.set(elenco.filtro, filtro);
+        const ordine = toolbar.querySelector('.list-order');
+        params.set('ordine', ordine ? ordine.value : elenco.ordine);
+        if (elenco.campo) params.set('campo', elenco.campo);
+        if (!daCapo && elenco.cursore) params.set('cursore', elenco.cursore);
+
+        // Le risposte di richieste superate (es. durante la digitazione) vengono ignorate
+        const richiesta = elenco.richiesta = (elenco.richiesta || 0) + 1;
+        elenco.caricato = true;
+
+        fetch(elenco.url + '?' + params, { headers: { 'Accept': 'application/json' } })
+            .then(response => {
+                if (!response.ok) throw new Error(response.status);
+                return response.json();
+            })
+            .then(pagina => {
+                if (richiesta !== elenco.richiesta) return;
+                const corpo = document.getElementById(nome + '-rows');
+                if (daCapo) svuotaElenco(corpo, nome);
+                pagina.elementi.forEach(e => corpo.appendChild(nome === 'categorie' ? pillCategoria(e) : rigaAccount(e, nome)));
+                elenco.cursore = pagina.cursoreSuccessivo;
+                document.getElementById(nome + '-more').style.display = elenco.cursore ? 'inline-block' : 'none';
+            })
+            .catch(() => {
+                elenco.caricato = false;
+                Swal.fire({
+                    icon: 'error', title: 'Errore', text: 'Impossibile caricare l\'elenco.', confirmButtonColor: '#d33'
+                });
+            });
+    }
+
+    function cercaElenco(nome) {
+        const elenco = elenchi[nome];
+        clearTimeout(elenco.timer);
+        elenco.timer = setTimeout(() => caricaElenco(nome, true), 300);
+    }
+
+    // Clic sull'intestazione: ordina per quella colonna, oppure inverte l'ordine se è già quella selezionata
+    function ordinaElenco(nome, campo) {
+        const elenco = elenchi[nome];
+        elenco.ordine = elenco.campo === campo && elenco.ordine === 'asc' ? 'desc' : 'asc';
+        elenco.campo = campo;
+
+        const toolbar = document.getElementById(nome + '-toolbar');
+        toolbar.querySelector('.list-search').placeholder = 'Cerca per ' + campo + '...';
+        toolbar.nextElementSibling.querySelectorAll('th.sortable').forEach(th => {
+            th.classList.remove('sorted-asc', 'sorted-desc');
+            if (th.getAttribute('onclick').includes("'" + campo + "'")) {
+                th.classList.add(elenco.ordine === 'asc' ? 'sorted-asc' : 'sorted-desc');
+            }
+        });
+        caricaElenco(nome, true);
+    }
+
+    // Le categorie mantengono il pulsante di aggiunta come primo elemento della griglia
+    function svuotaElenco(corpo, nome) {
+        const fissi = nome === 'categorie' ? 1 : 0;
+        while (corpo.children.length > fissi) {
+            corpo.lastElementChild.remove();
+        }
+    }
+
+    function rigaAccount(account, nome) {
+        const riga = document.createElement('tr');
+        if (!account.attivo) riga.className = 'disabled-row';
+
+        [account.nome, account.cognome, account.email].forEach(valore => {
+            const cella = document.createElement('td');
+            cella.textContent = valore;
+            riga.appendChild(cella);
+        });
+
+        const azione = document.createElement('td');
+        azione.className = 'action-cell';
+        if (account.attivo) {
+            const bottone = document.createElement('button');
+            bottone.type = 'button';
+            bottone.style.cssText = 'background:none; border:none; cursor:pointer; color:inherit;';
+            bottone.innerHTML = '<i class="fa-regular fa-trash-can" title="Disabilita account"></i>';
+            bottone.onclick = () => confirmDisable(account.id, nome === 'operatori' ? 'operatore' : 'cliente');
+            azione.appendChild(bottone);
+        } else {
+            azione.innerHTML = '<span style="font-size: 0.8em;">(Disattivato)</span>';
+        }
+        riga.appendChild(azione);
+        return riga;
+    }
+
+    function pillCategoria(categoria) {
+        const pill = document.createElement('div');
+        pill.className = 'category-pill';
+        if (!categoria.stato) pill.style.cssText = 'background-color: #999 !important; opacity: 0.6;';
+
+        const etichetta = document.createElement('span');
+        etichetta.textContent = categoria.stato ? categoria.nome : categoria.nome + ' (Off)';
+
+        const azioni = document.createElement('div');
+        azioni.className = 'pill-actions';
+
+        const modifica = document.createElement('i');
+        modifica.className = 'fa-solid fa-pen';
+        modifica.style.cursor = 'pointer';
+        modifica.onclick = () => openEditCategoryModal(categoria.id, categoria.nome);
+
+        const divisore = document.createElement('div');
+        divisore.className = 'divider';
+
+        const form = formConId(categoria.stato ? '/categoria/disableCategoria' : '/categoria/enableCategoria', categoria.id);
+        form.style.display = 'inline';
+        const bottone = document.createElement('button');
+        bottone.type = 'submit';
+        bottone.style.cssText = 'background:none; border:none; cursor:pointer; color:white;';
+        bottone.innerHTML = categoria.stato
+            ? '<i class="fa-regular fa-trash-can" title="Disabilita"></i>'
+            : '<i class="fa-solid fa-check" title="Abilita"></i>';
+        form.appendChild(bottone);
+
+        azioni.append(modifica, divisore, form);
+        pill.append(etichetta, azioni);
+        return pill;
+    }
@@ -0,0 +1,120 @@
+// Aggiornamento in tempo reale della lista dei ticket in attesa tramite server-sent events.
+// Il server invia un evento "ticket" per ogni cambio di stato, già confermato sul database:
+// i ticket creati o rilasciati vengono aggiunti alla lista, quelli assegnati o annullati rimossi.
+document.addEventListener('DOMContentLoaded', function () {
+    const lista = document.getElementById('lista-attesa');
+    if (!lista || lista.dataset.live !== 'true' || !window.EventSource) {
+        return;
+    }
+
+    const sorgente = new EventSource('/ticket/eventi');
+    sorgente.addEventListener('ticket', function (e) {
+        const evento = JSON.parse(e.data);
+        if (evento.tipo === 'CREATO' || evento.tipo === 'RILASCIATO') {
+            evento.ticket.forEach(aggiungiRiga);
+        } else {
+            evento.ids.forEach(rimuoviRiga);
+        }
+        aggiornaVisibilita();
+    });
+
+    function rimuoviRiga(id) {
+        const riga = lista.querySelector('tr.row-main[data-id="' + id + '"]');
+        if (riga) {
+            riga.remove();
+        }
+        const dettaglio = document.getElementById('detail-assign-' + id);
+        if (dettaglio) {
+            dettaglio.remove();
+        }
+    }
+
+    // La lista è ordinata dal ticket meno recente: la nuova riga va prima del primo ticket più recente
+    function aggiungiRiga(t) {
+        if (lista.querySelector('tr.row-main[data-id="' + t.id + '"]')) {
+            return;
+        }
+        const data = Date.parse(t.dataCreazione);
+        const successiva = Array.from(lista.querySelectorAll('tr.row-main'))
+            .find(r => Date.parse(r.dataset.creazione) > data);
+        // Se esistono altre pagine, un ticket più recente dell'ultimo mostrato appartiene a quelle
+        if (!successiva && lista.dataset.ultimaPagina !== 'true') {
+            return;
+        }
+        const [principale, dettaglio] = creaRighe(t);
+        lista.insertBefore(principale, successiva || null);
+        lista.insertBefore(dettaglio, successiva || null);
+        principale.classList.add('bg-indigo-50');
+        setTimeout(() => principale.classList.remove('bg-indigo-50'), 3000);
+    }
+
+    function creaRighe(t) {
+        const principale = document.createElement('tr');
+        principale.className = 'row-main';
+        principale.dataset.id = t.id;
+        principale.dataset.creazione = t.dataCreazione;
+
+        const toggle = document.createElement('button');
+        toggle.id = 'btn-assign-' + t.id;
+        toggle.className = 'toggle-btn toggle-plus';
+        toggle.innerText = '+';
+        toggle.onclick = () => toggleRow('assign-' + t.id);
+
+        const prendi = document.createElement('button');
+        prendi.type = 'button';
+        prendi.className = 'text-green-500 hover:text-green-700 transition-colors';
+        prendi.innerHTML = '<i class="fa-solid fa-check-circle"></i>';
+        prendi.onclick = () => confirmAction(String(t.id), 'prendi');
+
+        principale.append(
+            cella('px-6 py-4', toggle),
+            cella('px-6 py-4 text-slate-500 font-medium', '#' + t.id),
+            cella('px-6 py-4 text-slate-700 font-medium', t.titolo),
+            cella('px-6 py-4 text-slate-600', t.nomeCategoria || ''),
+            cella('px-6 py-4 text-slate-600', formattaData(t.dataCreazione)),
+            cella('px-6 py-4 text-center', prendi));
+
+        const dettaglio = document.createElement('tr');
+        dettaglio.id = 'detail-assign-' + t.id;
+        dettaglio.className = 'hidden bg-gray-50/30';
+        const descrizione = document.createElement('span');
+        descrizione.className = 'text-slate-600';
+        descrizione.textContent = t.descrizione;
+        const paragrafo = document.createElement('p');
+        paragrafo.className = 'text-sm';
+        paragrafo.innerHTML = '<strong>Descrizione:</strong><br>';
+        paragrafo.append(descrizione);
+        const contenitore = document.createElement('div');
+        contenitore.className = 'space-y-2';
+        contenitore.append(paragrafo);
+        const td = cella('px-20 py-6 border-b border-gray-100', contenitore);
+        td.colSpan = 6;
+        dettaglio.append(td);
+
+        return [principale, dettaglio];
+    }
+
+    // Il testo viene inserito con textContent: titolo e descrizione sono scritti dai clienti
+    function cella(classi, contenuto) {
+        const td = document.createElement('td');
+        td.className = classi;
+        if (typeof contenuto === 'string') {
+            td.textContent = contenuto;
+        } else {
+            td.append(contenuto);
+        }
+        return td;
+    }
+
+    function formattaData(iso) {
+        const d = new Date(iso);
+        const due = n => String(n).padStart(2, '0');
+        return due(d.getDate()) + '/' + due(d.getMonth() + 1) + '/' + d.getFullYear() + ' ' + due(d.getHours()) + ':' + due(d.getMinutes());
+    }
+
+    function aggiornaVisibilita() {
+        const vuota = lista.querySelector('tr.row-main') === null;
+        document.getElementById('tabella-attesa').classList.toggle('hidden', vuota);
+        document.getElementById('attesa-vuota').classList.toggle('hidden', !vuota);
+    }
+});
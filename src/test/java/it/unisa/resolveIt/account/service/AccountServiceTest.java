@@ -1,20 +1,36 @@
 package it.unisa.resolveIt.account.service;
 
+import it.unisa.resolveIt.account.dto.AccountDTO;
 import it.unisa.resolveIt.account.dto.MyProfileDTO;
+import it.unisa.resolveIt.autenticazione.service.AutenticazioneService;
+import it.unisa.resolveIt.common.dto.CursoreElenco;
+import it.unisa.resolveIt.common.dto.PaginaElencoDTO;
+import it.unisa.resolveIt.model.entity.Account;
 import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.Gestore;
 import it.unisa.resolveIt.model.entity.Operatore;
+import it.unisa.resolveIt.model.repository.AccountRepository;
 import it.unisa.resolveIt.model.repository.ClienteRepository;
 import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.statistica.service.StatisticaService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
 
+import java.util.List;
+import java.util.stream.LongStream;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -31,10 +47,20 @@ class AccountServiceTest {
 
     @Mock private ClienteRepository clienteRepository;
     @Mock private OperatoreRepository operatoreRepository;
+    @Mock private AccountRepository accountRepository;
     @Mock private PasswordEncoder passwordEncoder;
+    @Mock private AutenticazioneService autenticazioneService;
+    @Mock private TransactionTemplate transactionTemplate;
+    @Mock private StatisticaService statisticaService;
 
     @InjectMocks private AccountImpl accountService;
 
+    @BeforeEach
+    void setup() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
     // --- REMOVE CLIENTE ---
 
     /**
@@ -46,6 +72,7 @@ class AccountServiceTest {
     void removeAccountCliente_Successo() {
         long id = 1L;
         Cliente c = new Cliente();
+        c.setEmail("cliente@test.com");
         // Default enabled is true, ma per sicurezza nel test lo esplicitiamo o ci affidiamo al costruttore
         when(clienteRepository.findById(id)).thenReturn(Optional.of(c));
 
@@ -53,6 +80,7 @@ class AccountServiceTest {
 
         assertFalse(c.isEnabled());
         verify(clienteRepository).save(c);
+        verify(autenticazioneService).invalidaUtente("cliente@test.com");
     }
 
     /**
@@ -88,12 +116,14 @@ class AccountServiceTest {
     void removeAccountOperatore_Successo() {
         long id = 1L;
         Operatore op = new Operatore();
+        op.setEmail("op@test.com");
         when(operatoreRepository.findById(id)).thenReturn(Optional.of(op));
 
         accountService.removeAccountOperatore(id);
 
         assertFalse(op.isEnabled());
         verify(operatoreRepository).save(op);
+        verify(autenticazioneService).invalidaUtente("op@test.com");
     }
 
     /**
@@ -132,7 +162,7 @@ class AccountServiceTest {
     void getUserByEmail_TrovaOperatore() {
         String email = "op@test.com";
         Operatore op = new Operatore("Op", "Test", email, "pass");
-        when(operatoreRepository.findByEmail(email)).thenReturn(op);
+        when(accountRepository.findByEmail(email)).thenReturn(new Account(op));
 
         MyProfileDTO res = accountService.getUserByEmail(email);
 
@@ -148,8 +178,7 @@ class AccountServiceTest {
     void getUserByEmail_TrovaCliente() {
         String email = "cli@test.com";
         Cliente cli = new Cliente("Cli", "Test", email, "pass");
-        when(operatoreRepository.findByEmail(email)).thenReturn(null);
-        when(clienteRepository.findByEmail(email)).thenReturn(cli);
+        when(accountRepository.findByEmail(email)).thenReturn(new Account(cli));
 
         MyProfileDTO res = accountService.getUserByEmail(email);
 
@@ -163,12 +192,24 @@ class AccountServiceTest {
     @Test
     void getUserByEmail_NonTrovato() {
         String email = "null@test.com";
-        when(operatoreRepository.findByEmail(email)).thenReturn(null);
-        when(clienteRepository.findByEmail(email)).thenReturn(null);
+        when(accountRepository.findByEmail(email)).thenReturn(null);
 
         assertThrows(RuntimeException.class, () -> accountService.getUserByEmail(email));
     }
 
+    /**
+     * Verifica che il gestore, che non ha un profilo modificabile, venga trattato come email non registrata.
+     */
+    @Test
+    void getUserByEmail_Gestore() {
+        Gestore ges = new Gestore();
+        ges.setEmail("ges@test.com");
+        when(accountRepository.findByEmail("ges@test.com")).thenReturn(new Account(ges));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> accountService.getUserByEmail("ges@test.com"));
+        assertEquals("Email non registrata!", ex.getMessage());
+    }
+
     // --- MODIFY USER ---
 
     /**
@@ -194,6 +235,10 @@ class AccountServiceTest {
         assertFalse(res); // Password non cambiata
         assertEquals("NewName", op.getNome());
         verify(passwordEncoder, never()).encode(anyString());
+        verify(autenticazioneService).invalidaUtente("op@test.com");
+        // Il nuovo nome arriva anche al riepilogo delle statistiche
+        verify(statisticaService).aggiornaOperatore(argThat(a -> "NewName".equals(a.getNome())
+                && "NewSurname".equals(a.getCognome())));
     }
 
     /**
@@ -222,6 +267,7 @@ class AccountServiceTest {
 
     /**
      * Verifica che venga lanciata un'eccezione se le password (nuova e conferma) non coincidono per un Operatore.
+     * Il controllo avviene prima dell'hashing e prima di aprire la transazione.
      */
     @Test
     void modifyUser_Operatore_PasswordMismatch() {
@@ -229,12 +275,10 @@ class AccountServiceTest {
         dto.setEmail("op@test.com");
         dto.setPassword("A");
         dto.setConfermaPassword("B");
-        Operatore op = new Operatore();
-        op.setEmail("op@test.com");
-
-        when(operatoreRepository.findByEmail("op@test.com")).thenReturn(op);
 
         assertThrows(RuntimeException.class, () -> accountService.modifyUser(dto));
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(transactionTemplate, never()).execute(any());
     }
 
     /**
@@ -282,16 +326,11 @@ class AccountServiceTest {
         dto.setPassword("PassA");
         dto.setConfermaPassword("PassB");
 
-        Cliente cli = new Cliente();
-        cli.setEmail("cli@test.com");
-
-        when(operatoreRepository.findByEmail(anyString())).thenReturn(null);
-        when(clienteRepository.findByEmail("cli@test.com")).thenReturn(cli);
-
         RuntimeException ex = assertThrows(RuntimeException.class, () ->
                 accountService.modifyUser(dto)
         );
         assertEquals("Le password non coincidono!", ex.getMessage());
+        verify(clienteRepository, never()).findByEmail(anyString());
     }
 
     /**
@@ -316,4 +355,80 @@ class AccountServiceTest {
         assertTrue(res);
         assertEquals("HashedPass", cli.getPassword());
     }
-}
\ No newline at end of file
+
+    /**
+     * Verifica che la disabilitazione massiva usi un'unica UPDATE per blocco di ID e invalidi
+     * la cache di autenticazione di ogni account coinvolto.
+     */
+    @Test
+    void disabilitaClienti_UnaUpdatePerBlocco() {
+        List<Long> ids = LongStream.rangeClosed(1, 1500).boxed().toList();
+        when(clienteRepository.disabilita(anyCollection())).thenReturn(1000, 499);
+        when(clienteRepository.findEmailByIdIn(anyCollection())).thenReturn(List.of("a@test.com"), List.of("b@test.com"));
+
+        assertEquals(1499, accountService.disabilitaClienti(ids));
+
+        verify(clienteRepository).disabilita(ids.subList(0, 1000));
+        verify(clienteRepository).disabilita(ids.subList(1000, 1500));
+        verify(autenticazioneService).invalidaUtente("a@test.com");
+        verify(autenticazioneService).invalidaUtente("b@test.com");
+        verify(clienteRepository, never()).save(any());
+    }
+
+    /**
+     * Verifica che la disabilitazione massiva degli operatori ignori gli ID ripetuti.
+     */
+    @Test
+    void disabilitaOperatori_IdRipetuti() {
+        when(operatoreRepository.disabilita(List.of(7L, 8L))).thenReturn(2);
+        when(operatoreRepository.findEmailByIdIn(List.of(7L, 8L))).thenReturn(List.of("op7@test.com", "op8@test.com"));
+
+        assertEquals(2, accountService.disabilitaOperatori(List.of(7L, 8L, 7L)));
+
+        verify(autenticazioneService).invalidaUtente("op7@test.com");
+        verify(autenticazioneService).invalidaUtente("op8@test.com");
+    }
+
+    // --- ELENCHI DEL GESTORE ---
+
+    /**
+     * Verifica che un campo di ordinamento non ammesso venga sostituito dal cognome, così la query
+     * usa sempre una colonna indicizzata, e che l'ultima pagina non restituisca un cursore.
+     */
+    @Test
+    void getPaginaClienti_CampoNonAmmesso_OrdinaPerCognome() {
+        List<AccountDTO> clienti = List.of(new AccountDTO(1L, "Luigi", "Verdi", "luigi@test.com", true));
+        when(clienteRepository.findPagina("cognome", null, null, false, null, null, Limit.of(AccountImpl.DIMENSIONE_PAGINA + 1)))
+                .thenReturn(clienti);
+
+        PaginaElencoDTO<AccountDTO> pagina = accountService.getPaginaClienti("password", null, null, "asc", null);
+
+        assertEquals(clienti, pagina.getElementi());
+        assertNull(pagina.getCursoreSuccessivo());
+        verify(clienteRepository, never()).findAll();
+    }
+
+    /**
+     * Verifica che, con più account di quelli di una pagina, il cursore riporti il campo di ordinamento
+     * e l'ID dell'ultimo account mostrato, e che la pagina successiva riparta da lì.
+     */
+    @Test
+    void getPaginaOperatori_PaginaPiena_CursoreSulCampoDiOrdinamento() {
+        List<AccountDTO> operatori = LongStream.rangeClosed(1, AccountImpl.DIMENSIONE_PAGINA + 1)
+                .mapToObj(i -> new AccountDTO(i, "Mario", "Rossi", "op" + (100 + i) + "@test.com", true))
+                .toList();
+        Limit limite = Limit.of(AccountImpl.DIMENSIONE_PAGINA + 1);
+        when(operatoreRepository.findPagina("email", "op", true, true, null, null, limite)).thenReturn(operatori);
+
+        PaginaElencoDTO<AccountDTO> pagina = accountService.getPaginaOperatori("email", "op", true, "desc", null);
+
+        assertEquals(AccountImpl.DIMENSIONE_PAGINA, pagina.getElementi().size());
+        CursoreElenco cursore = CursoreElenco.parse(pagina.getCursoreSuccessivo());
+        assertEquals("op120@test.com", cursore.getValore());
+        assertEquals(20L, cursore.getId());
+
+        accountService.getPaginaOperatori("email", "op", true, "desc", cursore);
+
+        verify(operatoreRepository).findPagina("email", "op", true, true, "op120@test.com", 20L, limite);
+    }
+}
@@ -0,0 +1,143 @@
+package it.unisa.resolveIt.account.service;
+
+import com.jayway.jsonpath.JsonPath;
+import it.unisa.resolveIt.model.entity.Categoria;
+import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.repository.CategoriaRepository;
+import it.unisa.resolveIt.model.repository.ClienteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test di integrazione per gli elenchi paginati della dashboard del gestore sul database reale.
+ * <p>
+ * Verifica che account e categorie vengano restituiti in JSON una pagina alla volta, ordinati e filtrati
+ * dal database, e che la pagina {@code /gestore} non carichi più gli elenchi completi.
+ * </p>
+ */
+@SpringBootTest
+@WithMockUser(username = "gestore@test.com", authorities = "GESTORE")
+public class ElenchiGestoreIntegrationTest {
+
+    private static final int CLIENTI = 25;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private MockMvc mockMvc;
+    private final List<Cliente> clienti = new ArrayList<>();
+    private final List<Categoria> categorie = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        // Cognomi Zelencoa ... Zelencoy, inseriti in ordine inverso rispetto all'ordinamento atteso
+        for (int i = CLIENTI - 1; i >= 0; i--) {
+            char lettera = (char) ('a' + i);
+            Cliente c = new Cliente("Anna", "Zelenco" + lettera, "zelenco." + lettera + "@test.it", "password");
+            if (i % 5 == 0) {
+                c.disable();
+            }
+            clienti.add(clienteRepository.save(c));
+        }
+        for (String nome : List.of("Elenco Beta", "Elenco Alfa", "Elenco Gamma")) {
+            categorie.add(categoriaRepository.save(new Categoria(nome, !nome.endsWith("Beta"))));
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        clienteRepository.deleteAll(clienti);
+        categoriaRepository.deleteAll(categorie);
+        clienti.clear();
+        categorie.clear();
+    }
+
+    @Test
+    public void clienti_PaginatiPerCognomeFinoAllUltimaPagina() throws Exception {
+        String prima = mockMvc.perform(get("/gestore/clienti").param("testo", "zelenco"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementi.length()").value(20))
+                .andExpect(jsonPath("$.elementi[0].cognome").value("Zelencoa"))
+                .andExpect(jsonPath("$.elementi[19].cognome").value("Zelencot"))
+                .andExpect(jsonPath("$.elementi[0].password").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get("/gestore/clienti").param("testo", "zelenco")
+                        .param("cursore", JsonPath.<String>read(prima, "$.cursoreSuccessivo")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementi[*].cognome").value(contains("Zelencou", "Zelencov", "Zelencow", "Zelencox", "Zelencoy")))
+                .andExpect(jsonPath("$.cursoreSuccessivo").value(nullValue()));
+    }
+
+    @Test
+    public void clienti_RicercaPerEmailDisattivatiInOrdineInverso() throws Exception {
+        mockMvc.perform(get("/gestore/clienti").param("campo", "email").param("testo", "zelenco.")
+                        .param("attivo", "false").param("ordine", "desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementi[*].cognome").value(contains("Zelencou", "Zelencop", "Zelencok", "Zelencof", "Zelencoa")))
+                .andExpect(jsonPath("$.elementi[*].attivo").value(everyItem(is(false))));
+
+        // I caratteri jolly vengono cercati letteralmente
+        mockMvc.perform(get("/gestore/clienti").param("testo", "zel%co"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementi.length()").value(0));
+    }
+
+    @Test
+    public void categorie_FiltratePerPrefissoEStato() throws Exception {
+        mockMvc.perform(get("/gestore/categorie").param("testo", "Elenco").param("ordine", "desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementi[*].nome").value(contains("Elenco Gamma", "Elenco Beta", "Elenco Alfa")));
+
+        mockMvc.perform(get("/gestore/categorie").param("testo", "Elenco").param("stato", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementi[*].nome").value(contains("Elenco Beta")));
+    }
+
+    @Test
+    public void dashboard_NonCaricaGliElenchi() throws Exception {
+        mockMvc.perform(get("/gestore"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("operatori-rows")))
+                .andExpect(content().string(not(containsString("zelenco.a@test.it"))))
+                .andExpect(content().string(not(containsString("Elenco Alfa"))));
+    }
+
+    @Test
+    @WithMockUser(username = "cliente@test.com", authorities = "CLIENTE")
+    public void elenchi_AccessoNegatoAiClienti() throws Exception {
+        // Il gestore degli accessi negati riporta il cliente alla propria home
+        mockMvc.perform(get("/gestore/clienti")).andExpect(redirectedUrl("/ticket/home"));
+        mockMvc.perform(get("/gestore/categorie")).andExpect(redirectedUrl("/ticket/home"));
+    }
+}
@@ -1,22 +1,29 @@
 package it.unisa.resolveIt.autenticazione.service;
 
+import it.unisa.resolveIt.common.config.CacheConfig;
+import it.unisa.resolveIt.common.security.HashingSaturoException;
+import it.unisa.resolveIt.model.entity.Account;
 import it.unisa.resolveIt.model.entity.Cliente;
-import it.unisa.resolveIt.model.repository.ClienteRepository;
-import it.unisa.resolveIt.model.repository.GestoreRepository;
-import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.model.repository.AccountRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithAnonymousUser;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -33,20 +40,25 @@ public class AutenticazioneIntegrationTest {
     private MockMvc mockMvc;
 
     @MockitoBean
-    private ClienteRepository clienteRepository;
+    private AccountRepository accountRepository;
 
-    @MockitoBean
-    private OperatoreRepository operatoreRepository;
-
-    @MockitoBean
-    private GestoreRepository gestoreRepository;
+    @MockitoSpyBean
+    private PasswordEncoder passwordEncoder;
 
     @Autowired
     private WebApplicationContext context;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private AutenticazioneService autenticazioneService;
+
     @BeforeEach
     public void setup() {
         mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        // Ogni test simula utenti diversi con la stessa email: la cache non deve restituire quelli del test precedente
+        cacheManager.getCache(CacheConfig.CACHE_UTENTI).clear();
     }
 
     /**
@@ -66,16 +78,14 @@ public class AutenticazioneIntegrationTest {
 
     /**
      * Verifica la gestione del fallimento dell'autenticazione (ME1) nel caso in cui
-     * l'email inserita non sia presente in nessuno dei repository (Cliente, Operatore, Gestore).
+     * l'email inserita non sia presente nell'indice degli account (Cliente, Operatore, Gestore).
      */
     @Test
     @WithAnonymousUser
     public void emailNonRegistrata() throws Exception {
         String emailValida = "mario@test.com";
 
-        when(clienteRepository.findByEmail(emailValida)).thenReturn(null);
-        when(operatoreRepository.findByEmail(emailValida)).thenReturn(null);
-        when(gestoreRepository.findByEmail(emailValida)).thenReturn(null);
+        when(accountRepository.findByEmail(emailValida)).thenReturn(null);
 
         mockMvc.perform(post("/login")
                         .param("username", emailValida)
@@ -96,7 +106,7 @@ public class AutenticazioneIntegrationTest {
         clienteEsistente.setEmail(email);
         clienteEsistente.setPassword("$2a$10$hashedPassword...");
 
-        when(clienteRepository.findByEmail(email)).thenReturn(clienteEsistente);
+        when(accountRepository.findByEmail(email)).thenReturn(new Account(clienteEsistente));
 
         mockMvc.perform(post("/login")
                         .param("username", email)
@@ -120,7 +130,7 @@ public class AutenticazioneIntegrationTest {
         clienteEsistente.setPassword(new BCryptPasswordEncoder().encode(passInChiaro));
         clienteEsistente.disable();
 
-        when(clienteRepository.findByEmail(email)).thenReturn(clienteEsistente);
+        when(accountRepository.findByEmail(email)).thenReturn(new Account(clienteEsistente));
 
         mockMvc.perform(post("/login")
                         .param("username", email)
@@ -144,7 +154,7 @@ public class AutenticazioneIntegrationTest {
         clienteEsistente.setEmail(email);
         clienteEsistente.setPassword(new BCryptPasswordEncoder().encode(passInChiaro));
 
-        when(clienteRepository.findByEmail(email)).thenReturn(clienteEsistente);
+        when(accountRepository.findByEmail(email)).thenReturn(new Account(clienteEsistente));
 
         mockMvc.perform(post("/login")
                         .param("username", email)
@@ -154,6 +164,67 @@ public class AutenticazioneIntegrationTest {
                 .andExpect(redirectedUrl("/ticket/home")); // Successo MP2
     }
 
+    /**
+     * Verifica che un account disabilitato non possa più autenticarsi con nessuna grafia della propria email.
+     * Il database confronta le email senza distinguere le maiuscole: il login con una grafia diversa da quella
+     * registrata deve finire nella stessa voce di cache che viene invalidata alla disabilitazione.
+     */
+    @Test
+    @WithAnonymousUser
+    public void loginGrafiaDiversa_DisabilitazioneInvalidaCache() throws Exception {
+        String email = "cliente@test.com";
+        String passInChiaro = "cliente123";
+        String hash = new BCryptPasswordEncoder().encode(passInChiaro);
+
+        Cliente attivo = new Cliente();
+        attivo.setEmail(email);
+        attivo.setPassword(hash);
+        Cliente disabilitato = new Cliente();
+        disabilitato.setEmail(email);
+        disabilitato.setPassword(hash);
+        disabilitato.disable();
+
+        when(accountRepository.findByEmail(anyString())).thenReturn(new Account(attivo), new Account(disabilitato));
+
+        mockMvc.perform(post("/login")
+                        .param("username", "Cliente@Test.com")
+                        .param("password", passInChiaro)
+                        .with(csrf()))
+                .andExpect(redirectedUrl("/ticket/home"));
+
+        // Come AccountImpl alla disabilitazione: viene invalidata l'email registrata
+        autenticazioneService.invalidaUtente(email);
+
+        mockMvc.perform(post("/login")
+                        .param("username", "Cliente@Test.com")
+                        .param("password", passInChiaro)
+                        .with(csrf()))
+                .andExpect(redirectedUrl("/login-form?error=true"));
+    }
+
+    /**
+     * Verifica che, con il pool di hashing delle password saturo, il login venga respinto con 503
+     * e l'indicazione di riprovare, invece di essere trattato come credenziali errate.
+     */
+    @Test
+    @WithAnonymousUser
+    public void login_PoolHashingSaturo() throws Exception {
+        String email = "cliente@test.com";
+        Cliente clienteEsistente = new Cliente();
+        clienteEsistente.setEmail(email);
+        clienteEsistente.setPassword(new BCryptPasswordEncoder().encode("cliente123"));
+
+        when(accountRepository.findByEmail(email)).thenReturn(new Account(clienteEsistente));
+        doThrow(new HashingSaturoException()).when(passwordEncoder).matches(any(), anyString());
+
+        mockMvc.perform(post("/login")
+                        .param("username", email)
+                        .param("password", "cliente123")
+                        .with(csrf()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
     /**
      * Verifica che la pagina di login sia accessibile correttamente
      * per gli utenti non autenticati.
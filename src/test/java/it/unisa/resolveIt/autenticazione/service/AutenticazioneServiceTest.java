@@ -1,39 +1,40 @@
 package it.unisa.resolveIt.autenticazione.service;
 
+import it.unisa.resolveIt.common.config.CacheConfig;
+import it.unisa.resolveIt.model.entity.Account;
 import it.unisa.resolveIt.model.entity.Cliente;
 import it.unisa.resolveIt.model.entity.Gestore;
 import it.unisa.resolveIt.model.entity.Operatore;
-import it.unisa.resolveIt.model.repository.ClienteRepository;
-import it.unisa.resolveIt.model.repository.GestoreRepository;
-import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.model.repository.AccountRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class AutenticazioneServiceTest {
 
     @Mock
-    private ClienteRepository clienteRepository;
+    private AccountRepository accountRepository;
 
-    @Mock private OperatoreRepository operatoreRepository;
-
-    @Mock private GestoreRepository gestoreRepository;
+    @Spy private CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.CACHE_UTENTI);
 
     @InjectMocks
     private AutenticazioneImpl autenticazioneService;
 
     /**
      * Verifica che il metodo carichi correttamente un {@link Gestore} cercandolo per email.
-     * Assicura che, se l'utente è presente nel repository dei gestori, venga restituito
+     * Assicura che, se l'email appartiene a un gestore, venga restituito
      * un oggetto {@link UserDetails} valido con l'username corretto.
      */
     @Test
@@ -42,7 +43,7 @@ class AutenticazioneServiceTest {
         Gestore ges = new Gestore();
         ges.setEmail(email);
 
-        when(gestoreRepository.findByEmail(email)).thenReturn(ges);
+        when(accountRepository.findByEmail(email)).thenReturn(new Account(ges));
 
         UserDetails user = autenticazioneService.loadUserByUsername(email);
 
@@ -51,9 +52,8 @@ class AutenticazioneServiceTest {
     }
 
     /**
-     * Verifica il caricamento di un {@link Operatore} quando la ricerca nei gestori fallisce.
-     * Il test simula l'assenza dell'email nel repository dei gestori e la sua presenza
-     * in quello degli operatori, validando il risultato restituito.
+     * Verifica il caricamento di un {@link Operatore} a partire dalla sua riga nell'indice degli account,
+     * validando il risultato restituito.
      */
     @Test
     void loadUserByUsername_TrovaOperatore_Successo() {
@@ -61,8 +61,7 @@ class AutenticazioneServiceTest {
         Operatore op = new Operatore();
         op.setEmail(email);
 
-        when(gestoreRepository.findByEmail(email)).thenReturn(null);
-        when(operatoreRepository.findByEmail(email)).thenReturn(op);
+        when(accountRepository.findByEmail(email)).thenReturn(new Account(op));
 
         UserDetails user = autenticazioneService.loadUserByUsername(email);
 
@@ -71,9 +70,8 @@ class AutenticazioneServiceTest {
     }
 
     /**
-     * Verifica il caricamento di un {@link Cliente} quando l'email non appartiene né
-     * a un gestore né a un operatore. Assicura che il servizio completi la catena di
-     * ricerca arrivando correttamente al repository dei clienti.
+     * Verifica il caricamento di un {@link Cliente}. Assicura che il servizio restituisca
+     * l'utente associato al ruolo indicato dall'indice degli account.
      */
     @Test
     void loadUserByUsername_TrovaCliente_Successo() {
@@ -81,28 +79,109 @@ class AutenticazioneServiceTest {
         Cliente cl = new Cliente();
         cl.setEmail(email);
 
-        when(gestoreRepository.findByEmail(email)).thenReturn(null);
-        when(operatoreRepository.findByEmail(email)).thenReturn(null);
-        when(clienteRepository.findByEmail(email)).thenReturn(cl);
+        when(accountRepository.findByEmail(email)).thenReturn(new Account(cl));
 
         UserDetails user = autenticazioneService.loadUserByUsername(email);
 
-        assertNotNull(user);
-        assertEquals(email, user.getUsername());
+        assertSame(cl, user);
+        verify(accountRepository, times(1)).findByEmail(email);
     }
 
     /**
      * Verifica che venga lanciata un'eccezione {@link UsernameNotFoundException}
-     * qualora l'email fornita non sia presente in nessuno dei repository del sistema.
+     * qualora l'email fornita non sia presente nell'indice degli account.
      */
     @Test
     void loadUserByUsername_UtenteInesistente() {
-        when(operatoreRepository.findByEmail(anyString())).thenReturn(null);
-        when(clienteRepository.findByEmail(anyString())).thenReturn(null);
-        when(gestoreRepository.findByEmail(anyString())).thenReturn(null);
+        when(accountRepository.findByEmail(anyString())).thenReturn(null);
 
         assertThrows(UsernameNotFoundException.class, () -> {
             autenticazioneService.loadUserByUsername("non-esiste@test.com");
         });
     }
+
+    /**
+     * Verifica che, dopo il primo caricamento, l'utente venga letto dalla cache senza interrogare i repository.
+     */
+    @Test
+    void loadUserByUsername_SecondaChiamataDallaCache() {
+        String email = "cliente@test.com";
+        Cliente cl = new Cliente();
+        cl.setEmail(email);
+        when(accountRepository.findByEmail(email)).thenReturn(new Account(cl));
+
+        autenticazioneService.loadUserByUsername(email);
+        UserDetails user = autenticazioneService.loadUserByUsername(email);
+
+        assertSame(cl, user);
+        verify(accountRepository, times(1)).findByEmail(email);
+    }
+
+    /**
+     * Verifica che l'invalidazione costringa a ricaricare l'utente dal database.
+     */
+    @Test
+    void invalidaUtente_RicaricaDalDatabase() {
+        String email = "operatore@test.com";
+        Operatore vecchio = new Operatore();
+        vecchio.setEmail(email);
+        Operatore aggiornato = new Operatore();
+        aggiornato.setEmail(email);
+        when(accountRepository.findByEmail(email)).thenReturn(new Account(vecchio), new Account(aggiornato));
+
+        assertSame(vecchio, autenticazioneService.getOperatore(email));
+        autenticazioneService.invalidaUtente(email);
+
+        assertSame(aggiornato, autenticazioneService.getOperatore(email));
+    }
+
+    /**
+     * Verifica che le diverse grafie di un'email condividano la voce di cache, così l'invalidazione
+     * con l'email registrata vale anche per un login fatto con maiuscole diverse.
+     */
+    @Test
+    void invalidaUtente_GrafiaDiversa() {
+        String email = "operatore@test.com";
+        Operatore vecchio = new Operatore();
+        vecchio.setEmail(email);
+        Operatore aggiornato = new Operatore();
+        aggiornato.setEmail(email);
+        when(accountRepository.findByEmail(anyString())).thenReturn(new Account(vecchio), new Account(aggiornato));
+
+        assertSame(vecchio, autenticazioneService.getOperatore(" Operatore@Test.COM"));
+        assertSame(vecchio, autenticazioneService.getOperatore(email));
+        autenticazioneService.invalidaUtente(email);
+
+        assertSame(aggiornato, autenticazioneService.getOperatore("OPERATORE@test.com"));
+    }
+
+    /**
+     * Verifica che un'email non trovata non venga memorizzata: una registrazione successiva deve essere vista subito.
+     */
+    @Test
+    void loadUserByUsername_UtenteInesistenteNonMemorizzato() {
+        String email = "nuovo@test.com";
+        Cliente cl = new Cliente();
+        cl.setEmail(email);
+        when(accountRepository.findByEmail(email)).thenReturn(null, new Account(cl));
+
+        assertThrows(UsernameNotFoundException.class, () -> autenticazioneService.loadUserByUsername(email));
+
+        assertSame(cl, autenticazioneService.getCliente(email));
+    }
+
+    /**
+     * Verifica che i metodi tipizzati restituiscano null se l'utente ha un ruolo diverso o non esiste.
+     */
+    @Test
+    void getClienteEGetOperatore_RuoloDiverso() {
+        String email = "operatore@test.com";
+        Operatore op = new Operatore();
+        op.setEmail(email);
+        when(accountRepository.findByEmail(email)).thenReturn(new Account(op));
+
+        assertNull(autenticazioneService.getCliente(email));
+        assertSame(op, autenticazioneService.getOperatore(email));
+        assertNull(autenticazioneService.getOperatore("non-esiste@test.com"));
+    }
 }
@@ -0,0 +1,84 @@
+package it.unisa.resolveIt.categoria.service;
+
+import it.unisa.resolveIt.common.config.CacheConfig;
+import it.unisa.resolveIt.model.entity.Categoria;
+import it.unisa.resolveIt.model.repository.CategoriaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test di integrazione per la cache delle categorie sul database reale.
+ * <p>
+ * Verifica che l'elenco resti in cache tra una lettura e l'altra e che una modifica tramite
+ * {@link CategoriaService} lo invalidi solo dopo il commit della transazione: fino ad allora le altre richieste
+ * continuano a vedere lo stato confermato, e nessuna può rimettere in cache dati non ancora salvati.
+ * </p>
+ */
+@SpringBootTest
+public class CategoriaCacheIntegrationTest {
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Categoria categoria;
+
+    @BeforeEach
+    public void setup() {
+        categoria = categoriaRepository.save(new Categoria("Cache Test", true));
+        cacheManager.getCache(CacheConfig.CACHE_CATEGORIE).clear();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        categoriaRepository.delete(categoria);
+        cacheManager.getCache(CacheConfig.CACHE_CATEGORIE).clear();
+    }
+
+    @Test
+    public void disableCategoria_CacheInvalidataDopoIlCommit() {
+        Cache cache = cacheManager.getCache(CacheConfig.CACHE_CATEGORIE);
+        assertTrue(categoriaService.getCategorieAttive().stream().anyMatch(c -> c.getID_C() == categoria.getID_C()));
+        assertNotNull(cache.get("catalogo"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            categoriaService.disableCategoria(categoria.getID_C());
+            // Transazione non ancora confermata: l'elenco in cache è ancora quello valido
+            assertNotNull(cache.get("catalogo"));
+        });
+
+        assertNull(cache.get("catalogo"));
+        assertTrue(categoriaService.getCategorieAttive().stream().noneMatch(c -> c.getID_C() == categoria.getID_C()));
+        assertFalse(categoriaService.getCategoria(categoria.getID_C()).orElseThrow().getStato());
+    }
+
+    @Test
+    public void disableCategoria_Rollback_CacheNonInvalidata() {
+        Cache cache = cacheManager.getCache(CacheConfig.CACHE_CATEGORIE);
+        categoriaService.getCategorie();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            categoriaService.disableCategoria(categoria.getID_C());
+            status.setRollbackOnly();
+        });
+
+        assertNotNull(cache.get("catalogo"));
+        assertTrue(categoriaService.getCategoria(categoria.getID_C()).orElseThrow().getStato());
+    }
+}
@@ -0,0 +1,97 @@
+package it.unisa.resolveIt.categoria.service;
+
+import it.unisa.resolveIt.common.config.CacheConfig;
+import it.unisa.resolveIt.model.entity.Categoria;
+import it.unisa.resolveIt.model.repository.CategoriaRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test di integrazione per l'importazione a lotti delle categorie sul database reale.
+ * <p>
+ * Importa {@value #CATEGORIE} categorie e verifica che gli INSERT vengano inviati in batch: Hibernate prepara
+ * un'istruzione per ogni lotto di {@code hibernate.jdbc.batch_size} righe invece che per ogni riga, e gli ID
+ * vengono presi dalla sequenza a blocchi senza una lettura per ogni entità.
+ * Le istruzioni vengono contate tramite {@link IstruzioniContate}.
+ * </p>
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "it.unisa.resolveIt.categoria.service.CategoriaImportazioneIntegrationTest$IstruzioniContate")
+public class CategoriaImportazioneIntegrationTest {
+
+    private static final int CATEGORIE = 10_000;
+
+    private static final String PREFISSO = "Importata ";
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    public void cleanup() {
+        categoriaRepository.deleteAllInBatch(categoriaRepository.findAll().stream()
+                .filter(c -> c.getNome().startsWith(PREFISSO))
+                .toList());
+        cacheManager.getCache(CacheConfig.CACHE_CATEGORIE).clear();
+    }
+
+    @Test
+    public void addCategorie_InsertInviatiALotti() {
+        List<String> nomi = new ArrayList<>(CATEGORIE);
+        for (int i = 0; i < CATEGORIE; i++) {
+            nomi.add(PREFISSO + lettere(i));
+        }
+
+        IstruzioniContate.istruzioni.remove();
+        assertEquals(CATEGORIE, categoriaService.addCategorie(nomi));
+
+        // Per ogni lotto di 50 righe: un INSERT in batch e un incremento della sequenza
+        assertTrue(IstruzioniContate.istruzioni.get() <= 2 * CATEGORIE / 50 + 10,
+                "Gli INSERT devono essere inviati a lotti");
+        assertEquals(CATEGORIE, categoriaService.getCategorie().stream()
+                .filter(c -> c.getNome().startsWith(PREFISSO))
+                .count());
+
+        // Una seconda importazione degli stessi nomi non crea duplicati
+        assertEquals(0, categoriaService.addCategorie(nomi.subList(0, 100)));
+    }
+
+    // I nomi delle categorie ammettono solo lettere: l'indice viene scritto in base 26
+    private static String lettere(int indice) {
+        StringBuilder nome = new StringBuilder();
+        do {
+            nome.append((char) ('a' + indice % 26));
+            indice /= 26;
+        } while (indice > 0);
+        return nome.toString();
+    }
+
+    /**
+     * Conta le istruzioni SQL preparate da Hibernate nel thread del test: le query del dispatcher
+     * della outbox, eseguite in un altro thread, non vengono contate.
+     */
+    public static class IstruzioniContate implements StatementInspector {
+
+        static final ThreadLocal<Integer> istruzioni = ThreadLocal.withInitial(() -> 0);
+
+        @Override
+        public String inspect(String sql) {
+            istruzioni.set(istruzioni.get() + 1);
+            return sql;
+        }
+    }
+}
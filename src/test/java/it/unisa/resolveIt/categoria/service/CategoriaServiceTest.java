@@ -1,14 +1,25 @@
 package it.unisa.resolveIt.categoria.service;
 
+import it.unisa.resolveIt.categoria.dto.CategoriaDTO;
+import it.unisa.resolveIt.common.config.CacheConfig;
+import it.unisa.resolveIt.common.dto.CursoreElenco;
+import it.unisa.resolveIt.common.dto.PaginaElencoDTO;
 import it.unisa.resolveIt.model.entity.Categoria;
 import it.unisa.resolveIt.model.repository.CategoriaRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Limit;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,12 +39,69 @@ class CategoriaServiceTest {
     @Mock
     private CategoriaRepository categoriaRepository;
 
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.CACHE_CATEGORIE);
+
     @InjectMocks
     private CategoriaImpl categoriaService;
 
     // ===========================================================
     // PARTE 1: TEST DEL SERVICE (CategoriaImpl)
 
+    // --- CACHE DELLE CATEGORIE ---
+
+    /**
+     * Verifica che le letture successive alla prima non interroghino il database
+     * e che le categorie attive e la ricerca per id usino lo stesso elenco in cache.
+     */
+    @Test
+    void getCategorie_LettoUnaSolaVolta() {
+        Categoria attiva = new Categoria("Rete", true);
+        attiva.setID_C(1);
+        Categoria disattiva = new Categoria("Stampanti", false);
+        disattiva.setID_C(2);
+        when(categoriaRepository.findAll()).thenReturn(List.of(attiva, disattiva));
+
+        assertEquals(List.of(attiva, disattiva), categoriaService.getCategorie());
+        assertEquals(List.of(attiva), categoriaService.getCategorieAttive());
+        assertEquals(Optional.of(disattiva), categoriaService.getCategoria(2L));
+
+        verify(categoriaRepository, times(1)).findAll();
+        verify(categoriaRepository, never()).findById(anyLong());
+    }
+
+    /**
+     * Verifica che una categoria assente dall'elenco in cache venga letta dal database e che l'elenco venga ricaricato.
+     */
+    @Test
+    void getCategoria_AssenteDallaCache_LettaDalDatabase() {
+        Categoria nuova = new Categoria("Nuova", true);
+        when(categoriaRepository.findAll()).thenReturn(List.of());
+        when(categoriaRepository.findById(5L)).thenReturn(Optional.of(nuova));
+
+        assertEquals(Optional.of(nuova), categoriaService.getCategoria(5L));
+        assertEquals(Optional.empty(), categoriaService.getCategoria(null));
+        categoriaService.getCategorie();
+
+        verify(categoriaRepository, times(2)).findAll();
+    }
+
+    /**
+     * Verifica che una modifica alla categoria invalidi l'elenco in cache.
+     */
+    @Test
+    void enableCategoria_InvalidaLaCache() {
+        Categoria cat = new Categoria("Rete", false);
+        when(categoriaRepository.findAll()).thenReturn(List.of(cat));
+        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(cat));
+
+        categoriaService.getCategorieAttive();
+        categoriaService.enableCategoria(1L);
+        categoriaService.getCategorieAttive();
+
+        verify(categoriaRepository, times(2)).findAll();
+    }
+
     // --- ADD CATEGORIA ---
 
     /**
@@ -209,6 +277,66 @@ class CategoriaServiceTest {
         assertThrows(RuntimeException.class, () -> categoriaService.enableCategoria(99L));
     }
 
+    // --- IMPORTAZIONE A LOTTI ---
+
+    /**
+     * Verifica che l'importazione salvi con un solo saveAll i nomi nuovi, ignorando quelli già presenti
+     * o ripetuti, e che il catalogo in cache venga invalidato.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void addCategorie_IgnoraDuplicati() {
+        when(categoriaRepository.findAllNomi()).thenReturn(List.of("Rete"));
+        when(categoriaRepository.findAll()).thenReturn(List.of());
+        categoriaService.getCategorie();
+
+        int create = categoriaService.addCategorie(List.of("Rete", "Stampanti", "Software", "Stampanti"));
+
+        assertEquals(2, create);
+        ArgumentCaptor<List<Categoria>> salvate = ArgumentCaptor.forClass(List.class);
+        verify(categoriaRepository).saveAll(salvate.capture());
+        assertEquals(List.of("Stampanti", "Software"), salvate.getValue().stream().map(Categoria::getNome).toList());
+        assertTrue(salvate.getValue().stream().allMatch(Categoria::getStato));
+        verify(categoriaRepository, never()).findByNome(any());
+        assertNull(cacheManager.getCache(CacheConfig.CACHE_CATEGORIE).get("catalogo"));
+    }
+
+    /**
+     * Verifica che un nome non valido annulli l'intera importazione prima di qualsiasi scrittura.
+     */
+    @Test
+    void addCategorie_NomeNonValido() {
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> categoriaService.addCategorie(List.of("Rete", "Rete!!")));
+
+        assertTrue(ex.getMessage().startsWith("Formato nome categoria non valido"));
+        verify(categoriaRepository, never()).saveAll(any());
+    }
+
+    // --- ELENCO PAGINATO ---
+
+    /**
+     * Verifica che l'elenco del gestore venga letto dal database una pagina alla volta, senza passare dalla cache,
+     * e che il cursore restituito riparta dall'ultima categoria mostrata.
+     */
+    @Test
+    void getPaginaCategorie_PaginaPienaConCursore() {
+        List<CategoriaDTO> risultato = LongStream.rangeClosed(1, CategoriaImpl.DIMENSIONE_PAGINA + 1)
+                .mapToObj(i -> new CategoriaDTO(i, "Categoria" + (char) ('z' - i), true))
+                .toList();
+        when(categoriaRepository.findPagina("Cat", true, true, null, null, Limit.of(CategoriaImpl.DIMENSIONE_PAGINA + 1)))
+                .thenReturn(risultato);
+
+        PaginaElencoDTO<CategoriaDTO> pagina = categoriaService.getPaginaCategorie("Cat", true, "desc", null);
+
+        assertEquals(CategoriaImpl.DIMENSIONE_PAGINA, pagina.getElementi().size());
+        CursoreElenco cursore = CursoreElenco.parse(pagina.getCursoreSuccessivo());
+        CategoriaDTO ultima = risultato.get(CategoriaImpl.DIMENSIONE_PAGINA - 1);
+        assertEquals(ultima.getNome(), cursore.getValore());
+        assertEquals(ultima.getId(), cursore.getId());
+        verify(categoriaRepository, never()).findAll();
+    }
+
     // ===========================================================
     // PARTE 2: TEST DELL'ENTITY (Categoria.java)
 
@@ -0,0 +1,167 @@
+package it.unisa.resolveIt.common.carico;
+
+import it.unisa.resolveIt.ResolveItApplication;
+import it.unisa.resolveIt.model.entity.Categoria;
+import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.Ticket;
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.model.repository.CategoriaRepository;
+import it.unisa.resolveIt.model.repository.ClienteRepository;
+import it.unisa.resolveIt.model.repository.TicketRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test di carico che confronta i thread di piattaforma con il profilo "virtual".
+ * <p>
+ * L'applicazione viene avviata due volte, prima con il pool di thread classico di Tomcat e poi con i thread
+ * virtuali. In entrambi i casi {@code carico.clienti} client concorrenti (1000 se non indicato), autenticati
+ * come cliente, richiedono {@code carico.richieste} volte la home dei ticket, che interroga il database a ogni
+ * richiesta. Per ogni modalità vengono stampati throughput e latenza al 99° percentile.
+ * I numeri sono significativi solo se client, applicazione e database non condividono le stesse CPU.
+ * </p>
+ * Il test è lento e richiede il database reale: viene eseguito solo con {@code mvn test -Pcarico}.
+ */
+@Tag("carico")
+public class ThreadVirtualiCaricoTest {
+
+    // Dimensione del carico, modificabile da riga di comando (es. mvn test -Pcarico -Dcarico.clienti=5000)
+    private static final int CLIENTI = Integer.getInteger("carico.clienti", 1000);
+    private static final int RICHIESTE_PER_CLIENTE = Integer.getInteger("carico.richieste", 10);
+    // Pausa tra due richieste dello stesso client, come un utente che legge la pagina
+    private static final long PAUSA_MS = Long.getLong("carico.pausa", 100);
+    private static final int TICKET = 40;
+
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    @Test
+    public void confrontoThroughputELatenza() throws Exception {
+        Risultato piattaforma = misura(false);
+        Risultato virtuali = misura(true);
+
+        System.out.println("Modalità              richieste/s    p99 (ms)   errori");
+        System.out.println(piattaforma.riga("Thread di piattaforma"));
+        System.out.println(virtuali.riga("Thread virtuali"));
+
+        assertEquals(0, piattaforma.errori(), "Richieste fallite con i thread di piattaforma");
+        assertEquals(0, virtuali.errori(), "Richieste fallite con i thread virtuali");
+    }
+
+    private Risultato misura(boolean threadVirtuali) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(ResolveItApplication.class)
+                .properties("server.port=0", "spring.jpa.show-sql=false", "resolveit.password.bcrypt-strength=4");
+        if (threadVirtuali) {
+            builder.profiles("virtual");
+        }
+
+        try (ConfigurableApplicationContext context = builder.run()) {
+            creaTicket(context);
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient http = HttpClient.newBuilder()
+                    .cookieHandler(new CookieManager())
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            login(http, base);
+
+            HttpRequest home = HttpRequest.newBuilder(URI.create(base + "/ticket/home")).GET().build();
+            // Riscaldamento: compilazione JIT, template e pool di connessioni
+            for (int i = 0; i < 200; i++) {
+                http.send(home, HttpResponse.BodyHandlers.discarding());
+            }
+
+            AtomicInteger errori = new AtomicInteger();
+            long[] latenze = new long[CLIENTI * RICHIESTE_PER_CLIENTE];
+            long inizio = System.nanoTime();
+            try (ExecutorService clienti = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> esiti = new ArrayList<>();
+                for (int c = 0; c < CLIENTI; c++) {
+                    int cliente = c;
+                    esiti.add(clienti.submit(() -> {
+                        for (int r = 0; r < RICHIESTE_PER_CLIENTE; r++) {
+                            long t = System.nanoTime();
+                            try {
+                                if (http.send(home, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                    errori.incrementAndGet();
+                                }
+                            } catch (Exception e) {
+                                errori.incrementAndGet();
+                            }
+                            latenze[cliente * RICHIESTE_PER_CLIENTE + r] = System.nanoTime() - t;
+                            Thread.sleep(PAUSA_MS);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> esito : esiti) {
+                    esito.get();
+                }
+            }
+            long durata = System.nanoTime() - inizio;
+
+            Arrays.sort(latenze);
+            long p99 = latenze[(int) Math.ceil(latenze.length * 0.99) - 1];
+            return new Risultato(latenze.length * 1_000_000_000.0 / durata, p99 / 1_000_000.0, errori.get());
+        }
+    }
+
+    // La home del cliente mostra i suoi ticket: ogni richiesta esegue la query paginata sul database
+    private void creaTicket(ConfigurableApplicationContext context) {
+        Cliente cliente = context.getBean(ClienteRepository.class).findByEmail("cliente@test.com");
+        Categoria categoria = context.getBean(CategoriaRepository.class).findAll().get(0);
+        List<Ticket> ticket = new ArrayList<>();
+        for (int i = 0; i < TICKET; i++) {
+            Ticket t = new Ticket("Ticket di carico " + i, cliente, LocalDateTime.now().minusMinutes(i), null, null, null, null, "Descrizione");
+            t.setCategoria(categoria);
+            t.setStato(Stato.APERTO);
+            ticket.add(t);
+        }
+        context.getBean(TicketRepository.class).saveAll(ticket);
+    }
+
+    private void login(HttpClient http, String base) throws Exception {
+        String pagina = http.send(HttpRequest.newBuilder(URI.create(base + "/login-form")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        Matcher csrf = CSRF.matcher(pagina);
+        assertTrue(csrf.find(), "Token CSRF non trovato nella pagina di login");
+
+        String form = "username=" + URLEncoder.encode("cliente@test.com", StandardCharsets.UTF_8)
+                + "&password=cliente123&_csrf=" + URLEncoder.encode(csrf.group(1), StandardCharsets.UTF_8);
+        HttpResponse<Void> risposta = http.send(HttpRequest.newBuilder(URI.create(base + "/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertTrue(risposta.headers().firstValue("Location").orElse("").endsWith("/ticket/home"), "Login non riuscito");
+    }
+
+    private record Risultato(double richiesteAlSecondo, double p99Millisecondi, int errori) {
+
+        String riga(String modalita) {
+            return String.format("%-22s %11.0f %11.1f %8d", modalita, richiesteAlSecondo, p99Millisecondi, errori);
+        }
+    }
+}
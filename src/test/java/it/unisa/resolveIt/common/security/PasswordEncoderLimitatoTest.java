@@ -0,0 +1,101 @@
+package it.unisa.resolveIt.common.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test di unità per {@link PasswordEncoderLimitato}: esecuzione sul pool dedicato, rifiuto quando
+ * il pool è saturo e metriche esposte.
+ */
+class PasswordEncoderLimitatoTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private PasswordEncoderLimitato encoder;
+
+    @AfterEach
+    void chiudi() {
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    /**
+     * Verifica che encode e matches restituiscano gli stessi risultati di BCrypt e vengano eseguiti sul pool dedicato.
+     */
+    @Test
+    void encodeEMatches_SulPoolDedicato() {
+        String[] thread = new String[1];
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        encoder = new PasswordEncoderLimitato(new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                thread[0] = Thread.currentThread().getName();
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        }, 2, 4, registry);
+
+        String hash = encoder.encode("password123");
+
+        assertTrue(encoder.matches("password123", hash));
+        assertFalse(encoder.matches("sbagliata", hash));
+        assertTrue(thread[0].startsWith("password-hash-"), "Hash calcolato sul thread della richiesta: " + thread[0]);
+    }
+
+    /**
+     * Verifica che, con tutti i thread occupati e la coda piena, una nuova richiesta venga rifiutata subito
+     * e che le metriche riportino hash in corso, richieste in coda e richieste rifiutate.
+     */
+    @Test
+    void poolSaturo_RichiestaRifiutata() throws Exception {
+        CountDownLatch avviato = new CountDownLatch(1);
+        CountDownLatch sblocca = new CountDownLatch(1);
+        encoder = new PasswordEncoderLimitato(new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                avviato.countDown();
+                try {
+                    sblocca.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return true;
+            }
+        }, 1, 1, registry);
+
+        // Il primo hash occupa l'unico thread, il secondo occupa l'unico posto in coda
+        CompletableFuture<String> primo = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertTrue(avviato.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> secondo = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        while (registry.get("resolveit.password.coda").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(HashingSaturoException.class, () -> encoder.matches("c", "hash"));
+        assertEquals(1, registry.get("resolveit.password.attivi").gauge().value());
+        assertEquals(1, registry.get("resolveit.password.rifiutati").counter().count());
+
+        sblocca.countDown();
+        assertEquals("hash", primo.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", secondo.get(5, TimeUnit.SECONDS));
+        assertEquals(0, registry.get("resolveit.password.coda").gauge().value());
+    }
+}
@@ -0,0 +1,74 @@
+package it.unisa.resolveIt.common.validation;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test di unità per il registro dei formati: verifica diretta, vincolo {@link FormatoValido}
+ * ed estensioni degli allegati.
+ */
+class FormatoTest {
+
+    private static ValidatorFactory factory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void creaValidator() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+    }
+
+    @AfterAll
+    static void chiudi() {
+        factory.close();
+    }
+
+    @Test
+    void verifica_FormatiValidiENonValidi() {
+        assertTrue(Formato.TITOLO_TICKET.verifica("Stampante non funzionante"));
+        assertFalse(Formato.TITOLO_TICKET.verifica("Test"));
+        assertFalse(Formato.TITOLO_TICKET.verifica("Titolo con <script>"));
+        assertFalse(Formato.TITOLO_TICKET.verifica(null));
+
+        assertTrue(Formato.EMAIL.verifica("mario.rossi@test.com"));
+        assertFalse(Formato.EMAIL.verifica("mario.rossi@test"));
+
+        assertTrue(Formato.NOME_PERSONA.verifica("Niccolò"));
+        assertFalse(Formato.NOME_PERSONA.verifica("M4rio"));
+
+        assertTrue(Formato.PASSWORD_OPZIONALE.verifica(""));
+        assertFalse(Formato.PASSWORD_OPZIONALE.verifica("corta"));
+    }
+
+    @Test
+    void formatoValido_MessaggioDellAnnotazioneENullAmmesso() {
+        Set<ConstraintViolation<Modulo>> violazioni = validator.validate(new Modulo("x"));
+        assertEquals(1, violazioni.size());
+        assertEquals("Il nome non è valido", violazioni.iterator().next().getMessage());
+
+        assertTrue(validator.validate(new Modulo("Mario")).isEmpty());
+        assertTrue(validator.validate(new Modulo(null)).isEmpty());
+    }
+
+    @Test
+    void estensioneAllegato_IgnoraMaiuscole() {
+        assertEquals(EstensioneAllegato.JPEG, EstensioneAllegato.riconosci("foto.JPEG"));
+        assertEquals(EstensioneAllegato.TXT, EstensioneAllegato.riconosci("log.txt"));
+        assertTrue(EstensioneAllegato.ammessa("archivio.Zip"));
+        assertFalse(EstensioneAllegato.ammessa("script.exe"));
+        assertFalse(EstensioneAllegato.ammessa("txt"));
+        assertFalse(EstensioneAllegato.ammessa(null));
+    }
+
+    private record Modulo(@FormatoValido(value = Formato.NOME_PERSONA, message = "Il nome non è valido") String nome) {
+    }
+}
@@ -0,0 +1,151 @@
+package it.unisa.resolveIt.registrazione.service;
+
+import it.unisa.resolveIt.autenticazione.service.AutenticazioneService;
+import it.unisa.resolveIt.model.entity.Account;
+import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.Operatore;
+import it.unisa.resolveIt.model.enums.Ruolo;
+import it.unisa.resolveIt.model.repository.AccountRepository;
+import it.unisa.resolveIt.model.repository.ClienteRepository;
+import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.registrazione.dto.RegistraUtenteDTO;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Test dell'indice degli account sul database reale.
+ * <p>
+ * Verifica che la registrazione inserisca l'email nell'indice, che il login la risolva con una sola query
+ * e che il vincolo di unicità impedisca di usare la stessa email per due utenti, anche con ruoli diversi.
+ * </p>
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "it.unisa.resolveIt.registrazione.service.RegistrazioneAccountIntegrationTest$QueryContate")
+public class RegistrazioneAccountIntegrationTest {
+
+    private static final String EMAIL = "mario.account@test.it";
+
+    @Autowired
+    private RegistrazioneService registrazioneService;
+
+    @Autowired
+    private AutenticazioneService autenticazioneService;
+
+    @MockitoSpyBean
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private OperatoreRepository operatoreRepository;
+
+    @AfterEach
+    public void cleanup() {
+        // Le righe dell'indice vengono eliminate dal database insieme all'utente
+        Cliente cliente = clienteRepository.findByEmail(EMAIL);
+        if (cliente != null) {
+            clienteRepository.delete(cliente);
+        }
+        Operatore operatore = operatoreRepository.findByEmail(EMAIL);
+        if (operatore != null) {
+            operatoreRepository.delete(operatore);
+        }
+        autenticazioneService.invalidaUtente(EMAIL);
+    }
+
+    @Test
+    @WithAnonymousUser
+    public void registerClient_InserisceAccountERisolveEmailConUnaQuery() {
+        registrazioneService.registerClient(new RegistraUtenteDTO("Mario", "Rossi", EMAIL, "password", "password"));
+
+        Account account = accountRepository.findByEmail(EMAIL);
+        assertNotNull(account);
+        assertEquals(Ruolo.CLIENTE, account.getRuolo());
+
+        autenticazioneService.invalidaUtente(EMAIL);
+        QueryContate.select.remove();
+        UserDetails utente = autenticazioneService.loadUserByUsername(EMAIL);
+
+        assertInstanceOf(Cliente.class, utente);
+        assertEquals(EMAIL, utente.getUsername());
+        assertEquals(1, QueryContate.select.get(), "Il login deve risolvere l'email con una sola query");
+    }
+
+    @Test
+    @WithMockUser(authorities = "GESTORE")
+    public void registerOperator_EmailUsataDaUnCliente() {
+        Cliente cliente = clienteRepository.save(new Cliente("Luigi", "Verdi", EMAIL, "password"));
+        accountRepository.save(new Account(cliente));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                registrazioneService.registerOperator(new RegistraUtenteDTO("Mario", "Rossi", EMAIL, "password", "password")));
+
+        assertEquals("Email già in uso!", ex.getMessage());
+        assertNull(operatoreRepository.findByEmail(EMAIL));
+    }
+
+    @Test
+    @WithMockUser(authorities = "GESTORE")
+    public void registerOperator_RegistrazioneConcorrente_VincoloDiUnicita() {
+        Cliente cliente = clienteRepository.save(new Cliente("Luigi", "Verdi", EMAIL, "password"));
+        accountRepository.save(new Account(cliente));
+        // Simula una registrazione concorrente che ha superato il controllo iniziale prima del commit dell'altra
+        doReturn(false).when(accountRepository).existsByEmail(EMAIL);
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                registrazioneService.registerOperator(new RegistraUtenteDTO("Mario", "Rossi", EMAIL, "password", "password")));
+
+        assertEquals("Email già in uso!", ex.getMessage());
+        assertNull(operatoreRepository.findByEmail(EMAIL));
+    }
+
+    @Test
+    public void vincoloUnicita_StessaEmailConRuoliDiversi() {
+        Cliente cliente = clienteRepository.save(new Cliente("Luigi", "Verdi", EMAIL, "password"));
+        accountRepository.save(new Account(cliente));
+        Operatore operatore = operatoreRepository.save(new Operatore("Mario", "Rossi", EMAIL, "password"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> accountRepository.save(new Account(operatore)));
+    }
+
+    @Test
+    public void eliminazioneUtente_RimuoveAncheAccount() {
+        Cliente cliente = clienteRepository.save(new Cliente("Luigi", "Verdi", EMAIL, "password"));
+        accountRepository.save(new Account(cliente));
+
+        clienteRepository.deleteAllByIdInBatch(List.of(cliente.getId()));
+
+        assertFalse(accountRepository.existsByEmail(EMAIL));
+    }
+
+    /**
+     * Conta le SELECT generate da Hibernate, per verificare quante query servono a risolvere un'email.
+     * Il conteggio è legato al thread: le query del dispatcher della outbox non vengono contate.
+     */
+    public static class QueryContate implements StatementInspector {
+
+        static final ThreadLocal<Integer> select = ThreadLocal.withInitial(() -> 0);
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.regionMatches(true, 0, "select", 0, 6)) {
+                select.set(select.get() + 1);
+            }
+            return sql;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package it.unisa.resolveIt.registrazione.service;
 
+import it.unisa.resolveIt.common.security.HashingSaturoException;
 import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.repository.AccountRepository;
 import it.unisa.resolveIt.model.repository.ClienteRepository;
 import it.unisa.resolveIt.model.repository.GestoreRepository;
 import it.unisa.resolveIt.model.repository.OperatoreRepository;
@@ -41,6 +43,9 @@ public class RegistrazioneIntegrationTest {
     @MockitoBean
     private GestoreRepository gestoreRepository;
 
+    @MockitoBean
+    private AccountRepository accountRepository;
+
     @MockitoBean
     private RegistrazioneService registrazioneService;
 
@@ -185,6 +190,26 @@ public class RegistrazioneIntegrationTest {
                 .andExpect(authenticated().withUsername("mario@email.it")); // Verifica Auto-Login
     }
 
+    /**
+     * Verifica che, se il pool di hashing delle password è saturo, la registrazione venga respinta con 503
+     * e l'indicazione di riprovare, invece di mostrare l'errore come un problema dei dati inseriti.
+     */
+    @Test
+    @WithAnonymousUser
+    public void registrazioneCliente_PoolHashingSaturo() throws Exception {
+        when(registrazioneService.registerClient(any(RegistraUtenteDTO.class))).thenThrow(new HashingSaturoException());
+
+        mockMvc.perform(post("/register")
+                        .param("email", "mario@email.it")
+                        .param("password", "Password123")
+                        .param("confermaPassword", "Password123")
+                        .param("nome", "Mario")
+                        .param("cognome", "Rossi")
+                        .with(csrf()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
     /**
      * Verifica che un Gestore autenticato possa registrare correttamente un nuovo Operatore nel sistema.
      * Controlla il reindirizzamento alla dashboard del gestore e la presenza di un messaggio di conferma (flash attribute).
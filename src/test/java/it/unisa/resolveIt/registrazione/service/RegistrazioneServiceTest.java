@@ -1,20 +1,32 @@
 package it.unisa.resolveIt.registrazione.service;
 
+import it.unisa.resolveIt.model.entity.Account;
 import it.unisa.resolveIt.model.entity.Cliente;
 import it.unisa.resolveIt.model.entity.Operatore;
+import it.unisa.resolveIt.model.enums.Ruolo;
+import it.unisa.resolveIt.model.repository.AccountRepository;
 import it.unisa.resolveIt.model.repository.ClienteRepository;
-import it.unisa.resolveIt.model.repository.GestoreRepository;
 import it.unisa.resolveIt.model.repository.OperatoreRepository;
 import it.unisa.resolveIt.registrazione.dto.RegistraUtenteDTO;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
+import java.util.Set;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -28,43 +40,34 @@ class RegistrazioneServiceTest {
     private OperatoreRepository operatoreRepository;
 
     @Mock
-    private GestoreRepository gestoreRepository;
+    private AccountRepository accountRepository;
 
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private RegistrazioneImpl registrazioneService; // La classe da testare
 
-    /**
-     * Verifica che la registrazione di un cliente fallisca se l'email è già associata a un Operatore.
-     * Assicura che venga lanciata un'eccezione e che non avvenga alcun salvataggio nel database.
-     */
-    @Test
-    void emailInUso_operatore() {
-        RegistraUtenteDTO dto = new RegistraUtenteDTO("Mario", "Rossi", "mario@test.com", "pass", "pass");
-
-        when(operatoreRepository.existsByEmail("mario@test.com")).thenReturn(true);
-
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            registrazioneService.registerClient(dto);
-        });
-
-        assertEquals("Email già in uso!", exception.getMessage());
-
-        // Verifica che il salvataggio NON sia avvenuto
-        verify(clienteRepository, never()).save(any());
+    @BeforeEach
+    void setup() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doCallRealMethod().when(transactionTemplate).executeWithoutResult(any());
     }
 
     /**
-     * Verifica che la registrazione di un cliente fallisca se l'email è già registrata da un altro Cliente.
-     * Controlla l'integrità del messaggio di errore e l'assenza di chiamate al metodo save.
+     * Verifica che la registrazione di un cliente fallisca se l'email è già presente nell'indice degli account,
+     * qualunque sia il ruolo dell'utente che la usa (Cliente, Operatore o Gestore).
+     * Assicura che venga lanciata un'eccezione e che non avvenga alcun salvataggio nel database.
      */
     @Test
-    void emailInUso_cliente() {
+    void emailInUso() {
         RegistraUtenteDTO dto = new RegistraUtenteDTO("Mario", "Rossi", "mario@test.com", "pass", "pass");
 
-        when(clienteRepository.existsByEmail("mario@test.com")).thenReturn(true);
+        when(accountRepository.existsByEmail("mario@test.com")).thenReturn(true);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             registrazioneService.registerClient(dto);
@@ -74,26 +77,28 @@ class RegistrazioneServiceTest {
 
         // Verifica che il salvataggio NON sia avvenuto
         verify(clienteRepository, never()).save(any());
+        verify(accountRepository, never()).saveAndFlush(any());
     }
 
     /**
-     * Verifica che la registrazione di un cliente fallisca se l'email è già utilizzata da un Gestore.
-     * Garantisce che il sistema impedisca la creazione di account duplicati tra diversi ruoli.
+     * Verifica il caso in cui una registrazione concorrente usi la stessa email dopo il controllo iniziale:
+     * il vincolo di unicità del database fa fallire l'inserimento nell'indice e l'errore viene
+     * riportato come email già in uso.
      */
     @Test
-    void emailInUso_gestore() {
-        RegistraUtenteDTO dto = new RegistraUtenteDTO("Mario", "Rossi", "mario@test.com", "pass", "pass");
+    void emailInUso_RegistrazioneConcorrente() {
+        RegistraUtenteDTO dto = new RegistraUtenteDTO("Mario", "Rossi", "mario@test.com", "password", "password");
 
-        when(gestoreRepository.existsByEmail("mario@test.com")).thenReturn(true);
+        when(accountRepository.existsByEmail(anyString())).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("passwordCriptata");
+        when(operatoreRepository.save(any(Operatore.class))).thenAnswer(i -> i.getArgument(0));
+        when(accountRepository.saveAndFlush(any(Account.class))).thenThrow(new DataIntegrityViolationException("uk_account_email"));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            registrazioneService.registerClient(dto);
+            registrazioneService.registerOperator(dto);
         });
 
         assertEquals("Email già in uso!", exception.getMessage());
-
-        // Verifica che il salvataggio NON sia avvenuto
-        verify(clienteRepository, never()).save(any());
     }
 
     /**
@@ -125,9 +130,7 @@ class RegistrazioneServiceTest {
 
         Cliente clienteSalvato = new Cliente("Mario", "Rossi", "mario@test.com", "passwordCriptata");
 
-        when(clienteRepository.existsByEmail(anyString())).thenReturn(false);
-        when(operatoreRepository.existsByEmail(anyString())).thenReturn(false);
-        when(gestoreRepository.existsByEmail(anyString())).thenReturn(false);
+        when(accountRepository.existsByEmail(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("passwordCriptata");
         when(clienteRepository.save(any(Cliente.class))).thenReturn(clienteSalvato);
 
@@ -137,6 +140,12 @@ class RegistrazioneServiceTest {
 
         // Verifica che il save sia stato chiamato
         verify(clienteRepository, times(1)).save(any(Cliente.class));
+
+        // Verifica che l'email sia stata inserita nell'indice degli account con il ruolo corretto
+        ArgumentCaptor<Account> account = ArgumentCaptor.forClass(Account.class);
+        verify(accountRepository, times(1)).saveAndFlush(account.capture());
+        assertEquals(Ruolo.CLIENTE, account.getValue().getRuolo());
+        assertSame(clienteSalvato, account.getValue().getCliente());
     }
 
     /**
@@ -150,9 +159,7 @@ class RegistrazioneServiceTest {
 
         Operatore operatoreSalvato = new Operatore("Mario", "Rossi", "mario@test.com", "passwordCriptata");
 
-        when(clienteRepository.existsByEmail(anyString())).thenReturn(false);
-        when(operatoreRepository.existsByEmail(anyString())).thenReturn(false);
-        when(gestoreRepository.existsByEmail(anyString())).thenReturn(false);
+        when(accountRepository.existsByEmail(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("passwordCriptata");
         when(operatoreRepository.save(any(Operatore.class))).thenReturn(operatoreSalvato);
 
@@ -160,5 +167,67 @@ class RegistrazioneServiceTest {
 
         // Verifica che il save sia stato chiamato
         verify(operatoreRepository, times(1)).save(any(Operatore.class));
+        verify(accountRepository, times(1)).saveAndFlush(any(Account.class));
+    }
+
+    /**
+     * Verifica che l'importazione di più operatori salvi utenti e account con un solo saveAll ciascuno,
+     * dopo un unico controllo sulle email già in uso.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void registerOperators_SalvataggioALotti() {
+        List<RegistraUtenteDTO> dtos = List.of(
+                new RegistraUtenteDTO("Mario", "Rossi", "mario@test.com", "pass", "pass"),
+                new RegistraUtenteDTO("Anna", "Bianchi", "anna@test.com", "pass", "pass"));
+        when(accountRepository.existsByEmailIn(Set.of("mario@test.com", "anna@test.com"))).thenReturn(false);
+        when(passwordEncoder.encode("pass")).thenReturn("hash");
+        when(operatoreRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(2, registrazioneService.registerOperators(dtos));
+
+        ArgumentCaptor<List<Account>> account = ArgumentCaptor.forClass(List.class);
+        verify(accountRepository).saveAll(account.capture());
+        assertEquals(List.of("mario@test.com", "anna@test.com"), account.getValue().stream().map(Account::getEmail).toList());
+        assertTrue(account.getValue().stream().allMatch(a -> a.getRuolo() == Ruolo.OPERATORE));
+        verify(accountRepository, never()).existsByEmail(anyString());
+    }
+
+    /**
+     * Verifica che le password vengano hashate tutte prima di aprire la transazione, così l'attesa
+     * sul pool BCrypt non tiene occupata una connessione del database.
+     */
+    @Test
+    void registerOperators_HashingPrimaDellaTransazione() {
+        List<RegistraUtenteDTO> dtos = List.of(
+                new RegistraUtenteDTO("Mario", "Rossi", "mario@test.com", "pass1", "pass1"),
+                new RegistraUtenteDTO("Anna", "Bianchi", "anna@test.com", "pass2", "pass2"));
+        when(accountRepository.existsByEmailIn(anySet())).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("hash");
+        when(operatoreRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        registrazioneService.registerOperators(dtos);
+
+        InOrder ordine = inOrder(passwordEncoder, transactionTemplate, operatoreRepository);
+        ordine.verify(passwordEncoder).encode("pass1");
+        ordine.verify(passwordEncoder).encode("pass2");
+        ordine.verify(transactionTemplate).executeWithoutResult(any());
+        ordine.verify(operatoreRepository).saveAll(anyList());
+    }
+
+    /**
+     * Verifica che un'email ripetuta nell'elenco annulli l'importazione prima di qualsiasi salvataggio.
+     */
+    @Test
+    void registerOperators_EmailRipetuta() {
+        List<RegistraUtenteDTO> dtos = List.of(
+                new RegistraUtenteDTO("Mario", "Rossi", "mario@test.com", "pass", "pass"),
+                new RegistraUtenteDTO("Mario", "Verdi", "mario@test.com", "pass", "pass"));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> registrazioneService.registerOperators(dtos));
+
+        assertEquals("Email ripetuta: mario@test.com", ex.getMessage());
+        verify(operatoreRepository, never()).saveAll(anyList());
+        verify(passwordEncoder, never()).encode(anyString());
     }
 }
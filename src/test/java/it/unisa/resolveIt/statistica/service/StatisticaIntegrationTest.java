@@ -0,0 +1,150 @@
+package it.unisa.resolveIt.statistica.service;
+
+import it.unisa.resolveIt.model.entity.Categoria;
+import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.Operatore;
+import it.unisa.resolveIt.model.entity.Ticket;
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.model.repository.CategoriaRepository;
+import it.unisa.resolveIt.model.repository.ClienteRepository;
+import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.model.repository.StatisticaTicketRepository;
+import it.unisa.resolveIt.model.repository.TicketRepository;
+import it.unisa.resolveIt.statistica.dto.StatisticheTicketDTO;
+import it.unisa.resolveIt.ticket.dto.TicketDTO;
+import it.unisa.resolveIt.ticket.service.TicketService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test di integrazione per le statistiche dei ticket sul database reale.
+ * <p>
+ * Le transizioni eseguite con {@link TicketService} arrivano alle statistiche tramite la outbox:
+ * il test verifica che i contatori in memoria e quelli della tabella di riepilogo cambino di conseguenza
+ * e restino allineati dopo una ricarica.
+ * </p>
+ */
+@SpringBootTest(properties = "resolveit.outbox.intervallo=100")
+public class StatisticaIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private StatisticaService statisticaService;
+
+    @Autowired
+    private StatisticaTicketRepository statisticaRepository;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private OperatoreRepository operatoreRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private Categoria categoria;
+    private Cliente cliente;
+    private Operatore operatore;
+
+    @BeforeEach
+    public void setup() {
+        categoria = categoriaRepository.save(new Categoria("Statistiche Test", true));
+        cliente = clienteRepository.save(new Cliente("Luigi", "Verdi", "cliente.statistiche@test.it", "password"));
+        operatore = operatoreRepository.save(new Operatore("Mario", "Rossi", "op.statistiche@test.it", "password"));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ticketRepository.deleteAllInBatch();
+        operatoreRepository.delete(operatore);
+        clienteRepository.delete(cliente);
+        categoriaRepository.delete(categoria);
+    }
+
+    @Test
+    public void transizioni_AggiornanoContatoriETempiMedi() throws Exception {
+        StatisticheTicketDTO prima = statisticaService.getStatistiche();
+
+        TicketDTO dto = new TicketDTO();
+        dto.setTitolo("Ticket statistiche");
+        dto.setDescrizione("Descrizione");
+        dto.setIdCategoria(categoria.getID_C());
+        ticketService.addTicket(dto, cliente);
+        Long id = ticketRepository.findAll().stream()
+                .filter(t -> t.getCliente().getId().equals(cliente.getId()))
+                .map(Ticket::getID_T)
+                .findFirst().orElseThrow();
+
+        ticketService.assignTicket(id, operatore);
+        attendi(s -> s.getInCaricoPerOperatore().getOrDefault(operatore.getId(), 0L) == 1);
+
+        ticketService.resolveTicket(id);
+        StatisticheTicketDTO dopo = attendi(s -> s.getRisoltiPerOperatore().getOrDefault(operatore.getId(), 0L) == 1);
+
+        assertEquals(1L, dopo.getPerCategoria().get(categoria.getID_C()));
+        assertEquals(0L, dopo.getInCaricoPerOperatore().get(operatore.getId()));
+        assertEquals(prima.getPerStato().get(Stato.RISOLTO) + 1, dopo.getPerStato().get(Stato.RISOLTO));
+        assertEquals(prima.getPerStato().get(Stato.APERTO), dopo.getPerStato().get(Stato.APERTO));
+        assertEquals(prima.getTotale() + 1, dopo.getTotale());
+        assertNotNull(dopo.getTempoMedioAssegnazione());
+        assertNotNull(dopo.getTempoMedioRisoluzione());
+        // Nome e cognome dell'operatore sono già nel riepilogo letto dalla dashboard
+        assertTrue(dopo.getOperatori().stream()
+                .anyMatch(o -> o.getId().equals(operatore.getId()) && "Rossi".equals(o.getCognome())));
+
+        // La tabella di riepilogo contiene gli stessi valori tenuti in memoria
+        assertEquals(1L, statisticaRepository.findById("operatore:" + operatore.getId() + ":RISOLTO").orElseThrow().getConteggio());
+        statisticaService.ricarica();
+        StatisticheTicketDTO ricaricate = statisticaService.getStatistiche();
+        assertEquals(dopo.getPerStato(), ricaricate.getPerStato());
+        assertEquals(dopo.getPerCategoria(), ricaricate.getPerCategoria());
+        assertEquals(dopo.getRisoltiPerOperatore(), ricaricate.getRisoltiPerOperatore());
+    }
+
+    @Test
+    @WithMockUser(username = "gestore@test.com", authorities = "GESTORE")
+    public void dashboardGestore_MostraLeStatistiche() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+
+        mockMvc.perform(get("/gestore"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("statistics-view")))
+                .andExpect(content().string(containsString("Tempo medio di risoluzione")));
+    }
+
+    // Le statistiche vengono aggiornate dal dispatcher della outbox, su un altro thread
+    private StatisticheTicketDTO attendi(Predicate<StatisticheTicketDTO> condizione) throws Exception {
+        long limite = System.currentTimeMillis() + 5000;
+        StatisticheTicketDTO statistiche;
+        while (!condizione.test(statistiche = statisticaService.getStatistiche())) {
+            assertTrue(System.currentTimeMillis() < limite, "Statistiche non aggiornate");
+            Thread.sleep(20);
+        }
+        return statistiche;
+    }
+}
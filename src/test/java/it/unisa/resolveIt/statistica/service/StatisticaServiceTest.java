@@ -0,0 +1,275 @@
+package it.unisa.resolveIt.statistica.service;
+
+import it.unisa.resolveIt.account.dto.AccountDTO;
+import it.unisa.resolveIt.common.persistence.Blocchi;
+import it.unisa.resolveIt.model.entity.EventoTicket;
+import it.unisa.resolveIt.model.entity.StatisticaTicket;
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.model.enums.TipoEvento;
+import it.unisa.resolveIt.model.repository.EventoApplicatoRepository;
+import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.model.repository.StatisticaTicketRepository;
+import it.unisa.resolveIt.model.repository.TicketRepository;
+import it.unisa.resolveIt.statistica.dto.StatisticheTicketDTO;
+import it.unisa.resolveIt.statistica.dto.StoriaTicketDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test di Unità per {@link StatisticaImpl}.
+ * <p>
+ * Verifica la traduzione degli eventi della outbox in variazioni dei contatori, lo scarto degli eventi
+ * già applicati, la ricostruzione del riepilogo quando la tabella è vuota (con gli stessi valori degli
+ * aggiornamenti incrementali) e i nomi degli operatori tenuti nel riepilogo.
+ * </p>
+ */
+@ExtendWith(MockitoExtension.class)
+class StatisticaServiceTest {
+
+    private static final LocalDateTime CREAZIONE = LocalDateTime.of(2025, 1, 10, 9, 0);
+
+    @Mock
+    private StatisticaTicketRepository statisticaRepository;
+
+    @Mock
+    private EventoApplicatoRepository eventoApplicatoRepository;
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private OperatoreRepository operatoreRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private StatisticaImpl statisticaService;
+
+    @BeforeEach
+    void setup() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void variazioni_CicloDiVitaCompleto() {
+        List<EventoTicket> eventi = List.of(
+                evento(1L, TipoEvento.CREATO, null, CREAZIONE),
+                evento(2L, TipoEvento.ASSEGNATO, 7L, CREAZIONE.plusMinutes(30)),
+                evento(3L, TipoEvento.RISOLTO, 7L, CREAZIONE.plusHours(2)));
+
+        Map<String, long[]> variazioni = StatisticaImpl.variazioni(eventi);
+
+        // Il ticket è passato per APERTO e IN_CORSO nello stesso lotto: quei contatori non cambiano
+        assertFalse(variazioni.containsKey("stato:APERTO"));
+        assertFalse(variazioni.containsKey("stato:IN_CORSO"));
+        assertFalse(variazioni.containsKey("operatore:7:IN_CORSO"));
+        assertArrayEquals(new long[]{1, 0}, variazioni.get("stato:RISOLTO"));
+        assertArrayEquals(new long[]{1, 0}, variazioni.get("categoria:3"));
+        assertArrayEquals(new long[]{1, 0}, variazioni.get("operatore:7:RISOLTO"));
+        assertArrayEquals(new long[]{1, 30 * 60}, variazioni.get(StatisticaImpl.ASSEGNAZIONE));
+        assertArrayEquals(new long[]{1, 2 * 60 * 60}, variazioni.get(StatisticaImpl.RISOLUZIONE));
+    }
+
+    @Test
+    void variazioni_RilascioEAnnullamento() {
+        Map<String, long[]> variazioni = StatisticaImpl.variazioni(List.of(
+                evento(1L, TipoEvento.RILASCIATO, 7L, CREAZIONE.plusHours(1)),
+                evento(2L, TipoEvento.ANNULLATO, null, CREAZIONE.plusHours(2))));
+
+        assertArrayEquals(new long[]{-1, 0}, variazioni.get("stato:IN_CORSO"));
+        assertArrayEquals(new long[]{-1, 0}, variazioni.get("operatore:7:IN_CORSO"));
+        assertArrayEquals(new long[]{1, 0}, variazioni.get("stato:ANNULLATO"));
+        assertFalse(variazioni.containsKey("stato:APERTO"));
+        assertFalse(variazioni.containsKey(StatisticaImpl.RISOLUZIONE));
+    }
+
+    @Test
+    void variazioni_Rilascio_AnnullaLaPresaInCarico() {
+        Map<String, long[]> variazioni = StatisticaImpl.variazioni(List.of(
+                evento(1L, TipoEvento.ASSEGNATO, 7L, CREAZIONE.plusMinutes(30), CREAZIONE.plusMinutes(30)),
+                evento(2L, TipoEvento.RILASCIATO, 7L, CREAZIONE.plusMinutes(30), CREAZIONE.plusHours(1))));
+
+        // Il ticket è tornato APERTO: la presa in carico non conta più nel tempo medio
+        assertFalse(variazioni.containsKey(StatisticaImpl.ASSEGNAZIONE));
+        assertFalse(variazioni.containsKey("stato:IN_CORSO"));
+    }
+
+    @Test
+    void ricostruzione_StessiValoriDegliEventi() {
+        // Creato, preso in carico, rilasciato, ripreso da un altro momento e infine risolto
+        List<EventoTicket> eventi = List.of(
+                evento(1L, TipoEvento.CREATO, null, null, CREAZIONE),
+                evento(2L, TipoEvento.ASSEGNATO, 7L, CREAZIONE.plusMinutes(30), CREAZIONE.plusMinutes(30)),
+                evento(3L, TipoEvento.RILASCIATO, 7L, CREAZIONE.plusMinutes(30), CREAZIONE.plusHours(1)),
+                evento(4L, TipoEvento.ASSEGNATO, 7L, CREAZIONE.plusMinutes(90), CREAZIONE.plusMinutes(90)),
+                evento(5L, TipoEvento.RISOLTO, 7L, CREAZIONE.plusMinutes(90), CREAZIONE.plusHours(3)));
+        StoriaTicketDTO ticket = new StoriaTicketDTO(1L, Stato.RISOLTO, 3L, 7L, CREAZIONE,
+                CREAZIONE.plusMinutes(90), CREAZIONE.plusHours(3));
+
+        Map<String, List<Long>> incrementali = valori(StatisticaImpl.variazioni(eventi));
+        Map<String, List<Long>> ricostruite = valori(StatisticaImpl.variazioni(ticket.eventi()));
+
+        assertEquals(incrementali, ricostruite);
+        assertEquals(List.of(1L, 90L * 60), ricostruite.get(StatisticaImpl.ASSEGNAZIONE));
+    }
+
+    @Test
+    void ricostruzione_TicketRilasciato_NessunaPresaInCarico() {
+        // data_in_carico resta valorizzata dopo il rilascio, ma il ticket è di nuovo APERTO
+        StoriaTicketDTO ticket = new StoriaTicketDTO(1L, Stato.APERTO, 3L, null, CREAZIONE,
+                CREAZIONE.plusMinutes(30), null);
+
+        Map<String, long[]> variazioni = StatisticaImpl.variazioni(ticket.eventi());
+
+        assertArrayEquals(new long[]{1, 0}, variazioni.get("stato:APERTO"));
+        assertFalse(variazioni.containsKey(StatisticaImpl.ASSEGNAZIONE));
+    }
+
+    @Test
+    void applica_AggiornaDatabaseEMemoria() {
+        when(statisticaRepository.count()).thenReturn(1L);
+        when(statisticaRepository.findAll()).thenReturn(List.of(
+                new StatisticaTicket("stato:APERTO", 4, 0),
+                new StatisticaTicket(StatisticaImpl.ASSEGNAZIONE, 1, 600)));
+        when(eventoApplicatoRepository.findIdByIdIn(List.of(10L))).thenReturn(List.of());
+        when(operatoreRepository.findAccountByIdIn(List.of(7L)))
+                .thenReturn(List.of(new AccountDTO(7L, "Mario", "Rossi", "op@test.com", true)));
+
+        statisticaService.applica(List.of(evento(10L, TipoEvento.ASSEGNATO, 7L, CREAZIONE.plusMinutes(20))));
+
+        verify(statisticaRepository).aggiungi("stato:APERTO", -1, 0);
+        verify(statisticaRepository).aggiungi("stato:IN_CORSO", 1, 0);
+        verify(statisticaRepository).aggiungi("operatore:7:IN_CORSO", 1, 0);
+        verify(statisticaRepository).aggiungi(StatisticaImpl.ASSEGNAZIONE, 1, 1200);
+        verify(eventoApplicatoRepository).registra(List.of(10L));
+        verify(eventoApplicatoRepository).eliminaConsegnati();
+
+        StatisticheTicketDTO statistiche = statisticaService.getStatistiche();
+        assertEquals(3L, statistiche.getPerStato().get(Stato.APERTO));
+        assertEquals(1L, statistiche.getPerStato().get(Stato.IN_CORSO));
+        assertEquals(0L, statistiche.getPerStato().get(Stato.RISOLTO));
+        assertEquals(1L, statistiche.getInCaricoPerOperatore().get(7L));
+        assertEquals(Duration.ofMinutes(15), statistiche.getTempoMedioAssegnazione());
+        assertNull(statistiche.getTempoMedioRisoluzione());
+        assertEquals("Rossi", statistiche.getOperatori().getFirst().getCognome());
+    }
+
+    @Test
+    void operatori_LettiUnaSolaVoltaEAggiornatiDalProfilo() {
+        when(statisticaRepository.count()).thenReturn(1L);
+        when(eventoApplicatoRepository.findIdByIdIn(any())).thenReturn(List.of());
+        when(operatoreRepository.findAccountByIdIn(List.of(7L)))
+                .thenReturn(List.of(new AccountDTO(7L, "Mario", "Rossi", "op@test.com", true)));
+
+        statisticaService.applica(List.of(evento(10L, TipoEvento.ASSEGNATO, 7L, CREAZIONE.plusMinutes(20))));
+        statisticaService.applica(List.of(evento(11L, TipoEvento.RISOLTO, 7L, CREAZIONE.plusHours(1))));
+        statisticaService.aggiornaOperatore(new AccountDTO(7L, "Marco", "Rossi", "op@test.com", true));
+
+        // Il riepilogo già pronto contiene i nomi: la dashboard non li cerca a ogni richiesta
+        verify(operatoreRepository, times(1)).findAccountByIdIn(any());
+        assertEquals("Marco", statisticaService.getStatistiche().getOperatori().getFirst().getNome());
+    }
+
+    @Test
+    void applica_EventiGiaApplicati_Ignorati() {
+        when(statisticaRepository.count()).thenReturn(1L);
+        when(eventoApplicatoRepository.findIdByIdIn(List.of(10L, 11L))).thenReturn(List.of(10L, 11L));
+
+        statisticaService.applica(List.of(
+                evento(10L, TipoEvento.CREATO, null, CREAZIONE),
+                evento(11L, TipoEvento.ANNULLATO, null, CREAZIONE)));
+
+        verify(statisticaRepository, never()).aggiungi(anyString(), anyLong(), anyLong());
+        verify(eventoApplicatoRepository, never()).registra(any());
+        assertEquals(0L, statisticaService.getStatistiche().getTotale());
+    }
+
+    @Test
+    void ricarica_RiepilogoVuoto_RicostruitoDaiTicket() {
+        when(statisticaRepository.count()).thenReturn(0L);
+        when(ticketRepository.findStoriaDopo(0L, Limit.of(Blocchi.DIMENSIONE))).thenReturn(List.of(
+                new StoriaTicketDTO(1L, Stato.RISOLTO, 3L, 7L, CREAZIONE, CREAZIONE.plusMinutes(10), CREAZIONE.plusMinutes(30)),
+                new StoriaTicketDTO(2L, Stato.RISOLTO, 3L, 7L, CREAZIONE, CREAZIONE.plusMinutes(20), CREAZIONE.plusMinutes(90))));
+        when(statisticaRepository.findAll()).thenReturn(List.of(
+                new StatisticaTicket("stato:RISOLTO", 2, 0),
+                new StatisticaTicket("categoria:3", 2, 0),
+                new StatisticaTicket("operatore:7:RISOLTO", 2, 0),
+                new StatisticaTicket(StatisticaImpl.RISOLUZIONE, 2, 7200)));
+
+        statisticaService.ricarica();
+
+        // Un contatore per chiave, calcolato con le stesse regole degli eventi della outbox
+        verify(statisticaRepository).aggiungi("stato:RISOLTO", 2, 0);
+        verify(statisticaRepository).aggiungi("categoria:3", 2, 0);
+        verify(statisticaRepository).aggiungi("operatore:7:RISOLTO", 2, 0);
+        verify(statisticaRepository).aggiungi(StatisticaImpl.ASSEGNAZIONE, 2, 30 * 60);
+        verify(statisticaRepository).aggiungi(StatisticaImpl.RISOLUZIONE, 2, 2 * 60 * 60);
+        verify(statisticaRepository, never()).aggiungi(eq("stato:APERTO"), anyLong(), anyLong());
+        // Meno ticket della dimensione di una pagina: una sola lettura
+        verify(ticketRepository, times(1)).findStoriaDopo(any(), any());
+        // Gli eventi in attesa sono già compresi nei conteggi appena calcolati
+        verify(eventoApplicatoRepository).registraTutti();
+        StatisticheTicketDTO statistiche = statisticaService.getStatistiche();
+        assertEquals(2L, statistiche.getTotale());
+        assertEquals(2L, statistiche.getPerCategoria().get(3L));
+        assertEquals(2L, statistiche.getRisoltiPerOperatore().get(7L));
+        assertEquals(Duration.ofHours(1), statistiche.getTempoMedioRisoluzione());
+        assertEquals("1 h 0 min", statistiche.getTempoMedioRisoluzioneTesto());
+    }
+
+    @Test
+    void ricarica_RiepilogoPresente_NessunaScansioneDeiTicket() {
+        when(statisticaRepository.count()).thenReturn(5L);
+
+        statisticaService.ricarica();
+
+        verify(ticketRepository, never()).findStoriaDopo(any(), any());
+        verify(eventoApplicatoRepository, never()).registraTutti();
+    }
+
+    private static EventoTicket evento(Long id, TipoEvento tipo, Long idOperatore, LocalDateTime data) {
+        return evento(id, tipo, idOperatore, null, data);
+    }
+
+    private static EventoTicket evento(Long id, TipoEvento tipo, Long idOperatore, LocalDateTime inCarico, LocalDateTime data) {
+        EventoTicket evento = new EventoTicket();
+        ReflectionTestUtils.setField(evento, "id", id);
+        ReflectionTestUtils.setField(evento, "tipo", tipo);
+        ReflectionTestUtils.setField(evento, "idTicket", 1L);
+        ReflectionTestUtils.setField(evento, "idCategoria", 3L);
+        ReflectionTestUtils.setField(evento, "idOperatore", idOperatore);
+        ReflectionTestUtils.setField(evento, "dataCreazione", CREAZIONE);
+        ReflectionTestUtils.setField(evento, "dataInCarico", inCarico);
+        ReflectionTestUtils.setField(evento, "dataEvento", data);
+        return evento;
+    }
+
+    private static Map<String, List<Long>> valori(Map<String, long[]> variazioni) {
+        Map<String, List<Long>> valori = new TreeMap<>();
+        variazioni.forEach((chiave, v) -> valori.put(chiave, Arrays.stream(v).boxed().toList()));
+        return valori;
+    }
+}
@@ -0,0 +1,92 @@
+package it.unisa.resolveIt.ticket.eventi;
+
+import it.unisa.resolveIt.model.enums.TipoEvento;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test del canale server-sent events con client di velocità diverse: un browser che non riceve più
+ * non deve ritardare gli altri, e viene disconnesso quando il suo invio resta bloccato troppo a lungo.
+ */
+class CanaleEventiTicketTest {
+
+    private final CanaleEventiTicket canale = new CanaleEventiTicket();
+
+    private final CountDownLatch sblocca = new CountDownLatch(1);
+
+    @AfterEach
+    void cleanup() {
+        sblocca.countDown();
+        canale.chiudi();
+    }
+
+    @Test
+    void pubblica_ClienteBloccatoNonRitardaGliAltri() throws Exception {
+        canale.tempoMassimoInvio = Duration.ofMillis(100).toNanos();
+        BlockingQueue<SseEmitter.SseEventBuilder> ricevuti = new LinkedBlockingQueue<>();
+        canale.iscrivi(bloccato());
+        canale.iscrivi(veloce(ricevuti));
+        assertEquals(2, canale.numeroIscritti());
+
+        canale.pubblica(TicketEvento.di(TipoEvento.ANNULLATO, List.of(1L)));
+        assertNotNull(ricevuti.poll(1, TimeUnit.SECONDS), "Il client veloce deve ricevere l'evento");
+
+        // L'invio al client bloccato supera il tempo massimo: al prossimo evento viene disconnesso
+        Thread.sleep(200);
+        canale.pubblica(TicketEvento.di(TipoEvento.ANNULLATO, List.of(2L)));
+        assertNotNull(ricevuti.poll(1, TimeUnit.SECONDS), "Il client veloce deve ricevere l'evento");
+        assertEquals(1, canale.numeroIscritti());
+    }
+
+    @Test
+    void pubblica_CodaPiena_ClienteDisconnesso() {
+        canale.iscrivi(bloccato());
+
+        for (int i = 0; i <= CanaleEventiTicket.EVENTI_IN_CODA + 1; i++) {
+            canale.pubblica(TicketEvento.di(TipoEvento.ANNULLATO, List.of((long) i)));
+        }
+
+        assertEquals(0, canale.numeroIscritti());
+    }
+
+    // Accetta il commento di connessione, poi resta bloccato sul primo evento come un client che non legge più
+    private SseEmitter bloccato() {
+        AtomicInteger invii = new AtomicInteger();
+        return new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                if (invii.getAndIncrement() > 0) {
+                    try {
+                        sblocca.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+            }
+        };
+    }
+
+    private SseEmitter veloce(BlockingQueue<SseEmitter.SseEventBuilder> ricevuti) {
+        AtomicInteger invii = new AtomicInteger();
+        return new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                if (invii.getAndIncrement() > 0) {
+                    ricevuti.add(builder);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package it.unisa.resolveIt.ticket.service;
+
+import it.unisa.resolveIt.model.entity.Allegato;
+import it.unisa.resolveIt.model.entity.Categoria;
+import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.Ticket;
+import it.unisa.resolveIt.model.repository.AllegatoRepository;
+import it.unisa.resolveIt.model.repository.CategoriaRepository;
+import it.unisa.resolveIt.model.repository.ClienteRepository;
+import it.unisa.resolveIt.model.repository.TicketRepository;
+import it.unisa.resolveIt.ticket.dto.TicketDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test di integrazione per la deduplicazione degli allegati sul database reale:
+ * ticket con lo stesso file condividono una sola riga {@link Allegato} e un solo file nell'archivio,
+ * con il contatore dei riferimenti pari al numero di ticket.
+ */
+@SpringBootTest(properties = "resolveit.allegati.directory=target/allegati-test")
+public class AllegatoDeduplicazioneIntegrationTest {
+
+    private static final int CLIENTI_CONCORRENTI = 8;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private AllegatoRepository allegatoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private Categoria categoria;
+    private Cliente cliente;
+
+    @BeforeEach
+    public void setup() {
+        categoria = categoriaRepository.save(new Categoria("Allegati Test", true));
+        cliente = clienteRepository.save(new Cliente("Luigi", "Verdi", "cliente.allegati@test.it", "password"));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ticketRepository.deleteAllInBatch();
+        allegatoRepository.deleteAllInBatch();
+        clienteRepository.delete(cliente);
+        categoriaRepository.delete(categoria);
+    }
+
+    @Test
+    public void stessoFileSuPiuTicket_UnaSolaRigaConDueRiferimenti() throws Exception {
+        ticketService.addTicket(nuovoTicket("screenshot.jpg", jpeg(1)), cliente);
+        ticketService.addTicket(nuovoTicket("copia.JPG", jpeg(1)), cliente);
+        ticketService.addTicket(nuovoTicket("altro.jpg", jpeg(2)), cliente);
+
+        List<Ticket> ticket = ticketRepository.findAll();
+        assertEquals(3, ticket.size());
+        assertEquals(2, allegatoRepository.count());
+
+        List<Allegato> allegati = allegatoRepository.findAll();
+        assertEquals(List.of(1, 2), allegati.stream().map(Allegato::getRiferimenti).sorted().toList());
+        assertEquals(2, ticket.stream().map(t -> t.getAllegato().getHash()).distinct().count());
+    }
+
+    @Test
+    public void uploadConcorrentiDelloStessoFile_NessunConflitto() throws Exception {
+        CountDownLatch via = new CountDownLatch(1);
+        List<Future<?>> esiti = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(CLIENTI_CONCORRENTI)) {
+            for (int i = 0; i < CLIENTI_CONCORRENTI; i++) {
+                esiti.add(pool.submit(() -> {
+                    via.await(5, TimeUnit.SECONDS);
+                    ticketService.addTicket(nuovoTicket("log.zip", new byte[]{'P', 'K', 3, 4, 9, 9}), cliente);
+                    return null;
+                }));
+            }
+            via.countDown();
+            for (Future<?> esito : esiti) {
+                esito.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        assertEquals(CLIENTI_CONCORRENTI, ticketRepository.count());
+        List<Allegato> allegati = allegatoRepository.findAll();
+        assertEquals(1, allegati.size());
+        assertEquals(CLIENTI_CONCORRENTI, allegati.get(0).getRiferimenti());
+    }
+
+    private TicketDTO nuovoTicket(String nomeFile, byte[] contenuto) {
+        TicketDTO dto = new TicketDTO();
+        dto.setTitolo("Ticket con allegato");
+        dto.setDescrizione("Descrizione");
+        dto.setIdCategoria(categoria.getID_C());
+        dto.setFileAllegato(new MockMultipartFile("fileAllegato", nomeFile, "application/octet-stream", contenuto));
+        return dto;
+    }
+
+    private static byte[] jpeg(int variante) {
+        return new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) variante};
+    }
+}
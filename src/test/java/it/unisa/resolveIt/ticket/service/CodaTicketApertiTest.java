@@ -0,0 +1,145 @@
+package it.unisa.resolveIt.ticket.service;
+
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.model.repository.TicketRepository;
+import it.unisa.resolveIt.ticket.dto.TicketCodaDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CodaTicketApertiTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @InjectMocks
+    private CodaTicketAperti coda;
+
+    private static final LocalDateTime ORA = LocalDateTime.of(2025, 5, 1, 9, 0);
+
+    @Test
+    void preleva_OrdinePerDataECategoria() {
+        coda.aggiungi(new TicketCodaDTO(3L, ORA.plusMinutes(5), 1L));
+        coda.aggiungi(new TicketCodaDTO(2L, ORA, 2L));
+        coda.aggiungi(new TicketCodaDTO(1L, ORA, 1L));
+
+        assertEquals(1L, coda.preleva().getId());
+        assertEquals(2L, coda.preleva().getId());
+        assertEquals(3L, coda.preleva().getId());
+        assertNull(coda.preleva());
+    }
+
+    @Test
+    void rimuovi_TicketNonPiuPrelevabile() {
+        coda.aggiungi(new TicketCodaDTO(1L, ORA, 1L));
+        coda.aggiungi(new TicketCodaDTO(2L, ORA.plusMinutes(1), 1L));
+
+        coda.rimuovi(1L);
+
+        assertEquals(1, coda.dimensione());
+        assertEquals(2L, coda.preleva().getId());
+    }
+
+    @Test
+    void aggiungi_StessoTicketUnaSolaVolta() {
+        coda.aggiungi(new TicketCodaDTO(1L, ORA, 1L));
+        coda.aggiungi(new TicketCodaDTO(1L, ORA, 1L));
+
+        assertEquals(1, coda.dimensione());
+    }
+
+    @Test
+    void ricarica_DalDatabase() {
+        coda.aggiungi(new TicketCodaDTO(99L, ORA, 1L));
+        when(ticketRepository.findCodaByStato(Stato.APERTO))
+                .thenReturn(List.of(new TicketCodaDTO(5L, ORA, 1L), new TicketCodaDTO(6L, ORA.plusHours(1), 1L)));
+
+        coda.ricarica();
+
+        assertEquals(2, coda.dimensione());
+        assertEquals(5L, coda.preleva().getId());
+    }
+
+    @Test
+    void ricarica_ModificheDuranteLaLetturaNonVannoPerse() {
+        coda.aggiungi(new TicketCodaDTO(5L, ORA, 1L));
+        when(ticketRepository.findCodaByStato(Stato.APERTO)).thenAnswer(invocation -> {
+            // Mentre la query è in corso un operatore preleva il ticket 5 e un cliente ne crea uno nuovo
+            assertEquals(5L, coda.preleva().getId());
+            coda.aggiungi(new TicketCodaDTO(8L, ORA.plusHours(2), 1L));
+            // La lettura era già partita: vede ancora il ticket 5 aperto e non vede il ticket 8
+            return List.of(new TicketCodaDTO(5L, ORA, 1L), new TicketCodaDTO(6L, ORA.plusHours(1), 1L));
+        });
+
+        coda.ricarica();
+
+        assertEquals(2, coda.dimensione());
+        assertEquals(6L, coda.preleva().getId());
+        assertEquals(8L, coda.preleva().getId());
+    }
+
+    @Test
+    void ripristina_VoceDiNuovoPrelevabile() {
+        coda.aggiungi(new TicketCodaDTO(1L, ORA, 1L));
+        TicketCodaDTO voce = coda.preleva();
+
+        coda.ripristina(voce);
+
+        assertEquals(1L, coda.preleva().getId());
+    }
+
+    @Test
+    void preleva_Concorrente_OgniTicketUnaSolaVolta() throws Exception {
+        int ticket = 2000;
+        for (long i = 0; i < ticket; i++) {
+            coda.aggiungi(new TicketCodaDTO(i, ORA.plusSeconds(i % 50), i % 7));
+        }
+
+        int thread = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(thread);
+        CountDownLatch via = new CountDownLatch(1);
+        Set<Long> prelevati = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicati = new AtomicInteger();
+        List<Runnable> lavori = new ArrayList<>();
+        for (int t = 0; t < thread; t++) {
+            lavori.add(() -> {
+                try {
+                    via.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                TicketCodaDTO voce;
+                while ((voce = coda.preleva()) != null) {
+                    if (!prelevati.add(voce.getId())) {
+                        duplicati.incrementAndGet();
+                    }
+                }
+            });
+        }
+        lavori.forEach(executor::submit);
+        via.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(0, duplicati.get());
+        assertEquals(ticket, prelevati.size());
+        assertEquals(0, coda.dimensione());
+    }
+}
@@ -0,0 +1,139 @@
+package it.unisa.resolveIt.ticket.service;
+
+import it.unisa.resolveIt.model.entity.Categoria;
+import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.Operatore;
+import it.unisa.resolveIt.model.entity.Ticket;
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.model.repository.CategoriaRepository;
+import it.unisa.resolveIt.model.repository.ClienteRepository;
+import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.model.repository.TicketRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Test di integrazione per il canale server-sent events degli operatori.
+ * <p>
+ * Un browser simulato si iscrive a {@code /ticket/eventi}; le transizioni eseguite con {@link TicketService}
+ * sul database reale devono arrivargli come eventi "ticket", ma solo se la transazione viene confermata.
+ * </p>
+ */
+@SpringBootTest
+public class EventiTicketIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private OperatoreRepository operatoreRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private MockMvc mockMvc;
+    private Categoria categoria;
+    private Cliente cliente;
+    private Operatore operatore;
+
+    @BeforeEach
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        categoria = categoriaRepository.save(new Categoria("Eventi Test", true));
+        cliente = clienteRepository.save(new Cliente("Luigi", "Verdi", "cliente.eventi@test.it", "password"));
+        operatore = operatoreRepository.save(new Operatore("Mario", "Rossi", "op.eventi@test.it", "password"));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ticketRepository.deleteAllInBatch();
+        operatoreRepository.delete(operatore);
+        clienteRepository.delete(cliente);
+        categoriaRepository.delete(categoria);
+    }
+
+    @Test
+    @WithMockUser(username = "op.eventi@test.it", authorities = "OPERATORE")
+    public void transizioni_InviateAgliOperatoriDopoIlCommit() throws Exception {
+        MockHttpServletResponse flusso = iscrivi();
+        Long id = nuovoTicket();
+
+        ticketService.assignTicket(id, operatore);
+        attendi(flusso, "\"tipo\":\"ASSEGNATO\"");
+        assertTrue(flusso.getContentAsString().contains("\"ids\":[" + id + "]"));
+
+        ticketService.releaseTicket(id);
+        attendi(flusso, "\"tipo\":\"RILASCIATO\"");
+        assertTrue(flusso.getContentAsString().contains("\"titolo\":\"Ticket evento\""));
+        assertTrue(flusso.getContentAsString().contains("\"nomeCategoria\":\"Eventi Test\""));
+    }
+
+    @Test
+    @WithMockUser(username = "op.eventi@test.it", authorities = "OPERATORE")
+    public void transazioneAnnullata_NessunEvento() throws Exception {
+        MockHttpServletResponse flusso = iscrivi();
+        Long id = nuovoTicket();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            ticketService.assignTicket(id, operatore);
+            status.setRollbackOnly();
+        });
+        // Un evento confermato successivo fa da riferimento: se quello annullato fosse stato inviato, lo precederebbe
+        ticketService.deleteTicket(id);
+        attendi(flusso, "\"tipo\":\"ANNULLATO\"");
+
+        assertFalse(flusso.getContentAsString().contains("ASSEGNATO"));
+        assertEquals(Stato.ANNULLATO, ticketRepository.findById(id).orElseThrow().getStato());
+    }
+
+    private MockHttpServletResponse iscrivi() throws Exception {
+        return mockMvc.perform(get("/ticket/eventi"))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    private Long nuovoTicket() {
+        Ticket t = new Ticket("Ticket evento", cliente, LocalDateTime.now(), null, null, null, null, "Descrizione");
+        t.setCategoria(categoria);
+        t.setStato(Stato.APERTO);
+        return ticketRepository.save(t).getID_T();
+    }
+
+    // Gli eventi vengono inviati da un thread dedicato: si attende che arrivino sul flusso
+    private void attendi(MockHttpServletResponse flusso, String atteso) throws Exception {
+        long limite = System.currentTimeMillis() + 5000;
+        while (!flusso.getContentAsString().contains(atteso)) {
+            assertTrue(System.currentTimeMillis() < limite, "Evento non ricevuto: " + atteso + "\n" + flusso.getContentAsString());
+            Thread.sleep(20);
+        }
+    }
+}
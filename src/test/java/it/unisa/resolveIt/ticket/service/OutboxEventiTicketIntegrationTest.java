@@ -0,0 +1,204 @@
+package it.unisa.resolveIt.ticket.service;
+
+import it.unisa.resolveIt.model.entity.Categoria;
+import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.EventoTicket;
+import it.unisa.resolveIt.model.entity.Operatore;
+import it.unisa.resolveIt.model.entity.Ticket;
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.model.enums.TipoEvento;
+import it.unisa.resolveIt.model.repository.CategoriaRepository;
+import it.unisa.resolveIt.model.repository.ClienteRepository;
+import it.unisa.resolveIt.model.repository.EventoTicketRepository;
+import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.model.repository.TicketRepository;
+import it.unisa.resolveIt.ticket.eventi.LottoEventiTicket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test di integrazione per la outbox degli eventi sui ticket.
+ * <p>
+ * Le transizioni eseguite con {@link TicketService} sul database reale devono scrivere un evento nella outbox
+ * solo se la transazione viene confermata; il dispatcher deve consegnarlo ai consumatori, eliminarlo dopo la
+ * consegna e riproporlo se un consumatore fallisce.
+ * </p>
+ */
+@SpringBootTest(properties = "resolveit.outbox.intervallo=100")
+public class OutboxEventiTicketIntegrationTest {
+
+    @TestConfiguration
+    static class ConsumatoreDiProva {
+
+        @Bean
+        Consumatore consumatore() {
+            return new Consumatore();
+        }
+    }
+
+    static class Consumatore {
+
+        final List<EventoTicket> ricevuti = new CopyOnWriteArrayList<>();
+        final AtomicInteger tentativiFalliti = new AtomicInteger();
+        volatile boolean fallisci;
+
+        @EventListener
+        public void consuma(LottoEventiTicket lotto) {
+            if (fallisci) {
+                tentativiFalliti.incrementAndGet();
+                throw new IllegalStateException("Consumatore non disponibile");
+            }
+            ricevuti.addAll(lotto.getEventi());
+        }
+    }
+
+    @Autowired
+    private Consumatore consumatore;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private EventoTicketRepository eventoTicketRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private OperatoreRepository operatoreRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Categoria categoria;
+    private Cliente cliente;
+    private Operatore operatore;
+
+    @BeforeEach
+    public void setup() {
+        consumatore.ricevuti.clear();
+        consumatore.fallisci = false;
+        categoria = categoriaRepository.save(new Categoria("Outbox Test", true));
+        cliente = clienteRepository.save(new Cliente("Luigi", "Verdi", "cliente.outbox@test.it", "password"));
+        operatore = operatoreRepository.save(new Operatore("Mario", "Rossi", "op.outbox@test.it", "password"));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        consumatore.fallisci = false;
+        ticketRepository.deleteAllInBatch();
+        operatoreRepository.delete(operatore);
+        clienteRepository.delete(cliente);
+        categoriaRepository.delete(categoria);
+    }
+
+    @Test
+    public void transizioni_ConsegnateInOrdineEdEliminateDallaOutbox() throws Exception {
+        Long id = nuovoTicket();
+
+        ticketService.assignTicket(id, operatore);
+        ticketService.releaseTicket(id);
+        ticketService.deleteTicket(id);
+
+        List<EventoTicket> eventi = attendi(id, 3);
+        assertEquals(List.of(TipoEvento.ASSEGNATO, TipoEvento.RILASCIATO, TipoEvento.ANNULLATO),
+                eventi.stream().map(EventoTicket::getTipo).toList());
+        assertEquals(operatore.getId(), eventi.get(0).getIdOperatore());
+        assertNotNull(eventi.get(0).getDataInCarico());
+        // Il rilascio riporta ancora l'operatore che aveva il ticket
+        assertEquals(operatore.getId(), eventi.get(1).getIdOperatore());
+        assertNull(eventi.get(2).getIdOperatore());
+        assertEquals(categoria.getID_C(), eventi.get(2).getIdCategoria());
+        attendiOutboxVuota(id);
+    }
+
+    @Test
+    public void transazioneAnnullata_NessunEvento() throws Exception {
+        Long id = nuovoTicket();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            ticketService.assignTicket(id, operatore);
+            status.setRollbackOnly();
+        });
+        // Un evento confermato successivo fa da riferimento: quello annullato lo avrebbe preceduto
+        ticketService.annullaTicket(List.of(id));
+
+        List<EventoTicket> eventi = attendi(id, 1);
+        assertEquals(TipoEvento.ANNULLATO, eventi.get(0).getTipo());
+    }
+
+    @Test
+    public void consumatoreInErrore_EventoRipropostoFinoAllaConsegna() throws Exception {
+        Long id = nuovoTicket();
+        consumatore.fallisci = true;
+
+        ticketService.assignTicket(id, operatore);
+
+        long limite = System.currentTimeMillis() + 5000;
+        while (consumatore.tentativiFalliti.get() < 3) {
+            assertTrue(System.currentTimeMillis() < limite, "Il dispatcher non ha ritentato la consegna");
+            Thread.sleep(20);
+        }
+        assertTrue(inOutbox(id), "L'evento non consegnato deve restare nella outbox");
+
+        consumatore.fallisci = false;
+        assertEquals(TipoEvento.ASSEGNATO, attendi(id, 1).get(0).getTipo());
+        attendiOutboxVuota(id);
+    }
+
+    private Long nuovoTicket() {
+        Ticket t = new Ticket("Ticket outbox", cliente, LocalDateTime.now(), null, null, null, null, "Descrizione");
+        t.setCategoria(categoria);
+        t.setStato(Stato.APERTO);
+        return ticketRepository.save(t).getID_T();
+    }
+
+    // Il dispatcher lavora su un thread del pianificatore: si attende che gli eventi del ticket arrivino
+    private List<EventoTicket> attendi(Long id, int numero) throws Exception {
+        long limite = System.currentTimeMillis() + 5000;
+        List<EventoTicket> eventi;
+        while ((eventi = ricevuti(id)).size() < numero) {
+            assertTrue(System.currentTimeMillis() < limite, "Eventi non consegnati: " + eventi.size() + " di " + numero);
+            Thread.sleep(20);
+        }
+        Thread.sleep(300);
+        assertEquals(numero, ricevuti(id).size(), "Eventi consegnati più del previsto");
+        return eventi;
+    }
+
+    private void attendiOutboxVuota(Long id) throws Exception {
+        long limite = System.currentTimeMillis() + 5000;
+        while (inOutbox(id)) {
+            assertTrue(System.currentTimeMillis() < limite, "Eventi consegnati ma non eliminati dalla outbox");
+            Thread.sleep(20);
+        }
+    }
+
+    private List<EventoTicket> ricevuti(Long id) {
+        return consumatore.ricevuti.stream().filter(e -> e.getIdTicket().equals(id)).toList();
+    }
+
+    private boolean inOutbox(Long id) {
+        return eventoTicketRepository.findAll().stream().anyMatch(e -> e.getIdTicket().equals(id));
+    }
+}
@@ -0,0 +1,241 @@
+package it.unisa.resolveIt.ticket.service;
+
+import it.unisa.resolveIt.model.entity.Categoria;
+import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.Operatore;
+import it.unisa.resolveIt.model.entity.Ticket;
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.model.repository.CategoriaRepository;
+import it.unisa.resolveIt.model.repository.ClienteRepository;
+import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.model.repository.TicketRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import it.unisa.resolveIt.ticket.dto.EsitoTransizione;
+import it.unisa.resolveIt.ticket.dto.Transizione;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test di concorrenza per le transizioni di stato dei ticket.
+ * <p>
+ * Più thread eseguono la stessa transizione sullo stesso ticket nello stesso istante, sul database reale,
+ * oppure prelevano insieme dalla coda dei ticket aperti.
+ * Si verifica che una sola richiesta abbia successo, che le altre falliscano con
+ * "Ticket in stato non valido" e che lo stato finale sia coerente con quella vincente.
+ * </p>
+ */
+@SpringBootTest
+public class TicketConcorrenzaIntegrationTest {
+
+    private static final int OPERATORI = 16;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private CodaTicketAperti codaTicketAperti;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private OperatoreRepository operatoreRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private Categoria categoria;
+    private Cliente cliente;
+    private final List<Operatore> operatori = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        categoria = categoriaRepository.save(new Categoria("Concorrenza Test", true));
+        cliente = clienteRepository.save(new Cliente("Luigi", "Verdi", "cliente.concorrenza@test.it", "password"));
+        for (int i = 0; i < OPERATORI; i++) {
+            operatori.add(operatoreRepository.save(new Operatore("Mario", "Rossi", "op" + i + ".concorrenza@test.it", "password")));
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ticketRepository.deleteAllInBatch();
+        operatoreRepository.deleteAll(operatori);
+        clienteRepository.delete(cliente);
+        categoriaRepository.delete(categoria);
+    }
+
+    /**
+     * N operatori tentano di prendere in carico lo stesso ticket: deve vincere esattamente uno.
+     */
+    @Test
+    public void assignTicket_Concorrente_UnSoloVincitore() throws Exception {
+        Long id = nuovoTicket(Stato.APERTO, null);
+
+        List<Callable<Void>> tentativi = new ArrayList<>();
+        for (Operatore op : operatori) {
+            tentativi.add(() -> {
+                ticketService.assignTicket(id, op);
+                return null;
+            });
+        }
+        List<Integer> vincitori = eseguiInsieme(tentativi, "Ticket in stato non valido");
+
+        assertEquals(1, vincitori.size(), "Più operatori hanno ottenuto lo stesso ticket");
+        Ticket ticket = ticketRepository.findById(id).orElseThrow();
+        assertEquals(Stato.IN_CORSO, ticket.getStato());
+        assertEquals(operatori.get(vincitori.get(0)).getId(), ticket.getOperatore().getId());
+        assertEquals(1L, ticket.getVersione());
+    }
+
+    /**
+     * Risoluzione e rilascio concorrenti dello stesso ticket in corso: solo una delle due transizioni viene applicata.
+     */
+    @Test
+    public void resolveEReleaseTicket_Concorrenti_NessunAggiornamentoPerso() throws Exception {
+        for (int giro = 0; giro < 10; giro++) {
+            Long id = nuovoTicket(Stato.IN_CORSO, operatori.get(0));
+
+            List<Callable<Void>> tentativi = new ArrayList<>();
+            for (int i = 0; i < OPERATORI; i++) {
+                tentativi.add(i % 2 == 0
+                        ? () -> { ticketService.resolveTicket(id); return null; }
+                        : () -> { ticketService.releaseTicket(id); return null; });
+            }
+            List<Integer> vincitori = eseguiInsieme(tentativi, "Ticket in stato non valido");
+
+            assertEquals(1, vincitori.size());
+            Ticket ticket = ticketRepository.findById(id).orElseThrow();
+            if (vincitori.get(0) % 2 == 0) {
+                assertEquals(Stato.RISOLTO, ticket.getStato());
+                assertNotNull(ticket.getDataResolved());
+            } else {
+                assertEquals(Stato.APERTO, ticket.getStato());
+                assertNull(ticket.getOperatore());
+            }
+        }
+    }
+
+    /**
+     * N operatori chiedono il prossimo ticket dalla coda in memoria: ogni ticket aperto va a un solo operatore.
+     */
+    @Test
+    public void prendiProssimoTicket_Concorrente_NessunTicketDuplicato() throws Exception {
+        int aperti = 5;
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < aperti; i++) {
+            ids.add(nuovoTicket(Stato.APERTO, null));
+        }
+        codaTicketAperti.ricarica();
+
+        List<Long> assegnati = java.util.Collections.synchronizedList(new ArrayList<>());
+        List<Callable<Void>> tentativi = new ArrayList<>();
+        for (Operatore op : operatori) {
+            tentativi.add(() -> {
+                assegnati.add(ticketService.prendiProssimoTicket(op));
+                return null;
+            });
+        }
+        List<Integer> vincitori = eseguiInsieme(tentativi, "Nessun ticket disponibile");
+
+        assertEquals(aperti, vincitori.size());
+        assertEquals(aperti, new java.util.HashSet<>(assegnati).size(), "Lo stesso ticket è stato assegnato due volte");
+        assertTrue(assegnati.containsAll(ids));
+        for (Long id : ids) {
+            assertEquals(Stato.IN_CORSO, ticketRepository.findById(id).orElseThrow().getStato());
+        }
+        assertEquals(0, codaTicketAperti.dimensione());
+    }
+
+    /**
+     * N operatori prendono in blocco lo stesso gruppo di ticket: ogni ticket risulta ESEGUITA per un solo
+     * operatore, ed è quello a cui il ticket è effettivamente assegnato.
+     */
+    @Test
+    public void transizioneMassiva_Concorrente_EsitiCoerenti() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ids.add(nuovoTicket(Stato.APERTO, null));
+        }
+
+        List<Map<Long, EsitoTransizione>> esiti = java.util.Collections.synchronizedList(new ArrayList<>());
+        List<Callable<Void>> tentativi = new ArrayList<>();
+        for (Operatore op : operatori) {
+            tentativi.add(() -> {
+                esiti.add(ticketService.transizioneMassiva(Transizione.PRENDI, ids, op));
+                return null;
+            });
+        }
+        assertEquals(OPERATORI, eseguiInsieme(tentativi, null).size());
+
+        for (Long id : ids) {
+            Ticket ticket = ticketRepository.findById(id).orElseThrow();
+            assertEquals(Stato.IN_CORSO, ticket.getStato());
+            assertEquals(1L, ticket.getVersione());
+            assertEquals(1, esiti.stream().filter(e -> e.get(id) == EsitoTransizione.ESEGUITA).count(),
+                    "Il ticket " + id + " risulta preso da più operatori");
+        }
+        for (int i = 0; i < OPERATORI; i++) {
+            Long idOperatore = operatori.get(i).getId();
+            ticketService.transizioneMassiva(Transizione.RISOLVI, ids, operatori.get(i)).forEach((id, esito) ->
+                    assertEquals(esito == EsitoTransizione.ESEGUITA,
+                            ticketRepository.findById(id).orElseThrow().getOperatore().getId().equals(idOperatore)));
+        }
+        assertTrue(ids.stream().allMatch(id -> ticketRepository.findById(id).orElseThrow().getStato() == Stato.RISOLTO));
+    }
+
+    private Long nuovoTicket(Stato stato, Operatore operatore) {
+        Ticket t = new Ticket("Ticket conteso", cliente, LocalDateTime.now(), null, null, null, null, "Descrizione");
+        t.setCategoria(categoria);
+        t.setStato(stato);
+        t.setOperatore(operatore);
+        return ticketRepository.save(t).getID_T();
+    }
+
+    // Avvia tutti i tentativi nello stesso istante e restituisce gli indici di quelli riusciti
+    private List<Integer> eseguiInsieme(List<Callable<Void>> tentativi, String erroreAtteso) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tentativi.size());
+        CountDownLatch via = new CountDownLatch(1);
+        try {
+            List<Future<Void>> esiti = new ArrayList<>();
+            for (Callable<Void> tentativo : tentativi) {
+                esiti.add(executor.submit(() -> {
+                    via.await();
+                    return tentativo.call();
+                }));
+            }
+            via.countDown();
+
+            List<Integer> vincitori = new ArrayList<>();
+            for (int i = 0; i < esiti.size(); i++) {
+                try {
+                    esiti.get(i).get(30, TimeUnit.SECONDS);
+                    vincitori.add(i);
+                } catch (java.util.concurrent.ExecutionException e) {
+                    assertEquals(erroreAtteso, e.getCause().getMessage());
+                }
+            }
+            return vincitori;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
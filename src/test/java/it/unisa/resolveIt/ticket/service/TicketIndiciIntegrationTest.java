@@ -0,0 +1,206 @@
+package it.unisa.resolveIt.ticket.service;
+
+import it.unisa.resolveIt.model.entity.Categoria;
+import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.Operatore;
+import it.unisa.resolveIt.model.entity.Ticket;
+import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.model.repository.CategoriaRepository;
+import it.unisa.resolveIt.model.repository.ClienteRepository;
+import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.model.repository.TicketRepository;
+import it.unisa.resolveIt.ticket.dto.CursoreTicket;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Verifica con EXPLAIN che le query di {@link TicketRepository} siano servite dagli indici dichiarati su
+ * {@link Ticket}. Il test fallisce se una query degrada in una scansione completa della tabella
+ * o se l'ordinamento della paginazione richiede un filesort.
+ * <p>
+ * L'SQL analizzato è quello generato da Hibernate, catturato tramite {@link SqlCatturato}.
+ * Il test viene saltato su database diversi da MySQL/MariaDB.
+ * </p>
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "it.unisa.resolveIt.ticket.service.TicketIndiciIntegrationTest$SqlCatturato")
+public class TicketIndiciIntegrationTest {
+
+    private static final int TICKET_PER_CLIENTE = 150;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private OperatoreRepository operatoreRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Cliente cliente;
+    private Operatore operatore;
+    private Categoria categoria;
+
+    @BeforeEach
+    public void setup() {
+        String database = jdbcTemplate.execute((java.sql.Connection c) -> {
+            DatabaseMetaData metaData = c.getMetaData();
+            return metaData.getDatabaseProductName();
+        });
+        assumeTrue(database != null && (database.contains("MySQL") || database.contains("MariaDB")),
+                "Piani di esecuzione verificati solo su MySQL/MariaDB");
+
+        categoria = categoriaRepository.save(new Categoria("Indici Test", true));
+        operatore = operatoreRepository.save(new Operatore("Mario", "Rossi", "op.indici@test.it", "password"));
+
+        // Più clienti con molti ticket ciascuno, così l'ottimizzatore ha statistiche realistiche
+        Stato[] stati = Stato.values();
+        List<Ticket> ticket = new ArrayList<>();
+        for (int c = 0; c < 8; c++) {
+            Cliente nuovo = clienteRepository.save(new Cliente("Luigi", "Verdi", "cliente" + c + ".indici@test.it", "password"));
+            if (c == 0) {
+                cliente = nuovo;
+            }
+            for (int i = 0; i < TICKET_PER_CLIENTE; i++) {
+                Ticket t = new Ticket("Ticket di prova " + i, nuovo, LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(i * 7L + c),
+                        null, null, null, null, "Descrizione");
+                t.setCategoria(categoria);
+                t.setStato(stati[i % stati.length]);
+                if (i % 3 == 0) {
+                    t.setOperatore(operatore);
+                }
+                ticket.add(t);
+            }
+        }
+        ticketRepository.saveAll(ticket);
+        jdbcTemplate.execute("ANALYZE TABLE ticket");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        if (categoria == null) {
+            return;
+        }
+        ticketRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+        operatoreRepository.delete(operatore);
+        categoriaRepository.delete(categoria);
+    }
+
+    @Test
+    public void findPaginaByStato_UsaIndice() {
+        CursoreTicket inizio = CursoreTicket.primaPagina(false);
+        List<Map<String, Object>> piano = explain(
+                () -> ticketRepository.findPaginaByStato(Stato.APERTO, inizio.getDataCreazione(), inizio.getId(), Limit.of(21)),
+                Stato.APERTO.name(), inizio.getDataCreazione(), inizio.getDataCreazione(), inizio.getId(), 21);
+
+        assertServitaDaIndice(piano);
+    }
+
+    @Test
+    public void findPaginaByOperatore_UsaIndice() {
+        CursoreTicket inizio = CursoreTicket.primaPagina(true);
+        List<Map<String, Object>> piano = explain(
+                () -> ticketRepository.findPaginaByOperatore(operatore, Stato.RISOLTO, inizio.getDataCreazione(), inizio.getId(), Limit.of(21)),
+                operatore.getId(), Stato.RISOLTO.name(), inizio.getDataCreazione(), inizio.getDataCreazione(), inizio.getId(), 21);
+
+        assertServitaDaIndice(piano);
+        assertEquals("idx_ticket_operatore_stato_data", piano.get(0).get("key"), "Indice inatteso: " + piano);
+
+        // I ticket in lavorazione vengono letti senza limite, sempre in ordine di indice
+        piano = explain(
+                () -> ticketRepository.findPaginaByOperatore(operatore, Stato.IN_CORSO, inizio.getDataCreazione(), inizio.getId(), Limit.unlimited()),
+                operatore.getId(), Stato.IN_CORSO.name(), inizio.getDataCreazione(), inizio.getDataCreazione(), inizio.getId());
+
+        assertServitaDaIndice(piano);
+    }
+
+    @Test
+    public void findPaginaByCliente_UsaIndicePerOgniCombinazione() {
+        for (Stato stato : new Stato[]{null, Stato.IN_CORSO}) {
+            for (boolean decrescente : new boolean[]{true, false}) {
+                CursoreTicket inizio = CursoreTicket.primaPagina(decrescente);
+                List<Object> parametri = new ArrayList<>();
+                parametri.add(cliente.getId());
+                if (stato != null) {
+                    parametri.add(stato.name());
+                }
+                parametri.addAll(List.of(inizio.getDataCreazione(), inizio.getDataCreazione(), inizio.getId(), 21));
+
+                List<Map<String, Object>> piano = explain(
+                        () -> ticketRepository.findPaginaByCliente(cliente, stato, decrescente,
+                                inizio.getDataCreazione(), inizio.getId(), Limit.of(21)),
+                        parametri.toArray());
+
+                assertServitaDaIndice(piano);
+                // Con il filtro sullo stato deve essere usato l'indice che lo contiene
+                String indiceAtteso = stato != null ? "idx_ticket_cliente_stato_data" : "idx_ticket_cliente_data";
+                assertEquals(indiceAtteso, piano.get(0).get("key"), "Indice inatteso: " + piano);
+            }
+        }
+    }
+
+    @Test
+    public void findDtoByCliente_UsaIndice() {
+        List<Map<String, Object>> piano = explain(
+                () -> ticketRepository.findDtoByCliente(cliente),
+                cliente.getId());
+
+        assertServitaDaIndice(piano);
+    }
+
+    // Esegue la query del repository per catturarne l'SQL, poi ne chiede il piano con gli stessi parametri
+    private List<Map<String, Object>> explain(Runnable query, Object... parametri) {
+        SqlCatturato.ultimo.remove();
+        query.run();
+        assertNotNull(SqlCatturato.ultimo.get(), "Nessuna query catturata");
+        return jdbcTemplate.queryForList("EXPLAIN " + SqlCatturato.ultimo.get(), parametri);
+    }
+
+    private void assertServitaDaIndice(List<Map<String, Object>> piano) {
+        for (Map<String, Object> riga : piano) {
+            assertNotEquals("ALL", riga.get("type"), "Scansione completa della tabella: " + piano);
+            assertNotNull(riga.get("key"), "Nessun indice utilizzato: " + piano);
+            Object extra = riga.get("Extra");
+            assertFalse(extra != null && extra.toString().contains("filesort"), "Ordinamento senza indice: " + piano);
+        }
+    }
+
+    /**
+     * Memorizza l'ultima SELECT generata da Hibernate, così il test analizza esattamente l'SQL delle query.
+     * È legata al thread: le query delle attività pianificate (es. il dispatcher della outbox) non la sovrascrivono.
+     */
+    public static class SqlCatturato implements StatementInspector {
+
+        static final ThreadLocal<String> ultimo = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.regionMatches(true, 0, "select", 0, 6)) {
+                ultimo.set(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -1,17 +1,26 @@
 package it.unisa.resolveIt.ticket.service;
 
+import it.unisa.resolveIt.common.config.CacheConfig;
+import it.unisa.resolveIt.model.entity.Account;
+import it.unisa.resolveIt.model.entity.Allegato;
 import it.unisa.resolveIt.model.entity.Cliente;
 import it.unisa.resolveIt.model.entity.Operatore;
 import it.unisa.resolveIt.model.entity.Ticket;
+import it.unisa.resolveIt.model.enums.Codifica;
 import it.unisa.resolveIt.model.enums.Stato;
+import it.unisa.resolveIt.model.repository.AccountRepository;
 import it.unisa.resolveIt.model.repository.CategoriaRepository;
-import it.unisa.resolveIt.model.repository.ClienteRepository;
-import it.unisa.resolveIt.model.repository.OperatoreRepository;
+import it.unisa.resolveIt.ticket.dto.CursoreTicket;
+import it.unisa.resolveIt.ticket.dto.EsitoTransizione;
+import it.unisa.resolveIt.ticket.dto.PaginaTicketDTO;
 import it.unisa.resolveIt.ticket.dto.TicketDTO;
+import it.unisa.resolveIt.ticket.dto.Transizione;
+import it.unisa.resolveIt.ticket.storage.AllegatoStorage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -20,10 +29,15 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -40,17 +54,20 @@ public class TicketIntegrationTest {
     @Autowired
     private WebApplicationContext context;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @MockitoBean
     private TicketService ticketService;
 
     @MockitoBean
-    private ClienteRepository clienteRepository;
+    private AccountRepository accountRepository;
 
     @MockitoBean
-    private OperatoreRepository operatoreRepository;
+    private CategoriaRepository categoriaRepository;
 
     @MockitoBean
-    private CategoriaRepository categoriaRepository;
+    private AllegatoStorage allegatoStorage;
 
     @BeforeEach
     public void setup() {
@@ -58,6 +75,8 @@ public class TicketIntegrationTest {
         mockMvc = MockMvcBuilders.webAppContextSetup(context)
                 .apply(springSecurity())
                 .build();
+        cacheManager.getCache(CacheConfig.CACHE_UTENTI).clear();
+        cacheManager.getCache(CacheConfig.CACHE_CATEGORIE).clear();
 
         // Setup utenti per aggirare i filtri di Security che cercano l'utente nel DB
         Cliente mockCliente = new Cliente();
@@ -66,8 +85,10 @@ public class TicketIntegrationTest {
         Operatore mockOp = new Operatore();
         mockOp.setEmail("op@test.it");
 
-        lenient().when(clienteRepository.findByEmail("cliente@test.it")).thenReturn(mockCliente);
-        lenient().when(operatoreRepository.findByEmail("op@test.it")).thenReturn(mockOp);
+        lenient().when(accountRepository.findByEmail("cliente@test.it")).thenReturn(new Account(mockCliente));
+        lenient().when(accountRepository.findByEmail("op@test.it")).thenReturn(new Account(mockOp));
+        lenient().when(ticketService.getTicketUtenteFiltrati(any(), any(), any(), any()))
+                .thenReturn(new PaginaTicketDTO(new ArrayList<>(), null));
         lenient().when(categoriaRepository.findAll()).thenReturn(new ArrayList<>());
     }
 
@@ -111,14 +132,146 @@ public class TicketIntegrationTest {
     @Test
     @WithMockUser(username = "cliente@test.it", authorities = "CLIENTE")
     public void testDownloadFile_Successo() throws Exception {
+        String hash = "a".repeat(64);
         Ticket t = new Ticket();
-        t.setAllegato("content".getBytes());
+        t.setAllegato(new Allegato(hash, 7L));
         t.setNomeFile("test.jpg");
         when(ticketService.getTicketById(1L)).thenReturn(t);
+        when(allegatoStorage.exists(hash)).thenReturn(true);
+
+        mockMvc.perform(get("/ticket/download/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE))
+                .andExpect(header().longValue("Content-Length", 7L));
+
+        verify(allegatoStorage).transferTo(eq(hash), eq(0L), eq(7L), any());
+    }
+
+    @Test
+    @WithMockUser(username = "cliente@test.it", authorities = "CLIENTE")
+    public void testDownloadFile_ETagEAcceptRanges() throws Exception {
+        String hash = "a".repeat(64);
+        Ticket t = new Ticket();
+        t.setAllegato(new Allegato(hash, 7L));
+        when(ticketService.getTicketById(1L)).thenReturn(t);
+        when(allegatoStorage.exists(hash)).thenReturn(true);
 
         mockMvc.perform(get("/ticket/download/1"))
                 .andExpect(status().isOk())
-                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE));
+                .andExpect(header().string("ETag", "\"" + hash + "\""))
+                .andExpect(header().string("Accept-Ranges", "bytes"));
+    }
+
+    @Test
+    @WithMockUser(username = "cliente@test.it", authorities = "CLIENTE")
+    public void testDownloadFile_IfNoneMatch_NotModified() throws Exception {
+        String hash = "a".repeat(64);
+        Ticket t = new Ticket();
+        t.setAllegato(new Allegato(hash, 7L));
+        when(ticketService.getTicketById(1L)).thenReturn(t);
+        when(allegatoStorage.exists(hash)).thenReturn(true);
+
+        mockMvc.perform(get("/ticket/download/1").header("If-None-Match", "\"" + hash + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        verify(allegatoStorage, never()).transferTo(any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "cliente@test.it", authorities = "CLIENTE")
+    public void testDownloadFile_Range_PartialContent() throws Exception {
+        String hash = "a".repeat(64);
+        Ticket t = new Ticket();
+        t.setAllegato(new Allegato(hash, 7L));
+        when(ticketService.getTicketById(1L)).thenReturn(t);
+        when(allegatoStorage.exists(hash)).thenReturn(true);
+
+        mockMvc.perform(get("/ticket/download/1").header("Range", "bytes=2-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-6/7"))
+                .andExpect(header().longValue("Content-Length", 5L));
+
+        verify(allegatoStorage).transferTo(eq(hash), eq(2L), eq(5L), any());
+    }
+
+    @Test
+    @WithMockUser(username = "cliente@test.it", authorities = "CLIENTE")
+    public void testDownloadFile_IfRangeDiverso_FileIntero() throws Exception {
+        String hash = "a".repeat(64);
+        Ticket t = new Ticket();
+        t.setAllegato(new Allegato(hash, 7L));
+        when(ticketService.getTicketById(1L)).thenReturn(t);
+        when(allegatoStorage.exists(hash)).thenReturn(true);
+
+        mockMvc.perform(get("/ticket/download/1").header("Range", "bytes=2-").header("If-Range", "\"vecchio\""))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", 7L));
+
+        verify(allegatoStorage).transferTo(eq(hash), eq(0L), eq(7L), any());
+    }
+
+    @Test
+    @WithMockUser(username = "cliente@test.it", authorities = "CLIENTE")
+    public void testDownloadFile_RangeOltreLaFine_NonSoddisfacibile() throws Exception {
+        String hash = "a".repeat(64);
+        Ticket t = new Ticket();
+        t.setAllegato(new Allegato(hash, 7L));
+        when(ticketService.getTicketById(1L)).thenReturn(t);
+        when(allegatoStorage.exists(hash)).thenReturn(true);
+
+        mockMvc.perform(get("/ticket/download/1").header("Range", "bytes=7-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */7"));
+    }
+
+    @Test
+    @WithMockUser(username = "cliente@test.it", authorities = "CLIENTE")
+    public void testDownloadFile_Compresso_InviatoGzipSeAccettato() throws Exception {
+        String hash = "c".repeat(64);
+        Ticket t = new Ticket();
+        t.setAllegato(new Allegato(hash, 1000L, Codifica.GZIP));
+        when(ticketService.getTicketById(1L)).thenReturn(t);
+        when(allegatoStorage.exists(hash)).thenReturn(true);
+        when(allegatoStorage.size(hash)).thenReturn(40L);
+
+        mockMvc.perform(get("/ticket/download/1").header("Accept-Encoding", "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().string("ETag", "\"" + hash + "-gzip\""))
+                .andExpect(header().longValue("Content-Length", 40L));
+
+        verify(allegatoStorage).transferTo(eq(hash), eq(0L), eq(40L), any());
+    }
+
+    @Test
+    @WithMockUser(username = "cliente@test.it", authorities = "CLIENTE")
+    public void testDownloadFile_Compresso_DecompressoSeGzipNonAccettato() throws Exception {
+        String hash = "c".repeat(64);
+        byte[] testo = "riga di log\n".repeat(100).getBytes();
+        ByteArrayOutputStream compresso = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compresso)) {
+            gzip.write(testo);
+        }
+        Ticket t = new Ticket();
+        t.setAllegato(new Allegato(hash, testo.length, Codifica.GZIP));
+        when(ticketService.getTicketById(1L)).thenReturn(t);
+        when(allegatoStorage.exists(hash)).thenReturn(true);
+        when(allegatoStorage.open(hash)).thenAnswer(inv -> new ByteArrayInputStream(compresso.toByteArray()));
+
+        mockMvc.perform(get("/ticket/download/1").header("Accept-Encoding", "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(content().bytes(testo));
+
+        // Anche gli intervalli si riferiscono al contenuto decompresso
+        mockMvc.perform(get("/ticket/download/1").header("Range", "bytes=12-22"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("riga di log"));
+
+        verify(allegatoStorage, never()).transferTo(any(), anyLong(), anyLong(), any());
     }
 
     @Test
@@ -150,6 +303,48 @@ public class TicketIntegrationTest {
                 .andExpect(flash().attribute("successMessage", "Ticket rilasciato con successo!"));
     }
 
+    @Test
+    @WithMockUser(username = "op@test.it", authorities = "OPERATORE")
+    public void testTransizioneMassiva_EsitiInJson() throws Exception {
+        Map<Long, EsitoTransizione> esiti = new LinkedHashMap<>();
+        esiti.put(1L, EsitoTransizione.ESEGUITA);
+        esiti.put(2L, EsitoTransizione.STATO_NON_VALIDO);
+        when(ticketService.transizioneMassiva(eq(Transizione.RISOLVI), eq(List.of(1L, 2L)), any(Operatore.class))).thenReturn(esiti);
+
+        mockMvc.perform(post("/ticket/transizioni")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"azione\":\"RISOLVI\",\"ids\":[1,2]}")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.1").value("ESEGUITA"))
+                .andExpect(jsonPath("$.2").value("STATO_NON_VALIDO"));
+    }
+
+    @Test
+    @WithMockUser(username = "op@test.it", authorities = "OPERATORE")
+    public void testTransizioneMassiva_ElencoVuoto_BadRequest() throws Exception {
+        mockMvc.perform(post("/ticket/transizioni")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"azione\":\"RILASCIA\",\"ids\":[]}")
+                        .with(csrf()))
+                .andExpect(status().isBadRequest());
+
+        verify(ticketService, never()).transizioneMassiva(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "cliente@test.it", authorities = "CLIENTE")
+    public void testTransizioneMassiva_Cliente_Vietato() throws Exception {
+        mockMvc.perform(post("/ticket/transizioni")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"azione\":\"PRENDI\",\"ids\":[1]}")
+                        .with(csrf()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/ticket/home"));
+
+        verify(ticketService, never()).transizioneMassiva(any(), any(), any());
+    }
+
 
 
     @Test
@@ -162,7 +357,24 @@ public class TicketIntegrationTest {
                 .andExpect(model().attribute("statoSelezionato", Stato.APERTO))
                 .andExpect(model().attribute("ordineSelezionato", "asc"));
 
-        verify(ticketService).getTicketUtenteFiltrati(any(Cliente.class), eq(Stato.APERTO), eq("asc"));
+        verify(ticketService).getTicketUtenteFiltrati(any(Cliente.class), eq(Stato.APERTO), eq("asc"), isNull());
+    }
+
+    @Test
+    @WithMockUser(username = "cliente@test.it", authorities = "CLIENTE")
+    public void testUserHome_PaginaSuccessiva() throws Exception {
+        CursoreTicket cursore = new CursoreTicket(LocalDateTime.of(2025, 3, 1, 12, 0), 42L);
+        when(ticketService.getTicketUtenteFiltrati(any(), any(), any(), any()))
+                .thenReturn(new PaginaTicketDTO(new ArrayList<>(), "prossimo"));
+
+        mockMvc.perform(get("/ticket/home")
+                        .param("cursore", cursore.encode()))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("cursoreSuccessivo", "prossimo"))
+                .andExpect(model().attribute("paginaIniziale", false));
+
+        verify(ticketService).getTicketUtenteFiltrati(any(Cliente.class), isNull(), eq("desc"),
+                argThat(c -> c.getId() == 42L && c.getDataCreazione().equals(cursore.getDataCreazione())));
     }
 
 
@@ -228,23 +440,26 @@ public class TicketIntegrationTest {
         // Preparazione dati
         Operatore op = new Operatore();
         op.setEmail("op@test.it");
-        when(operatoreRepository.findByEmail("op@test.it")).thenReturn(op);
+        when(accountRepository.findByEmail("op@test.it")).thenReturn(new Account(op));
 
-        when(ticketService.getTicketInCarico(any())).thenReturn(new ArrayList<>());
-        when(ticketService.getTicketDisponibili()).thenReturn(new ArrayList<>());
+        when(ticketService.getTicketInCarico(any(), any())).thenReturn(new PaginaTicketDTO(new ArrayList<>(), null));
+        when(ticketService.getTicketDisponibili(any())).thenReturn(new PaginaTicketDTO(new ArrayList<>(), null));
 
         mockMvc.perform(get("/ticket/operatore-home"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("operatore-homepage"))
-                .andExpect(model().attributeExists("listaLavoro", "listaAttesa"));
+                .andExpect(model().attributeExists("listaLavoro", "listaAttesa"))
+                // La prima pagina dei ticket in attesa viene aggiornata dal canale degli eventi
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("data-live=\"true\"")));
     }
 
     @Test
     @WithMockUser(username = "op@test.it", authorities = "OPERATORE")
     public void testOperatoreHome_VerificaOrdinamento() throws Exception {
         Operatore op = new Operatore();
-        when(operatoreRepository.findByEmail(anyString())).thenReturn(op);
+        when(accountRepository.findByEmail(anyString())).thenReturn(new Account(op));
 
+        // L'ordine è deciso dal database: il controller mostra la lista così come la restituisce il service
         // Creiamo un ticket RISOLTO (che dovrebbe andare in fondo)
         TicketDTO tRisolto = new TicketDTO();
         tRisolto.setStato(Stato.RISOLTO);
@@ -257,14 +472,46 @@ public class TicketIntegrationTest {
         tInCorso.setTitolo("Ticket Attivo");
         tInCorso.setDataCreazione(LocalDateTime.now());
 
-        List<TicketDTO> mockList = Arrays.asList(tRisolto, tInCorso);
-        when(ticketService.getTicketInCarico(any())).thenReturn(mockList);
+        List<TicketDTO> mockList = Arrays.asList(tInCorso, tRisolto);
+        when(ticketService.getTicketInCarico(any(), any())).thenReturn(new PaginaTicketDTO(mockList, null));
+        when(ticketService.getTicketDisponibili(any())).thenReturn(new PaginaTicketDTO(new ArrayList<>(), null));
 
         mockMvc.perform(get("/ticket/operatore-home"))
                 .andExpect(status().isOk())
                 .andExpect(model().attribute("listaLavoro", matchesListOrder(tInCorso, tRisolto)));
     }
 
+    @Test
+    @WithMockUser(username = "op@test.it", authorities = "OPERATORE")
+    public void testPrendiProssimo_Successo() throws Exception {
+        when(ticketService.prendiProssimoTicket(any(Operatore.class))).thenReturn(3L);
+
+        mockMvc.perform(post("/ticket/prendi-prossimo").with(csrf()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/ticket/operatore-home"))
+                .andExpect(flash().attribute("successMessage", "Ticket assegnato con successo!"));
+    }
+
+    @Test
+    @WithMockUser(username = "op@test.it", authorities = "OPERATORE")
+    public void testPrendiProssimo_CodaVuota() throws Exception {
+        when(ticketService.prendiProssimoTicket(any(Operatore.class))).thenThrow(new RuntimeException("Nessun ticket disponibile"));
+
+        mockMvc.perform(post("/ticket/prendi-prossimo").with(csrf()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(flash().attribute("errorMessage", "Errore: Nessun ticket disponibile"));
+    }
+
+    @Test
+    @WithMockUser(username = "cliente@test.it", authorities = "CLIENTE")
+    public void testPrendiProssimo_ClienteNonAutorizzato() throws Exception {
+        mockMvc.perform(post("/ticket/prendi-prossimo").with(csrf()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/ticket/home"));
+
+        verify(ticketService, never()).prendiProssimoTicket(any());
+    }
+
     // Helper method per verificare l'ordine nella lista del modello
     private static org.hamcrest.Matcher<Iterable<? extends TicketDTO>> matchesListOrder(TicketDTO primo, TicketDTO secondo) {
         return org.hamcrest.Matchers.contains(primo, secondo);
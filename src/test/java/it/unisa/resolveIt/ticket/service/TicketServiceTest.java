@@ -1,24 +1,46 @@
 package it.unisa.resolveIt.ticket.service;
 
+import it.unisa.resolveIt.categoria.service.CategoriaService;
+import it.unisa.resolveIt.model.entity.Allegato;
 import it.unisa.resolveIt.model.entity.Categoria;
 import it.unisa.resolveIt.model.entity.Cliente;
+import it.unisa.resolveIt.model.entity.EventoTicket;
 import it.unisa.resolveIt.model.entity.Operatore;
 import it.unisa.resolveIt.model.entity.Ticket;
+import it.unisa.resolveIt.model.enums.Codifica;
 import it.unisa.resolveIt.model.enums.Stato;
-import it.unisa.resolveIt.model.repository.CategoriaRepository;
+import it.unisa.resolveIt.model.enums.TipoEvento;
+import it.unisa.resolveIt.model.repository.AllegatoRepository;
+import it.unisa.resolveIt.model.repository.EventoTicketRepository;
 import it.unisa.resolveIt.model.repository.TicketRepository;
+import it.unisa.resolveIt.ticket.dto.CursoreTicket;
+import it.unisa.resolveIt.ticket.dto.PaginaTicketDTO;
+import it.unisa.resolveIt.ticket.dto.TicketCodaDTO;
 import it.unisa.resolveIt.ticket.dto.TicketDTO;
+import it.unisa.resolveIt.ticket.storage.AllegatoStorage;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.mock.web.MockMultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import it.unisa.resolveIt.ticket.dto.EsitoTransizione;
+import it.unisa.resolveIt.ticket.dto.StatoTicketDTO;
+import it.unisa.resolveIt.ticket.dto.Transizione;
+import java.util.Map;
+import it.unisa.resolveIt.ticket.eventi.TicketEvento;
+import org.springframework.context.ApplicationEventPublisher;
+import org.mockito.ArgumentCaptor;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -30,13 +52,38 @@ class TicketServiceTest {
     private TicketRepository ticketRepository;
 
     @Mock
-    private CategoriaRepository categoriaRepository;
+    private CategoriaService categoriaService;
+
+    @Mock
+    private AllegatoRepository allegatoRepository;
+
+    @Mock
+    private AllegatoStorage allegatoStorage;
+
+    @Mock
+    private CodaTicketAperti codaTicketAperti;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EventoTicketRepository eventoTicketRepository;
 
     @InjectMocks
     private TicketImpl ticketService;
 
     private final String titolo_regex = "^[a-zA-Z0-9À-ÿ '‘\".,!?-]{5,100}";
 
+    @BeforeEach
+    void setup() {
+        // Come la sequenza di Hibernate: l'ID viene assegnato al salvataggio, prima del flush
+        lenient().when(ticketRepository.save(any(Ticket.class))).thenAnswer(invocation -> {
+            Ticket ticket = invocation.getArgument(0);
+            ticket.setID_T(1L);
+            return ticket;
+        });
+    }
+
 
     @Test
     void addTicket_Successo() throws IOException {
@@ -51,11 +98,40 @@ class TicketServiceTest {
         cat.setID_C(1);
         cat.enable();
 
-        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(1L)).thenReturn(Optional.of(cat));
+        when(allegatoStorage.store(any(), any())).thenReturn("a".repeat(64));
+        when(allegatoRepository.getReferenceById("a".repeat(64))).thenReturn(new Allegato("a".repeat(64), 7L));
 
         ticketService.addTicket(dto, autore);
 
-        verify(ticketRepository, times(1)).save(any(Ticket.class));
+        verify(allegatoStorage, times(1)).store(any(), any());
+        verify(allegatoRepository).registraRiferimento("a".repeat(64), 7L, "NESSUNA");
+        verify(ticketRepository, times(1)).save(argThat(t -> "a".repeat(64).equals(t.getAllegato().getHash())));
+        verify(eventoTicketRepository).save(argThat((EventoTicket e) ->
+                e.getTipo() == TipoEvento.CREATO && Long.valueOf(1L).equals(e.getIdCategoria())));
+    }
+
+
+    /**
+     * Verifica che un errore nella scrittura dell'evento nella outbox non venga nascosto:
+     * l'eccezione arriva al chiamante e annulla la transazione, così il ticket non viene creato senza il suo evento.
+     */
+    @Test
+    void addTicket_ErroreOutbox_Propagato() {
+        TicketDTO dto = new TicketDTO();
+        dto.setIdCategoria(1L);
+        dto.setTitolo("Titolo Valido");
+        dto.setDescrizione("Descrizione valida");
+
+        Categoria cat = new Categoria();
+        cat.enable();
+        when(categoriaService.getCategoria(1L)).thenReturn(Optional.of(cat));
+        when(eventoTicketRepository.save(any(EventoTicket.class))).thenThrow(new IllegalStateException("outbox"));
+
+        assertThrows(IllegalStateException.class, () -> ticketService.addTicket(dto, new Cliente()));
+
+        verify(codaTicketAperti, never()).aggiungi(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
 
@@ -69,7 +145,7 @@ class TicketServiceTest {
 
         Categoria cat = new Categoria();
         cat.enable();
-        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(1L)).thenReturn(Optional.of(cat));
 
 
         ticketService.addTicket(dto, new Cliente());
@@ -87,13 +163,14 @@ class TicketServiceTest {
 
         Categoria cat = new Categoria();
         cat.setStato(true);
-        when(categoriaRepository.findById(any())).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(any())).thenReturn(Optional.of(cat));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.addTicket(dto, new Cliente());
         });
 
         assertEquals("Formato allegato non valido", exception.getMessage());
+        verify(allegatoStorage, never()).store(any(), any());
     }
 
     @Test
@@ -104,7 +181,7 @@ class TicketServiceTest {
 
         Categoria cat = new Categoria();
         cat.setStato(true);
-        when(categoriaRepository.findById(any())).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(any())).thenReturn(Optional.of(cat));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.addTicket(dto, new Cliente());
@@ -122,7 +199,7 @@ class TicketServiceTest {
 
         Categoria cat = new Categoria();
         cat.setStato(true);
-        when(categoriaRepository.findById(any())).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(any())).thenReturn(Optional.of(cat));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.addTicket(dto, new Cliente());
@@ -141,7 +218,7 @@ class TicketServiceTest {
 
         Categoria cat = new Categoria();
         cat.setStato(true);
-        when(categoriaRepository.findById(anyLong())).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(anyLong())).thenReturn(Optional.of(cat));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.addTicket(dto, new Cliente());
@@ -162,7 +239,7 @@ class TicketServiceTest {
         catInattiva.setID_C(1);
         catInattiva.setStato(false); //
 
-        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(catInattiva));
+        when(categoriaService.getCategoria(1L)).thenReturn(Optional.of(catInattiva));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.addTicket(dto, new Cliente());
@@ -184,7 +261,7 @@ class TicketServiceTest {
         Categoria cat = new Categoria();
         cat.setStato(true);
 
-        when(categoriaRepository.findById(anyLong())).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(anyLong())).thenReturn(Optional.of(cat));
 
         ticketService.addTicket(dto, new Cliente());
 
@@ -201,7 +278,7 @@ class TicketServiceTest {
         Categoria cat = new Categoria();
         cat.enable();
 
-        when(categoriaRepository.findById(anyLong())).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(anyLong())).thenReturn(Optional.of(cat));
 
         ticketService.addTicket(dto, new Cliente());
 
@@ -219,7 +296,7 @@ class TicketServiceTest {
         Categoria cat = new Categoria();
         cat.setStato(true);
 
-        when(categoriaRepository.findById(anyLong())).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(anyLong())).thenReturn(Optional.of(cat));
 
         ticketService.addTicket(dto, new Cliente());
 
@@ -237,7 +314,7 @@ class TicketServiceTest {
         catAttiva.setID_C(1);
         catAttiva.setStato(true);
 
-        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(catAttiva));
+        when(categoriaService.getCategoria(1L)).thenReturn(Optional.of(catAttiva));
 
         ticketService.addTicket(dto, new Cliente());
 
@@ -259,7 +336,7 @@ class TicketServiceTest {
         Categoria cat = new Categoria();
         cat.setStato(true);
 
-        when(categoriaRepository.findById(anyLong())).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(anyLong())).thenReturn(Optional.of(cat));
 
         ticketService.addTicket(dto, new Cliente());
 
@@ -276,7 +353,7 @@ class TicketServiceTest {
 
         Categoria cat = new Categoria();
         cat.enable();
-        when(categoriaRepository.findById(anyLong())).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(anyLong())).thenReturn(Optional.of(cat));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.addTicket(dto, new Cliente());
@@ -298,7 +375,7 @@ class TicketServiceTest {
 
         Categoria cat = new Categoria();
         cat.enable();
-        when(categoriaRepository.findById(anyLong())).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(anyLong())).thenReturn(Optional.of(cat));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.addTicket(dto, new Cliente());
@@ -320,13 +397,58 @@ class TicketServiceTest {
 
         Categoria cat = new Categoria();
         cat.enable();
-        when(categoriaRepository.findById(1L)).thenReturn(Optional.of(cat));
+        when(categoriaService.getCategoria(1L)).thenReturn(Optional.of(cat));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.addTicket(dto, new Cliente());
         });
 
         assertEquals("Allegato troppo grande", exception.getMessage());
+        verify(allegatoStorage, never()).store(any(), any());
+        verify(ticketRepository, never()).save(any(Ticket.class));
+    }
+
+    @Test
+    void addTicket_AllegatoDiTesto_SalvatoCompresso() throws IOException {
+        TicketDTO dto = new TicketDTO();
+        dto.setIdCategoria(1L);
+        dto.setTitolo("Titolo Valido");
+        dto.setDescrizione("Descrizione valida");
+        dto.setFileAllegato(new MockMultipartFile("file", "errori.log.txt", "text/plain", "riga di log\n".getBytes()));
+
+        Categoria cat = new Categoria();
+        cat.enable();
+        when(categoriaService.getCategoria(1L)).thenReturn(Optional.of(cat));
+        when(allegatoStorage.store(any(), eq(Codifica.GZIP))).thenReturn("b".repeat(64));
+
+        ticketService.addTicket(dto, new Cliente());
+
+        verify(allegatoRepository).registraRiferimento("b".repeat(64), 12L, "GZIP");
+    }
+
+    @Test
+    void addTicket_ContenutoNonCorrispondeAllEstensione_LanciaEccezione() throws IOException {
+        TicketDTO dto = new TicketDTO();
+        dto.setIdCategoria(1L);
+        dto.setTitolo("Titolo Valido");
+        dto.setDescrizione("Descrizione valida");
+        // Un eseguibile rinominato in .jpg: l'estensione è ammessa ma la firma no
+        dto.setFileAllegato(new MockMultipartFile("file", "foto.jpg", "image/jpeg", new byte[]{'M', 'Z', 0, 0}));
+
+        Categoria cat = new Categoria();
+        cat.enable();
+        when(categoriaService.getCategoria(1L)).thenReturn(Optional.of(cat));
+        when(allegatoStorage.store(any(), any())).thenAnswer(inv -> {
+            inv.getArgument(0, InputStream.class).readAllBytes();
+            return "a".repeat(64);
+        });
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            ticketService.addTicket(dto, new Cliente());
+        });
+
+        assertEquals("Formato allegato non valido", exception.getMessage());
+        verify(allegatoRepository, never()).registraRiferimento(any(), anyLong(), any());
         verify(ticketRepository, never()).save(any(Ticket.class));
     }
 
@@ -334,15 +456,64 @@ class TicketServiceTest {
     @Test
     void assignTicket_Successo() {
         Long ticketId = 1L;
-        Ticket ticket = new Ticket();
-        ticket.setStato(Stato.APERTO);
         Operatore op = new Operatore();
 
-        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.assegna(eq(ticketId), eq(op), any(LocalDateTime.class))).thenReturn(1);
 
         ticketService.assignTicket(ticketId, op);
 
-        verify(ticketRepository).save(ticket);
+        verify(ticketRepository).assegna(eq(ticketId), eq(op), any(LocalDateTime.class));
+        verify(ticketRepository, never()).existsById(any());
+        verify(codaTicketAperti).rimuovi(ticketId);
+    }
+
+    @Test
+    void prendiProssimoTicket_Successo() {
+        Operatore op = new Operatore();
+        TicketCodaDTO voce = new TicketCodaDTO(7L, LocalDateTime.now(), 1L);
+        when(codaTicketAperti.preleva()).thenReturn(voce);
+        when(ticketRepository.assegna(eq(7L), eq(op), any(LocalDateTime.class))).thenReturn(1);
+
+        assertEquals(7L, ticketService.prendiProssimoTicket(op));
+        verify(codaTicketAperti).ripristinaSeAnnullata(voce);
+        verify(ticketRepository, never()).findPaginaByStato(any(), any(), any(), any());
+    }
+
+    @Test
+    void prendiProssimoTicket_ScartaVociNonPiuAperte() {
+        Operatore op = new Operatore();
+        when(codaTicketAperti.preleva()).thenReturn(
+                new TicketCodaDTO(1L, LocalDateTime.now(), 1L),
+                new TicketCodaDTO(2L, LocalDateTime.now(), 1L));
+        when(ticketRepository.assegna(eq(1L), eq(op), any())).thenReturn(0);
+        when(ticketRepository.assegna(eq(2L), eq(op), any())).thenReturn(1);
+
+        assertEquals(2L, ticketService.prendiProssimoTicket(op));
+    }
+
+    @Test
+    void prendiProssimoTicket_ErroreAssegnazione_VoceRipristinata() {
+        Operatore op = new Operatore();
+        TicketCodaDTO voce = new TicketCodaDTO(7L, LocalDateTime.now(), 1L);
+        when(codaTicketAperti.preleva()).thenReturn(voce);
+        when(ticketRepository.assegna(eq(7L), eq(op), any(LocalDateTime.class))).thenThrow(new IllegalStateException("db"));
+
+        assertThrows(IllegalStateException.class, () -> ticketService.prendiProssimoTicket(op));
+
+        verify(codaTicketAperti).ripristina(voce);
+        verify(codaTicketAperti, never()).ripristinaSeAnnullata(any());
+    }
+
+    @Test
+    void prendiProssimoTicket_CodaVuota_Fallimento() {
+        when(codaTicketAperti.preleva()).thenReturn(null);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            ticketService.prendiProssimoTicket(new Operatore());
+        });
+
+        assertEquals("Nessun ticket disponibile", exception.getMessage());
+        verify(ticketRepository, never()).assegna(any(), any(), any());
     }
 
 
@@ -350,96 +521,86 @@ class TicketServiceTest {
     @Test
     void assignTicket_Fallimento_StatoNonAperto() {
         Long ticketId = 1L;
-        Ticket ticket = new Ticket();
-        ticket.setStato(Stato.RISOLTO);
 
-        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.assegna(eq(ticketId), any(), any())).thenReturn(0);
+        when(ticketRepository.existsById(ticketId)).thenReturn(true);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.assignTicket(ticketId, new Operatore());
         });
 
         assertEquals("Ticket in stato non valido", exception.getMessage());
-
-        verify(ticketRepository, never()).save(any());
     }
 
     @Test
     void assignTicket_TicketInesistente_Fallimento() {
         Long ticketId = 999L;
-        when(ticketRepository.findById(ticketId)).thenReturn(Optional.empty());
+        when(ticketRepository.assegna(eq(ticketId), any(), any())).thenReturn(0);
+        when(ticketRepository.existsById(ticketId)).thenReturn(false);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.assignTicket(ticketId, new Operatore());
         });
 
         assertEquals("Ticket non trovato", exception.getMessage());
-        verify(ticketRepository, never()).save(any());
     }
 
     @Test
     void assignTicket_OperatoreNull_Fallimento() {
         Long ticketId = 1L;
-        Ticket ticket = new Ticket();
-        ticket.setStato(Stato.APERTO);
-
-        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.assignTicket(ticketId, null);
         });
 
         assertEquals("Operatore non valido", exception.getMessage());
-        verify(ticketRepository, never()).save(any());
+        verify(ticketRepository, never()).assegna(any(), any(), any());
     }
 
     @Test
     void resolveTicket_Successo() {
         Long ticketId = 1L;
-        Ticket ticket = new Ticket();
-        ticket.setStato(Stato.IN_CORSO);
 
-        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.risolvi(eq(ticketId), any(LocalDateTime.class))).thenReturn(1);
 
         ticketService.resolveTicket(ticketId);
 
-        verify(ticketRepository).save(ticket);
+        verify(ticketRepository).risolvi(eq(ticketId), any(LocalDateTime.class));
     }
 
     @Test
     void releaseTicket_TicketInesistente_Fallimento() {
         Long ticketId = 1L;
 
-        when(ticketRepository.findById(ticketId)).thenReturn(Optional.empty());
+        when(ticketRepository.findIdOperatoreById(ticketId)).thenReturn(null);
+        when(ticketRepository.existsById(ticketId)).thenReturn(false);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.releaseTicket(ticketId);
         });
 
         assertEquals("Ticket non trovato", exception.getMessage());
-        verify(ticketRepository, never()).save(any());
     }
 
     @Test
     void resolveTicket_Fallimento_StatoNonAssegnato() {
         Long ticketId = 1L;
-        Ticket ticket = new Ticket();
-        ticket.setStato(Stato.ANNULLATO);
 
-        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.risolvi(eq(ticketId), any())).thenReturn(0);
+        when(ticketRepository.existsById(ticketId)).thenReturn(true);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.resolveTicket(ticketId);
         });
 
         assertEquals("Ticket in stato non valido", exception.getMessage());
-        verify(ticketRepository, never()).save(any());
     }
 
     @Test
     void resolveTicket_TicketInesistente_Fallimento() {
         Long ticketId = 1L;
-        when(ticketRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(ticketRepository.risolvi(anyLong(), any())).thenReturn(0);
+        when(ticketRepository.existsById(anyLong())).thenReturn(false);
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.resolveTicket(ticketId);
         });
@@ -450,7 +611,8 @@ class TicketServiceTest {
     @Test
     void deleteTicket_TicketInesistente_Fallimento() {
         Long ticketId = 1L;
-        when(ticketRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(ticketRepository.annulla(anyLong(), any())).thenReturn(0);
+        when(ticketRepository.existsById(anyLong())).thenReturn(false);
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.deleteTicket(ticketId);
         });
@@ -461,76 +623,245 @@ class TicketServiceTest {
     @Test
     void deleteTicket_Successo() {
         Long ticketId = 1L;
-        Ticket ticket = new Ticket();
-        ticket.setStato(Stato.APERTO);
 
-        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.annulla(eq(ticketId), any(LocalDateTime.class))).thenReturn(1);
 
         ticketService.deleteTicket(ticketId);
 
-        verify(ticketRepository).save(ticket);
+        verify(ticketRepository).annulla(eq(ticketId), any(LocalDateTime.class));
     }
 
     @Test
     void deleteTicket_Fallimento_StatoNonAssegnato() {
         Long ticketId = 1L;
-        Ticket ticket = new Ticket();
-        ticket.setStato(Stato.RISOLTO);
 
-        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.annulla(eq(ticketId), any())).thenReturn(0);
+        when(ticketRepository.existsById(ticketId)).thenReturn(true);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.deleteTicket(ticketId);
         });
 
         assertEquals("Ticket in stato non valido", exception.getMessage());
-        verify(ticketRepository, never()).save(any());
+    }
+
+    @Test
+    void annullaTicket_UnaUpdateSoloPerGliApertiDelBlocco() {
+        List<Long> ids = List.of(1L, 2L, 3L, 2L);
+        when(ticketRepository.findStatoByIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new StatoTicketDTO(1L, Stato.APERTO.name(), null),
+                new StatoTicketDTO(2L, Stato.APERTO.name(), null),
+                new StatoTicketDTO(3L, Stato.RISOLTO.name(), 7L)));
+        when(ticketRepository.annullaTutti(eq(List.of(1L, 2L)), any(LocalDateTime.class))).thenReturn(2);
+
+        assertEquals(2, ticketService.annullaTicket(ids));
+
+        verify(codaTicketAperti).rimuoviTutti(List.of(1L, 2L));
+        verify(ticketRepository, never()).annulla(anyLong(), any());
+        // Nella outbox finiscono solo i ticket annullati da questa UPDATE, scelti per ID e non per data
+        verify(eventoTicketRepository).registra(eq(TipoEvento.ANNULLATO.name()), eq(List.of(1L, 2L)), any(LocalDateTime.class));
+    }
+
+    @Test
+    void annullaTicket_NessunTicketAperto_NessunaModifica() {
+        when(ticketRepository.findStatoByIdIn(List.of(3L))).thenReturn(List.of(new StatoTicketDTO(3L, Stato.IN_CORSO.name(), 7L)));
+
+        assertEquals(0, ticketService.annullaTicket(List.of(3L)));
+
+        verify(ticketRepository, never()).annullaTutti(any(), any());
+        verify(eventoTicketRepository, never()).registra(anyString(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void resolveTicket_PubblicaEvento() {
+        when(ticketRepository.risolvi(eq(4L), any(LocalDateTime.class))).thenReturn(1);
+
+        ticketService.resolveTicket(4L);
+
+        ArgumentCaptor<TicketEvento> evento = ArgumentCaptor.forClass(TicketEvento.class);
+        verify(eventPublisher).publishEvent(evento.capture());
+        assertEquals(TipoEvento.RISOLTO, evento.getValue().getTipo());
+        assertEquals(List.of(4L), evento.getValue().getIds());
+    }
+
+    @Test
+    void resolveTicket_RegistraEventoNellaOutbox() {
+        ArgumentCaptor<LocalDateTime> data = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(ticketRepository.risolvi(eq(4L), data.capture())).thenReturn(1);
+
+        ticketService.resolveTicket(4L);
+
+        // Stessa data della transizione: i consumatori ne ricavano i tempi di risoluzione
+        verify(eventoTicketRepository).registra(TipoEvento.RISOLTO.name(), List.of(4L), data.getValue());
+    }
+
+    @Test
+    void resolveTicket_TransizioneFallita_NessunaRigaNellaOutbox() {
+        when(ticketRepository.risolvi(eq(4L), any(LocalDateTime.class))).thenReturn(0);
+        when(ticketRepository.existsById(4L)).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> ticketService.resolveTicket(4L));
+
+        verifyNoInteractions(eventoTicketRepository);
+    }
+
+    @Test
+    void releaseTicket_EventoNellaOutboxConOperatorePrecedente() {
+        when(ticketRepository.findIdOperatoreById(1L)).thenReturn(7L);
+        when(ticketRepository.rilascia(1L, 7L)).thenReturn(1);
+
+        ticketService.releaseTicket(1L);
+
+        // L'operatore viene letto prima della UPDATE, che lo toglie dal ticket
+        var ordine = inOrder(ticketRepository, eventoTicketRepository);
+        ordine.verify(ticketRepository).findIdOperatoreById(1L);
+        ordine.verify(ticketRepository).rilascia(1L, 7L);
+        ordine.verify(eventoTicketRepository).registraRilasciati(eq(List.of(1L)), eq(7L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void releaseTicket_EventoConDatiDellaRiga() {
+        TicketDTO dto = new TicketDTO(4L, "Stampante", "Non stampa", Stato.APERTO, LocalDateTime.now(), null, null, null, "Hardware");
+        when(ticketRepository.findIdOperatoreById(4L)).thenReturn(7L);
+        when(ticketRepository.rilascia(4L, 7L)).thenReturn(1);
+        when(ticketRepository.findDtoByIdIn(List.of(4L))).thenReturn(List.of(dto));
+
+        ticketService.releaseTicket(4L);
+
+        ArgumentCaptor<TicketEvento> evento = ArgumentCaptor.forClass(TicketEvento.class);
+        verify(eventPublisher).publishEvent(evento.capture());
+        assertEquals(TipoEvento.RILASCIATO, evento.getValue().getTipo());
+        assertEquals("Stampante", evento.getValue().getTicket().get(0).getTitolo());
+        assertEquals("Hardware", evento.getValue().getTicket().get(0).getNomeCategoria());
+    }
+
+    @Test
+    void resolveTicket_TransizioneFallita_NessunEvento() {
+        when(ticketRepository.risolvi(eq(4L), any(LocalDateTime.class))).thenReturn(0);
+        when(ticketRepository.existsById(4L)).thenReturn(true);
+
+        assertThrows(RuntimeException.class, () -> ticketService.resolveTicket(4L));
+
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void transizioneMassiva_EsitoPerOgniTicket() {
+        Operatore operatore = mock(Operatore.class);
+        when(operatore.getId()).thenReturn(7L);
+        List<Long> ids = List.of(1L, 2L, 3L, 4L);
+        when(ticketRepository.findStatoByIdIn(ids)).thenReturn(List.of(
+                new StatoTicketDTO(1L, Stato.IN_CORSO.name(), 7L),
+                new StatoTicketDTO(2L, Stato.IN_CORSO.name(), 8L),
+                new StatoTicketDTO(3L, Stato.APERTO.name(), null)));
+
+        Map<Long, EsitoTransizione> esiti = ticketService.transizioneMassiva(Transizione.RISOLVI, ids, operatore);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), List.copyOf(esiti.keySet()));
+        assertEquals(EsitoTransizione.ESEGUITA, esiti.get(1L));
+        assertEquals(EsitoTransizione.NON_ASSEGNATO, esiti.get(2L));
+        assertEquals(EsitoTransizione.STATO_NON_VALIDO, esiti.get(3L));
+        assertEquals(EsitoTransizione.NON_TROVATO, esiti.get(4L));
+        verify(ticketRepository).risolviTutti(eq(List.of(1L)), eq(operatore), any(LocalDateTime.class));
+        verify(ticketRepository, never()).risolvi(anyLong(), any());
+    }
+
+    @Test
+    void transizioneMassiva_Rilascia_TicketRimessiInCoda() {
+        Operatore operatore = mock(Operatore.class);
+        when(operatore.getId()).thenReturn(7L);
+        List<TicketCodaDTO> voci = List.of(new TicketCodaDTO(1L, LocalDateTime.now(), 1L));
+        when(ticketRepository.findStatoByIdIn(List.of(1L))).thenReturn(List.of(new StatoTicketDTO(1L, Stato.IN_CORSO.name(), 7L)));
+        when(ticketRepository.findCodaByIdIn(List.of(1L))).thenReturn(voci);
+
+        ticketService.transizioneMassiva(Transizione.RILASCIA, List.of(1L, 1L), operatore);
+
+        verify(ticketRepository).rilasciaTutti(List.of(1L), operatore);
+        verify(codaTicketAperti).aggiungiTutti(voci);
+        verify(eventoTicketRepository).registraRilasciati(eq(List.of(1L)), eq(7L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void transizioneMassiva_NessunTicketIdoneo_NessunaUpdate() {
+        Operatore operatore = new Operatore();
+        when(ticketRepository.findStatoByIdIn(List.of(1L))).thenReturn(List.of(new StatoTicketDTO(1L, Stato.RISOLTO.name(), 7L)));
+
+        assertEquals(EsitoTransizione.STATO_NON_VALIDO,
+                ticketService.transizioneMassiva(Transizione.PRENDI, List.of(1L), operatore).get(1L));
+
+        verify(ticketRepository, never()).assegnaTutti(any(), any(), any());
+        verify(codaTicketAperti, never()).rimuoviTutti(any());
     }
 
     @Test
     void releaseTicket_Successo() {
         Long ticketId = 1L;
-        Ticket ticket = new Ticket();
-        ticket.setStato(Stato.IN_CORSO);
-        ticket.setOperatore(new Operatore());
 
-        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        TicketCodaDTO voce = new TicketCodaDTO(ticketId, LocalDateTime.now(), 1L);
+        when(ticketRepository.findIdOperatoreById(ticketId)).thenReturn(7L);
+        when(ticketRepository.rilascia(ticketId, 7L)).thenReturn(1);
+        when(ticketRepository.findCodaById(ticketId)).thenReturn(voce);
 
         ticketService.releaseTicket(ticketId);
 
-        verify(ticketRepository).save(ticket);
+        verify(ticketRepository).rilascia(ticketId, 7L);
+        verify(codaTicketAperti).aggiungi(voce);
     }
 
     @Test
     void releaseTicket_Fallimento_StatoInCorso() {
         Long ticketId = 1L;
-        Ticket ticket = new Ticket();
-        ticket.setStato(Stato.RISOLTO);
 
-        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
+        when(ticketRepository.findIdOperatoreById(ticketId)).thenReturn(7L);
+        when(ticketRepository.rilascia(ticketId, 7L)).thenReturn(0);
+        when(ticketRepository.existsById(ticketId)).thenReturn(true);
 
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
             ticketService.releaseTicket(ticketId);
         });
 
         assertEquals("Ticket in stato non valido", exception.getMessage());
-        verify(ticketRepository, never()).save(any());
     }
 
     @Test
     void getTicketDisponibili_Successo() {
-        ticketService.getTicketDisponibili();
-        verify(ticketRepository).findByStato(Stato.APERTO);
+        ticketService.getTicketDisponibili(null);
+        verify(ticketRepository).findPaginaByStato(eq(Stato.APERTO), any(LocalDateTime.class), anyLong(), eq(Limit.of(TicketImpl.DIMENSIONE_PAGINA + 1)));
+    }
+
+    @Test
+    void getTicketDisponibili_PaginaSuccessiva() {
+        List<TicketDTO> righe = new java.util.ArrayList<>();
+        for (long i = 1; i <= TicketImpl.DIMENSIONE_PAGINA + 1; i++) {
+            TicketDTO t = new TicketDTO();
+            t.setId(i);
+            t.setDataCreazione(LocalDateTime.of(2025, 1, 1, 10, 0).plusMinutes(i));
+            righe.add(t);
+        }
+        when(ticketRepository.findPaginaByStato(eq(Stato.APERTO), any(), anyLong(), any())).thenReturn(righe);
+
+        PaginaTicketDTO pagina = ticketService.getTicketDisponibili(null);
+
+        assertEquals(TicketImpl.DIMENSIONE_PAGINA, pagina.getTicket().size());
+        assertTrue(pagina.hasSuccessiva());
+        CursoreTicket cursore = CursoreTicket.parse(pagina.getCursoreSuccessivo());
+        TicketDTO ultimo = righe.get(TicketImpl.DIMENSIONE_PAGINA - 1);
+        assertEquals(ultimo.getId(), cursore.getId());
+        assertEquals(ultimo.getDataCreazione(), cursore.getDataCreazione());
+
+        ticketService.getTicketDisponibili(cursore);
+        verify(ticketRepository).findPaginaByStato(Stato.APERTO, ultimo.getDataCreazione(), ultimo.getId(), Limit.of(TicketImpl.DIMENSIONE_PAGINA + 1));
     }
 
     @Test
     void getTicketUtente_Successo() {
         Cliente c = new Cliente();
-        Ticket ticket = new Ticket();
-        ticket.setID_T(1L);
+        TicketDTO ticket = new TicketDTO();
+        ticket.setId(1L);
         ticket.setTitolo("Test DTO");
         ticket.setStato(Stato.APERTO);
-        when(ticketRepository.findByClienteOrderByDataCreazioneDesc(c)).thenReturn(java.util.List.of(ticket));
+        when(ticketRepository.findDtoByCliente(c)).thenReturn(java.util.List.of(ticket));
 
         List<TicketDTO> risultato = ticketService.getTicketUtente(c);
 
@@ -541,15 +872,42 @@ class TicketServiceTest {
     @Test
     void getTicketInCarico_Successo() {
         Operatore op = new Operatore();
-        Ticket ticket = new Ticket();
-        ticket.setID_T(5L);
-        ticket.setTitolo("Ticket Operatore");
+        TicketDTO inCorso = new TicketDTO();
+        inCorso.setId(5L);
+        inCorso.setTitolo("Ticket Operatore");
+        TicketDTO risolto = new TicketDTO();
+        risolto.setId(9L);
+        risolto.setTitolo("Ticket Risolto");
+
+        when(ticketRepository.findPaginaByOperatore(eq(op), eq(Stato.IN_CORSO), any(), anyLong(), eq(Limit.unlimited())))
+                .thenReturn(List.of(inCorso));
+        when(ticketRepository.findPaginaByOperatore(eq(op), eq(Stato.RISOLTO), any(), anyLong(), eq(Limit.of(21))))
+                .thenReturn(List.of(risolto));
+
+        PaginaTicketDTO risultato = ticketService.getTicketInCarico(op, null);
 
-        when(ticketRepository.findByOperatore(op)).thenReturn(List.of(ticket));
+        assertEquals(List.of(inCorso, risolto), risultato.getTicket());
+        assertFalse(risultato.hasSuccessiva());
+    }
+
+    @Test
+    void getTicketInCarico_PaginaSuccessiva_SoloStorico() {
+        Operatore op = new Operatore();
+        CursoreTicket cursore = CursoreTicket.primaPagina(true);
+        List<TicketDTO> risolti = new ArrayList<>();
+        for (long i = 0; i < 21; i++) {
+            TicketDTO t = new TicketDTO();
+            t.setId(100 - i);
+            t.setDataCreazione(LocalDateTime.of(2025, 1, 1, 0, 0).minusMinutes(i));
+            risolti.add(t);
+        }
+        when(ticketRepository.findPaginaByOperatore(eq(op), eq(Stato.RISOLTO), any(), anyLong(), any())).thenReturn(risolti);
 
-        List<TicketDTO> risultato = ticketService.getTicketInCarico(op);
+        PaginaTicketDTO risultato = ticketService.getTicketInCarico(op, cursore);
 
-        verify(ticketRepository).findByOperatore(op);
+        assertEquals(20, risultato.getTicket().size());
+        assertTrue(risultato.hasSuccessiva());
+        verify(ticketRepository, never()).findPaginaByOperatore(any(), eq(Stato.IN_CORSO), any(), any(), any());
     }
 
     @Test
@@ -575,28 +933,28 @@ class TicketServiceTest {
         Cliente mockCliente = new Cliente();
         mockCliente.setEmail("cliente@test.it");
         Stato stato = Stato.APERTO;
-        String ordine = "dataCreazione";
+        String ordine = "asc";
 
-        Ticket t1 = new Ticket();
-        t1.setID_T(1L);
+        TicketDTO t1 = new TicketDTO();
+        t1.setId(1L);
         t1.setTitolo("Ticket 1");
 
-        Ticket t2 = new Ticket();
-        t2.setID_T(2L);
+        TicketDTO t2 = new TicketDTO();
+        t2.setId(2L);
         t2.setTitolo("Ticket 2");
 
-        List<Ticket> listaTicket = List.of(t1, t2);
+        List<TicketDTO> listaTicket = List.of(t1, t2);
 
-        when(ticketRepository.findByClienteAndOptionalStato(mockCliente, stato, ordine))
+        when(ticketRepository.findPaginaByCliente(eq(mockCliente), eq(stato), eq(false), any(), anyLong(), any()))
                 .thenReturn(listaTicket);
 
-        List<TicketDTO> result = ticketService.getTicketUtenteFiltrati(mockCliente, stato, ordine);
+        List<TicketDTO> result = ticketService.getTicketUtenteFiltrati(mockCliente, stato, ordine, null).getTicket();
 
         assertNotNull(result);
         assertEquals(2, result.size());
         assertEquals("Ticket 1", result.get(0).getTitolo());
         assertEquals("Ticket 2", result.get(1).getTitolo());
 
-        verify(ticketRepository).findByClienteAndOptionalStato(mockCliente, stato, ordine);
+        verify(ticketRepository).findPaginaByCliente(eq(mockCliente), eq(stato), eq(false), any(), anyLong(), any());
     }
 }
\ No newline at end of file
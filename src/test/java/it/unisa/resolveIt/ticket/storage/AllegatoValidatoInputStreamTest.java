@@ -0,0 +1,123 @@
+package it.unisa.resolveIt.ticket.storage;
+
+import it.unisa.resolveIt.model.enums.Codifica;
+import it.unisa.resolveIt.common.validation.EstensioneAllegato;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AllegatoValidatoInputStreamTest {
+
+    private static final long LIMITE = 16 * 1024 * 1024;
+    private static final int UN_MEGABYTE = 1024 * 1024;
+
+    @TempDir
+    Path radice;
+
+    @Test
+    void firmaCorretta_ContenutoLettoPerIntero() throws IOException {
+        byte[] jpeg = new byte[10_000];
+        jpeg[0] = (byte) 0xFF;
+        jpeg[1] = (byte) 0xD8;
+        jpeg[2] = (byte) 0xFF;
+
+        try (AllegatoValidatoInputStream in = valida(jpeg, EstensioneAllegato.JPG)) {
+            assertArrayEquals(jpeg, in.readAllBytes());
+            assertEquals(10_000, in.getLetti());
+        }
+    }
+
+    @Test
+    void firmaVerificataAncheLeggendoUnByteAllaVolta() throws IOException {
+        byte[] zip = {'P', 'K', 3, 4, 1, 2, 3};
+
+        try (AllegatoValidatoInputStream in = valida(zip, EstensioneAllegato.ZIP)) {
+            for (byte atteso : zip) {
+                assertEquals(atteso & 0xFF, in.read());
+            }
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void firmaErrata_InterrottoAlPrimoBlocco() throws IOException {
+        byte[] falsoZip = new byte[UN_MEGABYTE];
+        Arrays.fill(falsoZip, (byte) 'A');
+        ContaLetture sorgente = new ContaLetture(falsoZip);
+
+        try (InputStream in = new AllegatoValidatoInputStream(sorgente, EstensioneAllegato.ZIP, LIMITE)) {
+            AllegatoNonValidoException e = assertThrows(AllegatoNonValidoException.class, in::readAllBytes);
+            assertEquals("Formato allegato non valido", e.getMessage());
+        }
+        assertTrue(sorgente.letti <= 16 * 1024, "Letti " + sorgente.letti + " byte prima del rifiuto");
+    }
+
+    @Test
+    void fileTroppoCortoPerLaFirma_Rifiutato() {
+        assertThrows(AllegatoNonValidoException.class, () -> valida(new byte[]{(byte) 0xFF}, EstensioneAllegato.JPEG).readAllBytes());
+    }
+
+    @Test
+    void testoConByteBinari_Rifiutato() throws IOException {
+        byte[] testo = "Log dell'errore\r\n\tè riga due\n".getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(testo, valida(testo, EstensioneAllegato.TXT).readAllBytes());
+
+        byte[] binario = {'c', 'i', 'a', 'o', 0, 1};
+        assertThrows(AllegatoNonValidoException.class, () -> valida(binario, EstensioneAllegato.TXT).readAllBytes());
+    }
+
+    @Test
+    void limiteSuperato_Rifiutato() {
+        byte[] testo = new byte[101];
+        Arrays.fill(testo, (byte) 'a');
+
+        InputStream in = new AllegatoValidatoInputStream(new ByteArrayInputStream(testo), EstensioneAllegato.TXT, 100);
+        AllegatoNonValidoException e = assertThrows(AllegatoNonValidoException.class, in::readAllBytes);
+        assertEquals("Allegato troppo grande", e.getMessage());
+    }
+
+    @Test
+    void rifiutoDuranteStore_NessunFileRimasto() throws IOException {
+        FileSystemAllegatoStorage storage = new FileSystemAllegatoStorage(radice);
+        storage.init();
+
+        assertThrows(AllegatoNonValidoException.class,
+                () -> storage.store(valida("non sono un jpeg".getBytes(), EstensioneAllegato.JPG), Codifica.NESSUNA));
+
+        try (var file = Files.walk(radice)) {
+            assertEquals(0, file.filter(Files::isRegularFile).count());
+        }
+    }
+
+    private AllegatoValidatoInputStream valida(byte[] contenuto, EstensioneAllegato estensione) {
+        return new AllegatoValidatoInputStream(new ByteArrayInputStream(contenuto), estensione, LIMITE);
+    }
+
+    // Conta i byte effettivamente letti dalla sorgente, per verificare l'interruzione anticipata
+    private static class ContaLetture extends ByteArrayInputStream {
+
+        private long letti;
+
+        ContaLetture(byte[] contenuto) {
+            super(contenuto);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                letti += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package it.unisa.resolveIt.ticket.storage;
+
+import it.unisa.resolveIt.model.enums.Codifica;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemAllegatoStorageTest {
+
+    @TempDir
+    Path radice;
+
+    private FileSystemAllegatoStorage storage;
+
+    @BeforeEach
+    void setup() throws IOException {
+        storage = new FileSystemAllegatoStorage(radice);
+        storage.init();
+    }
+
+    @Test
+    void store_ContenutoIndirizzatoTramiteHash() throws IOException {
+        String chiave = storage.store(new ByteArrayInputStream("contenuto".getBytes()), Codifica.NESSUNA);
+
+        assertEquals(64, chiave.length());
+        assertTrue(storage.exists(chiave));
+        assertEquals(9L, storage.size(chiave));
+    }
+
+    @Test
+    void store_ContenutiIdenticiSalvatiUnaVolta() throws IOException {
+        String prima = storage.store(new ByteArrayInputStream("stesso file".getBytes()), Codifica.NESSUNA);
+        String seconda = storage.store(new ByteArrayInputStream("stesso file".getBytes()), Codifica.NESSUNA);
+
+        assertEquals(prima, seconda);
+        try (var file = Files.walk(radice)) {
+            assertEquals(1, file.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void transferTo_CopiaLaPorzioneRichiesta() throws IOException {
+        String chiave = storage.store(new ByteArrayInputStream("0123456789".getBytes()), Codifica.NESSUNA);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long trasferiti = storage.transferTo(chiave, 2, 5, Channels.newChannel(out));
+
+        assertEquals(5, trasferiti);
+        assertEquals("23456", out.toString());
+    }
+
+    @Test
+    void store_Gzip_SalvatoCompressoConHashDelContenutoOriginale() throws Exception {
+        byte[] log = "2026-01-01 ERRORE connessione rifiutata\n".repeat(1000).getBytes();
+
+        String compresso = storage.store(new ByteArrayInputStream(log), Codifica.GZIP);
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(log)), compresso);
+        assertTrue(storage.size(compresso) < log.length / 10, "Dimensione salvata: " + storage.size(compresso));
+        try (InputStream in = new GZIPInputStream(storage.open(compresso))) {
+            assertArrayEquals(log, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void chiaveNonValida_LanciaEccezione() {
+        assertThrows(IllegalArgumentException.class, () -> storage.exists("../../etc/passwd"));
+    }
+}